@@ -1,19 +1,26 @@
 package org.wavelabs.soundscope.app;
 
 import java.awt.Dimension;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.WindowConstants;
 
 import org.wavelabs.soundscope.data_access.AcoustIDIdentify;
+import org.wavelabs.soundscope.data_access.CachingIdentify;
 import org.wavelabs.soundscope.data_access.FileDAO;
 import org.wavelabs.soundscope.data_access.JavaSoundAudioFileGateway;
 import org.wavelabs.soundscope.data_access.JavaSoundPlaybackGateway;
+import org.wavelabs.soundscope.data_access.LocalIndexIdentify;
+import org.wavelabs.soundscope.data_access.PcmCache;
 import org.wavelabs.soundscope.entity.Song;
 import org.wavelabs.soundscope.infrastructure.ByteArrayFileSaver;
 import org.wavelabs.soundscope.infrastructure.JavaMicRecorder;
 import org.wavelabs.soundscope.interface_adapter.MainViewModel;
+import org.wavelabs.soundscope.interface_adapter.early_identify.EarlyIdentifyController;
+import org.wavelabs.soundscope.interface_adapter.early_identify.EarlyIdentifyPresenter;
 import org.wavelabs.soundscope.interface_adapter.fingerprint.FingerprintController;
 import org.wavelabs.soundscope.interface_adapter.fingerprint.FingerprintPresenter;
 import org.wavelabs.soundscope.interface_adapter.identify.IdentifyController;
@@ -23,6 +30,8 @@ import org.wavelabs.soundscope.interface_adapter.play_recording.PlayRecordingPre
 import org.wavelabs.soundscope.interface_adapter.process_audio_file.ProcessAudioFileController;
 import org.wavelabs.soundscope.interface_adapter.save_file.SaveRecordingController;
 import org.wavelabs.soundscope.interface_adapter.save_file.SaveRecordingPresenter;
+import org.wavelabs.soundscope.interface_adapter.segment_identify.SegmentIdentifyController;
+import org.wavelabs.soundscope.interface_adapter.segment_identify.SegmentIdentifyPresenter;
 import org.wavelabs.soundscope.interface_adapter.start_recording.RecordingPresenter;
 import org.wavelabs.soundscope.interface_adapter.start_recording.StartRecordingController;
 import org.wavelabs.soundscope.interface_adapter.stop_recording.StopRecordingController;
@@ -33,9 +42,14 @@ import org.wavelabs.soundscope.interface_adapter.visualize_waveform.WaveformView
 import org.wavelabs.soundscope.use_case.display_recording_waveform.DisplayRecordingWaveform;
 import org.wavelabs.soundscope.use_case.display_recording_waveform.DisplayRecordingWaveformIB;
 import org.wavelabs.soundscope.use_case.display_recording_waveform.DisplayRecordingWaveformOB;
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyIB;
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyInteractor;
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyOB;
 import org.wavelabs.soundscope.use_case.fingerprint.FingerprintIB;
 import org.wavelabs.soundscope.use_case.fingerprint.FingerprintInteractor;
 import org.wavelabs.soundscope.use_case.fingerprint.FingerprintOB;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprinterPool;
+import org.wavelabs.soundscope.use_case.fingerprint.SegmentFingerprinter;
 import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
 import org.wavelabs.soundscope.use_case.identify.IdentifyIB;
 import org.wavelabs.soundscope.use_case.identify.IdentifyInteractor;
@@ -49,6 +63,9 @@ import org.wavelabs.soundscope.use_case.process_audio_file.ProcessAudioFileOB;
 import org.wavelabs.soundscope.use_case.save_recording.SaveRecording;
 import org.wavelabs.soundscope.use_case.save_recording.SaveRecordingIB;
 import org.wavelabs.soundscope.use_case.save_recording.SaveRecordingOB;
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyIB;
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyInteractor;
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyOB;
 import org.wavelabs.soundscope.use_case.start_recording.RecordingOB;
 import org.wavelabs.soundscope.use_case.start_recording.StartRecording;
 import org.wavelabs.soundscope.use_case.start_recording.StartRecordingIB;
@@ -69,8 +86,15 @@ public class AppBuilder {
     private WaveformViewModel waveformViewModel;
 
     private JPanel mainPanel;
-    private final FileDAO fileDAO = new FileDAO();
+    // Decoded files, shared by the waveform, fingerprint and playback gateways
+    private final PcmCache pcmCache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+    private final FileDAO fileDAO = new FileDAO(pcmCache);
+    // Chromaprint contexts, shared by the fingerprint and segment identify use cases
+    private final FingerprinterPool fingerprinterPool =
+        new FingerprinterPool(Runtime.getRuntime().availableProcessors());
     private Song song = new Song();
+    private IdentifyDAI cachingIdentifier;
+    private IdentifyDAI sharedIdentifier;
 
     /**
      * Constructs a new AppBuilder instance.
@@ -78,6 +102,33 @@ public class AppBuilder {
     public AppBuilder() {
     }
 
+    /**
+     * Returns AcoustID behind the identification cache, without the local fingerprint index.
+     * Use cases that look up part of a recording use it, so the part is not indexed as a track.
+     *
+     * @return the caching identifier
+     */
+    private IdentifyDAI getCachingIdentifier() {
+        if (cachingIdentifier == null) {
+            cachingIdentifier = CachingIdentify.withDefaultCache(AcoustIDIdentify.getAcoustIDIdentify());
+        }
+        return cachingIdentifier;
+    }
+
+    /**
+     * Returns the identifier shared by the identify use cases: the local fingerprint index,
+     * falling back to AcoustID behind the identification cache. Only AcoustID answers are cached,
+     * so a wrong local match is not remembered for the life of the cache.
+     *
+     * @return the shared identifier
+     */
+    private IdentifyDAI getIdentifier() {
+        if (sharedIdentifier == null) {
+            sharedIdentifier = LocalIndexIdentify.withDefaultIndex(getCachingIdentifier());
+        }
+        return sharedIdentifier;
+    }
+
     /**
      * This function adds the main view, which encapsulates all views to the app.
      *
@@ -116,7 +167,7 @@ public class AppBuilder {
     public AppBuilder addPlayUseCase() {
         final PlayRecordingOB playRecordingOutput = new PlayRecordingPresenter(mainViewModel);
         final PlayRecordingIB playRecordingInteractor =
-            new PlayRecording(new JavaSoundPlaybackGateway(), playRecordingOutput);
+            new PlayRecording(new JavaSoundPlaybackGateway(pcmCache), playRecordingOutput);
 
         final PlayRecordingController playRecordingController = new PlayRecordingController(playRecordingInteractor);
         mainView.setPlayRecordingController(playRecordingController);
@@ -181,7 +232,8 @@ public class AppBuilder {
     public AppBuilder addFingerprintUseCase() {
         final FingerprintOB fingerprintOutputBoundary = new FingerprintPresenter(mainViewModel);
         final FingerprintIB
-            fingerprintInteractor = new FingerprintInteractor(fileDAO, song, fingerprintOutputBoundary);
+            fingerprintInteractor = new FingerprintInteractor(fileDAO, song, fingerprintOutputBoundary,
+                fingerprinterPool);
         final FingerprintController fingerprintController = new FingerprintController(fingerprintInteractor);
         mainView.setFingerprintController(fingerprintController);
         return this;
@@ -196,11 +248,18 @@ public class AppBuilder {
     public AppBuilder addProcessAudioFileUseCase() {
         final ProcessAudioFileOB processAudioFileOB = new WaveformPresenter(waveformViewModel);
         // TODO: should this be renamed to a ProcessAudioFilePresenter?
-        final ProcessAudioFileIB processAudioFileInteractor =
-            new ProcessAudioFile(new JavaSoundAudioFileGateway(), processAudioFileOB);
+        // Large files are read in the background, so their waveform can be shown as it comes in
+        final ExecutorService processAudioFileWorker = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "process-audio-file");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final ProcessAudioFileIB processAudioFileInteractor = new ProcessAudioFile(
+            new JavaSoundAudioFileGateway(pcmCache), processAudioFileOB, processAudioFileWorker);
 
+        // Loading for fingerprinting and playback waits for the waveform pass on the same worker
         final ProcessAudioFileController processAudioFileController =
-            new ProcessAudioFileController(processAudioFileInteractor, fileDAO);
+            new ProcessAudioFileController(processAudioFileInteractor, fileDAO, processAudioFileWorker);
         mainView.setProcessAudioFileController(processAudioFileController);
         return this;
     }
@@ -212,7 +271,7 @@ public class AppBuilder {
      * @return the AppBuilder instance for method chaining
      */
     public AppBuilder addIdentifyUseCase() {
-        final IdentifyDAI identifier = AcoustIDIdentify.getAcoustIDIdentify();
+        final IdentifyDAI identifier = getIdentifier();
         final IdentifyOB identifyOutputBoundary = new IdentifyPresenter(mainViewModel);
         final IdentifyIB identifyInteractor = new IdentifyInteractor(song, identifyOutputBoundary, identifier);
 
@@ -221,6 +280,58 @@ public class AppBuilder {
         return this;
     }
 
+    /**
+     * Adds the early identification use case to the application.
+     * Identifies recordings while they are captured, at the default checkpoints,
+     * and stops recording once a match is confident enough.
+     *
+     * @return the AppBuilder instance for method chaining
+     */
+    public AppBuilder addEarlyIdentifyUseCase() {
+        return addEarlyIdentifyUseCase(EarlyIdentifyInteractor.DEFAULT_CHECKPOINT_SECONDS,
+            EarlyIdentifyInteractor.DEFAULT_SCORE_THRESHOLD);
+    }
+
+    /**
+     * Adds the early identification use case to the application. The first seconds of a
+     * recording are looked up without the local fingerprint index, so they are not indexed as
+     * whole tracks.
+     *
+     * @param checkpointSeconds seconds of recorded audio at which to look up, in ascending order
+     * @param scoreThreshold minimum match score, from 0 to 1, that stops the recording
+     * @return the AppBuilder instance for method chaining
+     */
+    public AppBuilder addEarlyIdentifyUseCase(int[] checkpointSeconds, double scoreThreshold) {
+        final IdentifyDAI identifier = getCachingIdentifier();
+        final EarlyIdentifyOB earlyIdentifyOutputBoundary = new EarlyIdentifyPresenter(mainViewModel);
+        final EarlyIdentifyIB earlyIdentifyInteractor = new EarlyIdentifyInteractor(
+            fileDAO, identifier, song, earlyIdentifyOutputBoundary, checkpointSeconds, scoreThreshold);
+
+        final EarlyIdentifyController earlyIdentifyController =
+            new EarlyIdentifyController(earlyIdentifyInteractor);
+        mainView.setEarlyIdentifyController(earlyIdentifyController);
+        return this;
+    }
+
+    /**
+     * Adds the Segment Identify Use Case, which finds every song in a long recording. Segments
+     * go straight to AcoustID: a window overlapping the previous one would otherwise match it in
+     * the local fingerprint index, and partial windows should not be indexed as whole tracks.
+     *
+     * @return this builder
+     */
+    public AppBuilder addSegmentIdentifyUseCase() {
+        final SegmentIdentifyOB segmentIdentifyOutputBoundary = new SegmentIdentifyPresenter(mainViewModel);
+        final SegmentIdentifyIB segmentIdentifyInteractor = new SegmentIdentifyInteractor(
+            fileDAO, AcoustIDIdentify.getAcoustIDIdentify(), new SegmentFingerprinter(fingerprinterPool),
+            segmentIdentifyOutputBoundary);
+
+        final SegmentIdentifyController segmentIdentifyController =
+            new SegmentIdentifyController(segmentIdentifyInteractor);
+        mainView.setSegmentIdentifyController(segmentIdentifyController);
+        return this;
+    }
+
     /**
      * Builds and returns the complete application JFrame.
      * Sets up the frame with appropriate size, close operation, and content pane.
@@ -0,0 +1,89 @@
+package org.wavelabs.soundscope.app;
+
+import java.io.File;
+
+import org.wavelabs.soundscope.data_access.AcoustIDIdentify;
+import org.wavelabs.soundscope.data_access.CachingIdentify;
+import org.wavelabs.soundscope.data_access.FileSystemBatchIdentifyGateway;
+import org.wavelabs.soundscope.data_access.LocalIndexIdentify;
+import org.wavelabs.soundscope.interface_adapter.batch_identify.BatchIdentifyController;
+import org.wavelabs.soundscope.interface_adapter.batch_identify.ConsoleBatchIdentifyPresenter;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyIB;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyInteractor;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprinterPool;
+
+/**
+ * Headless entry point that identifies every WAV file under a directory.
+ *
+ * <p>Usage: {@code BatchMain <directory> <report.jsonl|report.csv> [threads]}</p>
+ *
+ * <p>Files are fingerprinted on {@code threads} threads (one per core by
+ * default) and looked up in the local fingerprint index, then through AcoustID.
+ * One result per file is written to the report, as JSON Lines or, for a
+ * {@code .csv} report, as CSV. Progress is printed every second.</p>
+ *
+ * <p>Progress is journaled beside the report until the batch finishes, so
+ * running the same command again after a crash or restart picks up where it
+ * stopped.</p>
+ *
+ * <p>The exit status is 0 if the batch finished, 1 if it reported an error,
+ * and 2 for bad arguments.</p>
+ */
+public final class BatchMain {
+    private static final String USAGE = "Usage: BatchMain <directory> <report.jsonl|report.csv> [threads]";
+
+    private BatchMain() {
+    }
+
+    /**
+     * Runs a batch identification.
+     *
+     * @param args the directory, the report file, and optionally the number of
+     *             fingerprinting threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            exitWithUsage();
+        }
+
+        final File rootDirectory = new File(args[0]);
+        final File reportFile = new File(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == 3) {
+            try {
+                threads = Integer.parseInt(args[2]);
+            }
+            catch (NumberFormatException exception) {
+                exitWithUsage();
+            }
+            if (threads <= 0) {
+                exitWithUsage();
+            }
+        }
+
+        final ConsoleBatchIdentifyPresenter presenter = new ConsoleBatchIdentifyPresenter();
+        try (FingerprinterPool fingerprinterPool = new FingerprinterPool(threads)) {
+            final BatchIdentifyIB interactor = new BatchIdentifyInteractor(
+                new FileSystemBatchIdentifyGateway(),
+                LocalIndexIdentify.withDefaultIndex(
+                    CachingIdentify.withDefaultCache(AcoustIDIdentify.getAcoustIDIdentify())),
+                fingerprinterPool,
+                presenter,
+                threads,
+                BatchIdentifyInteractor.DEFAULT_MAX_PENDING_LOOKUPS);
+
+            new BatchIdentifyController(interactor).execute(rootDirectory, reportFile);
+        }
+
+        // OkHttp keeps idle non-daemon threads alive for a while after the last request
+        if (presenter.isErrorPresented()) {
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
@@ -32,6 +32,7 @@ public class Main {
      *   <li>audio processing</li>
      *   <li>audio fingerprint generation</li>
      *   <li>song identification via fingerprint matching</li>
+     *   <li>early song identification while recording</li>
      * </ul>
      *
      * <p>Once all components are added, {@code build()} returns the main
@@ -51,6 +52,8 @@ public class Main {
                 .addProcessAudioFileUseCase()
                 .addFingerprintUseCase()
                 .addIdentifyUseCase()
+                .addEarlyIdentifyUseCase()
+                .addSegmentIdentifyUseCase()
                 .build();
         application.pack();
         application.setLocationRelativeTo(null);
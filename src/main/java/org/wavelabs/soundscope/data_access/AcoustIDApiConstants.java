@@ -5,11 +5,19 @@ package org.wavelabs.soundscope.data_access;
  */
 public class AcoustIDApiConstants {
     public static final String ACOUST_ID_API_URL = "https://api.acoustid.org/v2/lookup";
-    public static final String METADATA_REQUEST = "recordings+releasegroups+compress";
+    // Sent form-encoded, so the separators are spaces
+    public static final String METADATA_REQUEST = "recordings releasegroups compress";
+
+    public static final String CLIENT_PARAM = "client";
+    public static final String METADATA_PARAM = "meta";
+    public static final String FINGERPRINT_PARAM = "fingerprint.";
+    public static final String DURATION_PARAM = "duration.";
 
     public static final String STATUS_CODE = "status";
     public static final String SUCCESS_CODE = "ok";
     public static final String RESULTS_CODE = "results";
+    public static final String FINGERPRINTS_CODE = "fingerprints";
+    public static final String INDEX_CODE = "index";
     public static final String MATCH_QUALITY_CODE = "score";
     public static final String ACOUST_ID_TRACK_ID_CODE = "id";
     public static final String DURATION_CODE = "duration";
@@ -22,7 +30,30 @@ public class AcoustIDApiConstants {
     public static final String ARTIST_NAME_CODE = "name";
 
     public static final String UNSUCCESSFUL_STATUS_MSG = "Status code unsuccessful";
+    public static final String NO_RESULTS_MSG = "No recordings match this fingerprint";
+    public static final String HTTP_ERROR_MSG = "AcoustID answered with HTTP status %d";
 
-    public static final long REQUEST_SPACING_MILLIS = 1000;
+    // AcoustID asks clients to stay under three requests per second
+    public static final double REQUESTS_PER_SECOND = 3.0;
+    public static final int REQUEST_BURST = 1;
+    public static final String REQUESTS_PER_SECOND_PROPERTY = "soundscope.acoustid.requestsPerSecond";
+    public static final String REQUEST_BURST_PROPERTY = "soundscope.acoustid.requestBurst";
+    // Counted from when a lookup is sent, not from when it is queued
     public static final long REQUEST_TIMEOUT_MILLIS = 10000;
+    public static final long CONNECT_TIMEOUT_MILLIS = 5000;
+    // Requests are spaced out, so a couple of warm connections is enough
+    public static final int MAX_IDLE_CONNECTIONS = 2;
+    public static final long KEEP_ALIVE_MINUTES = 5;
+    public static final int MAX_REQUESTS_IN_FLIGHT = 8;
+
+    // "gzip" compresses the form body; "form" sends it as is
+    public static final String TRANSPORT_PROPERTY = "soundscope.acoustid.transport";
+    public static final String GZIP_TRANSPORT = "gzip";
+    public static final String FORM_TRANSPORT = "form";
+    // Most fingerprints sent in one lookup request
+    public static final int MAX_BATCH_SIZE = 10;
+    // Share of each request given to each priority lane while all of them have lookups waiting
+    public static final int INTERACTIVE_WEIGHT = 16;
+    public static final int BACKGROUND_WEIGHT = 4;
+    public static final int BULK_WEIGHT = 1;
 }
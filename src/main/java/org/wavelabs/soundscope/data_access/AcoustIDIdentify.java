@@ -1,46 +1,124 @@
 package org.wavelabs.soundscope.data_access;
 
 import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.infrastructure.TokenBucketRateLimiter;
+import org.wavelabs.soundscope.infrastructure.WeightedFairQueue;
 import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
 
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.FormBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
 /**
  * Looks up fingerprints using the AcousticID API, and retrieves corresponding song IDs and metadata.
+ *
+ * <p>Lookups are queued and sent by a dispatcher thread, paced by a token bucket at
+ * {@link AcoustIDApiConstants#REQUESTS_PER_SECOND}. Requests are sent asynchronously, so a slow
+ * response does not hold back the ones behind it. Each request carries every fingerprint that
+ * queued up while waiting for a permit, up to {@link AcoustIDApiConstants#MAX_BATCH_SIZE}, and the
+ * results are handed back to each caller.</p>
+ *
+ * <p>Lookups wait in one lane per {@link IdentifyDAI.Priority}. Each request is filled from the
+ * lanes by weighted fair scheduling, so an interactive lookup goes out in the next request even
+ * behind a large bulk job, while bulk and background lookups still get a share of every busy
+ * period.</p>
+ *
+ * <p>A lookup of a fingerprint and duration that is already queued or in flight is not sent
+ * again; the caller shares the pending result instead. If the new caller is in a more urgent lane,
+ * the queued lookup moves up to it.</p>
+ *
+ * <p>A lookup times out {@link AcoustIDApiConstants#REQUEST_TIMEOUT_MILLIS} after it is sent.
+ * Time spent waiting in the queue does not count, so a lookup never times out before it has
+ * used up part of the rate limit.</p>
+ *
+ * <p>Request bodies are gzip-compressed, and connections to the API are kept alive between
+ * requests.</p>
+ *
+ * <p>The rate and burst can be changed with the {@code soundscope.acoustid.requestsPerSecond} and
+ * {@code soundscope.acoustid.requestBurst} system properties, and compression turned off by
+ * setting {@code soundscope.acoustid.transport} to {@code form}.</p>
  */
 public final class AcoustIDIdentify implements IdentifyDAI {
     private static AcoustIDIdentify instance;
 
+    private final String apiUrl;
     private final String acoustIDApiKey;
     private final OkHttpClient client;
-    private final BlockingQueue<QueuedRequest> requestQueue;
-    private final ScheduledExecutorService requestScheduler;
-    private boolean running;
+    private final WeightedFairQueue<QueuedRequest> requestQueue;
+    private final ConcurrentMap<LookupKey, PendingLookup> pendingLookups = new ConcurrentHashMap<>();
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicLong requestsSent = new AtomicLong();
+    private final AtomicLong lookupsSent = new AtomicLong();
+    private final AtomicLong coalescedLookups = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
 
     /**
      * Initializes Identifier.
+     *
+     * @param apiUrl URL of the lookup endpoint
+     * @param apiKey AcoustID client key
+     */
+    private AcoustIDIdentify(String apiUrl, String apiKey) {
+        this.apiUrl = apiUrl;
+        acoustIDApiKey = apiKey;
+        client = createClient(System.getProperty(
+            AcoustIDApiConstants.TRANSPORT_PROPERTY, AcoustIDApiConstants.GZIP_TRANSPORT));
+        // Lanes in Priority order
+        requestQueue = new WeightedFairQueue<>(AcoustIDApiConstants.INTERACTIVE_WEIGHT,
+            AcoustIDApiConstants.BACKGROUND_WEIGHT, AcoustIDApiConstants.BULK_WEIGHT);
+        rateLimiter = new TokenBucketRateLimiter(
+            Double.parseDouble(System.getProperty(AcoustIDApiConstants.REQUESTS_PER_SECOND_PROPERTY,
+                Double.toString(AcoustIDApiConstants.REQUESTS_PER_SECOND))),
+            Integer.getInteger(AcoustIDApiConstants.REQUEST_BURST_PROPERTY, AcoustIDApiConstants.REQUEST_BURST));
+
+        final Thread dispatcher = new Thread(this::dispatchRequests, "acoustid-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Creates the HTTP client used for every request.
+     *
+     * @param transport {@link AcoustIDApiConstants#GZIP_TRANSPORT} to compress request bodies, or
+     *                  {@link AcoustIDApiConstants#FORM_TRANSPORT} to send them uncompressed
+     * @return the client
      */
-    private AcoustIDIdentify() {
-        acoustIDApiKey = getAPIKey();
-        client = new OkHttpClient();
-        requestQueue = new LinkedBlockingQueue<>();
-        requestScheduler = Executors.newSingleThreadScheduledExecutor();
-        running = false;
+    private static OkHttpClient createClient(String transport) {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(AcoustIDApiConstants.MAX_REQUESTS_IN_FLIGHT);
+        dispatcher.setMaxRequestsPerHost(AcoustIDApiConstants.MAX_REQUESTS_IN_FLIGHT);
+
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(AcoustIDApiConstants.MAX_IDLE_CONNECTIONS,
+                AcoustIDApiConstants.KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .connectTimeout(AcoustIDApiConstants.CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+            .readTimeout(AcoustIDApiConstants.REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (!AcoustIDApiConstants.FORM_TRANSPORT.equals(transport)) {
+            builder.addInterceptor(new GzipRequestInterceptor());
+        }
+        return builder.build();
     }
 
     /**
@@ -49,100 +127,155 @@ public final class AcoustIDIdentify implements IdentifyDAI {
      */
     public static AcoustIDIdentify getAcoustIDIdentify() {
         if (instance == null) {
-            instance = new AcoustIDIdentify();
+            instance = new AcoustIDIdentify(AcoustIDApiConstants.ACOUST_ID_API_URL, getAPIKey());
         }
         return instance;
     }
 
     /**
-     * Parses the JSON results of an API response.
+     * Creates an identifier separate from the shared instance that sends lookups to another
+     * endpoint, such as a local stand-in for the API in tests.
      *
-     * @param apiResponse response from API
-     * @return songMetadata a Song.SongMetadata object
-     * @throws FingerprintMatchNotFoundException when a fingerprint isn't found
+     * @param apiUrl URL of the lookup endpoint
+     * @param apiKey client key to send
+     * @return a new identifier
      */
-    private Song.SongMetadata parseJSONApiResults(Response apiResponse) {
-        try {
-            final JSONObject responseBody = new JSONObject(apiResponse.body().string());
+    static AcoustIDIdentify forEndpoint(String apiUrl, String apiKey) {
+        return new AcoustIDIdentify(apiUrl, apiKey);
+    }
 
-            // Checks response has okay status and non-empty results
-            if (!responseBody.getString(AcoustIDApiConstants.STATUS_CODE)
-                    .equals(AcoustIDApiConstants.SUCCESS_CODE)) {
-                throw new FingerprintMatchNotFoundException(
-                        AcoustIDApiConstants.UNSUCCESSFUL_STATUS_MSG);
+    /**
+     * Sends queued lookups for as long as the application runs, one batch per rate limiter permit.
+     */
+    private void dispatchRequests() {
+        while (true) {
+            final List<QueuedRequest> batch = new ArrayList<>(AcoustIDApiConstants.MAX_BATCH_SIZE);
+            try {
+                QueuedRequest first = requestQueue.take();
+                while (!first.lookup().dispatched().compareAndSet(false, true)) {
+                    first = requestQueue.take();
+                }
+                batch.add(first);
+                // Lookups that arrive while waiting for a permit go out in the same request
+                rateLimiter.acquire();
             }
-
-            // Finds the result with the highest score
-            final JSONArray results = responseBody.getJSONArray(AcoustIDApiConstants.RESULTS_CODE);
-            JSONObject closestResult = results.getJSONObject(0);
-            for (int i = 1; i < results.length(); i++) {
-                final JSONObject currentResult = results.getJSONObject(i);
-                if (currentResult.getFloat(AcoustIDApiConstants.MATCH_QUALITY_CODE)
-                        > closestResult.getFloat(AcoustIDApiConstants.MATCH_QUALITY_CODE)) {
-                    closestResult = currentResult;
+            catch (InterruptedException exception) {
+                failBatch(batch, new FingerprintMatchNotFoundException(exception.toString()));
+                return;
+            }
+            while (batch.size() < AcoustIDApiConstants.MAX_BATCH_SIZE) {
+                final QueuedRequest next = requestQueue.poll();
+                if (next == null) {
+                    break;
+                }
+                // A lookup that moved to a more urgent lane is queued twice; send it once
+                if (next.lookup().dispatched().compareAndSet(false, true)) {
+                    batch.add(next);
                 }
             }
+            sendBatch(batch);
+        }
+    }
+
+    /**
+     * Sends a batch of lookups as one API request, and completes each of their futures with its
+     * own part of the response once it arrives.
+     *
+     * @param batch the lookups to send
+     */
+    private void sendBatch(List<QueuedRequest> batch) {
+        final long now = System.nanoTime();
+        final FormBody.Builder form = new FormBody.Builder()
+            .add(AcoustIDApiConstants.CLIENT_PARAM, acoustIDApiKey)
+            .add(AcoustIDApiConstants.METADATA_PARAM, AcoustIDApiConstants.METADATA_REQUEST);
+        for (int i = 0; i < batch.size(); i++) {
+            form.add(AcoustIDApiConstants.FINGERPRINT_PARAM + i, batch.get(i).fingerprint());
+            form.add(AcoustIDApiConstants.DURATION_PARAM + i, Integer.toString(batch.get(i).duration()));
 
-            // Retrieves all relevant Song Metadata attributes from the JSON response
-            // Non-critical attributes that cannot be found are set to null
-            final String acoustIDTrackID = closestResult.getString(
-                    AcoustIDApiConstants.ACOUST_ID_TRACK_ID_CODE);
+            final long queueWait = now - batch.get(i).enqueuedNanos();
+            totalQueueWaitNanos.addAndGet(queueWait);
+            maxQueueWaitNanos.accumulateAndGet(queueWait, Math::max);
 
-            final JSONObject recording = closestResult.getJSONArray(
-                    AcoustIDApiConstants.RECORDINGS_CODE).getJSONObject(0);
-            final String musicBrainzID = recording.getString(
-                    AcoustIDApiConstants.MUSICBRAINZ_ID_CODE);
-            final String title = recording.getString(AcoustIDApiConstants.SONG_TITLE_CODE);
+            batch.get(i).lookup().future()
+                .orTimeout(AcoustIDApiConstants.REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        final Request request = new Request.Builder()
+            .url(apiUrl)
+            .post(form.build())
+            .build();
 
-            final String album = recording.getJSONArray(AcoustIDApiConstants.RELEASES_CODE)
-                    .getJSONObject(0).getString(AcoustIDApiConstants.ALBUM_TITLE_CODE);
+        requestsSent.incrementAndGet();
+        lookupsSent.addAndGet(batch.size());
+        inFlightRequests.incrementAndGet();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException exception) {
+                inFlightRequests.decrementAndGet();
+                failBatch(batch, exception);
+            }
 
-            final JSONArray artistObjects = recording.getJSONArray(AcoustIDApiConstants.ARTISTS_CODE);
-            final String[] artists = new String[artistObjects.length()];
-            for (int i = 0; i < artistObjects.length(); i++) {
-                artists[i] = artistObjects.getJSONObject(i).getString(AcoustIDApiConstants.ARTIST_NAME_CODE);
+            @Override
+            public void onResponse(Call call, Response response) {
+                inFlightRequests.decrementAndGet();
+                try (response) {
+                    // A 429 or 503 has no lookup results in it, so say what it was
+                    if (!response.isSuccessful()) {
+                        failBatch(batch, new FingerprintMatchNotFoundException(
+                            String.format(AcoustIDApiConstants.HTTP_ERROR_MSG, response.code())));
+                        return;
+                    }
+                    completeBatch(batch, AcoustIDResponseParser.parse(response.body().source(), batch.size()));
+                }
+                catch (IOException | RuntimeException exception) {
+                    // Anything escaping to OkHttp would leave the batch waiting for its timeout
+                    failBatch(batch, exception);
+                }
             }
+        });
+    }
 
-            return new Song.SongMetadata(
-                title,
-                musicBrainzID,
-                acoustIDTrackID,
-                album,
-                artists
-            );
+    private static void completeBatch(List<QueuedRequest> batch,
+                                      AcoustIDResponseParser.FingerprintResult[] fingerprintResults) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (fingerprintResults[i] == null) {
+                batch.get(i).lookup().future().completeExceptionally(
+                    new FingerprintMatchNotFoundException(batch.get(i).fingerprint()));
+            }
+            else if (fingerprintResults[i].metadata() == null) {
+                batch.get(i).lookup().future().completeExceptionally(
+                    new FingerprintUnknownException(AcoustIDApiConstants.NO_RESULTS_MSG));
+            }
+            else {
+                batch.get(i).lookup().future().complete(fingerprintResults[i].metadata());
+            }
         }
-        catch (IOException | JSONException exception) {
-            throw new FingerprintMatchNotFoundException(exception.toString());
+    }
+
+    private static void failBatch(List<QueuedRequest> batch, Exception exception) {
+        for (QueuedRequest queued : batch) {
+            queued.lookup().future().completeExceptionally(exception);
         }
     }
 
     /**
-     * Processes the next API request in the queue, and completes its corresponding future.
+     * Returns a snapshot of the lookup queue and rate limiter.
      *
-     * @throws FingerprintMatchNotFoundException when no fingerprint found
+     * @return the current metrics
      */
-    private void processNextAPIRequest() {
-        final QueuedRequest task = requestQueue.poll();
-
-        if (task == null) {
-            running = false;
-            return;
-        }
-
-        final CompletableFuture<Response> future = task.future;
-        final Request request = task.request;
-
-        try {
-            final Response response = client.newCall(request).execute();
-            future.complete(response);
+    public LookupMetrics getMetrics() {
+        final long lookups = lookupsSent.get();
+        double averageQueueWaitMillis = 0;
+        if (lookups > 0) {
+            averageQueueWaitMillis = totalQueueWaitNanos.get() / 1e6 / lookups;
         }
-        catch (IOException event) {
-            throw new FingerprintMatchNotFoundException(event.toString());
+        final Map<Priority, Integer> queuedByPriority = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            queuedByPriority.put(priority, requestQueue.size(priority.ordinal()));
         }
-
-        // Schedules the next API request to be processed after the appropriate spacing
-        requestScheduler.schedule(this::processNextAPIRequest,
-                AcoustIDApiConstants.REQUEST_SPACING_MILLIS, TimeUnit.MILLISECONDS);
+        return new LookupMetrics(requestQueue.size(), queuedByPriority, inFlightRequests.get(), requestsSent.get(),
+            lookups,
+            coalescedLookups.get(),
+            averageQueueWaitMillis, maxQueueWaitNanos.get() / 1e6, rateLimiter.getMetrics());
     }
 
     /**
@@ -175,7 +308,7 @@ public final class AcoustIDIdentify implements IdentifyDAI {
     }
 
     /**
-     * Returns the metadata of the closest match.
+     * Returns the metadata of the closest match, blocking until the lookup completes.
      *
      * @param fingerprint fingerprint string
      * @param duration duration in seconds
@@ -183,57 +316,143 @@ public final class AcoustIDIdentify implements IdentifyDAI {
      */
     @Override
     public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+        return getClosestMatchMetadata(fingerprint, duration, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Returns the metadata of the closest match, blocking until the lookup completes.
+     *
+     * @param fingerprint fingerprint string
+     * @param duration duration in seconds
+     * @param priority lane to queue the lookup in
+     * @return songMetadata
+     */
+    @Override
+    public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration, Priority priority) {
+        try {
+            return getClosestMatchMetadataAsync(fingerprint, duration, priority).join();
+        }
+        catch (CompletionException exception) {
+            throw asMatchNotFound(exception);
+        }
+    }
+
+    /**
+     * Queues a lookup and returns without waiting for it. The future is completed from an OkHttp
+     * callback, so no thread is held while the lookup is queued or in flight.
+     *
+     * @param fingerprint fingerprint string
+     * @param duration duration in seconds
+     * @return a future completed with the songMetadata
+     */
+    @Override
+    public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration) {
+        return getClosestMatchMetadataAsync(fingerprint, duration, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Queues a lookup in the lane for its priority and returns without waiting for it.
+     *
+     * @param fingerprint fingerprint string
+     * @param duration duration in seconds
+     * @param priority lane to queue the lookup in
+     * @return a future completed with the songMetadata
+     */
+    @Override
+    public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration,
+                                                                            Priority priority) {
         if (fingerprint == null) {
-            throw new FingerprintMatchNotFoundException("Null parameters passed into query");
+            return CompletableFuture.failedFuture(
+                new FingerprintMatchNotFoundException("Null parameters passed into query"));
         }
 
-        final CompletableFuture<Response> future = addAPIRequest(fingerprint, duration);
+        // Each caller gets its own copy, so one cancelling does not fail the others
+        return addAPIRequest(fingerprint, duration, priority)
+            .copy()
+            .handle((metadata, error) -> {
+                if (error != null) {
+                    throw asMatchNotFound(error);
+                }
+                return metadata;
+            });
+    }
 
-        try {
-            final Response apiResult = future.get(
-                    AcoustIDApiConstants.REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-            return parseJSONApiResults(apiResult);
+    /**
+     * Unwraps a failed lookup into the exception callers expect.
+     *
+     * @param error the failure, possibly wrapped by the future
+     * @return the original FingerprintMatchNotFoundException, or a new one describing the failure
+     */
+    private static FingerprintMatchNotFoundException asMatchNotFound(Throwable error) {
+        Throwable cause = error;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
         }
-        catch (InterruptedException | ExecutionException | TimeoutException exception) {
-            throw new FingerprintMatchNotFoundException(exception.toString());
+        if (cause instanceof FingerprintMatchNotFoundException notFound) {
+            return notFound;
         }
+        return new FingerprintMatchNotFoundException(cause.toString());
     }
 
     /**
-     * Adds an API request corresponding to the fingerprint and duration to the queue.
+     * Adds an API request corresponding to the fingerprint and duration to the queue, unless the
+     * same lookup is already pending. A pending lookup that has not been sent yet is queued again
+     * in this caller's lane if that is more urgent.
      *
      * @param fingerprint string
      * @param duration in seconds
-     * @return future
+     * @param priority lane to queue the lookup in
+     * @return future completed with the metadata of this fingerprint, shared with
+     *         any other caller of the same lookup
      */
-    private synchronized CompletableFuture<Response> addAPIRequest(String fingerprint, int duration) {
-        final String url = AcoustIDApiConstants.ACOUST_ID_API_URL
-            + "?client=" + acoustIDApiKey
-            + "&meta=" + AcoustIDApiConstants.METADATA_REQUEST
-            + "&duration=" + duration
-            + "&fingerprint=" + fingerprint;
-
-        final Request request = new Request.Builder()
-            .url(url)
-            .build();
+    private CompletableFuture<Song.SongMetadata> addAPIRequest(String fingerprint, int duration, Priority priority) {
+        final LookupKey key = new LookupKey(fingerprint, duration);
+        final PendingLookup lookup = new PendingLookup(
+            new CompletableFuture<>(), new AtomicBoolean(), new AtomicInteger(priority.ordinal()));
+        final PendingLookup pending = pendingLookups.putIfAbsent(key, lookup);
+        if (pending != null) {
+            coalescedLookups.incrementAndGet();
+            final int lane = pending.lane().getAndAccumulate(priority.ordinal(), Math::min);
+            if (priority.ordinal() < lane && !pending.dispatched().get()) {
+                requestQueue.add(priority.ordinal(),
+                    new QueuedRequest(fingerprint, duration, System.nanoTime(), pending));
+            }
+            return pending.future();
+        }
 
-        final CompletableFuture<Response> future = new CompletableFuture<>();
-        requestQueue.add(new QueuedRequest(request, future));
+        lookup.future().whenComplete((metadata, error) -> pendingLookups.remove(key, lookup));
+        requestQueue.add(priority.ordinal(), new QueuedRequest(fingerprint, duration, System.nanoTime(), lookup));
+        return lookup.future();
+    }
 
-        if (!running) {
-            running = true;
-            processNextAPIRequest();
-        }
+    /**
+     * Identifies a lookup for coalescing.
+     *
+     * @param fingerprint the fingerprint to look up
+     * @param duration duration in seconds
+     */
+    private record LookupKey(String fingerprint, int duration) {
+    }
 
-        return future;
+    /**
+     * A lookup that has not completed yet, shared by every caller of the same fingerprint.
+     *
+     * @param future a promise of the fingerprint's metadata
+     * @param dispatched set once the lookup has been put into a request
+     * @param lane most urgent lane the lookup has been queued in
+     */
+    private record PendingLookup(CompletableFuture<Song.SongMetadata> future, AtomicBoolean dispatched,
+                                 AtomicInteger lane) {
     }
 
     /**
-     * Stores a request and the corresponding future that needs to be completed.
+     * Stores a queued lookup.
      *
-     * @param request an HTTP request
-     * @param future a promise
+     * @param fingerprint the fingerprint to look up
+     * @param duration duration in seconds
+     * @param enqueuedNanos when the lookup was queued, from {@link System#nanoTime()}
+     * @param lookup the pending lookup to complete
      */
-    private record QueuedRequest(Request request, CompletableFuture<Response> future) {
+    private record QueuedRequest(String fingerprint, int duration, long enqueuedNanos, PendingLookup lookup) {
     }
 }
@@ -0,0 +1,457 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Options;
+
+/**
+ * Streaming parser for batched AcoustID lookup responses.
+ *
+ * <p>The body is read token by token straight from the OkHttp source, so the response is never
+ * held in memory as a whole. Field names are matched as raw bytes, and only the fields
+ * {@link Song.SongMetadata} needs are decoded: the first recording of each result, its first
+ * release group, and its artists. Everything else is skipped. For each fingerprint only two
+ * results are kept at a time, the best so far and the one being read.</p>
+ */
+final class AcoustIDResponseParser {
+    private static final ByteString STRING_END = ByteString.encodeUtf8("\"\\");
+    private static final ByteString VALUE_END = ByteString.encodeUtf8(",}] \t\r\n");
+
+    private static final Options TOP_LEVEL_FIELDS = names(
+        AcoustIDApiConstants.STATUS_CODE, AcoustIDApiConstants.FINGERPRINTS_CODE);
+    private static final Options FINGERPRINT_FIELDS = names(
+        AcoustIDApiConstants.INDEX_CODE, AcoustIDApiConstants.RESULTS_CODE);
+    private static final Options RESULT_FIELDS = names(
+        AcoustIDApiConstants.ACOUST_ID_TRACK_ID_CODE, AcoustIDApiConstants.MATCH_QUALITY_CODE,
+        AcoustIDApiConstants.RECORDINGS_CODE);
+    private static final Options RECORDING_FIELDS = names(
+        AcoustIDApiConstants.MUSICBRAINZ_ID_CODE, AcoustIDApiConstants.SONG_TITLE_CODE,
+        AcoustIDApiConstants.ARTISTS_CODE, AcoustIDApiConstants.RELEASES_CODE);
+    private static final Options ARTIST_FIELDS = names(AcoustIDApiConstants.ARTIST_NAME_CODE);
+    private static final Options RELEASE_FIELDS = names(AcoustIDApiConstants.ALBUM_TITLE_CODE);
+    private static final Options SUCCESS_STATUS = names(AcoustIDApiConstants.SUCCESS_CODE);
+
+    private final BufferedSource source;
+    private final Buffer buffer;
+    private final StringBuilder scratch = new StringBuilder();
+    private Candidate best = new Candidate();
+    private Candidate current = new Candidate();
+
+    private AcoustIDResponseParser(BufferedSource source) {
+        this.source = source;
+        this.buffer = source.getBuffer();
+    }
+
+    /**
+     * The part of a response for one fingerprint.
+     *
+     * @param metadata the metadata of the best-scoring result, or {@code null} if AcoustID has no
+     *                 recording for the fingerprint
+     */
+    record FingerprintResult(Song.SongMetadata metadata) {
+    }
+
+    /**
+     * Reads a batched lookup response.
+     *
+     * @param source    the response body
+     * @param batchSize number of fingerprints in the request
+     * @return the result of each fingerprint, by index; {@code null} where the response has none
+     * @throws IOException if the body cannot be read or is not valid JSON
+     * @throws IdentifyDAI.FingerprintMatchNotFoundException if the response status is not successful
+     */
+    static FingerprintResult[] parse(BufferedSource source, int batchSize) throws IOException {
+        return new AcoustIDResponseParser(source).parseResponse(batchSize);
+    }
+
+    private FingerprintResult[] parseResponse(int batchSize) throws IOException {
+        final FingerprintResult[] results = new FingerprintResult[batchSize];
+        // The status comes after the results, so it can only be checked at the end
+        boolean successful = false;
+        beginObject();
+        while (hasNextField()) {
+            switch (selectName(TOP_LEVEL_FIELDS)) {
+                case 0 -> successful = selectValue(SUCCESS_STATUS) == 0;
+                case 1 -> parseFingerprints(results);
+                default -> skipValue();
+            }
+        }
+
+        if (!successful) {
+            throw new IdentifyDAI.FingerprintMatchNotFoundException(AcoustIDApiConstants.UNSUCCESSFUL_STATUS_MSG);
+        }
+        return results;
+    }
+
+    private void parseFingerprints(FingerprintResult[] results) throws IOException {
+        beginArray();
+        while (hasNextElement()) {
+            int index = -1;
+            FingerprintResult result = null;
+            beginObject();
+            while (hasNextField()) {
+                switch (selectName(FINGERPRINT_FIELDS)) {
+                    case 0 -> index = (int) readNumber();
+                    case 1 -> result = parseResults();
+                    default -> skipValue();
+                }
+            }
+            if (index >= 0 && index < results.length && result != null) {
+                results[index] = result;
+            }
+        }
+    }
+
+    private FingerprintResult parseResults() throws IOException {
+        boolean found = false;
+        beginArray();
+        while (hasNextElement()) {
+            current.clear();
+            parseResult(current);
+            if (!found || current.score > best.score) {
+                final Candidate previousBest = best;
+                best = current;
+                current = previousBest;
+                found = true;
+            }
+        }
+
+        if (!found || !best.hasRecording) {
+            return new FingerprintResult(null);
+        }
+        return new FingerprintResult(best.toMetadata());
+    }
+
+    private void parseResult(Candidate candidate) throws IOException {
+        beginObject();
+        while (hasNextField()) {
+            switch (selectName(RESULT_FIELDS)) {
+                case 0 -> candidate.trackID = readString();
+                case 1 -> candidate.score = readNumber();
+                case 2 -> parseRecordings(candidate);
+                default -> skipValue();
+            }
+        }
+    }
+
+    private void parseRecordings(Candidate candidate) throws IOException {
+        beginArray();
+        while (hasNextElement()) {
+            if (candidate.hasRecording) {
+                skipValue();
+            }
+            else {
+                parseRecording(candidate);
+                candidate.hasRecording = true;
+            }
+        }
+    }
+
+    private void parseRecording(Candidate candidate) throws IOException {
+        beginObject();
+        while (hasNextField()) {
+            switch (selectName(RECORDING_FIELDS)) {
+                case 0 -> candidate.musicBrainzID = readString();
+                case 1 -> candidate.title = readString();
+                case 2 -> parseArtists(candidate.artists);
+                case 3 -> candidate.album = parseFirstReleaseTitle();
+                default -> skipValue();
+            }
+        }
+    }
+
+    private void parseArtists(List<String> artists) throws IOException {
+        beginArray();
+        while (hasNextElement()) {
+            beginObject();
+            while (hasNextField()) {
+                if (selectName(ARTIST_FIELDS) == 0) {
+                    artists.add(readString());
+                }
+                else {
+                    skipValue();
+                }
+            }
+        }
+    }
+
+    private String parseFirstReleaseTitle() throws IOException {
+        String title = null;
+        boolean first = true;
+        beginArray();
+        while (hasNextElement()) {
+            if (!first) {
+                skipValue();
+                continue;
+            }
+            first = false;
+            beginObject();
+            while (hasNextField()) {
+                if (selectName(RELEASE_FIELDS) == 0) {
+                    title = readString();
+                }
+                else {
+                    skipValue();
+                }
+            }
+        }
+        return title;
+    }
+
+    // Tokenizer
+
+    private void beginObject() throws IOException {
+        expect('{');
+    }
+
+    private void beginArray() throws IOException {
+        expect('[');
+    }
+
+    /**
+     * Moves to the next field of the current object.
+     *
+     * @return false once the object has been closed
+     */
+    private boolean hasNextField() throws IOException {
+        return hasNext('}');
+    }
+
+    /**
+     * Moves to the next element of the current array.
+     *
+     * @return false once the array has been closed
+     */
+    private boolean hasNextElement() throws IOException {
+        return hasNext(']');
+    }
+
+    private boolean hasNext(char close) throws IOException {
+        skipWhitespace();
+        final byte next = peek();
+        if (next == close) {
+            source.skip(1);
+            return false;
+        }
+        if (next == ',') {
+            source.skip(1);
+        }
+        return true;
+    }
+
+    /**
+     * Reads a field name and its colon.
+     *
+     * @return the index of the name in {@code names}, or -1 for any other name
+     */
+    private int selectName(Options names) throws IOException {
+        skipWhitespace();
+        final int selected = source.select(names);
+        if (selected == -1) {
+            skipString();
+        }
+        expect(':');
+        return selected;
+    }
+
+    /**
+     * Reads a value, comparing it against a set of strings without decoding it.
+     *
+     * @return the index of the value in {@code values}, or -1 for any other value
+     */
+    private int selectValue(Options values) throws IOException {
+        skipWhitespace();
+        final int selected = source.select(values);
+        if (selected == -1) {
+            skipValue();
+        }
+        return selected;
+    }
+
+    private String readString() throws IOException {
+        skipWhitespace();
+        if (peek() == 'n') {
+            skipValue();
+            return null;
+        }
+        expect('"');
+
+        scratch.setLength(0);
+        while (true) {
+            final long end = source.indexOfElement(STRING_END);
+            if (end == -1) {
+                throw malformed("unterminated string");
+            }
+            final byte terminator = buffer.getByte(end);
+            if (terminator == '"' && scratch.length() == 0) {
+                final String value = source.readUtf8(end);
+                source.skip(1);
+                return value;
+            }
+            scratch.append(source.readUtf8(end));
+            source.skip(1);
+            if (terminator == '"') {
+                return scratch.toString();
+            }
+            readEscape();
+        }
+    }
+
+    private void readEscape() throws IOException {
+        final byte escaped = source.readByte();
+        switch (escaped) {
+            case 'b' -> scratch.append('\b');
+            case 'f' -> scratch.append('\f');
+            case 'n' -> scratch.append('\n');
+            case 'r' -> scratch.append('\r');
+            case 't' -> scratch.append('\t');
+            case 'u' -> {
+                try {
+                    scratch.append((char) Integer.parseInt(source.readUtf8(4), 16));
+                }
+                catch (NumberFormatException exception) {
+                    throw malformed("bad unicode escape");
+                }
+            }
+            default -> scratch.append((char) escaped);
+        }
+    }
+
+    private double readNumber() throws IOException {
+        skipWhitespace();
+        final long end = valueEnd();
+        try {
+            return Double.parseDouble(source.readUtf8(end));
+        }
+        catch (NumberFormatException exception) {
+            throw malformed("expected a number");
+        }
+    }
+
+    private void skipValue() throws IOException {
+        skipWhitespace();
+        switch (peek()) {
+            case '{' -> {
+                source.skip(1);
+                while (hasNextField()) {
+                    skipString();
+                    expect(':');
+                    skipValue();
+                }
+            }
+            case '[' -> {
+                source.skip(1);
+                while (hasNextElement()) {
+                    skipValue();
+                }
+            }
+            case '"' -> skipString();
+            default -> source.skip(valueEnd());
+        }
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+        while (true) {
+            final long end = source.indexOfElement(STRING_END);
+            if (end == -1) {
+                throw malformed("unterminated string");
+            }
+            final byte terminator = buffer.getByte(end);
+            source.skip(end + 1);
+            if (terminator == '"') {
+                return;
+            }
+            // The escaped character; the digits of a unicode escape need no special handling
+            source.skip(1);
+        }
+    }
+
+    /**
+     * Finds the end of a number or literal.
+     *
+     * @return its length in bytes
+     */
+    private long valueEnd() throws IOException {
+        final long end = source.indexOfElement(VALUE_END);
+        if (end == -1) {
+            // A bare value at the end of the body
+            source.request(Long.MAX_VALUE);
+            return buffer.size();
+        }
+        if (end == 0) {
+            throw malformed("expected a value");
+        }
+        return end;
+    }
+
+    private void expect(char expected) throws IOException {
+        skipWhitespace();
+        if (source.readByte() != expected) {
+            throw malformed("expected '" + expected + "'");
+        }
+    }
+
+    private byte peek() throws IOException {
+        source.require(1);
+        return buffer.getByte(0);
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (source.request(1)) {
+            final byte next = buffer.getByte(0);
+            if (next != ' ' && next != '\n' && next != '\r' && next != '\t') {
+                return;
+            }
+            source.skip(1);
+        }
+    }
+
+    private static IOException malformed(String reason) {
+        return new IOException("Malformed AcoustID response: " + reason);
+    }
+
+    private static Options names(String... names) {
+        final ByteString[] quoted = new ByteString[names.length];
+        for (int i = 0; i < names.length; i++) {
+            quoted[i] = ByteString.encodeUtf8("\"" + names[i] + "\"");
+        }
+        return Options.of(quoted);
+    }
+
+    /**
+     * Fields of one result, reused from result to result.
+     */
+    private static final class Candidate {
+        private final List<String> artists = new ArrayList<>();
+        private String trackID;
+        private double score;
+        private boolean hasRecording;
+        private String musicBrainzID;
+        private String title;
+        private String album;
+
+        private void clear() {
+            artists.clear();
+            trackID = null;
+            score = 0;
+            hasRecording = false;
+            musicBrainzID = null;
+            title = null;
+            album = null;
+        }
+
+        private Song.SongMetadata toMetadata() {
+            return new Song.SongMetadata(title, musicBrainzID, trackID, album,
+                artists.toArray(new String[0]), score);
+        }
+    }
+}
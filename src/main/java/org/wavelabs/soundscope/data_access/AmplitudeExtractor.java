@@ -0,0 +1,319 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.wavelabs.soundscope.entity.AudioData;
+
+/**
+ * Turns a stream of 16-bit PCM into the amplitude samples shown as a waveform: one sample per
+ * {@link #DOWNSAMPLE_FACTOR} frames, averaged over the channels, in the range [-1.0, 1.0]. Each
+ * amplitude sample is the first frame of its window, and comes with the minimum, maximum and RMS
+ * of the whole window, so that peaks between amplitude samples are not lost. A trailing window
+ * shorter than the factor is left out until the rest of it is read.
+ *
+ * <p>The audio is read a block at a time. Each block is mixed down to one channel of floats,
+ * then a single pass over those floats summarises every window in it, so memory use does not
+ * grow with the length of the audio, apart from the summaries themselves.</p>
+ *
+ * <p>The summaries are computed with {@code jdk.incubator.vector} when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and with a scalar loop otherwise.</p>
+ */
+final class AmplitudeExtractor {
+    /** Frames per amplitude sample, matching the live recording display format. */
+    static final int DOWNSAMPLE_FACTOR = 256;
+    /** Frames read at a time. */
+    static final int BLOCK_FRAMES = 64 * DOWNSAMPLE_FACTOR;
+
+    private static final int BITS_PER_BYTE = 8;
+    private static final int MASK_0XFF = 0xFF;
+    private static final float NORMALIZE_16BIT = 32768.0f;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final boolean VECTOR_SUPPORTED =
+        ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private final AudioFormat format;
+    private final boolean bigEndian;
+    private final int channels;
+    private final int frameSize;
+    private final float scale;
+    // Mixed-down frames of the block being summarised, after those left over from the last one
+    private final float[] mixed = new float[BLOCK_FRAMES + DOWNSAMPLE_FACTOR];
+    private int leftOver;
+    private long frames;
+
+    private double[] amplitudes;
+    private float[] minimums;
+    private float[] maximums;
+    private float[] rms;
+    private int count;
+
+    /**
+     * Creates an extractor.
+     *
+     * @param format         format of the audio; must be 16-bit signed PCM
+     * @param expectedFrames length of the audio in frames, used to size the summaries, or a
+     *                       negative number if unknown
+     * @throws IllegalArgumentException if the format is not 16-bit signed PCM
+     */
+    AmplitudeExtractor(AudioFormat format, long expectedFrames) {
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) || format.getSampleSizeInBits() != 16) {
+            throw new IllegalArgumentException("Expected 16-bit signed PCM, got " + format);
+        }
+        this.format = format;
+        this.bigEndian = format.isBigEndian();
+        this.channels = format.getChannels();
+        this.frameSize = format.getFrameSize();
+        this.scale = 1.0f / (channels * NORMALIZE_16BIT);
+
+        int capacity = DEFAULT_CAPACITY;
+        if (expectedFrames >= 0) {
+            capacity = (int) Math.min(Integer.MAX_VALUE - 8, expectedFrames / DOWNSAMPLE_FACTOR);
+        }
+        amplitudes = new double[capacity];
+        minimums = new float[capacity];
+        maximums = new float[capacity];
+        rms = new float[capacity];
+    }
+
+    /**
+     * Reads a stream to its end, extracting the amplitude samples along the way. A trailing
+     * partial frame is ignored. The stream is not closed.
+     *
+     * @param audio the audio
+     * @return the number of frames read, over all calls so far
+     * @throws IOException if the stream cannot be read
+     */
+    long extract(InputStream audio) throws IOException {
+        return extract(audio, null);
+    }
+
+    /**
+     * Reads a stream to its end as {@link #extract(InputStream)} does, running an action after
+     * each read, such as handing on a snapshot from {@link #snapshot(String)}.
+     *
+     * @param audio     the audio
+     * @param afterRead run after each read, or {@code null} for nothing
+     * @return the number of frames read, over all calls so far
+     * @throws IOException if the stream cannot be read
+     */
+    long extract(InputStream audio, Runnable afterRead) throws IOException {
+        final byte[] block = new byte[BLOCK_FRAMES * frameSize];
+        int buffered = 0;
+        int read;
+        while ((read = audio.read(block, buffered, block.length - buffered)) != -1) {
+            buffered += read;
+            final int whole = buffered - buffered % frameSize;
+            accept(block, whole);
+            // Keep the start of a frame cut off by the end of the read for the next one
+            System.arraycopy(block, whole, block, 0, buffered - whole);
+            buffered -= whole;
+            if (afterRead != null) {
+                afterRead.run();
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Extracts amplitude samples from the next audio.
+     *
+     * @param audio  the audio
+     * @param length number of bytes of {@code audio} to use; a trailing partial frame is ignored
+     */
+    void accept(byte[] audio, int length) {
+        final int whole = length - length % frameSize;
+        for (int offset = 0; offset < whole; offset += BLOCK_FRAMES * frameSize) {
+            final int blockFrames = Math.min(BLOCK_FRAMES, (whole - offset) / frameSize);
+            mix(audio, offset, blockFrames);
+            frames += blockFrames;
+
+            final int available = leftOver + blockFrames;
+            final int windows = available / DOWNSAMPLE_FACTOR;
+            ensureCapacity(count + windows);
+            for (int w = 0; w < windows; w++) {
+                amplitudes[count + w] = mixed[w * DOWNSAMPLE_FACTOR];
+            }
+            summarize(mixed, windows, minimums, maximums, rms, count);
+            count += windows;
+
+            leftOver = available - windows * DOWNSAMPLE_FACTOR;
+            System.arraycopy(mixed, windows * DOWNSAMPLE_FACTOR, mixed, 0, leftOver);
+        }
+    }
+
+    /**
+     * Returns the number of frames read so far.
+     *
+     * @return the number of frames
+     */
+    long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the number of amplitude samples extracted so far.
+     *
+     * @return the number of amplitude samples
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the amplitude samples and window summaries extracted so far, with the duration
+     * of all the frames read.
+     *
+     * @param filePath the file path to give the audio data
+     * @return the audio data
+     */
+    AudioData toAudioData(String filePath) {
+        final int sampleRate = (int) format.getSampleRate();
+        return new AudioData(
+            Arrays.copyOf(amplitudes, count),
+            Arrays.copyOf(minimums, count),
+            Arrays.copyOf(maximums, count),
+            Arrays.copyOf(rms, count),
+            filePath,
+            durationMillis(),
+            sampleRate,
+            channels
+        );
+    }
+
+    /**
+     * Returns the amplitude samples and window summaries extracted so far without copying
+     * them, for a progress snapshot taken while more audio is read. The snapshot shares its
+     * arrays with the extractor, which only writes past the snapshot's sample count or into
+     * new arrays, so taking snapshots costs nothing however long the audio grows.
+     *
+     * @param filePath the file path to give the audio data
+     * @return the audio data, using the first {@link AudioData#getSampleCount()} values of each
+     *     array
+     */
+    AudioData snapshot(String filePath) {
+        return new AudioData(amplitudes, minimums, maximums, rms, count, filePath, durationMillis(),
+            (int) format.getSampleRate(), channels);
+    }
+
+    /**
+     * Finds the minimum, maximum and RMS of each window of samples.
+     *
+     * @param samples  the samples, starting at a window boundary
+     * @param windows  number of whole windows to summarise
+     * @param minimums receives the minimum of each window
+     * @param maximums receives the maximum of each window
+     * @param rms      receives the root mean square of each window
+     * @param at       index of the summaries of the first window
+     */
+    static void summarize(float[] samples, int windows, float[] minimums, float[] maximums, float[] rms,
+                          int at) {
+        summarize(samples, windows, minimums, maximums, rms, at, VECTOR_SUPPORTED);
+    }
+
+    static void summarize(float[] samples, int windows, float[] minimums, float[] maximums, float[] rms,
+                          int at, boolean vectorized) {
+        if (vectorized) {
+            VectorKernel.summarize(samples, windows, minimums, maximums, rms, at);
+        }
+        else {
+            summarizeScalar(samples, windows, minimums, maximums, rms, at);
+        }
+    }
+
+    // The JIT keeps the float sum in order, so this loop runs one sample at a time
+    static void summarizeScalar(float[] samples, int windows, float[] minimums, float[] maximums, float[] rms,
+                                int at) {
+        for (int w = 0; w < windows; w++) {
+            final int start = w * DOWNSAMPLE_FACTOR;
+            final int end = start + DOWNSAMPLE_FACTOR;
+            float lowest = samples[start];
+            float highest = lowest;
+            float squares = 0.0f;
+            for (int i = start; i < end; i++) {
+                final float sample = samples[i];
+                lowest = Math.min(lowest, sample);
+                highest = Math.max(highest, sample);
+                squares += sample * sample;
+            }
+            minimums[at + w] = lowest;
+            maximums[at + w] = highest;
+            rms[at + w] = (float) Math.sqrt(squares / DOWNSAMPLE_FACTOR);
+        }
+    }
+
+    private long durationMillis() {
+        return (long) ((frames * MILLIS_PER_SECOND) / (int) format.getSampleRate());
+    }
+
+    /**
+     * Averages the channels of each frame, appending the results after the frames left over.
+     */
+    private void mix(byte[] audio, int offset, int blockFrames) {
+        for (int f = 0; f < blockFrames; f++) {
+            final int frameOffset = offset + f * frameSize;
+            int total = 0;
+            for (int c = 0; c < channels; c++) {
+                final int sampleOffset = frameOffset + c * 2;
+                if (bigEndian) {
+                    total += (audio[sampleOffset] << BITS_PER_BYTE) | audio[sampleOffset + 1] & MASK_0XFF;
+                }
+                else {
+                    total += (audio[sampleOffset + 1] << BITS_PER_BYTE) | audio[sampleOffset] & MASK_0XFF;
+                }
+            }
+            mixed[leftOver + f] = total * scale;
+        }
+    }
+
+    /**
+     * Vector API kernel. Kept in its own class so it is only loaded when the incubator module is
+     * present.
+     */
+    private static final class VectorKernel {
+        private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+        private VectorKernel() {
+        }
+
+        // Vectors are at most 64 floats, so every window is a whole number of them
+        static void summarize(float[] samples, int windows, float[] minimums, float[] maximums, float[] rms,
+                              int at) {
+            for (int w = 0; w < windows; w++) {
+                final int start = w * DOWNSAMPLE_FACTOR;
+                final int end = start + DOWNSAMPLE_FACTOR;
+                // Each lane keeps its own minimum, maximum and sum, combined once per window
+                FloatVector lowest = FloatVector.fromArray(SPECIES, samples, start);
+                FloatVector highest = lowest;
+                FloatVector squares = lowest.mul(lowest);
+                for (int i = start + SPECIES.length(); i < end; i += SPECIES.length()) {
+                    final FloatVector sample = FloatVector.fromArray(SPECIES, samples, i);
+                    lowest = lowest.min(sample);
+                    highest = highest.max(sample);
+                    squares = sample.fma(sample, squares);
+                }
+                minimums[at + w] = lowest.reduceLanes(VectorOperators.MIN);
+                maximums[at + w] = highest.reduceLanes(VectorOperators.MAX);
+                rms[at + w] = (float) Math.sqrt(squares.reduceLanes(VectorOperators.ADD) / DOWNSAMPLE_FACTOR);
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > amplitudes.length) {
+            final int capacity = Math.max(Math.max(DEFAULT_CAPACITY, needed), amplitudes.length * 2);
+            amplitudes = Arrays.copyOf(amplitudes, capacity);
+            minimums = Arrays.copyOf(minimums, capacity);
+            maximums = Arrays.copyOf(maximums, capacity);
+            rms = Arrays.copyOf(rms, capacity);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.wavelabs.soundscope.data_access;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyResult;
+
+/**
+ * Converts batch results to and from the JSON written to JSON Lines reports and batch journals.
+ */
+final class BatchResultJson {
+    private static final String PATH = "path";
+    private static final String STATUS = "status";
+    private static final String DURATION = "duration";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String TITLE = "title";
+    private static final String ARTISTS = "artists";
+    private static final String ALBUM = "album";
+    private static final String ACOUST_ID = "acoustid";
+    private static final String MUSICBRAINZ = "musicbrainz";
+    private static final String SCORE = "score";
+    private static final String ERROR = "error";
+
+    private BatchResultJson() {
+    }
+
+    /**
+     * Converts a result to JSON. Missing attributes and an unknown score are left out.
+     *
+     * @param result the result to convert
+     * @return the JSON object
+     */
+    static JSONObject toJson(BatchIdentifyResult result) {
+        final JSONObject json = new JSONObject();
+        json.put(PATH, result.path());
+        json.put(STATUS, result.status().name());
+        json.put(DURATION, result.durationSeconds());
+        json.putOpt(FINGERPRINT, result.fingerprint());
+        json.putOpt(TITLE, result.title());
+        if (result.artists() != null) {
+            json.put(ARTISTS, new JSONArray(result.artists()));
+        }
+        json.putOpt(ALBUM, result.album());
+        json.putOpt(ACOUST_ID, result.acoustIDTrackID());
+        json.putOpt(MUSICBRAINZ, result.musicBrainzID());
+        if (!Double.isNaN(result.score())) {
+            json.put(SCORE, result.score());
+        }
+        json.putOpt(ERROR, result.error());
+        return json;
+    }
+
+    /**
+     * Reads a result written by {@link #toJson}.
+     *
+     * @param json the JSON object
+     * @return the result
+     * @throws org.json.JSONException if an attribute is missing or has the wrong type
+     * @throws IllegalArgumentException if the status is not known
+     */
+    static BatchIdentifyResult fromJson(JSONObject json) {
+        String[] artists = null;
+        final JSONArray artistArray = json.optJSONArray(ARTISTS);
+        if (artistArray != null) {
+            artists = new String[artistArray.length()];
+            for (int i = 0; i < artists.length; i++) {
+                artists[i] = artistArray.getString(i);
+            }
+        }
+        return new BatchIdentifyResult(
+            json.getString(PATH),
+            BatchIdentifyResult.Status.valueOf(json.getString(STATUS)),
+            json.getInt(DURATION),
+            json.optString(FINGERPRINT, null),
+            json.optString(TITLE, null),
+            artists,
+            json.optString(ALBUM, null),
+            json.optString(ACOUST_ID, null),
+            json.optString(MUSICBRAINZ, null),
+            json.optDouble(SCORE, Double.NaN),
+            json.optString(ERROR, null)
+        );
+    }
+}
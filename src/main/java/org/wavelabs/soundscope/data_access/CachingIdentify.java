@@ -0,0 +1,132 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Answers lookups of fingerprints seen before from an {@link IdentificationCache}, and only asks
+ * the wrapped IdentifyDAI about new ones. Matches are cached, and so are lookups the wrapped
+ * identifier reports as {@link FingerprintUnknownException}; failed requests are not.
+ */
+public final class CachingIdentify implements IdentifyDAI {
+    private static final String CACHED_MISS_MSG = "No match (cached)";
+
+    private final IdentificationCache cache;
+    private final IdentifyDAI remote;
+
+    /**
+     * Initializes the caching identifier.
+     *
+     * @param cache  the cache
+     * @param remote the identifier to ask on a cache miss
+     */
+    public CachingIdentify(IdentificationCache cache, IdentifyDAI remote) {
+        this.cache = cache;
+        this.remote = remote;
+    }
+
+    /**
+     * Wraps an identifier with the cache in {@link IdentificationCache#DEFAULT_DIRECTORY}.
+     *
+     * @param remote the identifier to ask on a cache miss
+     * @return the caching identifier, or {@code remote} itself if the cache cannot be opened
+     */
+    public static IdentifyDAI withDefaultCache(IdentifyDAI remote) {
+        try {
+            return new CachingIdentify(new IdentificationCache(IdentificationCache.DEFAULT_DIRECTORY), remote);
+        }
+        catch (IOException exception) {
+            System.err.println("Warning: identification cache unavailable: " + exception.getMessage());
+            return remote;
+        }
+    }
+
+    @Override
+    public String getClosestMatchID(String fingerprint, int duration) {
+        return getClosestMatchMetadata(fingerprint, duration).acoustIDTrackID();
+    }
+
+    @Override
+    public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+        return getClosestMatchMetadata(fingerprint, duration, Priority.INTERACTIVE);
+    }
+
+    @Override
+    public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration, Priority priority) {
+        if (fingerprint == null) {
+            throw new FingerprintMatchNotFoundException("Null parameters passed into query");
+        }
+
+        final long key = IdentificationCache.key(fingerprint, duration);
+        final IdentificationCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            if (cached.isNegative()) {
+                throw new FingerprintUnknownException(CACHED_MISS_MSG);
+            }
+            return cached.metadata();
+        }
+
+        try {
+            final Song.SongMetadata metadata = remote.getClosestMatchMetadata(fingerprint, duration, priority);
+            store(key, metadata);
+            return metadata;
+        }
+        catch (FingerprintUnknownException exception) {
+            store(key, null);
+            throw exception;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration) {
+        return getClosestMatchMetadataAsync(fingerprint, duration, Priority.INTERACTIVE);
+    }
+
+    @Override
+    public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration,
+                                                                            Priority priority) {
+        if (fingerprint == null) {
+            return CompletableFuture.failedFuture(
+                new FingerprintMatchNotFoundException("Null parameters passed into query"));
+        }
+
+        final long key = IdentificationCache.key(fingerprint, duration);
+        final IdentificationCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            if (cached.isNegative()) {
+                return CompletableFuture.failedFuture(new FingerprintUnknownException(CACHED_MISS_MSG));
+            }
+            return CompletableFuture.completedFuture(cached.metadata());
+        }
+
+        return remote.getClosestMatchMetadataAsync(fingerprint, duration, priority)
+            .whenComplete((metadata, error) -> {
+                if (error == null) {
+                    store(key, metadata);
+                }
+                else if (unwrap(error) instanceof FingerprintUnknownException) {
+                    store(key, null);
+                }
+            });
+    }
+
+    private void store(long key, Song.SongMetadata metadata) {
+        try {
+            cache.put(key, metadata);
+        }
+        catch (IOException exception) {
+            System.err.println("Warning: failed to write identification cache: " + exception.getMessage());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
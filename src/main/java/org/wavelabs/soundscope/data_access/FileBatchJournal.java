@@ -0,0 +1,198 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyResult;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchJournal;
+
+/**
+ * Append-only batch journal, one JSON object per line.
+ *
+ * <p>A line records either that a file was fingerprinted, along with the file's size and
+ * modification time, or a file's final result. The fingerprint is only in the first, so a result
+ * recovered from the journal has none. Lines are written to the file as soon as they are
+ * recorded, so they survive the application stopping. They are forced to the disk in groups, once
+ * {@link #SYNC_EVERY_RECORDS} have built up or {@link #SYNC_INTERVAL_MILLIS} has passed since the
+ * last time, and on close; a crash of the machine loses at most the last group.</p>
+ *
+ * <p>When the journal is opened, its lines are replayed one at a time. Files that changed after
+ * being fingerprinted are left out, and a line cut short by a crash is dropped. Fingerprints are
+ * only kept for files whose lookup had not finished.</p>
+ */
+final class FileBatchJournal implements BatchJournal {
+    /** Longest time between forcing records to the disk, while records are being written. */
+    static final long SYNC_INTERVAL_MILLIS = 1000;
+    /** Most records written between forcing them to the disk. */
+    static final int SYNC_EVERY_RECORDS = 64;
+
+    private static final String TYPE = "type";
+    private static final String QUEUED = "queued";
+    private static final String COMPLETED = "completed";
+    private static final String PATH = "path";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String DURATION = "duration";
+    private static final String SIZE = "size";
+    private static final String MODIFIED = "modified";
+    private static final String RESULT = "result";
+
+    private final Path file;
+    private final Map<String, Entry> recovered = new HashMap<>();
+    private final FileChannel channel;
+    private int unsyncedRecords;
+    private long lastSyncMillis = System.currentTimeMillis();
+    private boolean closed;
+
+    /**
+     * Opens a journal, creating it if needed.
+     *
+     * @param file the journal file
+     * @throws IOException if the journal cannot be read or created
+     */
+    FileBatchJournal(Path file) throws IOException {
+        this.file = file;
+        long validLength = 0;
+        if (Files.exists(file)) {
+            validLength = replay();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    @Override
+    public Map<String, Entry> recovered() {
+        return Collections.unmodifiableMap(recovered);
+    }
+
+    @Override
+    public void recordQueued(String path, String fingerprint, int durationSeconds) throws IOException {
+        final File audioFile = new File(path);
+        final JSONObject record = new JSONObject();
+        record.put(TYPE, QUEUED);
+        record.put(PATH, path);
+        record.put(FINGERPRINT, fingerprint);
+        record.put(DURATION, durationSeconds);
+        record.put(SIZE, audioFile.length());
+        record.put(MODIFIED, audioFile.lastModified());
+        append(record);
+    }
+
+    @Override
+    public void recordCompleted(BatchIdentifyResult result) throws IOException {
+        final JSONObject record = new JSONObject();
+        record.put(TYPE, COMPLETED);
+        record.put(PATH, result.path());
+        final JSONObject json = BatchResultJson.toJson(result);
+        // Already in the file's queued record
+        json.remove(FINGERPRINT);
+        record.put(RESULT, json);
+        append(record);
+    }
+
+    @Override
+    public void discard() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (channel) {
+            if (unsyncedRecords > 0) {
+                channel.force(false);
+            }
+        }
+    }
+
+    private synchronized void append(JSONObject record) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        final ByteBuffer line = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        unsyncedRecords++;
+
+        final long now = System.currentTimeMillis();
+        if (unsyncedRecords >= SYNC_EVERY_RECORDS || now - lastSyncMillis >= SYNC_INTERVAL_MILLIS) {
+            channel.force(false);
+            unsyncedRecords = 0;
+            lastSyncMillis = now;
+        }
+    }
+
+    /**
+     * Rebuilds the recovered entries from the journal file, a line at a time.
+     *
+     * @return the length in bytes of the complete lines, after which anything is dropped
+     * @throws IOException if the journal cannot be read
+     */
+    private long replay() throws IOException {
+        final long size = Files.size(file);
+        long validLength = 0;
+        // Unlike the default, the decoder reports bytes that are not UTF-8, so line lengths are exact
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                 Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final long end = validLength + line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (end > size) {
+                    // The last line, without its newline
+                    break;
+                }
+                try {
+                    replayRecord(new JSONObject(line));
+                }
+                catch (JSONException | IllegalArgumentException exception) {
+                    // Unreadable line; the file is redone
+                }
+                validLength = end;
+            }
+        }
+        catch (CharacterCodingException exception) {
+            // A character cut short by a crash; it and anything after it are dropped
+        }
+        return validLength;
+    }
+
+    private void replayRecord(JSONObject record) {
+        final String path = record.getString(PATH);
+        if (QUEUED.equals(record.getString(TYPE))) {
+            final File audioFile = new File(path);
+            if (audioFile.length() == record.getLong(SIZE) && audioFile.lastModified() == record.getLong(MODIFIED)) {
+                recovered.put(path, new Entry(record.getString(FINGERPRINT), record.getInt(DURATION), null));
+            }
+            else {
+                recovered.remove(path);
+            }
+        }
+        else if (COMPLETED.equals(record.getString(TYPE))) {
+            final Entry queued = recovered.get(path);
+            if (queued != null) {
+                // The fingerprint is not needed again once the file has a result
+                recovered.put(path, new Entry(null, queued.durationSeconds(),
+                    BatchResultJson.fromJson(record.getJSONObject(RESULT))));
+            }
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package org.wavelabs.soundscope.data_access;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.lang.foreign.MemorySegment;
 
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 import org.wavelabs.soundscope.entity.AudioData;
@@ -16,8 +14,13 @@ import org.wavelabs.soundscope.infrastructure.FileSaver;
 import org.wavelabs.soundscope.infrastructure.JavaMicRecorder;
 import org.wavelabs.soundscope.infrastructure.Recorder;
 import org.wavelabs.soundscope.use_case.display_recording_waveform.DisplayRecordingWaveformDAI;
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyDAI;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintCheckpointListener;
 import org.wavelabs.soundscope.use_case.fingerprint.FingerprintDAI;
+import org.wavelabs.soundscope.use_case.fingerprint.StreamingFingerprint;
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
 import org.wavelabs.soundscope.use_case.save_recording.SaveRecordingDAI;
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyDAI;
 import org.wavelabs.soundscope.use_case.start_recording.StartRecordingDAI;
 import org.wavelabs.soundscope.use_case.stop_recording.StopRecordingDAI;
 
@@ -25,10 +28,39 @@ public class FileDAO implements StartRecordingDAI,
                                 StopRecordingDAI,
                                 SaveRecordingDAI,
                                 DisplayRecordingWaveformDAI,
-                                FingerprintDAI{
+                                FingerprintDAI,
+                                EarlyIdentifyDAI,
+                                SegmentIdentifyDAI {
     private final FileSaver fileSaver = new ByteArrayFileSaver();
+    private final PcmCache pcmCache;
+    private PcmCache.Lease loadedFile;
     private Recorder recorder;
-    private AudioRecording audioRecording;
+    // Loaded files are set off the EDT, by the process audio file worker
+    private volatile AudioRecording audioRecording;
+    private volatile StreamingFingerprint streamingFingerprint;
+    private volatile File savedRecordingFile;
+    // Guards publishing loaded audio; not the DAO's own lock, which is held while a file decodes
+    private final Object loadLock = new Object();
+    // File opened but not loaded yet; loads of any other file are out of date
+    private File expectedFile;
+    private FingerprintCheckpointListener checkpointListener;
+    private int[] checkpointSeconds = new int[0];
+
+    /**
+     * Creates a FileDAO that decodes loaded files through a cache of its own.
+     */
+    public FileDAO() {
+        this(new PcmCache(PcmCache.DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Creates a FileDAO that decodes loaded files through a shared cache.
+     *
+     * @param pcmCache the cache of decoded files
+     */
+    public FileDAO(PcmCache pcmCache) {
+        this.pcmCache = pcmCache;
+    }
 
     @Override
     public boolean hasAudioRecording() {
@@ -36,19 +68,52 @@ public class FileDAO implements StartRecordingDAI,
     }
 
     @Override
-    public void startRecording() throws UnsupportedOperationException {
+    public synchronized void startRecording() throws UnsupportedOperationException {
         if (recorder == null)
             recorder = new JavaMicRecorder();
-        recorder.start();
+        // The recorder would ignore the start and keep feeding the fingerprint it already has
+        if (recorder.isRecording())
+            return;
+
+        // A fingerprint that was never stopped still holds its native context
+        closeStreamingFingerprint();
+        // Fingerprint the recording while it is being captured
+        try {
+            streamingFingerprint = new StreamingFingerprint(
+                recorder.getAudioFormat(), checkpointListener, checkpointSeconds);
+        }
+        catch (ChromaprintException exception) {
+            // Fingerprinting falls back to the full recording once it has stopped
+            streamingFingerprint = null;
+        }
+        savedRecordingFile = null;
+        recorder.setAudioProcessor(streamingFingerprint);
+        try {
+            recorder.start();
+        }
+        catch (RuntimeException exception) {
+            recorder.setAudioProcessor(null);
+            closeStreamingFingerprint();
+            throw exception;
+        }
+    }
+
+    private void closeStreamingFingerprint() {
+        final StreamingFingerprint previous = streamingFingerprint;
+        streamingFingerprint = null;
+        if (previous != null) {
+            previous.close();
+        }
     }
 
     @Override
-    public void stopRecording() {
+    public synchronized void stopRecording() {
         final AudioFormat format = recorder.getAudioFormat();
         recorder.stop();
 
         // extract and save the resulting byte[] to audioRecording object
         this.audioRecording = new AudioRecording(recorder.getRecordingBytes(), format);
+        releaseLoadedFile();
     }
 
     @Override
@@ -56,9 +121,20 @@ public class FileDAO implements StartRecordingDAI,
         return recorder.isRecording();
     }
 
+    @Override
+    public synchronized void setCheckpointListener(FingerprintCheckpointListener listener,
+                                                   int... checkpoints) {
+        this.checkpointListener = listener;
+        this.checkpointSeconds = checkpoints.clone();
+    }
+
     @Override
     public boolean saveToFile(String filePath) throws IOException {
-        return fileSaver.save(filePath, audioRecording);
+        final boolean saved = fileSaver.save(filePath, audioRecording);
+        if (saved) {
+            savedRecordingFile = new File(filePath).getAbsoluteFile();
+        }
+        return saved;
     }
 
     @Override
@@ -69,11 +145,24 @@ public class FileDAO implements StartRecordingDAI,
         return audioRecording.getData();
     }
 
+    @Override
+    public MemorySegment getAudioSamples() {
+        if (audioRecording == null) {
+            return null;
+        }
+        return audioRecording.getSamples();
+    }
+
     @Override
     public AudioFormat getAudioFormat() {
         return audioRecording.getFormat();
     }
 
+    @Override
+    public StreamingFingerprint getStreamingFingerprint() {
+        return streamingFingerprint;
+    }
+
     @Override
     public AudioData getCurrentRecordingBuffer() {
         if (!recorder.isRecording()) {
@@ -86,25 +175,61 @@ public class FileDAO implements StartRecordingDAI,
         return gateway.getCurrentRecordingBuffer();
     }
 
+    /**
+     * Forgets the current audio because a file has been opened in its place, without waiting for
+     * the DAO. Until the file is loaded there is no audio, so nothing fingerprints the audio being
+     * replaced and shows the result under the new file's name. A load of any other file that ends
+     * after this call is dropped.
+     *
+     * @param file the file that is about to be loaded
+     */
+    public void expectAudioFromFile(File file) {
+        synchronized (loadLock) {
+            expectedFile = file;
+            audioRecording = null;
+            if (!file.getAbsoluteFile().equals(savedRecordingFile)) {
+                streamingFingerprint = null;
+            }
+        }
+    }
+
     /**
      * Loads audio from a file and creates an AudioRecording.
      * This should be called when a file is loaded to enable fingerprinting.
+     * The audio is decoded to 16-bit PCM, or taken from the cache if another
+     * gateway has already decoded the file, and held in the cache while loaded.
+     * WAV files of 16-bit PCM are mapped into memory instead of decoded.
+     * If another file has been {@linkplain #expectAudioFromFile expected} since,
+     * the loaded audio is dropped.
      *
      * @param file The audio file to load
      * @throws IOException                   if the file cannot be read
      * @throws UnsupportedAudioFileException if the audio format is not supported
      */
-    public void loadAudioFromFile(File file) throws IOException, UnsupportedAudioFileException {
-        try (AudioInputStream input = AudioSystem.getAudioInputStream(file);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-            final int byteSize = 4096;
-            final byte[] chunk = new byte[byteSize];
-            int bytesRead;
-            while ((bytesRead = input.read(chunk)) != -1) {
-                buffer.write(chunk, 0, bytesRead);
+    public synchronized void loadAudioFromFile(File file) throws IOException, UnsupportedAudioFileException {
+        final PcmCache.Lease lease = pcmCache.acquire(file);
+        final PcmCache.DecodedPcm decoded = lease.decoded();
+        synchronized (loadLock) {
+            if (expectedFile != null && !expectedFile.equals(file)) {
+                lease.close();
+                return;
+            }
+            expectedFile = null;
+            // The streamed fingerprint still describes the audio if this is the recording just saved
+            if (!file.getAbsoluteFile().equals(savedRecordingFile)) {
+                streamingFingerprint = null;
+                savedRecordingFile = null;
             }
-            final AudioFormat audioFormat = input.getFormat();
-            this.audioRecording = new AudioRecording(buffer.toByteArray(), audioFormat);
+            releaseLoadedFile();
+            loadedFile = lease;
+            this.audioRecording = new AudioRecording(decoded.samples(), decoded.format());
+        }
+    }
+
+    private void releaseLoadedFile() {
+        if (loadedFile != null) {
+            loadedFile.close();
+            loadedFile = null;
         }
     }
 }
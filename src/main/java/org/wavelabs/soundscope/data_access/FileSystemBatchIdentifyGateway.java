@@ -0,0 +1,184 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyDAI;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyResult;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchJournal;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchReport;
+import org.wavelabs.soundscope.use_case.batch_identify.DecodedAudio;
+
+/**
+ * File system implementation of BatchIdentifyDAI.
+ *
+ * <p>Finds WAV files in a directory tree, decodes them with the Java Sound API, and writes
+ * reports as JSON Lines, or as CSV when the report file name ends in {@code .csv}. The journal
+ * of a batch is kept beside its report, with {@code .journal} added to the name.</p>
+ */
+public class FileSystemBatchIdentifyGateway implements BatchIdentifyDAI {
+    private static final String AUDIO_EXTENSION = ".wav";
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final int BIT_DEPTH_16 = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public List<File> findAudioFiles(File rootDirectory) throws IOException {
+        try (Stream<Path> paths = Files.walk(rootDirectory.toPath())) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(AUDIO_EXTENSION))
+                .sorted()
+                .map(Path::toFile)
+                .toList();
+        }
+    }
+
+    @Override
+    public DecodedAudio decode(File file, int maxSeconds) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream original = AudioSystem.getAudioInputStream(file)) {
+            final AudioFormat originalFormat = original.getFormat();
+            final AudioFormat targetFormat = new AudioFormat(
+                AudioFormat.Encoding.PCM_SIGNED,
+                originalFormat.getSampleRate(),
+                BIT_DEPTH_16,
+                originalFormat.getChannels(),
+                originalFormat.getChannels() * 2,
+                originalFormat.getSampleRate(),
+                false
+            );
+
+            AudioInputStream pcmStream = original;
+            if (!originalFormat.matches(targetFormat)) {
+                pcmStream = AudioSystem.getAudioInputStream(targetFormat, original);
+            }
+
+            try (AudioInputStream input = pcmStream) {
+                final double bytesPerSecond = targetFormat.getFrameSize() * targetFormat.getFrameRate();
+                final int maxBytes = (int) (maxSeconds * bytesPerSecond);
+                final byte[] pcm = input.readNBytes(maxBytes);
+
+                // Only the start is decoded, so take the duration from the header when it has one
+                long totalBytes = pcm.length;
+                if (original.getFrameLength() != AudioSystem.NOT_SPECIFIED) {
+                    totalBytes = original.getFrameLength() * targetFormat.getFrameSize();
+                }
+                else {
+                    totalBytes += skipToEnd(input);
+                }
+                return new DecodedAudio(pcm, targetFormat, (int) (totalBytes / bytesPerSecond));
+            }
+        }
+    }
+
+    private static long skipToEnd(InputStream input) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long skipped = 0;
+        int bytesRead;
+        while ((bytesRead = input.read(buffer)) != -1) {
+            skipped += bytesRead;
+        }
+        return skipped;
+    }
+
+    @Override
+    public BatchReport openReport(File reportFile) throws IOException {
+        final BufferedWriter writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8);
+        if (reportFile.getName().toLowerCase(Locale.ROOT).endsWith(CSV_EXTENSION)) {
+            return new CsvReport(writer);
+        }
+        return new JsonLinesReport(writer);
+    }
+
+    @Override
+    public BatchJournal openJournal(File reportFile) throws IOException {
+        return new FileBatchJournal(new File(reportFile.getPath() + JOURNAL_EXTENSION).toPath());
+    }
+
+    /**
+     * Writes one JSON object per line.
+     */
+    private static final class JsonLinesReport implements BatchReport {
+        private final BufferedWriter writer;
+
+        private JsonLinesReport(BufferedWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public synchronized void write(BatchIdentifyResult result) throws IOException {
+            writer.write(BatchResultJson.toJson(result).toString());
+            writer.newLine();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes RFC 4180 CSV with a header row. The fingerprint is left out to keep rows readable.
+     */
+    private static final class CsvReport implements BatchReport {
+        private static final String HEADER =
+            "path,status,duration,title,artists,album,acoustid,musicbrainz,score,error";
+        private final BufferedWriter writer;
+
+        private CsvReport(BufferedWriter writer) throws IOException {
+            this.writer = writer;
+            writer.write(HEADER);
+            writer.newLine();
+        }
+
+        @Override
+        public synchronized void write(BatchIdentifyResult result) throws IOException {
+            String artists = null;
+            if (result.artists() != null) {
+                artists = String.join("; ", result.artists());
+            }
+            String score = "";
+            if (!Double.isNaN(result.score())) {
+                score = Double.toString(result.score());
+            }
+            writer.write(String.join(",",
+                quote(result.path()),
+                result.status().name(),
+                Integer.toString(result.durationSeconds()),
+                quote(result.title()),
+                quote(artists),
+                quote(result.album()),
+                quote(result.acoustIDTrackID()),
+                quote(result.musicBrainzID()),
+                score,
+                quote(result.error())));
+            writer.newLine();
+        }
+
+        private static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+}
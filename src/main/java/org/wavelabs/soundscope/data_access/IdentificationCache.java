@@ -0,0 +1,301 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wavelabs.soundscope.entity.Song;
+
+/**
+ * Two-tier cache of identification results, keyed by a 64-bit hash of the fingerprint and
+ * duration.
+ *
+ * <p>The most recently used entries are held in memory, up to a fixed count. Every entry is also
+ * appended to {@code identifications.jsonl}, one JSON object per line; only the position of each
+ * line is kept in memory, and the line is read back when an entry has been evicted from the
+ * first tier. The file is rewritten without expired and superseded lines when it is opened.</p>
+ *
+ * <p>An entry either holds metadata or records that the fingerprint has no match. Both expire,
+ * misses sooner than matches, since AcoustID learns new recordings over time.</p>
+ */
+public final class IdentificationCache implements AutoCloseable {
+    /** Default location of the cache. */
+    public static final File DEFAULT_DIRECTORY =
+        new File(System.getProperty("user.home"), ".soundscope" + File.separator + "cache");
+
+    /** Default number of entries held in memory. */
+    public static final int DEFAULT_MEMORY_ENTRIES = 4096;
+
+    /** Default time a match is kept. */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    /** Default time a miss is kept. */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String CACHE_FILE = "identifications.jsonl";
+    private static final String KEY = "key";
+    private static final String EXPIRES = "expires";
+    private static final String METADATA = "metadata";
+    // FNV-1a, 64-bit
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path file;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongSupplier clock;
+    private final Map<Long, Entry> memory;
+    private final Map<Long, Location> disk = new HashMap<>();
+    private final RandomAccessFile store;
+
+    /**
+     * A cached identification result.
+     *
+     * @param metadata        the metadata of the match, or {@code null} if there was no match
+     * @param expiresAtMillis when the entry stops being used, in epoch milliseconds
+     */
+    public record Entry(Song.SongMetadata metadata, long expiresAtMillis) {
+        /**
+         * Returns whether the entry records that there was no match.
+         *
+         * @return whether there was no match
+         */
+        public boolean isNegative() {
+            return metadata == null;
+        }
+    }
+
+    private record Location(long offset, int length) {
+    }
+
+    /**
+     * Opens the cache in a directory with the default size and lifetimes, creating it if needed.
+     *
+     * @param directory the cache directory
+     * @throws IOException if the cache cannot be read or created
+     */
+    public IdentificationCache(File directory) throws IOException {
+        this(directory, DEFAULT_MEMORY_ENTRIES, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    /**
+     * Opens the cache in a directory, creating it if needed.
+     *
+     * @param directory         the cache directory
+     * @param memoryEntries     most entries held in memory
+     * @param ttlMillis         time a match is kept
+     * @param negativeTtlMillis time a miss is kept
+     * @throws IOException if the cache cannot be read or created
+     */
+    public IdentificationCache(File directory, int memoryEntries, long ttlMillis, long negativeTtlMillis)
+        throws IOException {
+        this(directory, memoryEntries, ttlMillis, negativeTtlMillis, System::currentTimeMillis);
+    }
+
+    IdentificationCache(File directory, int memoryEntries, long ttlMillis, long negativeTtlMillis,
+                        LongSupplier clock) throws IOException {
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.clock = clock;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+
+        Files.createDirectories(directory.toPath());
+        this.file = directory.toPath().resolve(CACHE_FILE);
+        compact();
+        this.store = new RandomAccessFile(file.toFile(), "rw");
+        loadLocations();
+    }
+
+    /**
+     * Hashes a fingerprint and duration into a cache key.
+     *
+     * @param fingerprint the fingerprint string
+     * @param duration    the duration in seconds
+     * @return the key
+     */
+    public static long key(String fingerprint, int duration) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < fingerprint.length(); i++) {
+            hash = (hash ^ fingerprint.charAt(i)) * FNV_PRIME;
+        }
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((duration >>> shift) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the number of entries stored, including any that expired since the cache was opened
+     * and have not been looked up since.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return disk.size();
+    }
+
+    /**
+     * Returns the entry for a key.
+     *
+     * @param key the cache key
+     * @return the entry, or {@code null} if there is none or it has expired
+     */
+    public synchronized Entry get(long key) {
+        Entry entry = memory.get(key);
+        if (entry == null) {
+            entry = readFromDisk(key);
+            if (entry == null) {
+                return null;
+            }
+            memory.put(key, entry);
+        }
+
+        if (entry.expiresAtMillis() <= clock.getAsLong()) {
+            memory.remove(key);
+            disk.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result of a lookup.
+     *
+     * @param key      the cache key
+     * @param metadata the metadata of the match, or {@code null} to record that there was no match
+     * @throws IOException if the entry cannot be written to disk
+     */
+    public synchronized void put(long key, Song.SongMetadata metadata) throws IOException {
+        long lifetime = ttlMillis;
+        if (metadata == null) {
+            lifetime = negativeTtlMillis;
+        }
+        final Entry entry = new Entry(metadata, clock.getAsLong() + lifetime);
+
+        final byte[] line = (toJson(key, entry).toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        final long offset = store.length();
+        store.seek(offset);
+        store.write(line);
+
+        memory.put(key, entry);
+        disk.put(key, new Location(offset, line.length - 1));
+    }
+
+    /**
+     * Closes the cache file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        store.close();
+    }
+
+    private Entry readFromDisk(long key) {
+        final Location location = disk.get(key);
+        if (location == null) {
+            return null;
+        }
+        try {
+            final byte[] line = new byte[location.length()];
+            store.seek(location.offset());
+            store.readFully(line);
+            return fromJson(new JSONObject(new String(line, StandardCharsets.UTF_8)));
+        }
+        catch (IOException | JSONException exception) {
+            disk.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Rewrites the cache file with only the latest unexpired entry for each key. Lines cut short by
+     * a crash are dropped as well.
+     */
+    private void compact() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        final long now = clock.getAsLong();
+        final Map<Long, String> latest = new LinkedHashMap<>();
+        int lines = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lines++;
+            try {
+                final JSONObject json = new JSONObject(line);
+                final long key = Long.parseUnsignedLong(json.getString(KEY), 16);
+                latest.remove(key);
+                if (json.getLong(EXPIRES) > now) {
+                    latest.put(key, line);
+                }
+            }
+            catch (JSONException | NumberFormatException exception) {
+                // Unreadable line; dropped
+            }
+        }
+
+        if (latest.size() != lines) {
+            final Path compacted = file.resolveSibling(CACHE_FILE + ".tmp");
+            final List<String> kept = new ArrayList<>(latest.values());
+            Files.write(compacted, kept, StandardCharsets.UTF_8);
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private void loadLocations() throws IOException {
+        final byte[] bytes = Files.readAllBytes(file);
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            try {
+                final String line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+                final long key = Long.parseUnsignedLong(new JSONObject(line).getString(KEY), 16);
+                disk.put(key, new Location(start, i - start));
+            }
+            catch (JSONException | NumberFormatException exception) {
+                // Compaction removed these; nothing to do if one appears anyway
+            }
+            start = i + 1;
+        }
+    }
+
+    private static JSONObject toJson(long key, Entry entry) {
+        final JSONObject json = new JSONObject();
+        json.put(KEY, Long.toHexString(key));
+        json.put(EXPIRES, entry.expiresAtMillis());
+        if (entry.metadata() != null) {
+            json.put(METADATA, SongMetadataJson.toJson(entry.metadata()));
+        }
+        return json;
+    }
+
+    private static Entry fromJson(JSONObject json) {
+        Song.SongMetadata metadata = null;
+        final JSONObject metadataJson = json.optJSONObject(METADATA);
+        if (metadataJson != null) {
+            metadata = SongMetadataJson.fromJson(metadataJson);
+        }
+        return new Entry(metadata, json.getLong(EXPIRES));
+    }
+}
@@ -1,6 +1,5 @@
 package org.wavelabs.soundscope.data_access;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
@@ -16,11 +15,17 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 import org.wavelabs.soundscope.entity.AudioRecording;
 import org.wavelabs.soundscope.use_case.play_recording.PlayRecordingDAI;
 
+/**
+ * Java Sound implementation of PlayRecordingDAI. Files are decoded through a {@link PcmCache},
+ * and played back from the decoded audio held there while the file is loaded. Mapped files are
+ * streamed to the line straight from the mapping, a buffer at a time.
+ */
 public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
     private final Object lock = new Object();
+    private final PcmCache pcmCache;
     private volatile boolean isPlaying;
     private Thread playbackThread;
-    private File audioFile;
+    private PcmCache.Lease loadedFile;
     private AudioInputStream audioInputStream;
     private AudioFormat format;
     private SourceDataLine line;
@@ -29,6 +34,22 @@ public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
     private byte[] audioBuffer;
     private AudioRecording currentRecording;
 
+    /**
+     * Creates a gateway with a cache of its own.
+     */
+    public JavaSoundPlaybackGateway() {
+        this(new PcmCache(PcmCache.DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Creates a gateway that decodes files through a shared cache.
+     *
+     * @param pcmCache the cache of decoded files
+     */
+    public JavaSoundPlaybackGateway(PcmCache pcmCache) {
+        this.pcmCache = pcmCache;
+    }
+
     @Override
     public AudioRecording loadAudio(String sourcePath)
             throws IOException, UnsupportedAudioFileException, NullPointerException {
@@ -40,7 +61,7 @@ public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
 
         synchronized (lock) {
             cleanUp();
-            this.audioFile = file;
+            loadedFile = pcmCache.acquire(file);
             openPlaybackStream();
             format = audioInputStream.getFormat();
 
@@ -63,7 +84,7 @@ public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
             }
             audioBuffer = new byte[1024 * bytesPerFrame];
             totalFramesRead = 0;
-            currentRecording = buildRecording(file);
+            currentRecording = new AudioRecording(loadedFile.decoded().samples(), format);
             return currentRecording;
         }
     }
@@ -102,13 +123,8 @@ public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
             }
             joinPlaybackThread();
             totalFramesRead = 0;
-            if (audioFile != null) {
-                try {
-                    openPlaybackStream();
-                }
-                catch (IOException | UnsupportedAudioFileException ex) {
-                    throw new IllegalStateException("Failed to reset playback stream", ex);
-                }
+            if (loadedFile != null) {
+                openPlaybackStream();
             }
         }
     }
@@ -164,23 +180,11 @@ public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
         }
     }
 
-    private void openPlaybackStream() throws IOException, UnsupportedAudioFileException {
+    private void openPlaybackStream() {
         closeStream();
-        audioInputStream = AudioSystem.getAudioInputStream(audioFile);
-    }
-
-    private AudioRecording buildRecording(File file) throws IOException, UnsupportedAudioFileException {
-        try (AudioInputStream input = AudioSystem.getAudioInputStream(file);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-            final int byteCount = 4096;
-            final byte[] chunk = new byte[byteCount];
-            int bytesRead;
-            while ((bytesRead = input.read(chunk)) != -1) {
-                buffer.write(chunk, 0, bytesRead);
-            }
-            final AudioFormat audioFormat = input.getFormat();
-            return new AudioRecording(buffer.toByteArray(), audioFormat);
-        }
+        final PcmCache.DecodedPcm decoded = loadedFile.decoded();
+        audioInputStream = new AudioInputStream(
+            new MemorySegmentInputStream(decoded.samples()), decoded.format(), decoded.frameLength());
     }
 
     private void cleanUp() {
@@ -191,6 +195,10 @@ public class JavaSoundPlaybackGateway implements PlayRecordingDAI {
             line.close();
             line = null;
         }
+        if (loadedFile != null) {
+            loadedFile.close();
+            loadedFile = null;
+        }
     }
 
     private void joinPlaybackThread() {
@@ -1,6 +1,11 @@
 package org.wavelabs.soundscope.data_access;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
 import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
 
 import org.wavelabs.soundscope.entity.AudioData;
 import org.wavelabs.soundscope.infrastructure.Recorder;
@@ -16,6 +21,8 @@ import org.wavelabs.soundscope.use_case.display_recording_waveform.DisplayRecord
  * Use Case layer.
  */
 public class JavaSoundRecordingGateway implements DisplayRecordingWaveformDAI {
+    private static final int BIT_DEPTH_16 = 16;
+
     private final Recorder recorder;
 
     /**
@@ -50,98 +57,49 @@ public class JavaSoundRecordingGateway implements DisplayRecordingWaveformDAI {
         }
 
         final AudioFormat format = recorder.getAudioFormat();
-        final int sampleRate = (int) format.getSampleRate();
-        final int channels = format.getChannels();
-
-        // Process all accumulated bytes to get amplitude samples
-        final double[] amplitudeSamples = convertToAmplitudeSamples(allBytes, format, allBytes.length, channels);
 
-        if (amplitudeSamples.length == 0) {
+        // Process all accumulated bytes to get amplitude samples and block summaries
+        final AmplitudeExtractor extractor;
+        try {
+            extractor = extract(allBytes, format);
+        }
+        catch (IOException | IllegalArgumentException exception) {
             return null;
         }
 
-        // Calculate duration for all accumulated data (accounting for 256x downsampling)
-        final long durationMillis = (long) ((amplitudeSamples.length * 256 * 1000.0) / sampleRate);
+        if (extractor.getCount() == 0) {
+            return null;
+        }
 
-        return new AudioData(amplitudeSamples, "Recording", durationMillis, sampleRate, channels);
+        return extractor.toAudioData("Recording");
     }
 
     /**
-     * Converts raw audio bytes to normalized amplitude samples.
-     *
-     * <p>This method processes the audio bytes according to the audio format
-     * (sample size, endianness, signed/unsigned) and converts them to normalized
-     * amplitude values in the range [-1.0, 1.0]. Samples are downsampled by 256
-     * for efficient progressive display during recording.
+     * Extracts amplitude samples and block summaries from raw audio bytes, downsampled by
+     * {@value AmplitudeExtractor#DOWNSAMPLE_FACTOR} for efficient progressive display during
+     * recording. Audio in other formats than 16-bit signed PCM is converted first.
      *
      * @param audioBytes The raw audio byte data
      * @param format     The audio format specification
-     * @param bytesRead  The number of bytes actually read from the audio stream
-     * @param channels   The number of audio channels
-     * @return Array of normalized amplitude samples (downsampled by 256)
+     * @return the extractor, holding the amplitude samples
+     * @throws IOException              if the audio cannot be converted
+     * @throws IllegalArgumentException if there is no conversion from the format
      */
-    private double[] convertToAmplitudeSamples(byte[] audioBytes, AudioFormat format,
-                                               int bytesRead, int channels) {
-        final int sampleSizeInBits = format.getSampleSizeInBits();
-        final boolean bigEndian = format.isBigEndian();
-
-        final int bytesPerSample = sampleSizeInBits / 8;
-        final int totalSamples = bytesRead / (bytesPerSample * channels);
-        // Downsample by 256 for more compression
-        final int downsampledCount = totalSamples / 256;
-
-        if (downsampledCount == 0) {
-            return new double[0];
+    private static AmplitudeExtractor extract(byte[] audioBytes, AudioFormat format) throws IOException {
+        final long frames = audioBytes.length / format.getFrameSize();
+        final AudioFormat targetFormat = new AudioFormat(format.getSampleRate(), BIT_DEPTH_16,
+            format.getChannels(), true, format.isBigEndian());
+        if (format.matches(targetFormat)) {
+            final AmplitudeExtractor extractor = new AmplitudeExtractor(format, frames);
+            extractor.accept(audioBytes, audioBytes.length);
+            return extractor;
         }
 
-        final double[] samples = new double[downsampledCount];
-
-        for (int i = 0; i < downsampledCount; i++) {
-            final int sampleIndex = i * 256;
-            final int byteIndex = sampleIndex * bytesPerSample * channels;
-
-            if (byteIndex + bytesPerSample * channels > bytesRead) {
-                break;
-            }
-
-            long totalSample = 0;
-
-            for (int c = 0; c < channels; c++) {
-                final int offset = byteIndex + c * bytesPerSample;
-
-                if (offset + bytesPerSample > bytesRead) {
-                    break;
-                }
-
-                int sample = 0;
-
-                if (bytesPerSample == 2) {
-                    if (bigEndian) {
-                        sample = audioBytes[offset] << 8 | audioBytes[offset + 1] & 0xFF;
-                    }
-                    else {
-                        sample = audioBytes[offset + 1] << 8 | audioBytes[offset] & 0xFF;
-                    }
-
-                    if (sample > 32767) {
-                        sample -= 65536;
-                    }
-                }
-                else if (bytesPerSample == 1) {
-                    sample = audioBytes[offset] & 0xFF;
-                    if (sample > 127) {
-                        sample -= 256;
-                    }
-                }
-
-                totalSample += sample;
-            }
-
-            final double avgSample = totalSample / (double) channels;
-            samples[i] = avgSample / 32768.0;
+        try (AudioInputStream pcm = AudioSystem.getAudioInputStream(targetFormat,
+            new AudioInputStream(new ByteArrayInputStream(audioBytes), format, frames))) {
+            final AmplitudeExtractor extractor = new AmplitudeExtractor(pcm.getFormat(), frames);
+            extractor.extract(pcm);
+            return extractor;
         }
-
-        return samples;
     }
 }
-
@@ -0,0 +1,505 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintMatcher;
+import org.wavelabs.soundscope.use_case.fingerprint.RawFingerprintCodec;
+
+/**
+ * Persistent inverted index from raw chromaprint sub-fingerprints to tracks that have already
+ * been identified, so repeat identifications can be answered without an AcoustID request.
+ *
+ * <p>The index lives in a directory holding three files:</p>
+ * <ul>
+ *     <li>{@code tracks.bin}: the raw fingerprint of every track, as consecutive
+ *     {@link RawFingerprintCodec} records. The record position is the track number. It is
+ *     memory-mapped, and only the record offsets are kept on the heap; a fingerprint is decoded
+ *     from the mapping when its track is a candidate for a lookup. Records of tracks added since
+ *     the last merge are also kept on the heap, and mapped with the merge.</li>
+ *     <li>{@code tracks.jsonl}: the metadata of every track, one JSON object per line.</li>
+ *     <li>{@code postings.bin}: a header followed by (key, track, position) postings sorted by
+ *     key, covering the first {@code indexedTracks} tracks. It is memory-mapped, so a lookup is a
+ *     binary search over the mapping.</li>
+ * </ul>
+ *
+ * <p>Tracks are appended to the first two files as soon as they are added. Their postings are
+ * kept in memory until enough accumulate to merge them into a new postings file; tracks added
+ * since the last merge are re-indexed in memory when the index is opened, so nothing is lost if
+ * the application exits without {@link #close()}.</p>
+ *
+ * <p>A lookup votes for (track, time offset) pairs using sub-fingerprints whose upper bits match
+ * exactly, then confirms the best candidates by comparing every bit at that offset. Only offsets
+ * where the track covers most of the query are accepted, since a short overlap can agree in most
+ * bits by chance.</p>
+ */
+public final class LocalFingerprintIndex implements AutoCloseable {
+    /** Default location of the index. */
+    public static final File DEFAULT_DIRECTORY =
+        new File(System.getProperty("user.home"), ".soundscope" + File.separator + "index");
+
+    /** Fraction of equal bits needed at the best alignment to accept a match. */
+    public static final double MIN_SIMILARITY = 0.7;
+
+    /** Fraction of the query that must overlap the track at the best alignment to accept a match. */
+    public static final double MIN_COVERAGE = 0.8;
+
+    private static final String TRACKS_FILE = "tracks.bin";
+    private static final String METADATA_FILE = "tracks.jsonl";
+    private static final String POSTINGS_FILE = "postings.bin";
+    private static final int POSTINGS_MAGIC = 0x53534958;
+    private static final int HEADER_BYTES = 8;
+    private static final int POSTING_BYTES = 12;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+
+    // The lowest bits of a sub-fingerprint are the least stable, so they are left out of the key
+    private static final int KEY_SHIFT = 4;
+    // Keys this common (silence, mostly) say nothing about which track is playing
+    private static final int MAX_POSTINGS_PER_KEY = 256;
+    private static final int MIN_VOTES = 3;
+    private static final int CANDIDATES_TO_VERIFY = 3;
+    private static final int MAX_DELTA_POSTINGS = 1 << 16;
+    private static final int INITIAL_TRACKS = 64;
+
+    private final Path directory;
+    private final List<Song.SongMetadata> metadata = new ArrayList<>();
+    // Start of the record of each track in tracks.bin, followed by the end of the last one
+    private long[] recordOffsets = new long[INITIAL_TRACKS + 1];
+    private Arena tracksArena;
+    private MemorySegment tracks = MemorySegment.NULL;
+    private int mappedTracks;
+    // Mapping again on every add would stall lookups, so these wait for the next flush
+    private final List<byte[]> unmappedRecords = new ArrayList<>();
+    private final Map<Integer, List<Posting>> delta = new HashMap<>();
+    private int deltaSize;
+    private int indexedTracks;
+    private Arena mappingArena;
+    private MemorySegment postings = MemorySegment.NULL;
+    private long postingCount;
+
+    /**
+     * A track found by {@link #lookup}.
+     *
+     * @param metadata   the metadata the track was added with, including the score it was
+     *                   identified with
+     * @param similarity fraction of equal bits between the query and the track, from 0 to 1
+     * @param coverage   fraction of the query that overlaps the track, from 0 to 1
+     */
+    public record Match(Song.SongMetadata metadata, double similarity, double coverage) {
+    }
+
+    /**
+     * Opens the index in a directory, creating it if needed.
+     *
+     * @param directory the index directory
+     * @throws IOException if the index cannot be read or created
+     */
+    public LocalFingerprintIndex(File directory) throws IOException {
+        this.directory = directory.toPath();
+        Files.createDirectories(this.directory);
+        loadTracks();
+        mapPostings();
+        for (int track = indexedTracks; track < metadata.size(); track++) {
+            addToDelta(track, rawFingerprint(track));
+        }
+    }
+
+    /**
+     * Returns the number of tracks in the index.
+     *
+     * @return the number of tracks
+     */
+    public synchronized int size() {
+        return metadata.size();
+    }
+
+    /**
+     * Finds the indexed track that best matches a raw fingerprint.
+     *
+     * @param rawFingerprint the raw fingerprint to look up
+     * @return the matching track, or {@code null} if no track matches well enough
+     */
+    public synchronized Match lookup(int[] rawFingerprint) {
+        final Map<Long, Integer> votes = new HashMap<>();
+        for (int position = 0; position < rawFingerprint.length; position++) {
+            final int key = rawFingerprint[position] >>> KEY_SHIFT;
+            final int queryPosition = position;
+            forEachPosting(key, (track, trackPosition) ->
+                votes.merge(candidate(track, trackPosition - queryPosition), 1, Integer::sum));
+        }
+
+        final List<Map.Entry<Long, Integer>> candidates = new ArrayList<>(votes.entrySet());
+        candidates.removeIf(entry -> entry.getValue() < MIN_VOTES);
+        candidates.sort(Map.Entry.<Long, Integer>comparingByValue().reversed());
+
+        Match best = null;
+        double bestSimilarity = MIN_SIMILARITY;
+        for (int i = 0; i < Math.min(CANDIDATES_TO_VERIFY, candidates.size()); i++) {
+            final long candidate = candidates.get(i).getKey();
+            final int track = (int) (candidate >>> Integer.SIZE);
+            final int offset = (int) candidate;
+            final int[] trackFingerprint = rawFingerprint(track);
+            final double coverage = coverage(rawFingerprint.length, trackFingerprint.length, offset);
+            if (coverage < MIN_COVERAGE) {
+                continue;
+            }
+            final double similarity = FingerprintMatcher.similarity(rawFingerprint, trackFingerprint, offset);
+            if (similarity >= bestSimilarity) {
+                bestSimilarity = similarity;
+                best = new Match(metadata.get(track), similarity, coverage);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds an identified track to the index.
+     *
+     * @param rawFingerprint the raw fingerprint of the track
+     * @param songMetadata   the metadata to return when the track is matched
+     * @throws IOException if the track cannot be persisted
+     */
+    public synchronized void add(int[] rawFingerprint, Song.SongMetadata songMetadata) throws IOException {
+        final byte[] record = RawFingerprintCodec.encode(rawFingerprint);
+        Files.write(directory.resolve(TRACKS_FILE), record, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        Files.writeString(directory.resolve(METADATA_FILE),
+            SongMetadataJson.toJson(songMetadata).toString() + "\n",
+            StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        final int track = metadata.size();
+        if (track + 1 == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, recordOffsets.length * 2);
+        }
+        recordOffsets[track + 1] = recordOffsets[track] + record.length;
+        metadata.add(songMetadata);
+        unmappedRecords.add(record);
+        addToDelta(track, rawFingerprint);
+
+        if (deltaSize >= MAX_DELTA_POSTINGS) {
+            flush();
+        }
+    }
+
+    /**
+     * Merges the postings held in memory into the memory-mapped postings file, and maps the
+     * records of tracks added since the last merge.
+     *
+     * @throws IOException if the postings file cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (!unmappedRecords.isEmpty()) {
+            mapTracks();
+        }
+        if (deltaSize == 0) {
+            return;
+        }
+
+        final long[] pending = new long[deltaSize * 2];
+        int pendingCount = 0;
+        final List<Integer> keys = new ArrayList<>(delta.keySet());
+        keys.sort(Integer::compare);
+        for (int key : keys) {
+            for (Posting posting : delta.get(key)) {
+                pending[pendingCount++] = ((long) key << Integer.SIZE) | (posting.track() & 0xFFFFFFFFL);
+                pending[pendingCount++] = posting.position();
+            }
+        }
+
+        final Path merged = directory.resolve(POSTINGS_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(merged)))) {
+            out.writeInt(POSTINGS_MAGIC);
+            out.writeInt(metadata.size());
+
+            // Both sides are sorted by key, and tracks in the delta all come after the mapped ones
+            long mappedIndex = 0;
+            int pendingIndex = 0;
+            while (mappedIndex < postingCount || pendingIndex < pendingCount) {
+                final boolean takeMapped = pendingIndex >= pendingCount
+                    || mappedIndex < postingCount && mappedKey(mappedIndex) <= (int) (pending[pendingIndex] >>> Integer.SIZE);
+                if (takeMapped) {
+                    final long offset = HEADER_BYTES + mappedIndex * POSTING_BYTES;
+                    out.writeInt(postings.get(INT, offset));
+                    out.writeInt(postings.get(INT, offset + Integer.BYTES));
+                    out.writeInt(postings.get(INT, offset + 2 * Integer.BYTES));
+                    mappedIndex++;
+                }
+                else {
+                    out.writeInt((int) (pending[pendingIndex] >>> Integer.SIZE));
+                    out.writeInt((int) pending[pendingIndex]);
+                    out.writeInt((int) pending[pendingIndex + 1]);
+                    pendingIndex += 2;
+                }
+            }
+        }
+
+        unmapPostings();
+        Files.move(merged, directory.resolve(POSTINGS_FILE),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        delta.clear();
+        deltaSize = 0;
+        mapPostings();
+    }
+
+    /**
+     * Merges pending postings and releases the mapping.
+     *
+     * @throws IOException if the postings file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            unmapPostings();
+            unmapTracks();
+        }
+    }
+
+    private static double coverage(int queryLength, int trackLength, int offset) {
+        if (queryLength == 0) {
+            return 0;
+        }
+        final int start = Math.max(0, -offset);
+        final int overlap = Math.min(queryLength, trackLength - offset) - start;
+        return Math.max(0, overlap) / (double) queryLength;
+    }
+
+    private static long candidate(int track, int offset) {
+        return ((long) track << Integer.SIZE) | (offset & 0xFFFFFFFFL);
+    }
+
+    private void forEachPosting(int key, PostingConsumer consumer) {
+        final List<Posting> pending = delta.get(key);
+        final long first = lowerBound(key);
+        final long last = lowerBound(key + 1);
+        final int pendingCount;
+        if (pending == null) {
+            pendingCount = 0;
+        }
+        else {
+            pendingCount = pending.size();
+        }
+        if (last - first + pendingCount > MAX_POSTINGS_PER_KEY) {
+            return;
+        }
+
+        for (long i = first; i < last; i++) {
+            final long offset = HEADER_BYTES + i * POSTING_BYTES;
+            consumer.accept(postings.get(INT, offset + Integer.BYTES), postings.get(INT, offset + 2 * Integer.BYTES));
+        }
+        if (pending != null) {
+            for (Posting posting : pending) {
+                consumer.accept(posting.track(), posting.position());
+            }
+        }
+    }
+
+    // Keys are unsigned 28 bit values, so key + 1 never overflows
+    private long lowerBound(int key) {
+        long low = 0;
+        long high = postingCount;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            if (mappedKey(middle) < key) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int mappedKey(long index) {
+        return postings.get(INT, HEADER_BYTES + index * POSTING_BYTES);
+    }
+
+    private int[] rawFingerprint(int track) {
+        if (track >= mappedTracks) {
+            return RawFingerprintCodec.decode(unmappedRecords.get(track - mappedTracks));
+        }
+        final long start = recordOffsets[track];
+        final MemorySegment record = tracks.asSlice(start, recordOffsets[track + 1] - start);
+        try {
+            return RawFingerprintCodec.read(new MemorySegmentInputStream(record));
+        }
+        catch (IOException exception) {
+            // Every record was read once when the index was opened
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void addToDelta(int track, int[] rawFingerprint) {
+        for (int position = 0; position < rawFingerprint.length; position++) {
+            delta.computeIfAbsent(rawFingerprint[position] >>> KEY_SHIFT, key -> new ArrayList<>())
+                .add(new Posting(track, position));
+        }
+        deltaSize += rawFingerprint.length;
+    }
+
+    private void mapPostings() throws IOException {
+        final Path path = directory.resolve(POSTINGS_FILE);
+        indexedTracks = 0;
+        postingCount = 0;
+        postings = MemorySegment.NULL;
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        final Arena arena = Arena.ofShared();
+        final MemorySegment mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        }
+        catch (IOException exception) {
+            arena.close();
+            throw exception;
+        }
+
+        final boolean valid = mapped.byteSize() >= HEADER_BYTES
+            && mapped.get(INT, 0) == POSTINGS_MAGIC
+            && mapped.get(INT, Integer.BYTES) <= metadata.size()
+            && (mapped.byteSize() - HEADER_BYTES) % POSTING_BYTES == 0;
+        if (!valid) {
+            // Every track is re-indexed from tracks.bin, and the next flush replaces the file
+            arena.close();
+            return;
+        }
+
+        mappingArena = arena;
+        postings = mapped;
+        indexedTracks = mapped.get(INT, Integer.BYTES);
+        postingCount = (mapped.byteSize() - HEADER_BYTES) / POSTING_BYTES;
+    }
+
+    private void unmapPostings() {
+        if (mappingArena != null) {
+            mappingArena.close();
+            mappingArena = null;
+        }
+        postings = MemorySegment.NULL;
+        postingCount = 0;
+    }
+
+    private void mapTracks() throws IOException {
+        final long end = recordOffsets[metadata.size()];
+        if (end == 0) {
+            unmapTracks();
+            mappedTracks = metadata.size();
+            unmappedRecords.clear();
+            return;
+        }
+
+        final Arena arena = Arena.ofShared();
+        final MemorySegment mapped;
+        try (FileChannel channel = FileChannel.open(directory.resolve(TRACKS_FILE), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end, arena);
+        }
+        catch (IOException exception) {
+            arena.close();
+            throw exception;
+        }
+        unmapTracks();
+        tracksArena = arena;
+        tracks = mapped;
+        mappedTracks = metadata.size();
+        unmappedRecords.clear();
+    }
+
+    private void unmapTracks() {
+        if (tracksArena != null) {
+            tracksArena.close();
+            tracksArena = null;
+        }
+        tracks = MemorySegment.NULL;
+    }
+
+    private void loadTracks() throws IOException {
+        final Path tracksPath = directory.resolve(TRACKS_FILE);
+        final Path metadataPath = directory.resolve(METADATA_FILE);
+
+        // Each record is decoded once to find where it ends, then dropped
+        final List<Long> recordEnds = new ArrayList<>();
+        if (Files.exists(tracksPath)) {
+            try (Arena arena = Arena.ofConfined();
+                 FileChannel channel = FileChannel.open(tracksPath, StandardOpenOption.READ)) {
+                final MemorySegmentInputStream in = new MemorySegmentInputStream(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+                while (RawFingerprintCodec.read(in) != null) {
+                    recordEnds.add(in.position());
+                }
+            }
+            catch (IOException exception) {
+                // A record cut short by a crash; it is dropped below
+            }
+        }
+
+        final List<String> lines = new ArrayList<>();
+        if (Files.exists(metadataPath)) {
+            lines.addAll(Files.readAllLines(metadataPath, StandardCharsets.UTF_8));
+        }
+        for (String line : lines) {
+            if (metadata.size() == recordEnds.size()) {
+                break;
+            }
+            try {
+                metadata.add(SongMetadataJson.fromJson(new JSONObject(line)));
+            }
+            catch (JSONException exception) {
+                break;
+            }
+        }
+
+        // Keep both files in step, so later appends line up
+        final int tracks = metadata.size();
+        recordOffsets = new long[Math.max(INITIAL_TRACKS, tracks) + 1];
+        for (int track = 0; track < tracks; track++) {
+            recordOffsets[track + 1] = recordEnds.get(track);
+        }
+        if (Files.exists(tracksPath)) {
+            long end = 0;
+            if (tracks > 0) {
+                end = recordEnds.get(tracks - 1);
+            }
+            if (Files.size(tracksPath) != end) {
+                try (FileChannel channel = FileChannel.open(tracksPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+        }
+        if (lines.size() != tracks) {
+            Files.write(metadataPath, lines.subList(0, tracks), StandardCharsets.UTF_8);
+        }
+        mapTracks();
+    }
+
+    private record Posting(int track, int position) {
+    }
+
+    @FunctionalInterface
+    private interface PostingConsumer {
+        void accept(int track, int position);
+    }
+}
@@ -0,0 +1,143 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.Fingerprinter;
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Looks fingerprints up in a {@link LocalFingerprintIndex} first, and only asks the wrapped
+ * IdentifyDAI (normally AcoustID) when the index has no match. Tracks the remote identifies with
+ * a score of at least {@link #MIN_INDEXED_SCORE} are added to the index, so the next lookup of
+ * the same audio is answered locally.
+ *
+ * <p>A local match is answered with the metadata and score the track was identified with, not
+ * the similarity of the fingerprints, so callers that act on the score see the confidence of
+ * the original identification.</p>
+ */
+public final class LocalIndexIdentify implements IdentifyDAI {
+    /** Lowest remote score for a track to be added to the index. */
+    public static final double MIN_INDEXED_SCORE = 0.9;
+
+    private final LocalFingerprintIndex index;
+    private final IdentifyDAI remote;
+
+    /**
+     * Initializes the local-first identifier.
+     *
+     * @param index  the local index
+     * @param remote the identifier to fall back to on a miss
+     */
+    public LocalIndexIdentify(LocalFingerprintIndex index, IdentifyDAI remote) {
+        this.index = index;
+        this.remote = remote;
+    }
+
+    /**
+     * Wraps an identifier with the index in {@link LocalFingerprintIndex#DEFAULT_DIRECTORY}.
+     *
+     * @param remote the identifier to fall back to on a miss
+     * @return the local-first identifier, or {@code remote} itself if the index cannot be opened
+     */
+    public static IdentifyDAI withDefaultIndex(IdentifyDAI remote) {
+        try {
+            return new LocalIndexIdentify(new LocalFingerprintIndex(LocalFingerprintIndex.DEFAULT_DIRECTORY), remote);
+        }
+        catch (IOException exception) {
+            System.err.println("Warning: local fingerprint index unavailable: " + exception.getMessage());
+            return remote;
+        }
+    }
+
+    @Override
+    public String getClosestMatchID(String fingerprint, int duration) {
+        return getClosestMatchMetadata(fingerprint, duration).acoustIDTrackID();
+    }
+
+    @Override
+    public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+        return getClosestMatchMetadata(fingerprint, duration, Priority.INTERACTIVE);
+    }
+
+    @Override
+    public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration, Priority priority) {
+        if (fingerprint == null) {
+            throw new FingerprintMatchNotFoundException("Null parameters passed into query");
+        }
+
+        final int[] rawFingerprint = decode(fingerprint);
+        final Song.SongMetadata localMatch = lookUpLocally(rawFingerprint);
+        if (localMatch != null) {
+            return localMatch;
+        }
+
+        final Song.SongMetadata metadata = remote.getClosestMatchMetadata(fingerprint, duration, priority);
+        addToIndex(rawFingerprint, metadata);
+        return metadata;
+    }
+
+    @Override
+    public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration) {
+        return getClosestMatchMetadataAsync(fingerprint, duration, Priority.INTERACTIVE);
+    }
+
+    @Override
+    public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration,
+                                                                            Priority priority) {
+        if (fingerprint == null) {
+            return CompletableFuture.failedFuture(
+                new FingerprintMatchNotFoundException("Null parameters passed into query"));
+        }
+
+        final int[] rawFingerprint = decode(fingerprint);
+        final Song.SongMetadata localMatch = lookUpLocally(rawFingerprint);
+        if (localMatch != null) {
+            return CompletableFuture.completedFuture(localMatch);
+        }
+
+        return remote.getClosestMatchMetadataAsync(fingerprint, duration, priority)
+            .thenApply(metadata -> {
+                addToIndex(rawFingerprint, metadata);
+                return metadata;
+            });
+    }
+
+    private static int[] decode(String fingerprint) {
+        try {
+            return Fingerprinter.decodeFingerprint(fingerprint);
+        }
+        catch (ChromaprintException exception) {
+            // Not something the index can read; the remote decides what it is
+            return null;
+        }
+    }
+
+    private Song.SongMetadata lookUpLocally(int[] rawFingerprint) {
+        if (rawFingerprint == null) {
+            return null;
+        }
+        final LocalFingerprintIndex.Match match = index.lookup(rawFingerprint);
+        if (match == null) {
+            return null;
+        }
+        return match.metadata();
+    }
+
+    private void addToIndex(int[] rawFingerprint, Song.SongMetadata metadata) {
+        // Weak answers would come back from the index as if they were certain
+        if (!(metadata.score() >= MIN_INDEXED_SCORE)) {
+            return;
+        }
+        if (rawFingerprint != null && rawFingerprint.length > 0) {
+            try {
+                index.add(rawFingerprint, metadata);
+            }
+            catch (IOException exception) {
+                System.err.println("Warning: failed to add track to local index: " + exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.util.Map;
+
+import org.wavelabs.soundscope.infrastructure.TokenBucketRateLimiter;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Snapshot of the AcoustID lookup queue.
+ *
+ * @param queuedLookups          lookups waiting to be sent
+ * @param queuedByPriority       lookups waiting to be sent in each priority lane
+ * @param inFlightRequests       requests sent that have not been answered yet
+ * @param requestsSent           requests sent so far
+ * @param lookupsSent            lookups sent so far, over all requests
+ * @param coalescedLookups       lookups that shared a pending lookup of the same fingerprint
+ *                               instead of being sent
+ * @param averageQueueWaitMillis average time a lookup spent queued before being sent
+ * @param maxQueueWaitMillis     longest time a lookup spent queued before being sent
+ * @param rateLimiter            state of the rate limiter
+ */
+public record LookupMetrics(int queuedLookups, Map<IdentifyDAI.Priority, Integer> queuedByPriority,
+                            int inFlightRequests, long requestsSent, long lookupsSent,
+                            long coalescedLookups, double averageQueueWaitMillis, double maxQueueWaitMillis,
+                            TokenBucketRateLimiter.Metrics rateLimiter) {
+}
@@ -0,0 +1,144 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Maps the samples of a WAV file into memory instead of reading them, so opening a large file
+ * costs page faults on the parts that are read rather than a copy of the whole file on the heap.
+ *
+ * <p>Only files whose samples are already 16-bit signed little-endian PCM can be mapped, since
+ * every reader expects that format; {@link #map} returns {@code null} for anything else, and the
+ * caller falls back to decoding the file.</p>
+ *
+ * <p>The mapping belongs to an automatic arena, so it stays valid for as long as the segment is
+ * reachable, even when the segment has been handed to a thread that outlives the caller's use of
+ * the file.</p>
+ */
+final class MappedWavFile {
+    private static final int RIFF = 0x46464952;
+    private static final int WAVE = 0x45564157;
+    private static final int FMT = 0x20746d66;
+    private static final int DATA = 0x61746164;
+    private static final int CHUNK_HEADER_BYTES = 8;
+    private static final int MIN_FMT_BYTES = 16;
+    private static final int EXTENSIBLE_FMT_BYTES = 26;
+    private static final short WAVE_FORMAT_PCM = 1;
+    private static final short WAVE_FORMAT_EXTENSIBLE = (short) 0xFFFE;
+    private static final int BIT_DEPTH_16 = 16;
+    private static final long UNKNOWN_SIZE = 0xFFFFFFFFL;
+
+    private MappedWavFile() {
+    }
+
+    /**
+     * Maps the samples of a WAV file.
+     *
+     * @param file the file
+     * @return the mapped samples, or {@code null} if the file is not a WAV file of 16-bit
+     *     little-endian PCM
+     * @throws IOException if the file cannot be read or mapped
+     */
+    static PcmCache.DecodedPcm map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer header = read(channel, 0, 12);
+            if (header == null || header.getInt(0) != RIFF || header.getInt(8) != WAVE) {
+                return null;
+            }
+
+            AudioFormat format = null;
+            long position = 12;
+            while (true) {
+                final ByteBuffer chunkHeader = read(channel, position, CHUNK_HEADER_BYTES);
+                if (chunkHeader == null) {
+                    return null;
+                }
+                final int id = chunkHeader.getInt(0);
+                final long size = Integer.toUnsignedLong(chunkHeader.getInt(4));
+                final long body = position + CHUNK_HEADER_BYTES;
+
+                if (id == FMT) {
+                    format = readFormat(channel, body, size);
+                    if (format == null) {
+                        return null;
+                    }
+                }
+                else if (id == DATA) {
+                    // Samples come after the format in a valid file
+                    if (format == null) {
+                        return null;
+                    }
+                    return mapSamples(channel, format, body, size);
+                }
+                // Chunks are padded to an even length
+                position = body + size + (size & 1);
+            }
+        }
+    }
+
+    /**
+     * Reads a {@code fmt } chunk.
+     *
+     * @return the format of the samples, or {@code null} if they are not 16-bit PCM
+     */
+    private static AudioFormat readFormat(FileChannel channel, long body, long size) throws IOException {
+        if (size < MIN_FMT_BYTES) {
+            return null;
+        }
+        final ByteBuffer fmt = read(channel, body, (int) Math.min(size, EXTENSIBLE_FMT_BYTES));
+        if (fmt == null) {
+            return null;
+        }
+        short formatTag = fmt.getShort(0);
+        if (formatTag == WAVE_FORMAT_EXTENSIBLE && fmt.limit() >= EXTENSIBLE_FMT_BYTES) {
+            // The first two bytes of the sub-format GUID hold the actual format tag
+            formatTag = fmt.getShort(24);
+        }
+        final int channels = Short.toUnsignedInt(fmt.getShort(2));
+        final int sampleRate = fmt.getInt(4);
+        final int blockAlign = Short.toUnsignedInt(fmt.getShort(12));
+        final int bitsPerSample = Short.toUnsignedInt(fmt.getShort(14));
+        if (formatTag != WAVE_FORMAT_PCM || bitsPerSample != BIT_DEPTH_16 || channels == 0
+            || sampleRate <= 0 || blockAlign != channels * 2) {
+            return null;
+        }
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, sampleRate, BIT_DEPTH_16, channels,
+            blockAlign, sampleRate, false);
+    }
+
+    private static PcmCache.DecodedPcm mapSamples(FileChannel channel, AudioFormat format, long body,
+                                                  long size) throws IOException {
+        // Writers that could not seek back leave the size unset; a crash can leave it too large
+        long length = channel.size() - body;
+        if (size != UNKNOWN_SIZE) {
+            length = Math.min(length, size);
+        }
+        final long frames = Math.max(0, length) / format.getFrameSize();
+        final MemorySegment samples = channel.map(FileChannel.MapMode.READ_ONLY, body,
+            frames * format.getFrameSize(), Arena.ofAuto());
+        return new PcmCache.DecodedPcm(samples.asReadOnly(), format, frames, true);
+    }
+
+    /**
+     * Reads little-endian bytes from a position in the file.
+     *
+     * @return the bytes, or {@code null} if the file ends first
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,85 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Objects;
+
+/**
+ * Input stream over the bytes of a memory segment. Reads copy only the bytes asked for, so a
+ * mapped file can be streamed without being read into the heap as a whole.
+ */
+final class MemorySegmentInputStream extends InputStream {
+    private final MemorySegment segment;
+    private long position;
+    private long mark;
+
+    /**
+     * Creates a stream positioned at the start of a segment.
+     *
+     * @param segment the bytes to stream
+     */
+    MemorySegmentInputStream(MemorySegment segment) {
+        this.segment = segment;
+    }
+
+    /**
+     * Returns the number of bytes read or skipped so far.
+     *
+     * @return the position in the segment
+     */
+    long position() {
+        return position;
+    }
+
+    @Override
+    public int read() {
+        if (position >= segment.byteSize()) {
+            return -1;
+        }
+        return Byte.toUnsignedInt(segment.get(ValueLayout.JAVA_BYTE, position++));
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) {
+            return 0;
+        }
+        final long remaining = segment.byteSize() - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        final int count = (int) Math.min(length, remaining);
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long count) {
+        final long skipped = Math.max(0, Math.min(count, segment.byteSize() - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, segment.byteSize() - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public void reset() {
+        position = mark;
+    }
+}
@@ -0,0 +1,475 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Cache of decoded audio files, shared by the gateways that read them, so a file opened for its
+ * waveform, fingerprint and playback is decoded once.
+ *
+ * <p>Files are decoded to 16-bit signed little-endian PCM at their own sample rate and channel
+ * count, and cached by path, modification time and size, so a file changed on disk is decoded
+ * again. Callers hold a {@link Lease} while they use the samples; entries nobody holds are evicted,
+ * least recently used first, once the cache holds more than its byte budget. Entries in use are
+ * never evicted, even if that puts the cache over budget. Nor is a file too big for the budget on
+ * its own while it is the last one used, so the gateways that read a long file in turn do not
+ * each decode it again.</p>
+ *
+ * <p>WAV files that already hold 16-bit little-endian PCM are not decoded at all: their samples
+ * are mapped into memory by {@link MappedWavFile}. Mapped files take no heap, so they do not count
+ * against the budget, and they are dropped as soon as nobody holds them, since mapping them again
+ * is cheap.</p>
+ *
+ * <p>Callers asking for a file another caller is already decoding wait for that decode rather
+ * than starting their own. A caller that passes over the samples once, such as to draw a
+ * waveform, can {@linkplain #acquire(File, PcmReader) read them as they are decoded}, rather than
+ * decoding the file a second time as a stream of its own.</p>
+ */
+public final class PcmCache {
+    /** Default byte budget, about ten minutes of CD-quality stereo audio. */
+    public static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+    private static final int BIT_DEPTH_16 = 16;
+
+    private final long maxBytes;
+    // Least recently used first
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    private long decodes;
+    private long hits;
+
+    /**
+     * Decoded audio of a file.
+     *
+     * @param samples     16-bit signed little-endian samples, read-only
+     * @param format      the format of {@code samples}
+     * @param frameLength number of frames in {@code samples}
+     * @param mapped      whether {@code samples} is the file itself mapped into memory, rather than
+     *                    a decoded copy on the heap
+     */
+    public record DecodedPcm(MemorySegment samples, AudioFormat format, long frameLength, boolean mapped) {
+    }
+
+    /**
+     * Reads the samples of a file as the cache decodes it.
+     */
+    @FunctionalInterface
+    public interface PcmReader {
+        /**
+         * Reads the samples. Whatever is left unread when this returns is read by the cache.
+         *
+         * @param pcm         16-bit signed little-endian samples
+         * @param format      the format of {@code pcm}
+         * @param frameLength number of frames in {@code pcm}, or
+         *                    {@link AudioSystem#NOT_SPECIFIED} if not known
+         * @throws IOException           if the samples cannot be read
+         * @throws CancellationException to stop decoding the file
+         */
+        void read(InputStream pcm, AudioFormat format, long frameLength) throws IOException;
+    }
+
+    private record Key(String path, long lastModified, long size) {
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<DecodedPcm> decoded = new CompletableFuture<>();
+        private int references;
+        private long bytes;
+        private boolean mapped;
+    }
+
+    /**
+     * A hold on a cached file, which keeps it from being evicted until closed.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final DecodedPcm decoded;
+        private boolean released;
+
+        private Lease(Entry entry, DecodedPcm decoded) {
+            this.entry = entry;
+            this.decoded = decoded;
+        }
+
+        /**
+         * Returns the decoded audio.
+         *
+         * @return the decoded audio
+         */
+        public DecodedPcm decoded() {
+            return decoded;
+        }
+
+        /**
+         * Releases the hold. Calling this more than once has no further effect.
+         */
+        @Override
+        public void close() {
+            synchronized (PcmCache.this) {
+                if (!released) {
+                    released = true;
+                    entry.references--;
+                    evict();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes most bytes of decoded audio kept for files no one is using
+     */
+    public PcmCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the decoded audio of a file, decoding it unless it is cached.
+     *
+     * @param file the audio file
+     * @return a hold on the decoded audio, to be closed once the caller is done with it
+     * @throws IOException                   if the file cannot be read
+     * @throws UnsupportedAudioFileException if the audio format is not supported
+     */
+    public Lease acquire(File file) throws IOException, UnsupportedAudioFileException {
+        return acquire(file, null);
+    }
+
+    /**
+     * Returns the decoded audio of a file, decoding it unless it is cached. If the file is
+     * decoded by this call, rather than found in the cache, mapped, or decoded by another caller,
+     * the samples are handed to a reader as they are decoded.
+     *
+     * @param file   the audio file
+     * @param reader reads the samples as they are decoded, or {@code null}
+     * @return a hold on the decoded audio, to be closed once the caller is done with it
+     * @throws IOException                   if the file cannot be read
+     * @throws UnsupportedAudioFileException if the audio format is not supported
+     * @throws CancellationException         if the reader stopped the decode; other callers waiting
+     *                                       for the decode get an {@link IOException}
+     */
+    public Lease acquire(File file, PcmReader reader) throws IOException, UnsupportedAudioFileException {
+        final Key key = key(file);
+        final Entry entry;
+        final boolean decoder;
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            decoder = existing == null;
+            if (decoder) {
+                removeOtherVersions(key);
+                existing = new Entry();
+                entries.put(key, existing);
+                decodes++;
+            }
+            else {
+                hits++;
+            }
+            existing.references++;
+            entry = existing;
+        }
+
+        if (decoder) {
+            try {
+                decode(key, entry, file, reader);
+            }
+            catch (CancellationException | Error exception) {
+                synchronized (this) {
+                    entry.references--;
+                }
+                throw exception;
+            }
+        }
+        return await(entry);
+    }
+
+    /**
+     * Returns the decoded audio of a file if it can be had without decoding the file: if it is
+     * cached, or being decoded by another caller, or can be mapped into memory. Callers that only
+     * pass over the samples once can stream the file themselves when this returns {@code null},
+     * rather than holding the whole decoded file.
+     *
+     * @param file the audio file
+     * @return a hold on the decoded audio, to be closed once the caller is done with it, or
+     *     {@code null} if the file would have to be decoded
+     * @throws IOException                   if the file cannot be read
+     * @throws UnsupportedAudioFileException if another caller found the format is not supported
+     */
+    public Lease acquireWithoutDecoding(File file) throws IOException, UnsupportedAudioFileException {
+        final Key key = key(file);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                entry.references++;
+            }
+        }
+
+        if (entry == null) {
+            final DecodedPcm mapped = MappedWavFile.map(file);
+            if (mapped == null) {
+                return null;
+            }
+            synchronized (this) {
+                entry = entries.get(key);
+                if (entry == null) {
+                    removeOtherVersions(key);
+                    entry = new Entry();
+                    entry.mapped = true;
+                    entry.decoded.complete(mapped);
+                    entries.put(key, entry);
+                    decodes++;
+                }
+                else {
+                    hits++;
+                }
+                entry.references++;
+            }
+        }
+        return await(entry);
+    }
+
+    /**
+     * Returns the number of files decoded or mapped so far.
+     *
+     * @return the number of decodes
+     */
+    public synchronized long getDecodes() {
+        return decodes;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache so far.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of bytes of decoded audio held on the heap, in use or not. Mapped files
+     * are not counted.
+     *
+     * @return the number of bytes
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Opens a file as a stream of 16-bit signed little-endian PCM at the file's own sample rate
+     * and channel count, converting it on the fly if needed. This is the format the cache holds.
+     *
+     * @param file the audio file
+     * @return the stream
+     * @throws IOException                   if the file cannot be read
+     * @throws UnsupportedAudioFileException if the audio format is not supported
+     */
+    static AudioInputStream openPcmStream(File file) throws IOException, UnsupportedAudioFileException {
+        final AudioInputStream original = AudioSystem.getAudioInputStream(file);
+        final AudioFormat originalFormat = original.getFormat();
+        final AudioFormat targetFormat = new AudioFormat(
+            AudioFormat.Encoding.PCM_SIGNED,
+            originalFormat.getSampleRate(),
+            BIT_DEPTH_16,
+            originalFormat.getChannels(),
+            originalFormat.getChannels() * 2,
+            originalFormat.getSampleRate(),
+            false
+        );
+        if (originalFormat.matches(targetFormat)) {
+            return original;
+        }
+        try {
+            return AudioSystem.getAudioInputStream(targetFormat, original);
+        }
+        catch (IllegalArgumentException exception) {
+            original.close();
+            throw new UnsupportedAudioFileException("Cannot convert " + originalFormat + " to PCM");
+        }
+    }
+
+    private static Key key(File file) throws IOException {
+        return new Key(file.getCanonicalPath(), file.lastModified(), file.length());
+    }
+
+    private Lease await(Entry entry) throws IOException, UnsupportedAudioFileException {
+        try {
+            return new Lease(entry, entry.decoded.join());
+        }
+        catch (CompletionException exception) {
+            synchronized (this) {
+                entry.references--;
+            }
+            throw rethrow(exception.getCause());
+        }
+    }
+
+    private void decode(Key key, Entry entry, File file, PcmReader reader) {
+        try {
+            DecodedPcm decoded = MappedWavFile.map(file);
+            if (decoded == null) {
+                decoded = readPcm(file, reader);
+            }
+            synchronized (this) {
+                entry.mapped = decoded.mapped();
+                if (!entry.mapped) {
+                    entry.bytes = decoded.samples().byteSize();
+                }
+                residentBytes += entry.bytes;
+                evict();
+            }
+            entry.decoded.complete(decoded);
+        }
+        catch (Throwable exception) {
+            // Errors too, or the entry would stay cached with a future that never completes
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            if (exception instanceof CancellationException cancelled) {
+                // Only the reader's caller asked to stop; a cancelled future would cancel the others too
+                entry.decoded.completeExceptionally(new IOException("Decoding was stopped", cancelled));
+                throw cancelled;
+            }
+            entry.decoded.completeExceptionally(exception);
+            if (exception instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private static DecodedPcm readPcm(File file, PcmReader reader) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream input = openPcmStream(file)) {
+            final AudioFormat format = input.getFormat();
+            final byte[] pcm;
+            if (reader == null) {
+                pcm = input.readAllBytes();
+            }
+            else {
+                final CopyingInputStream copying = new CopyingInputStream(input,
+                    input.getFrameLength() * format.getFrameSize());
+                reader.read(copying, format, input.getFrameLength());
+                pcm = copying.readRest();
+            }
+            return new DecodedPcm(MemorySegment.ofArray(pcm).asReadOnly(), format,
+                pcm.length / format.getFrameSize(), false);
+        }
+    }
+
+    /**
+     * Keeps a copy of every byte read through it.
+     */
+    private static final class CopyingInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream copy;
+
+        CopyingInputStream(InputStream in, long expectedBytes) {
+            super(in);
+            // The length is not known for some compressed formats
+            final boolean known = expectedBytes > 0 && expectedBytes < Integer.MAX_VALUE - 8;
+            this.copy = new ByteArrayOutputStream(known ? (int) expectedBytes : 1 << 16);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int next = in.read();
+            if (next != -1) {
+                copy.write(next);
+            }
+            return next;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            final int count = in.read(buffer, offset, length);
+            if (count > 0) {
+                copy.write(buffer, offset, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            if (count <= 0) {
+                return 0;
+            }
+            // Skipped bytes are still needed in the copy
+            final byte[] skipped = new byte[(int) Math.min(count, 8192)];
+            final int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Reads whatever is left of the stream.
+         *
+         * @return every byte of the stream
+         * @throws IOException if the stream cannot be read
+         */
+        byte[] readRest() throws IOException {
+            final byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // Copied as it is read
+            }
+            return copy.toByteArray();
+        }
+    }
+
+    /**
+     * Drops cached copies of the same file from before it changed, unless they are in use.
+     */
+    private void removeOtherVersions(Key key) {
+        final Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Key, Entry> cached = iterator.next();
+            if (cached.getKey().path().equals(key.path()) && cached.getValue().references == 0) {
+                residentBytes -= cached.getValue().bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    private void evict() {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            // The last entry is the one used most recently
+            final boolean keptTooBig = !iterator.hasNext() && entry.bytes > maxBytes;
+            final boolean overBudget = residentBytes > maxBytes && !keptTooBig;
+            if (entry.references == 0 && entry.decoded.isDone() && (entry.mapped || overBudget)) {
+                residentBytes -= entry.bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) throws UnsupportedAudioFileException {
+        if (cause instanceof UnsupportedAudioFileException unsupported) {
+            throw unsupported;
+        }
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        return new IOException("Error decoding audio file: " + cause.getMessage(), cause);
+    }
+}
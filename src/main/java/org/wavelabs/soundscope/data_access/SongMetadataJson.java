@@ -0,0 +1,67 @@
+package org.wavelabs.soundscope.data_access;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wavelabs.soundscope.entity.Song;
+
+/**
+ * Converts song metadata to and from the JSON stored by the local data stores.
+ */
+final class SongMetadataJson {
+    private static final String TITLE = "title";
+    private static final String MUSICBRAINZ_ID = "musicBrainzID";
+    private static final String ACOUST_ID_TRACK_ID = "acoustIDTrackID";
+    private static final String ALBUM = "album";
+    private static final String ARTISTS = "artists";
+    private static final String SCORE = "score";
+
+    private SongMetadataJson() {
+    }
+
+    /**
+     * Converts metadata to JSON. Missing attributes and an unknown score are left out.
+     *
+     * @param songMetadata the metadata to convert
+     * @return the JSON object
+     */
+    static JSONObject toJson(Song.SongMetadata songMetadata) {
+        final JSONObject json = new JSONObject();
+        json.put(TITLE, songMetadata.title());
+        json.put(MUSICBRAINZ_ID, songMetadata.musicBrainzID());
+        json.put(ACOUST_ID_TRACK_ID, songMetadata.acoustIDTrackID());
+        json.put(ALBUM, songMetadata.album());
+        if (songMetadata.artists() != null) {
+            json.put(ARTISTS, new JSONArray(songMetadata.artists()));
+        }
+        if (Double.isFinite(songMetadata.score())) {
+            json.put(SCORE, songMetadata.score());
+        }
+        return json;
+    }
+
+    /**
+     * Reads metadata written by {@link #toJson}.
+     *
+     * @param json the JSON object
+     * @return the metadata
+     * @throws org.json.JSONException if an attribute has the wrong type
+     */
+    static Song.SongMetadata fromJson(JSONObject json) {
+        String[] artists = null;
+        final JSONArray artistArray = json.optJSONArray(ARTISTS);
+        if (artistArray != null) {
+            artists = new String[artistArray.length()];
+            for (int i = 0; i < artists.length; i++) {
+                artists[i] = artistArray.getString(i);
+            }
+        }
+        return new Song.SongMetadata(
+            json.optString(TITLE, null),
+            json.optString(MUSICBRAINZ_ID, null),
+            json.optString(ACOUST_ID_TRACK_ID, null),
+            json.optString(ALBUM, null),
+            artists,
+            json.optDouble(SCORE, Double.NaN)
+        );
+    }
+}
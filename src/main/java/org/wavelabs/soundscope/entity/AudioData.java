@@ -10,6 +10,10 @@ package org.wavelabs.soundscope.entity;
  * <p>An AudioData object contains:
  * <ul>
  *   <li>Amplitude samples: normalized audio amplitude values for waveform visualization</li>
+ *   <li>Sample count: how many amplitude samples there are, which can be fewer than the
+ *       length of the arrays</li>
+ *   <li>Block summaries: the minimum, maximum and RMS of the block of audio each
+ *       amplitude sample stands for</li>
  *   <li>File path: the location of the original audio file</li>
  *   <li>Duration: the length of the audio in milliseconds</li>
  *   <li>Sample rate: the number of samples per second</li>
@@ -18,6 +22,10 @@ package org.wavelabs.soundscope.entity;
  */
 public class AudioData {
     private final double[] amplitudeSamples;
+    private final float[] blockMinimums;
+    private final float[] blockMaximums;
+    private final float[] blockRms;
+    private final int sampleCount;
     private final String filePath;
     private final long durationMillis;
     private final int sampleRate;
@@ -34,7 +42,50 @@ public class AudioData {
      */
     public AudioData(double[] amplitudeSamples, String filePath, long durationMillis,
                      int sampleRate, int channels) {
+        this(amplitudeSamples, pointSummary(amplitudeSamples, false), pointSummary(amplitudeSamples, false),
+            pointSummary(amplitudeSamples, true), filePath, durationMillis, sampleRate, channels);
+    }
+
+    /**
+     * Constructs an AudioData object with a summary of each block of audio.
+     *
+     * @param amplitudeSamples Array of normalized amplitude samples (typically in range [-1.0, 1.0])
+     * @param blockMinimums    The lowest normalized sample in the block of each amplitude sample
+     * @param blockMaximums    The highest normalized sample in the block of each amplitude sample
+     * @param blockRms         The root mean square of the block of each amplitude sample
+     * @param filePath         The file path of the original audio file
+     * @param durationMillis   The duration of the audio in milliseconds
+     * @param sampleRate       The sample rate in samples per second (Hz)
+     * @param channels         The number of audio channels
+     */
+    public AudioData(double[] amplitudeSamples, float[] blockMinimums, float[] blockMaximums,
+                     float[] blockRms, String filePath, long durationMillis, int sampleRate, int channels) {
+        this(amplitudeSamples, blockMinimums, blockMaximums, blockRms, lengthOf(amplitudeSamples), filePath,
+            durationMillis, sampleRate, channels);
+    }
+
+    /**
+     * Constructs an AudioData object that uses only the start of its arrays, such as a snapshot
+     * of audio still being read, which shares its arrays with the reader instead of copying them.
+     *
+     * @param amplitudeSamples Array of normalized amplitude samples (typically in range [-1.0, 1.0])
+     * @param blockMinimums    The lowest normalized sample in the block of each amplitude sample
+     * @param blockMaximums    The highest normalized sample in the block of each amplitude sample
+     * @param blockRms         The root mean square of the block of each amplitude sample
+     * @param sampleCount      The number of amplitude samples at the start of each array
+     * @param filePath         The file path of the original audio file
+     * @param durationMillis   The duration of the audio in milliseconds
+     * @param sampleRate       The sample rate in samples per second (Hz)
+     * @param channels         The number of audio channels
+     */
+    public AudioData(double[] amplitudeSamples, float[] blockMinimums, float[] blockMaximums,
+                     float[] blockRms, int sampleCount, String filePath, long durationMillis, int sampleRate,
+                     int channels) {
         this.amplitudeSamples = amplitudeSamples;
+        this.blockMinimums = blockMinimums;
+        this.blockMaximums = blockMaximums;
+        this.blockRms = blockRms;
+        this.sampleCount = sampleCount;
         this.filePath = filePath;
         this.durationMillis = durationMillis;
         this.sampleRate = sampleRate;
@@ -50,6 +101,46 @@ public class AudioData {
         return amplitudeSamples;
     }
 
+    /**
+     * Gets the number of amplitude samples. The arrays can be longer than this; only their
+     * first {@code getSampleCount()} values belong to this audio data.
+     *
+     * @return The number of amplitude samples
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Gets the lowest sample in the block of audio of each amplitude sample. Audio data
+     * constructed without block summaries uses the amplitude samples themselves.
+     *
+     * @return Array of normalized block minimums, one per amplitude sample
+     */
+    public float[] getBlockMinimums() {
+        return blockMinimums;
+    }
+
+    /**
+     * Gets the highest sample in the block of audio of each amplitude sample. Audio data
+     * constructed without block summaries uses the amplitude samples themselves.
+     *
+     * @return Array of normalized block maximums, one per amplitude sample
+     */
+    public float[] getBlockMaximums() {
+        return blockMaximums;
+    }
+
+    /**
+     * Gets the root mean square of the block of audio of each amplitude sample. Audio data
+     * constructed without block summaries uses the magnitude of the amplitude samples.
+     *
+     * @return Array of block RMS values, one per amplitude sample
+     */
+    public float[] getBlockRms() {
+        return blockRms;
+    }
+
     /**
      * Gets the file path of the original audio file.
      *
@@ -95,4 +186,26 @@ public class AudioData {
         final double millisPerSecond = 1000.0;
         return durationMillis / millisPerSecond;
     }
+
+    private static int lengthOf(double[] amplitudeSamples) {
+        if (amplitudeSamples == null) {
+            return 0;
+        }
+        return amplitudeSamples.length;
+    }
+
+    private static float[] pointSummary(double[] amplitudeSamples, boolean magnitude) {
+        if (amplitudeSamples == null) {
+            return null;
+        }
+        final float[] summary = new float[amplitudeSamples.length];
+        for (int i = 0; i < summary.length; i++) {
+            double value = amplitudeSamples[i];
+            if (magnitude) {
+                value = Math.abs(value);
+            }
+            summary[i] = (float) value;
+        }
+        return summary;
+    }
 }
@@ -1,25 +1,50 @@
 package org.wavelabs.soundscope.entity;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
 import javax.sound.sampled.AudioFormat;
 
 /**
  * Audio Recording entity class.
+ *
+ * <p>The samples may live on the heap or outside it, for example in a file mapped into memory;
+ * either way they are read through {@link #getSamples()} without being copied.</p>
  */
 public class AudioRecording {
-    private final byte[] data;
+    private final MemorySegment samples;
     private final AudioFormat format;
 
     public AudioRecording(byte[] data, AudioFormat format) {
-        this.data = data;
+        this(MemorySegment.ofArray(data), format);
+    }
+
+    /**
+     * Creates a recording over samples held in a memory segment, without copying them.
+     *
+     * @param samples the samples, which must not change while the recording is in use
+     * @param format  the format of {@code samples}
+     */
+    public AudioRecording(MemorySegment samples, AudioFormat format) {
+        this.samples = samples.asReadOnly();
         this.format = format;
     }
 
     public byte[] getData() {
-        return data.clone();
+        return samples.toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    /**
+     * Gets a read-only view of the samples, without copying them.
+     *
+     * @return the samples
+     */
+    public MemorySegment getSamples() {
+        return samples;
     }
 
     public int getSize() {
-        return data.length;
+        return Math.toIntExact(samples.byteSize());
     }
 
     /**
@@ -31,7 +56,7 @@ public class AudioRecording {
         final int bytesPerSample = format.getSampleSizeInBits() / 8;
         final int channels = format.getChannels();
         final double bytesPerSecond = sampleRate * bytesPerSample * channels;
-        return data.length / bytesPerSecond;
+        return samples.byteSize() / bytesPerSecond;
     }
 
     public AudioFormat getFormat() {
@@ -37,13 +37,22 @@ public class Song {
      * @param acoustIDTrackID acoustID track id for API
      * @param album album of song
      * @param artists artists of song
+     * @param score confidence of the match, from 0 to 1; NaN if unknown
      */
     public record SongMetadata(
         String title,
         String musicBrainzID,
         String acoustIDTrackID,
         String album,
-        String[] artists
+        String[] artists,
+        double score
     ) {
+        /**
+         * Stores song metadata without a known match score.
+         */
+        public SongMetadata(String title, String musicBrainzID, String acoustIDTrackID,
+                            String album, String[] artists) {
+            this(title, musicBrainzID, acoustIDTrackID, album, artists, Double.NaN);
+        }
     }
 }
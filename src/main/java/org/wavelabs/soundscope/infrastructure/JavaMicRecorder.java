@@ -9,6 +9,8 @@ import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.TargetDataLine;
 
+import org.wavelabs.soundscope.use_case.fingerprint.AudioProcessor;
+
 public class JavaMicRecorder implements Recorder {
     private final AudioFormat format = new AudioFormat(44100.0f, 16, 1, true, false);
     private final Object bufferLock = new Object();
@@ -17,6 +19,7 @@ public class JavaMicRecorder implements Recorder {
     private TargetDataLine line;
     private ByteArrayOutputStream recordingByteData;
     private volatile byte[] currentBuffer;
+    private volatile AudioProcessor audioProcessor;
 
     /**
      * Creates a new JavaMicRecorder, with default audio format.
@@ -95,6 +98,11 @@ public class JavaMicRecorder implements Recorder {
         return format;
     }
 
+    @Override
+    public void setAudioProcessor(AudioProcessor processor) {
+        this.audioProcessor = processor;
+    }
+
     /**
      * Creates a thread that will be active as long as isRecording is true.
      * At termination, line is closed.
@@ -113,11 +121,23 @@ public class JavaMicRecorder implements Recorder {
     private void recordingThread() {
         int numBytesRead = 0;
         final byte[] data = new byte[line.getBufferSize() / 5];
+        // the processor is consumed by this recording, so a later one starts without it
+        final AudioProcessor processor = audioProcessor;
+        audioProcessor = null;
+        if (processor != null) {
+            processor.start();
+        }
+
         while (isRecording) {
             // read the next chunk of data from line
             numBytesRead = line.read(data, 0, data.length);
             recordingByteData.write(data, 0, numBytesRead);
 
+            // Process the chunk as it arrives instead of after the recording ends
+            if (processor != null) {
+                processor.processChunk(data, numBytesRead);
+            }
+
             // Update current buffer for real-time waveform display
             synchronized (bufferLock) {
                 currentBuffer = new byte[numBytesRead];
@@ -126,6 +146,9 @@ public class JavaMicRecorder implements Recorder {
         }
 
         line.stop();
+        if (processor != null) {
+            processor.stop();
+        }
         synchronized (bufferLock) {
             currentBuffer = null;
         }
@@ -2,6 +2,8 @@ package org.wavelabs.soundscope.infrastructure;
 
 import javax.sound.sampled.AudioFormat;
 
+import org.wavelabs.soundscope.use_case.fingerprint.AudioProcessor;
+
 /**
  * Interface representing an audio recorder capable of capturing raw audio data.
  *
@@ -66,4 +68,17 @@ public interface Recorder {
      * @return the audio format used during recording; never {@code null}
      */
     AudioFormat getAudioFormat();
+
+    /**
+     * Sets an {@link AudioProcessor} that receives captured audio as it arrives.
+     *
+     * <p>The processor is started when the next recording begins, receives each
+     * captured chunk in order, and is stopped before {@link #stop()} returns. It
+     * applies to the next recording only; pass {@code null} to record without
+     * one.</p>
+     *
+     * @param processor the processor to feed during the next recording, or
+     *                  {@code null}
+     */
+    void setAudioProcessor(AudioProcessor processor);
 }
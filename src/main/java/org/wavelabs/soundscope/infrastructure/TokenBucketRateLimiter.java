@@ -0,0 +1,121 @@
+package org.wavelabs.soundscope.infrastructure;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter. Permits are added continuously at a fixed rate, up to a maximum
+ * burst; each call takes one, waiting for it if the bucket is empty.
+ *
+ * <p>A caller that has to wait reserves its permit before sleeping, so concurrent callers are
+ * spread out in arrival order rather than all waking at once.</p>
+ */
+public class TokenBucketRateLimiter {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final LongSupplier nanoClock;
+
+    // Negative while callers are waiting on permits that have not been added yet
+    private double storedPermits;
+    private long lastRefillNanos;
+    private long permitsAcquired;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Creates a limiter that starts with a full bucket.
+     *
+     * @param permitsPerSecond rate at which permits are added
+     * @param burst            most permits that can be taken at once after a quiet period
+     * @throws IllegalArgumentException if the rate or burst is not positive
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.storedPermits = burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes a permit, waiting until one is available.
+     *
+     * @throws InterruptedException if interrupted while waiting; the permit is still used up
+     */
+    public void acquire() throws InterruptedException {
+        final long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a permit without waiting for it.
+     *
+     * @return how long the caller must wait before using the permit, in nanoseconds
+     */
+    synchronized long reserve() {
+        refill();
+        storedPermits -= 1;
+
+        long waitNanos = 0;
+        if (storedPermits < 0) {
+            waitNanos = (long) Math.ceil(-storedPermits / permitsPerSecond * NANOS_PER_SECOND);
+        }
+        permitsAcquired++;
+        totalWaitNanos += waitNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        return waitNanos;
+    }
+
+    /**
+     * Returns a snapshot of the limiter's state and history.
+     *
+     * @return the current metrics
+     */
+    public synchronized Metrics getMetrics() {
+        refill();
+        return new Metrics(permitsPerSecond, burst, storedPermits, permitsAcquired, totalWaitNanos, maxWaitNanos);
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        storedPermits = Math.min(burst, storedPermits + (now - lastRefillNanos) * permitsPerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * Snapshot of a limiter.
+     *
+     * @param permitsPerSecond rate at which permits are added
+     * @param burst            size of the bucket
+     * @param availablePermits permits that can be taken now without waiting; negative when callers
+     *                         are already waiting
+     * @param permitsAcquired  permits taken so far
+     * @param totalWaitNanos   time callers have spent waiting for permits, in total
+     * @param maxWaitNanos     longest a caller has waited for a permit
+     */
+    public record Metrics(double permitsPerSecond, int burst, double availablePermits, long permitsAcquired,
+                          long totalWaitNanos, long maxWaitNanos) {
+        /**
+         * Returns the average time a caller waited for a permit.
+         *
+         * @return the average wait in milliseconds, or 0 if no permits were taken
+         */
+        public double averageWaitMillis() {
+            if (permitsAcquired == 0) {
+                return 0;
+            }
+            return totalWaitNanos / 1e6 / permitsAcquired;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.wavelabs.soundscope.infrastructure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Blocking queue split into lanes, each with a weight. Items within a lane come out in the order
+ * they were added; across lanes, every lane with items waiting gets a share of the items taken in
+ * proportion to its weight, so a light lane is never starved by a busy heavy one.
+ *
+ * <p>Lanes are served by stride scheduling: each lane has a pass value that grows by the inverse
+ * of its weight whenever an item is taken from it, and the next item comes from the waiting lane
+ * with the lowest pass. A lane that was empty starts again from the current pass rather than from
+ * where it left off, so it cannot save up its share while idle. Ties go to the lower lane index.</p>
+ *
+ * @param <T> the type of item queued
+ */
+public class WeightedFairQueue<T> {
+    private static final long STRIDE_SCALE = 1L << 20;
+
+    private final List<ArrayDeque<T>> lanes;
+    private final long[] strides;
+    private final long[] passes;
+    private long virtualTime;
+    private int size;
+
+    /**
+     * Creates a queue with one lane per weight.
+     *
+     * @param weights relative share of each lane
+     * @throws IllegalArgumentException if there are no weights or one is not positive
+     */
+    public WeightedFairQueue(int... weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("At least one lane is required");
+        }
+        lanes = new ArrayList<>(weights.length);
+        strides = new long[weights.length];
+        passes = new long[weights.length];
+        for (int lane = 0; lane < weights.length; lane++) {
+            if (weights[lane] < 1) {
+                throw new IllegalArgumentException("Lane weights must be positive");
+            }
+            lanes.add(new ArrayDeque<>());
+            strides[lane] = STRIDE_SCALE / weights[lane];
+        }
+    }
+
+    /**
+     * Adds an item to the end of a lane.
+     *
+     * @param lane the lane index
+     * @param item the item
+     */
+    public synchronized void add(int lane, T item) {
+        final ArrayDeque<T> queue = lanes.get(lane);
+        if (queue.isEmpty()) {
+            passes[lane] = Math.max(passes[lane], virtualTime);
+        }
+        queue.add(item);
+        size++;
+        notifyAll();
+    }
+
+    /**
+     * Takes the next item, waiting until there is one.
+     *
+     * @return the item
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized T take() throws InterruptedException {
+        while (size == 0) {
+            wait();
+        }
+        return next();
+    }
+
+    /**
+     * Takes the next item without waiting.
+     *
+     * @return the item, or {@code null} if the queue is empty
+     */
+    public synchronized T poll() {
+        if (size == 0) {
+            return null;
+        }
+        return next();
+    }
+
+    /**
+     * Returns the number of items waiting in all lanes.
+     *
+     * @return the number of items
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of items waiting in a lane.
+     *
+     * @param lane the lane index
+     * @return the number of items
+     */
+    public synchronized int size(int lane) {
+        return lanes.get(lane).size();
+    }
+
+    private T next() {
+        int chosen = -1;
+        for (int lane = 0; lane < lanes.size(); lane++) {
+            if (!lanes.get(lane).isEmpty() && (chosen < 0 || passes[lane] < passes[chosen])) {
+                chosen = lane;
+            }
+        }
+        virtualTime = passes[chosen];
+        passes[chosen] += strides[chosen];
+        size--;
+        return lanes.get(chosen).poll();
+    }
+}
@@ -9,6 +9,7 @@ public class MainState {
     private String artists;
     private String album;
     private String fingerprint;
+    private String segmentTimeline;
 
     private boolean isRecording;
     private boolean isPlaying;
@@ -95,6 +96,14 @@ public class MainState {
         this.fingerprint = fingerprint;
     }
 
+    public String getSegmentTimeline() {
+        return segmentTimeline;
+    }
+
+    public void setSegmentTimeline(String segmentTimeline) {
+        this.segmentTimeline = segmentTimeline;
+    }
+
     public String getArtists() {
         return artists;
     }
@@ -15,6 +15,10 @@ public class MainViewModel extends ViewModel<MainState> {
     public static final String STOP_RECORDING_TEXT = "Stop Recording";
     public static final String FINGERPRINT_TEXT = "Fingerprint";
     public static final String IDENTIFY_TEXT = "Identify";
+    public static final String AUTO_IDENTIFY_TEXT = "Auto Identify";
+    public static final String SEGMENT_IDENTIFY_TEXT = "Identify Segments";
+    public static final String SEGMENT_TIMELINE_TITLE = "Songs in Recording";
+    public static final String UNKNOWN_SEGMENT_TEXT = "(unknown)";
 
     public static final Map<String, String> USE_CASE_ERROR_TITLE_MAP = Map.of(
             "file save", "Save Error",
@@ -22,7 +26,9 @@ public class MainViewModel extends ViewModel<MainState> {
             "identify", "Identify Error",
             "fingerprint", "Fingerprint Error",
             "playing", "Playback Error",
-            "recording", "Recording Error"
+            "recording", "Recording Error",
+            "segment identify", "Segment Identify Error",
+            "early identify", "Auto Identify Error"
     );
 
     public static final String FINGERPRINT_INFO_START = "Fingerprint: ";
@@ -0,0 +1,36 @@
+package org.wavelabs.soundscope.interface_adapter.batch_identify;
+
+import java.io.File;
+
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyIB;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyID;
+
+/**
+ * Controller responsible for starting a batch identification run.
+ *
+ * <p>Translates a directory and report path, typically from the command line,
+ * into a call to the {@link BatchIdentifyIB} interactor.</p>
+ */
+public class BatchIdentifyController {
+    private final BatchIdentifyIB batchIdentifyInteractor;
+
+    /**
+     * Constructs a new {@code BatchIdentifyController}.
+     *
+     * @param batchIdentifyInteractor
+     *         the use case interactor; must not be {@code null}
+     */
+    public BatchIdentifyController(BatchIdentifyIB batchIdentifyInteractor) {
+        this.batchIdentifyInteractor = batchIdentifyInteractor;
+    }
+
+    /**
+     * Identifies every audio file under a directory, returning when done.
+     *
+     * @param rootDirectory the directory to identify
+     * @param reportFile    the file to write results to
+     */
+    public void execute(File rootDirectory, File reportFile) {
+        batchIdentifyInteractor.execute(new BatchIdentifyID(rootDirectory, reportFile));
+    }
+}
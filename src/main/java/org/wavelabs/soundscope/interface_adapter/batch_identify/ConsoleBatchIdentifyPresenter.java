@@ -0,0 +1,92 @@
+package org.wavelabs.soundscope.interface_adapter.batch_identify;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+import org.wavelabs.soundscope.interface_adapter.TimeFormatter;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyOB;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyOD;
+
+/**
+ * Presents batch identification progress as lines of text, for headless runs.
+ */
+public class ConsoleBatchIdentifyPresenter implements BatchIdentifyOB {
+    private final PrintStream out;
+    private final PrintStream err;
+    private volatile boolean errorPresented;
+
+    /**
+     * Creates a presenter that writes progress to standard output and errors to standard error.
+     */
+    public ConsoleBatchIdentifyPresenter() {
+        this(System.out, System.err);
+    }
+
+    /**
+     * Creates a presenter that writes progress and errors to one stream.
+     *
+     * @param out the stream to write to
+     */
+    public ConsoleBatchIdentifyPresenter(PrintStream out) {
+        this(out, out);
+    }
+
+    /**
+     * Creates a presenter that writes progress and errors to separate streams.
+     *
+     * @param out the stream to write progress to
+     * @param err the stream to write errors to
+     */
+    public ConsoleBatchIdentifyPresenter(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Returns whether an error has been presented, so a headless run can exit with a failure
+     * status.
+     *
+     * @return {@code true} if {@link #presentError} was called
+     */
+    public boolean isErrorPresented() {
+        return errorPresented;
+    }
+
+    @Override
+    public void presentProgress(BatchIdentifyOD outputData) {
+        out.println(format("Progress", outputData) + ", " + eta(outputData) + " remaining");
+    }
+
+    @Override
+    public void presentComplete(BatchIdentifyOD outputData) {
+        out.println(format("Done", outputData));
+    }
+
+    @Override
+    public void presentError(String errorMessage) {
+        errorPresented = true;
+        err.println("Batch error: " + errorMessage);
+    }
+
+    private static String format(String label, BatchIdentifyOD outputData) {
+        return String.format(Locale.ROOT,
+            "%s: %d/%d files (%d identified, %d not found, %d failed), %.1f files/s, %s elapsed",
+            label,
+            outputData.processed(),
+            outputData.totalFiles(),
+            outputData.identified(),
+            outputData.notFound(),
+            outputData.failed(),
+            outputData.filesPerSecond(),
+            TimeFormatter.formatTime(outputData.elapsedMillis() / 1000.0));
+    }
+
+    private static String eta(BatchIdentifyOD outputData) {
+        final double rate = outputData.filesPerSecond();
+        if (rate <= 0) {
+            return "unknown time";
+        }
+        final int remaining = outputData.totalFiles() - outputData.processed();
+        return TimeFormatter.formatTime(remaining / rate);
+    }
+}
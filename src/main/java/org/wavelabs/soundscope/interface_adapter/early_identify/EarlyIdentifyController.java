@@ -0,0 +1,40 @@
+package org.wavelabs.soundscope.interface_adapter.early_identify;
+
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyIB;
+
+/**
+ * Controller responsible for switching early identification on and off.
+ *
+ * <p>While early identification is on, recordings are identified as they are
+ * captured, and stop on their own once the song is recognized. The controller
+ * only forwards the user's choice to the {@link EarlyIdentifyIB} interactor.</p>
+ */
+public class EarlyIdentifyController {
+
+    private final EarlyIdentifyIB earlyIdentifyInteractor;
+
+    /**
+     * Constructs a new {@code EarlyIdentifyController} using the provided
+     * early identification interactor.
+     *
+     * @param earlyIdentifyInteractor
+     *         the use case interactor; must not be {@code null}
+     */
+    public EarlyIdentifyController(EarlyIdentifyIB earlyIdentifyInteractor) {
+        this.earlyIdentifyInteractor = earlyIdentifyInteractor;
+    }
+
+    /**
+     * Turns early identification on or off for the following recordings.
+     *
+     * @param enabled whether recordings should be identified while capturing
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled) {
+            earlyIdentifyInteractor.enable();
+        }
+        else {
+            earlyIdentifyInteractor.disable();
+        }
+    }
+}
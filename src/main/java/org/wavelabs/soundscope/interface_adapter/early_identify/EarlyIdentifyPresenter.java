@@ -0,0 +1,39 @@
+package org.wavelabs.soundscope.interface_adapter.early_identify;
+
+import javax.swing.SwingUtilities;
+
+import org.wavelabs.soundscope.interface_adapter.MainViewModel;
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyOB;
+import org.wavelabs.soundscope.use_case.early_identify.EarlyIdentifyOD;
+
+/**
+ * Presenter for the early identify use case. Matches are found on a background thread, so the
+ * state is updated and the change fired together on the event dispatch thread.
+ */
+public class EarlyIdentifyPresenter implements EarlyIdentifyOB {
+    private final MainViewModel mainViewModel;
+
+    public EarlyIdentifyPresenter(MainViewModel mainViewModel) {
+        this.mainViewModel = mainViewModel;
+    }
+
+    @Override
+    public void presentMatch(EarlyIdentifyOD outputData) {
+        final String artists = String.join(", ",  outputData.artists());
+        SwingUtilities.invokeLater(() -> {
+            mainViewModel.getState().setSongTitle(outputData.songTitle());
+            mainViewModel.getState().setAlbum(outputData.album());
+            mainViewModel.getState().setArtists(artists);
+            mainViewModel.firePropertyChange("early identify");
+        });
+    }
+
+    @Override
+    public void presentError(String errorMessage) {
+        SwingUtilities.invokeLater(() -> {
+            mainViewModel.getState().setErrorState(true);
+            mainViewModel.getState().setErrorMessage(errorMessage);
+            mainViewModel.firePropertyChange("early identify");
+        });
+    }
+}
@@ -1,9 +1,15 @@
 package org.wavelabs.soundscope.interface_adapter.identify;
 
+import javax.swing.SwingUtilities;
+
 import org.wavelabs.soundscope.interface_adapter.MainViewModel;
 import org.wavelabs.soundscope.use_case.identify.IdentifyOB;
 import org.wavelabs.soundscope.use_case.identify.IdentifyOD;
 
+/**
+ * Presenter for the identify use case. Lookups finish on a network thread, so the state is
+ * updated and the change fired together on the event dispatch thread.
+ */
 public class IdentifyPresenter implements IdentifyOB {
     private final MainViewModel mainViewModel;
 
@@ -13,17 +19,21 @@ public class IdentifyPresenter implements IdentifyOB {
 
     @Override
     public void updateSongAttributes(IdentifyOD outputData) {
-        mainViewModel.getState().setSongTitle(outputData.songTitle());
-        mainViewModel.getState().setAlbum(outputData.album());
-        String artists = String.join(", ",  outputData.artists());
-        mainViewModel.getState().setArtists(artists);
-        mainViewModel.firePropertyChange("identify");
+        final String artists = String.join(", ",  outputData.artists());
+        SwingUtilities.invokeLater(() -> {
+            mainViewModel.getState().setSongTitle(outputData.songTitle());
+            mainViewModel.getState().setAlbum(outputData.album());
+            mainViewModel.getState().setArtists(artists);
+            mainViewModel.firePropertyChange("identify");
+        });
     }
 
     @Override
     public void presentError(String errorMessage) {
-        mainViewModel.getState().setErrorState(true);
-        mainViewModel.getState().setErrorMessage(errorMessage);
-        mainViewModel.firePropertyChange("identify");
+        SwingUtilities.invokeLater(() -> {
+            mainViewModel.getState().setErrorState(true);
+            mainViewModel.getState().setErrorMessage(errorMessage);
+            mainViewModel.firePropertyChange("identify");
+        });
     }
 }
@@ -2,6 +2,8 @@ package org.wavelabs.soundscope.interface_adapter.process_audio_file;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 
@@ -12,10 +14,34 @@ import org.wavelabs.soundscope.use_case.process_audio_file.ProcessAudioFileID;
 public class ProcessAudioFileController {
     private final ProcessAudioFileIB processAudioFileInteractor;
     private final FileDAO fileDAO;
+    private final Executor loadExecutor;
+    // Latest file to be opened; loading an older one would be wasted
+    private final AtomicReference<File> latestFile = new AtomicReference<>();
 
+    /**
+     * Creates a controller that loads files into the FileDAO on the calling thread.
+     *
+     * @param processAudioFile the interactor that processes the file for display
+     * @param fileDAO          the DAO to load the file into for fingerprinting and playback
+     */
     public ProcessAudioFileController(ProcessAudioFileIB processAudioFile, FileDAO fileDAO) {
+        this(processAudioFile, fileDAO, Runnable::run);
+    }
+
+    /**
+     * Creates a controller that loads files into the FileDAO on the given executor. Given the
+     * executor the interactor processes files on, each load is queued behind the waveform pass
+     * over the same file, so the two never read the file at the same time.
+     *
+     * @param processAudioFile the interactor that processes the file for display
+     * @param fileDAO          the DAO to load the file into for fingerprinting and playback
+     * @param loadExecutor     runs the loads; should run one at a time, in order
+     */
+    public ProcessAudioFileController(ProcessAudioFileIB processAudioFile, FileDAO fileDAO,
+                                      Executor loadExecutor) {
         this.processAudioFileInteractor = processAudioFile;
         this.fileDAO = fileDAO;
+        this.loadExecutor = loadExecutor;
     }
 
     /**
@@ -26,20 +52,31 @@ public class ProcessAudioFileController {
      * domain-level processing of the audio file (e.g., decoding, validation, or
      * preparing data for further operations such as fingerprinting).</p>
      *
-     * <p>After delegating to the use case interactor, the method attempts to load
-     * the raw audio data from the file through the {@code fileDAO}. This step is
+     * <p>The audio held by the {@code fileDAO} is dropped at once, so nothing
+     * fingerprints the previous audio while the new file loads. After delegating
+     * to the use case interactor, the method queues a load of the raw audio data
+     * from the file through the {@code fileDAO}. This step is
      * typically required to make audio data available for subsequent operations
-     * (such as playback or fingerprint generation). If loading fails, a warning is
-     * logged but the exception is not propagated, allowing the system to continue
-     * running in a degraded state.</p>
+     * (such as playback or fingerprint generation). The load is skipped if another
+     * file is opened before it starts. If loading fails, a warning is logged but
+     * the exception is not propagated, allowing the system to continue running in
+     * a degraded state.</p>
      *
      * @param file
      *         the audio file to be processed; must not be {@code null}
      */
     public void execute(File file) {
+        latestFile.set(file);
+        fileDAO.expectAudioFromFile(file);
         final ProcessAudioFileID inputData = new ProcessAudioFileID(file);
         processAudioFileInteractor.execute(inputData);
+        loadExecutor.execute(() -> load(file));
+    }
 
+    private void load(File file) {
+        if (latestFile.get() != file) {
+            return;
+        }
         try {
             fileDAO.loadAudioFromFile(file);
         }
@@ -0,0 +1,34 @@
+package org.wavelabs.soundscope.interface_adapter.segment_identify;
+
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyIB;
+
+/**
+ * Controller responsible for starting the identification of every song in
+ * the current audio.
+ *
+ * <p>The controller contains no logic of its own; it forwards the request to
+ * the {@link SegmentIdentifyIB} interactor, which reports back through its
+ * presenter once the whole timeline is known.</p>
+ */
+public class SegmentIdentifyController {
+
+    private final SegmentIdentifyIB segmentIdentifyInteractor;
+
+    /**
+     * Constructs a new {@code SegmentIdentifyController} using the provided
+     * segment identification interactor.
+     *
+     * @param segmentIdentifyInteractor
+     *         the use case interactor; must not be {@code null}
+     */
+    public SegmentIdentifyController(SegmentIdentifyIB segmentIdentifyInteractor) {
+        this.segmentIdentifyInteractor = segmentIdentifyInteractor;
+    }
+
+    /**
+     * Starts identifying the songs in the current audio.
+     */
+    public void execute() {
+        segmentIdentifyInteractor.execute();
+    }
+}
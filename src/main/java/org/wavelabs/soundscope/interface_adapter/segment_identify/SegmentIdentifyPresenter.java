@@ -0,0 +1,54 @@
+package org.wavelabs.soundscope.interface_adapter.segment_identify;
+
+import javax.swing.SwingUtilities;
+
+import org.wavelabs.soundscope.interface_adapter.MainViewModel;
+import org.wavelabs.soundscope.interface_adapter.TimeFormatter;
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyOB;
+import org.wavelabs.soundscope.use_case.segment_identify.SegmentIdentifyOD;
+
+/**
+ * Presenter for the segment identify use case. The timeline is built on the use case's worker
+ * thread, so the state is updated and the change fired together on the event dispatch thread.
+ */
+public class SegmentIdentifyPresenter implements SegmentIdentifyOB {
+    private final MainViewModel mainViewModel;
+
+    public SegmentIdentifyPresenter(MainViewModel mainViewModel) {
+        this.mainViewModel = mainViewModel;
+    }
+
+    @Override
+    public void presentTimeline(SegmentIdentifyOD outputData) {
+        final StringBuilder timeline = new StringBuilder();
+        for (SegmentIdentifyOD.Segment segment : outputData.segments()) {
+            timeline.append(TimeFormatter.formatTime(segment.startSeconds()))
+                .append(" - ")
+                .append(TimeFormatter.formatTime(segment.endSeconds()))
+                .append("  ");
+            if (segment.songTitle() == null) {
+                timeline.append(MainViewModel.UNKNOWN_SEGMENT_TEXT);
+            }
+            else {
+                timeline.append(segment.songTitle());
+                if (segment.artists() != null && segment.artists().length > 0) {
+                    timeline.append(" by ").append(String.join(", ", segment.artists()));
+                }
+            }
+            timeline.append('\n');
+        }
+        SwingUtilities.invokeLater(() -> {
+            mainViewModel.getState().setSegmentTimeline(timeline.toString());
+            mainViewModel.firePropertyChange("segment identify");
+        });
+    }
+
+    @Override
+    public void presentError(String errorMessage) {
+        SwingUtilities.invokeLater(() -> {
+            mainViewModel.getState().setErrorState(true);
+            mainViewModel.getState().setErrorMessage(errorMessage);
+            mainViewModel.firePropertyChange("segment identify");
+        });
+    }
+}
@@ -48,6 +48,18 @@ public class WaveformPresenter implements ProcessAudioFileOB {
         );
     }
 
+    /**
+     * Presents the part of an audio file processed so far, so the waveform grows
+     * while a large file is still being read.
+     *
+     * @param partialOutputData The output data containing the audio processed so far
+     */
+    @Override
+    public void presentProgress(ProcessAudioFileOD partialOutputData) {
+        viewModel.setAudioData(partialOutputData.getAudioData());
+        viewModel.setOutputText("Loading: " + partialOutputData.getFileName() + "...");
+    }
+
     /**
      * Presents an error that occurred during audio file processing.
      *
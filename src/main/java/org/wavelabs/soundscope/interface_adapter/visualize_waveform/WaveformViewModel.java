@@ -13,8 +13,9 @@ import org.wavelabs.soundscope.entity.AudioData;
  * to update the View accordingly.
  */
 public class WaveformViewModel {
-    private AudioData audioData;
-    private String outputText;
+    // Set by presenters on background threads, read by the view on the EDT
+    private volatile AudioData audioData;
+    private volatile String outputText;
 
     /**
      * Gets the audio data to be visualized.
@@ -0,0 +1,56 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Data Access Interface (DAI) for the batch identification use case.
+ *
+ * <p>Provides the files to identify, decodes them, and opens the report the
+ * results are written to and the journal that lets an interrupted batch resume.
+ * Decoding is called from several threads at once.</p>
+ */
+public interface BatchIdentifyDAI {
+    /**
+     * Lists the audio files in a directory tree.
+     *
+     * @param rootDirectory the root of the tree
+     * @return the audio files found, in a stable order
+     * @throws IOException if the tree cannot be read
+     */
+    List<File> findAudioFiles(File rootDirectory) throws IOException;
+
+    /**
+     * Decodes an audio file to 16-bit little-endian PCM.
+     *
+     * @param file       the file to decode
+     * @param maxSeconds how many seconds from the start of the file are needed;
+     *                   the rest is not decoded
+     * @return the decoded audio
+     * @throws IOException                   if the file cannot be read
+     * @throws UnsupportedAudioFileException if the audio format is not supported
+     */
+    DecodedAudio decode(File file, int maxSeconds) throws IOException, UnsupportedAudioFileException;
+
+    /**
+     * Opens a report for writing, replacing any existing file.
+     *
+     * @param reportFile the report file
+     * @return the opened report
+     * @throws IOException if the report cannot be created
+     */
+    BatchReport openReport(File reportFile) throws IOException;
+
+    /**
+     * Opens the journal of the batch writing to a report, recovering what an
+     * earlier, unfinished run of the same batch recorded.
+     *
+     * @param reportFile the report file of the batch
+     * @return the opened journal
+     * @throws IOException if the journal cannot be read or created
+     */
+    BatchJournal openJournal(File reportFile) throws IOException;
+}
@@ -0,0 +1,14 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+/**
+ * Input boundary for the BatchIdentify use case.
+ */
+public interface BatchIdentifyIB {
+    /**
+     * Fingerprints and identifies every audio file under a directory, and
+     * returns once all of them have been reported.
+     *
+     * @param inputData the directory to identify and where to report to
+     */
+    void execute(BatchIdentifyID inputData);
+}
@@ -0,0 +1,44 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import java.io.File;
+
+/**
+ * Input data structure for the BatchIdentify use case.
+ *
+ * <p>Holds the directory tree to identify and the report file to write the
+ * results to.</p>
+ */
+public class BatchIdentifyID {
+    private final File rootDirectory;
+    private final File reportFile;
+
+    /**
+     * Constructs a BatchIdentifyID.
+     *
+     * @param rootDirectory directory whose audio files, including those in
+     *                      subdirectories, should be identified
+     * @param reportFile    file to write one result per audio file to
+     */
+    public BatchIdentifyID(File rootDirectory, File reportFile) {
+        this.rootDirectory = rootDirectory;
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Gets the directory to identify.
+     *
+     * @return the root of the directory tree
+     */
+    public File getRootDirectory() {
+        return rootDirectory;
+    }
+
+    /**
+     * Gets the report file.
+     *
+     * @return the file results are written to
+     */
+    public File getReportFile() {
+        return reportFile;
+    }
+}
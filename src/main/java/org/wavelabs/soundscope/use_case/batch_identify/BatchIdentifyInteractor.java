@@ -0,0 +1,344 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.Fingerprinter;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprinterPool;
+import org.wavelabs.soundscope.use_case.fingerprint.StreamingFingerprint;
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Batch identify interactor. Walks a directory tree, fingerprints its audio files in parallel, looks
+ * every fingerprint up, and writes one result per file to a report.
+ *
+ * <p>Decoding and fingerprinting run on one thread per core. Lookups are sent without waiting for
+ * earlier ones to finish, so an identifier that batches requests can fill every batch; a semaphore
+ * caps how many are outstanding. The number of files in flight is capped too, so memory use does
+ * not grow with the size of the tree.</p>
+ *
+ * <p>Fingerprints and final results are written to a {@link BatchJournal} as they are produced.
+ * When a batch is run again after being stopped, files with a result in the journal are reported
+ * from it and files with only a fingerprint go straight to lookup. Only results that would come
+ * out the same again are final: matches, and lookups the identifier reports as
+ * {@link IdentifyDAI.FingerprintUnknownException}. The journal is removed once a batch
+ * finishes.</p>
+ */
+public class BatchIdentifyInteractor implements BatchIdentifyIB {
+    /**
+     * Default number of lookups outstanding at once: enough to fill several AcoustID batch
+     * requests of 10 lookups each while earlier ones are on the wire.
+     */
+    public static final int DEFAULT_MAX_PENDING_LOOKUPS = 40;
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    // Files allowed between being picked up and being reported, per fingerprint thread
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final BatchIdentifyDAI batchDataAccessObject;
+    private final IdentifyDAI identifier;
+    private final FingerprinterPool fingerprinterPool;
+    private final BatchIdentifyOB batchPresenter;
+    private final int fingerprintThreads;
+    private final int maxPendingLookups;
+
+    /**
+     * Initializes a BatchIdentifyInteractor with one fingerprint thread per core and the default
+     * number of outstanding lookups.
+     *
+     * @param batchDataAccessObject DAI for listing, decoding and reporting files
+     * @param identifier DAI for looking up fingerprints
+     * @param fingerprinterPool pool to lease chromaprint contexts from
+     * @param batchOutputBoundary handles passing output data
+     */
+    public BatchIdentifyInteractor(BatchIdentifyDAI batchDataAccessObject, IdentifyDAI identifier,
+                                   FingerprinterPool fingerprinterPool,
+                                   BatchIdentifyOB batchOutputBoundary) {
+        this(batchDataAccessObject, identifier, fingerprinterPool, batchOutputBoundary,
+            Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PENDING_LOOKUPS);
+    }
+
+    /**
+     * Initializes a BatchIdentifyInteractor.
+     *
+     * @param batchDataAccessObject DAI for listing, decoding and reporting files
+     * @param identifier DAI for looking up fingerprints
+     * @param fingerprinterPool pool to lease chromaprint contexts from
+     * @param batchOutputBoundary handles passing output data
+     * @param fingerprintThreads number of threads decoding and fingerprinting files
+     * @param maxPendingLookups most lookups outstanding at once
+     */
+    public BatchIdentifyInteractor(BatchIdentifyDAI batchDataAccessObject, IdentifyDAI identifier,
+                                   FingerprinterPool fingerprinterPool,
+                                   BatchIdentifyOB batchOutputBoundary,
+                                   int fingerprintThreads, int maxPendingLookups) {
+        this.batchDataAccessObject = batchDataAccessObject;
+        this.identifier = identifier;
+        this.fingerprinterPool = fingerprinterPool;
+        this.batchPresenter = batchOutputBoundary;
+        this.fingerprintThreads = fingerprintThreads;
+        this.maxPendingLookups = maxPendingLookups;
+    }
+
+    @Override
+    public void execute(BatchIdentifyID inputData) {
+        final long startNanos = System.nanoTime();
+        final List<File> files;
+        try {
+            files = batchDataAccessObject.findAudioFiles(inputData.getRootDirectory());
+        }
+        catch (IOException exception) {
+            batchPresenter.presentError("Could not read directory: " + exception.getMessage());
+            return;
+        }
+
+        try (BatchReport report = batchDataAccessObject.openReport(inputData.getReportFile());
+             BatchJournal journal = batchDataAccessObject.openJournal(inputData.getReportFile())) {
+            final Run run = new Run(files.size(), report, journal, startNanos);
+            run.process(files);
+            if (run.reportError.get() != null) {
+                batchPresenter.presentError("Could not write report: " + run.reportError.get().getMessage());
+            }
+            else {
+                // Everything is in the report; a later run starts over
+                journal.discard();
+            }
+            if (run.journalError.get() != null) {
+                batchPresenter.presentError("Could not write journal: " + run.journalError.get().getMessage());
+            }
+            batchPresenter.presentComplete(run.snapshot());
+        }
+        catch (IOException exception) {
+            batchPresenter.presentError("Could not write report: " + exception.getMessage());
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            batchPresenter.presentError("Batch identification was interrupted.");
+        }
+    }
+
+    /**
+     * State of a single batch run.
+     */
+    private final class Run {
+        private final int totalFiles;
+        private final BatchReport report;
+        private final BatchJournal journal;
+        private final long startNanos;
+        private final AtomicInteger identified = new AtomicInteger();
+        private final AtomicInteger notFound = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicReference<IOException> reportError = new AtomicReference<>();
+        private final AtomicReference<IOException> journalError = new AtomicReference<>();
+        private final Semaphore inFlight =
+            new Semaphore(fingerprintThreads * IN_FLIGHT_PER_THREAD + maxPendingLookups);
+        private final Semaphore pendingLookups = new Semaphore(maxPendingLookups);
+        private final CountDownLatch done;
+
+        private Run(int totalFiles, BatchReport report, BatchJournal journal, long startNanos) {
+            this.totalFiles = totalFiles;
+            this.report = report;
+            this.journal = journal;
+            this.startNanos = startNanos;
+            this.done = new CountDownLatch(totalFiles);
+        }
+
+        private void process(List<File> files) throws InterruptedException {
+            final ExecutorService fingerprintExecutor =
+                Executors.newFixedThreadPool(fingerprintThreads, namedThreads("batch-fingerprint"));
+            final ScheduledExecutorService progressExecutor =
+                Executors.newSingleThreadScheduledExecutor(namedThreads("batch-progress"));
+            progressExecutor.scheduleAtFixedRate(() -> batchPresenter.presentProgress(snapshot()),
+                PROGRESS_INTERVAL_MILLIS, PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+            final Map<String, BatchJournal.Entry> recovered = journal.recovered();
+            try {
+                for (File file : files) {
+                    inFlight.acquire();
+                    final BatchJournal.Entry entry = recovered.get(file.getPath());
+                    if (entry == null) {
+                        fingerprintExecutor.execute(() -> fingerprintFile(file));
+                    }
+                    else if (entry.result() == null) {
+                        pendingLookups.acquire();
+                        lookUp(file, entry.fingerprint(), entry.durationSeconds());
+                    }
+                    else {
+                        finish(entry.result(), false);
+                    }
+                }
+                done.await();
+            }
+            finally {
+                progressExecutor.shutdownNow();
+                fingerprintExecutor.shutdownNow();
+            }
+        }
+
+        private void fingerprintFile(File file) {
+            final DecodedAudio audio;
+            final String fingerprint;
+            try {
+                audio = batchDataAccessObject.decode(file, StreamingFingerprint.MAX_SECONDS);
+                fingerprint = fingerprint(audio);
+            }
+            catch (IOException | UnsupportedAudioFileException | ChromaprintException exception) {
+                finish(failure(file, 0, exception.getMessage()), false);
+                return;
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                finish(failure(file, 0, "Interrupted"), false);
+                return;
+            }
+            catch (RuntimeException exception) {
+                finish(failure(file, 0, exception.toString()), false);
+                return;
+            }
+
+            try {
+                journal.recordQueued(file.getPath(), fingerprint, audio.durationSeconds());
+            }
+            catch (IOException exception) {
+                journalError.compareAndSet(null, exception);
+            }
+            try {
+                // Holds the fingerprint thread back while the identifier is saturated
+                pendingLookups.acquire();
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                finish(failure(file, audio.durationSeconds(), "Interrupted"), false);
+                return;
+            }
+            lookUp(file, fingerprint, audio.durationSeconds());
+        }
+
+        /**
+         * Sends a lookup, and reports the file when it completes. The caller must have acquired a
+         * permit from {@link #pendingLookups}; it is released when the lookup completes.
+         */
+        private void lookUp(File file, String fingerprint, int durationSeconds) {
+            final CompletableFuture<Song.SongMetadata> lookup;
+            try {
+                lookup = identifier.getClosestMatchMetadataAsync(fingerprint, durationSeconds,
+                    IdentifyDAI.Priority.BULK);
+            }
+            catch (RuntimeException exception) {
+                pendingLookups.release();
+                finish(failure(file, durationSeconds, exception.toString()), false);
+                return;
+            }
+
+            lookup.whenComplete((metadata, error) -> {
+                pendingLookups.release();
+                if (error == null) {
+                    finish(new BatchIdentifyResult(file.getPath(), BatchIdentifyResult.Status.IDENTIFIED,
+                        durationSeconds, fingerprint, metadata.title(), metadata.artists(), metadata.album(),
+                        metadata.acoustIDTrackID(), metadata.musicBrainzID(), metadata.score(), null), true);
+                }
+                else if (unwrap(error) instanceof IdentifyDAI.FingerprintMatchNotFoundException notFound) {
+                    // Other failures to find a match may be a network problem, so are tried again
+                    finish(new BatchIdentifyResult(file.getPath(), BatchIdentifyResult.Status.NOT_FOUND,
+                        durationSeconds, fingerprint, null, null, null, null, null, Double.NaN,
+                        notFound.getMessage()), notFound instanceof IdentifyDAI.FingerprintUnknownException);
+                }
+                else {
+                    finish(failure(file, durationSeconds, unwrap(error).toString()), false);
+                }
+            });
+        }
+
+        /**
+         * Reports a file's result.
+         *
+         * @param result the result
+         * @param isFinal whether to journal the result, so a resumed batch does not look it up again
+         */
+        private void finish(BatchIdentifyResult result, boolean isFinal) {
+            try {
+                report.write(result);
+            }
+            catch (IOException exception) {
+                reportError.compareAndSet(null, exception);
+            }
+            if (isFinal) {
+                try {
+                    journal.recordCompleted(result);
+                }
+                catch (IOException exception) {
+                    journalError.compareAndSet(null, exception);
+                }
+            }
+            switch (result.status()) {
+                case IDENTIFIED -> identified.incrementAndGet();
+                case NOT_FOUND -> notFound.incrementAndGet();
+                default -> failed.incrementAndGet();
+            }
+            inFlight.release();
+            done.countDown();
+        }
+
+        private BatchIdentifyOD snapshot() {
+            return new BatchIdentifyOD(totalFiles, identified.get(), notFound.get(), failed.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private String fingerprint(DecodedAudio audio) throws InterruptedException {
+        final AudioFormat format = audio.format();
+        try (FingerprinterPool.Lease lease =
+                 fingerprinterPool.acquire((int) format.getSampleRate(), format.getChannels())) {
+            final Fingerprinter fingerprinter = lease.fingerprinter();
+            try {
+                fingerprinter.start();
+                fingerprinter.processChunk(audio.pcm(), audio.pcm().length);
+                fingerprinter.stop();
+                return fingerprinter.getFingerprint();
+            }
+            catch (ChromaprintException exception) {
+                lease.invalidate();
+                throw exception;
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private static BatchIdentifyResult failure(File file, int durationSeconds, String error) {
+        return new BatchIdentifyResult(file.getPath(), BatchIdentifyResult.Status.FAILED, durationSeconds,
+            null, null, null, null, null, null, Double.NaN, error);
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
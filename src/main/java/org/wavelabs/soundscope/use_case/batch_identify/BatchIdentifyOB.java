@@ -0,0 +1,31 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+/**
+ * Output Boundary for the batch identification use case.
+ *
+ * <p>Batch runs take a long time, so besides the final summary the interactor
+ * periodically reports its progress.</p>
+ */
+public interface BatchIdentifyOB {
+    /**
+     * Presents the progress of a batch that is still running.
+     *
+     * @param outputData counts and throughput so far
+     */
+    void presentProgress(BatchIdentifyOD outputData);
+
+    /**
+     * Presents the summary of a finished batch.
+     *
+     * @param outputData final counts and throughput
+     */
+    void presentComplete(BatchIdentifyOD outputData);
+
+    /**
+     * Presents an error that stopped the whole batch, such as an unreadable
+     * directory or report file. Failures of single files are only counted.
+     *
+     * @param errorMessage a human-readable description of the failure
+     */
+    void presentError(String errorMessage);
+}
@@ -0,0 +1,34 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+/**
+ * Output data for the batch identification use case.
+ *
+ * @param totalFiles    number of audio files found
+ * @param identified    files matched to a song
+ * @param notFound      files fingerprinted but without a match
+ * @param failed        files that could not be decoded or fingerprinted
+ * @param elapsedMillis time since the batch started
+ */
+public record BatchIdentifyOD(int totalFiles, int identified, int notFound, int failed,
+                              long elapsedMillis) {
+    /**
+     * Returns the number of files that have been reported.
+     *
+     * @return identified, not found and failed files combined
+     */
+    public int processed() {
+        return identified + notFound + failed;
+    }
+
+    /**
+     * Returns the average throughput so far.
+     *
+     * @return processed files per second
+     */
+    public double filesPerSecond() {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+        return processed() * 1000.0 / elapsedMillis;
+    }
+}
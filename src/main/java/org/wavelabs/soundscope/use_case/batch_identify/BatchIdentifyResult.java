@@ -0,0 +1,39 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+/**
+ * Outcome for a single file of a batch, as written to the report.
+ *
+ * @param path            path of the audio file
+ * @param status          whether the file was identified
+ * @param durationSeconds duration of the audio, or 0 if it could not be decoded
+ * @param fingerprint     chromaprint fingerprint, or {@code null} if fingerprinting failed
+ * @param title           title of the matched song, or {@code null}
+ * @param artists         artists of the matched song, or {@code null}
+ * @param album           album of the matched song, or {@code null}
+ * @param acoustIDTrackID AcoustID track of the match, or {@code null}
+ * @param musicBrainzID   MusicBrainz recording of the match, or {@code null}
+ * @param score           score of the match, or NaN
+ * @param error           why the file was not identified, or {@code null}
+ */
+public record BatchIdentifyResult(
+    String path,
+    Status status,
+    int durationSeconds,
+    String fingerprint,
+    String title,
+    String[] artists,
+    String album,
+    String acoustIDTrackID,
+    String musicBrainzID,
+    double score,
+    String error
+) {
+    /**
+     * Outcome of identifying one file.
+     */
+    public enum Status {
+        IDENTIFIED,
+        NOT_FOUND,
+        FAILED
+    }
+}
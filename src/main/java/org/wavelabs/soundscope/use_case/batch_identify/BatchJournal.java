@@ -0,0 +1,62 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Durable record of a batch's progress, so a batch that is stopped part way can be resumed
+ * without fingerprinting or looking up files again. Implementations must allow records to be
+ * written from several threads.
+ */
+public interface BatchJournal extends AutoCloseable {
+    /**
+     * What an earlier run of the batch recorded for a file.
+     *
+     * @param fingerprint     the file's fingerprint, or {@code null} once the file has a result
+     * @param durationSeconds duration of the audio
+     * @param result          the file's final result, or {@code null} if its lookup had not
+     *                        finished; the result's own fingerprint may be left out
+     */
+    record Entry(String fingerprint, int durationSeconds, BatchIdentifyResult result) {
+    }
+
+    /**
+     * Returns what earlier runs recorded, for files that have not changed since.
+     *
+     * @return the entries, keyed by file path
+     */
+    Map<String, Entry> recovered();
+
+    /**
+     * Records that a file has been fingerprinted and its lookup queued.
+     *
+     * @param path            path of the file
+     * @param fingerprint     the file's fingerprint
+     * @param durationSeconds duration of the audio
+     * @throws IOException if the journal cannot be written
+     */
+    void recordQueued(String path, String fingerprint, int durationSeconds) throws IOException;
+
+    /**
+     * Records the final result of a file's lookup.
+     *
+     * @param result the result
+     * @throws IOException if the journal cannot be written
+     */
+    void recordCompleted(BatchIdentifyResult result) throws IOException;
+
+    /**
+     * Closes and removes the journal once the whole batch has been reported.
+     *
+     * @throws IOException if the journal cannot be removed
+     */
+    void discard() throws IOException;
+
+    /**
+     * Writes out anything buffered and closes the journal.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,25 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import java.io.IOException;
+
+/**
+ * Destination for the per-file results of a batch. Implementations must allow
+ * results to be written from several threads.
+ */
+public interface BatchReport extends AutoCloseable {
+    /**
+     * Appends one result to the report.
+     *
+     * @param result the result to write
+     * @throws IOException if the report cannot be written
+     */
+    void write(BatchIdentifyResult result) throws IOException;
+
+    /**
+     * Flushes and closes the report.
+     *
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    void close() throws IOException;
+}
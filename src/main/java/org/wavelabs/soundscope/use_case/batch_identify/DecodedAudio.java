@@ -0,0 +1,13 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Decoded audio of one file in a batch.
+ *
+ * @param pcm             16-bit little-endian PCM, possibly only the start of the file
+ * @param format          format of {@code pcm}
+ * @param durationSeconds duration of the whole file
+ */
+public record DecodedAudio(byte[] pcm, AudioFormat format, int durationSeconds) {
+}
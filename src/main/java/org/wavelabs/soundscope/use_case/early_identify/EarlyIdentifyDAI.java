@@ -0,0 +1,35 @@
+package org.wavelabs.soundscope.use_case.early_identify;
+
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintCheckpointListener;
+
+/**
+ * Data Access Interface (DAI) for the early identification use case.
+ *
+ * <p>This interface gives the interactor access to intermediate fingerprints of
+ * the recording in progress, and lets it stop that recording once the song has
+ * been identified.</p>
+ */
+public interface EarlyIdentifyDAI {
+    /**
+     * Registers a listener that receives intermediate fingerprints of every
+     * following recording.
+     *
+     * @param listener          listener to notify, or {@code null} to stop
+     *                          reporting intermediate fingerprints
+     * @param checkpointSeconds checkpoints, in seconds of recorded audio, in
+     *                          ascending order
+     */
+    void setCheckpointListener(FingerprintCheckpointListener listener, int... checkpointSeconds);
+
+    /**
+     * Returns whether a recording is in progress.
+     *
+     * @return {@code true} if audio is being recorded
+     */
+    boolean isRecording();
+
+    /**
+     * Stops the recording in progress.
+     */
+    void stopRecording();
+}
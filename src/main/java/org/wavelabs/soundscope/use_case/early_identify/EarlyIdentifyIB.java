@@ -0,0 +1,16 @@
+package org.wavelabs.soundscope.use_case.early_identify;
+
+/**
+ * Input boundary for the Early Identify use case.
+ */
+public interface EarlyIdentifyIB {
+    /**
+     * Starts identifying recordings while they are being captured.
+     */
+    void enable();
+
+    /**
+     * Stops identifying recordings while they are being captured.
+     */
+    void disable();
+}
@@ -0,0 +1,138 @@
+package org.wavelabs.soundscope.use_case.early_identify;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintCheckpointListener;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Early identify interactor. While a recording is in progress, sends intermediate fingerprints to
+ * the identifier at a set of checkpoints, and stops the recording as soon as a match is confident
+ * enough.
+ */
+public class EarlyIdentifyInteractor implements EarlyIdentifyIB, FingerprintCheckpointListener {
+    /**
+     * Default checkpoints, in seconds of recorded audio.
+     */
+    public static final int[] DEFAULT_CHECKPOINT_SECONDS = {8, 15, 30};
+
+    /**
+     * Default minimum score for a match to end the recording.
+     */
+    public static final double DEFAULT_SCORE_THRESHOLD = 0.8;
+
+    // Lookups run one at a time, off the capture thread, in checkpoint order
+    private final ExecutorService lookupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "early-identify");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final EarlyIdentifyDAI recordingDataAccessObject;
+    private final IdentifyDAI identifier;
+    private final Song song;
+    private final EarlyIdentifyOB earlyIdentifyPresenter;
+    private final int[] checkpointSeconds;
+    private final double scoreThreshold;
+
+    /**
+     * Initializes an EarlyIdentifyInteractor with the default checkpoints and score threshold.
+     *
+     * @param recordingDataAccessObject DAI for the recording in progress
+     * @param identifier DAI for looking up fingerprints
+     * @param song the Song object to store the match in
+     * @param earlyIdentifyOutputBoundary handles passing output data
+     */
+    public EarlyIdentifyInteractor(EarlyIdentifyDAI recordingDataAccessObject, IdentifyDAI identifier,
+                                   Song song, EarlyIdentifyOB earlyIdentifyOutputBoundary) {
+        this(recordingDataAccessObject, identifier, song, earlyIdentifyOutputBoundary,
+            DEFAULT_CHECKPOINT_SECONDS, DEFAULT_SCORE_THRESHOLD);
+    }
+
+    /**
+     * Initializes an EarlyIdentifyInteractor.
+     *
+     * @param recordingDataAccessObject DAI for the recording in progress
+     * @param identifier DAI for looking up fingerprints
+     * @param song the Song object to store the match in
+     * @param earlyIdentifyOutputBoundary handles passing output data
+     * @param checkpointSeconds seconds of recorded audio at which to look up, in ascending order
+     * @param scoreThreshold minimum score, from 0 to 1, for a match to end the recording
+     */
+    public EarlyIdentifyInteractor(EarlyIdentifyDAI recordingDataAccessObject, IdentifyDAI identifier,
+                                   Song song, EarlyIdentifyOB earlyIdentifyOutputBoundary,
+                                   int[] checkpointSeconds, double scoreThreshold) {
+        this.recordingDataAccessObject = recordingDataAccessObject;
+        this.identifier = identifier;
+        this.song = song;
+        this.earlyIdentifyPresenter = earlyIdentifyOutputBoundary;
+        this.checkpointSeconds = checkpointSeconds.clone();
+        this.scoreThreshold = scoreThreshold;
+    }
+
+    @Override
+    public void enable() {
+        recordingDataAccessObject.setCheckpointListener(this, checkpointSeconds);
+    }
+
+    @Override
+    public void disable() {
+        recordingDataAccessObject.setCheckpointListener(null);
+    }
+
+    /**
+     * Queues a lookup of the intermediate fingerprint. Called on the capture thread.
+     */
+    @Override
+    public void checkpointReached(String fingerprint, int durationSeconds) {
+        lookupExecutor.execute(() -> lookUp(fingerprint, durationSeconds));
+    }
+
+    /**
+     * Looks up an intermediate fingerprint, and ends the recording if the match is good enough.
+     * Lookups that finish after the recording has ended are dropped.
+     *
+     * @param fingerprint fingerprint of the audio recorded so far
+     * @param durationSeconds duration of the audio recorded so far
+     */
+    void lookUp(String fingerprint, int durationSeconds) {
+        if (!recordingDataAccessObject.isRecording()) {
+            return;
+        }
+
+        final Song.SongMetadata metadata;
+        try {
+            metadata = identifier.getClosestMatchMetadata(fingerprint, durationSeconds,
+                IdentifyDAI.Priority.BACKGROUND);
+        }
+        catch (IdentifyDAI.FingerprintMatchNotFoundException exception) {
+            // Not enough audio yet; the next checkpoint will try again
+            return;
+        }
+        catch (RuntimeException exception) {
+            // Would otherwise vanish in the lookup thread
+            if (recordingDataAccessObject.isRecording()) {
+                earlyIdentifyPresenter.presentError("Auto identify failed: " + exception.getMessage());
+            }
+            return;
+        }
+
+        if (!(metadata.score() >= scoreThreshold) || !recordingDataAccessObject.isRecording()) {
+            return;
+        }
+        recordingDataAccessObject.stopRecording();
+
+        song.setFingerprint(fingerprint);
+        song.setDuration(durationSeconds);
+        song.setMetadata(metadata);
+
+        earlyIdentifyPresenter.presentMatch(new EarlyIdentifyOD(
+            metadata.title(),
+            metadata.artists(),
+            metadata.album(),
+            metadata.score(),
+            durationSeconds
+        ));
+    }
+}
@@ -0,0 +1,22 @@
+package org.wavelabs.soundscope.use_case.early_identify;
+
+/**
+ * Output Boundary for the early identification use case.
+ */
+public interface EarlyIdentifyOB {
+    /**
+     * Presents a song that was identified before the recording ended. The
+     * recording has already been stopped when this is called.
+     *
+     * @param outputData the identified song and how much audio it took
+     */
+    void presentMatch(EarlyIdentifyOD outputData);
+
+    /**
+     * Presents an error from a lookup made during the recording. The recording
+     * carries on.
+     *
+     * @param errorMessage a human-readable description of the failure
+     */
+    void presentError(String errorMessage);
+}
@@ -0,0 +1,14 @@
+package org.wavelabs.soundscope.use_case.early_identify;
+
+/**
+ * Output data for the early identification use case.
+ *
+ * @param songTitle       title of the identified song
+ * @param artists         artists of the identified song
+ * @param album           album of the identified song
+ * @param score           confidence of the match, from 0 to 1
+ * @param secondsListened seconds of audio that were needed for the match
+ */
+public record EarlyIdentifyOD(String songTitle, String[] artists, String album, double score,
+                              int secondsListened) {
+}
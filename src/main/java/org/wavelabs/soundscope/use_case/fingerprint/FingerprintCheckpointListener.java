@@ -0,0 +1,15 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+/**
+ * Receives intermediate fingerprints of a stream that is still being captured.
+ */
+public interface FingerprintCheckpointListener {
+    /**
+     * Called when the stream reaches a checkpoint. This runs on the thread feeding the stream, so
+     * implementations should hand any slow work off to another thread.
+     *
+     * @param fingerprint     fingerprint of all audio captured so far
+     * @param durationSeconds duration of the audio captured so far, in seconds
+     */
+    void checkpointReached(String fingerprint, int durationSeconds);
+}
@@ -1,5 +1,7 @@
 package org.wavelabs.soundscope.use_case.fingerprint;
 
+import java.lang.foreign.MemorySegment;
+
 import javax.sound.sampled.AudioFormat;
 
 /**
@@ -33,6 +35,25 @@ public interface FingerprintDAI {
      */
     byte[] getAudioData();
 
+    /**
+     * Returns the same audio as {@link #getAudioData()}, without copying it.
+     *
+     * <p>
+     * Implementations that hold their audio in a memory segment, such as a file mapped into memory,
+     * should override this so the fingerprinting use case can read the samples where they are. By
+     * default the array from {@link #getAudioData()} is wrapped.
+     * </p>
+     *
+     * @return a read-only view of the audio samples, or {@code null} if there is no audio
+     */
+    default MemorySegment getAudioSamples() {
+        final byte[] data = getAudioData();
+        if (data == null) {
+            return null;
+        }
+        return MemorySegment.ofArray(data);
+    }
+
     /**
      * Returns the {@link AudioFormat} describing the structure of the audio data being captured.
      *
@@ -45,5 +66,19 @@ public interface FingerprintDAI {
      * @return the audio format of the current audio stream; never {@code null}
      */
     AudioFormat getAudioFormat();
-}
 
+    /**
+     * Returns the fingerprint that was computed while the current audio was being captured, if
+     * there is one.
+     *
+     * <p>
+     * When the current audio came from a live recording, it has already been streamed through
+     * chromaprint, so the interactor can use that result instead of reading and fingerprinting the
+     * whole buffer again.
+     * </p>
+     *
+     * @return the streamed fingerprint of the current audio, or {@code null} if the current audio
+     *         was not streamed
+     */
+    StreamingFingerprint getStreamingFingerprint();
+}
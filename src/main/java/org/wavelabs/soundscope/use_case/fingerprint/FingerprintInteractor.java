@@ -1,5 +1,7 @@
 package org.wavelabs.soundscope.use_case.fingerprint;
 
+import java.lang.foreign.MemorySegment;
+
 import javax.sound.sampled.AudioFormat;
 
 import org.wavelabs.soundscope.entity.AudioData;
@@ -14,41 +16,45 @@ public class FingerprintInteractor implements FingerprintIB {
     private final FingerprintDAI userDataAccessObject;
     private final FingerprintOB fingerprintPresenter;
     private final Song song;
+    private final FingerprinterPool fingerprinterPool;
 
+    /**
+     * Creates a FingerprintInteractor that takes its chromaprint contexts from a shared pool, so
+     * that several interactors can fingerprint concurrently without setting up a context each time.
+     *
+     * @param userDataAccessObject DAI providing the audio
+     * @param song the Song object to store the fingerprint in
+     * @param fingerprintOutputBoundary handles passing output data
+     * @param fingerprinterPool pool to lease contexts from
+     */
     public FingerprintInteractor(FingerprintDAI userDataAccessObject, Song song,
-            FingerprintOB fingerprintOutputBoundary) {
+            FingerprintOB fingerprintOutputBoundary, FingerprinterPool fingerprinterPool) {
         this.userDataAccessObject = userDataAccessObject;
         this.fingerprintPresenter = fingerprintOutputBoundary;
         this.song = song;
+        this.fingerprinterPool = fingerprinterPool;
     }
 
     @Override
     public void execute() {
         try {
-            final byte[] bytes = userDataAccessObject.getAudioData();
-            final AudioFormat format = userDataAccessObject.getAudioFormat();
-
-            // 120 seconds is the standard AcoustID max
-
-            final int secondsToProcess = 120;
-            int bytesPerSample = format.getSampleSizeInBits() / 8;
-            final int frameSize = format.getChannels() * bytesPerSample;
-            final int maxBytes = (int) (secondsToProcess * format.getSampleRate() * frameSize);
-
-            final int bytesLengthToProcess = Math.min(bytes.length, maxBytes);
+            final StreamingFingerprint streamed = userDataAccessObject.getStreamingFingerprint();
+            final FingerprintOD output;
+            final int duration;
 
-            final Fingerprinter fingerprinter =
-                    new Fingerprinter((int) format.getSampleRate(), format.getChannels());
-            fingerprinter.start();
-            fingerprinter.processChunk(bytes, bytesLengthToProcess);
-            fingerprinter.stop();
-
-            final FingerprintOD output = new FingerprintOD(fingerprinter.getFingerprint());
-            fingerprinter.close();
+            if (streamed != null && streamed.getFingerprint() != null) {
+                // Already fingerprinted during capture; no need to touch the audio buffer
+                output = new FingerprintOD(streamed.getFingerprint());
+                duration = streamed.getDurationSeconds();
+            }
+            else {
+                final MemorySegment samples = userDataAccessObject.getAudioSamples();
+                final AudioFormat format = userDataAccessObject.getAudioFormat();
+                output = new FingerprintOD(fingerprint(samples, format));
+                duration = (int) (samples.byteSize() / (format.getFrameSize() * format.getFrameRate()));
+            }
 
             song.setFingerprint(output.getFingerprint());
-
-            int duration = (int) (bytes.length / (format.getFrameSize() * format.getFrameRate()));
             song.setDuration(duration);
 
             fingerprintPresenter.prepareSuccessView(output);
@@ -62,5 +68,36 @@ public class FingerprintInteractor implements FingerprintIB {
         catch (ChromaprintException exception) {
             fingerprintPresenter.prepareFailView("Chromaprint error:\n" + exception.getMessage());
         }
+
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            fingerprintPresenter.prepareFailView("Fingerprinting was interrupted.");
+        }
+    }
+
+    private String fingerprint(MemorySegment samples, AudioFormat format) throws InterruptedException {
+        // 120 seconds is the standard AcoustID max
+        final int secondsToProcess = StreamingFingerprint.MAX_SECONDS;
+        int bytesPerSample = format.getSampleSizeInBits() / 8;
+        final int frameSize = format.getChannels() * bytesPerSample;
+        final long maxBytes = (long) (secondsToProcess * format.getSampleRate() * frameSize);
+
+        final long bytesLengthToProcess = Math.min(samples.byteSize(), maxBytes);
+
+        try (FingerprinterPool.Lease lease =
+                 fingerprinterPool.acquire((int) format.getSampleRate(), format.getChannels())) {
+            final Fingerprinter fingerprinter = lease.fingerprinter();
+            try {
+                fingerprinter.start();
+                fingerprinter.processSamples(samples.asSlice(0, bytesLengthToProcess));
+                fingerprinter.stop();
+                return fingerprinter.getFingerprint();
+            }
+            catch (ChromaprintException exception) {
+                // Don't hand a context in an unknown state to the next caller
+                lease.invalidate();
+                throw exception;
+            }
+        }
     }
 }
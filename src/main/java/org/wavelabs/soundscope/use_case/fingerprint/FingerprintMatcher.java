@@ -0,0 +1,182 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares raw fingerprints, as returned by {@link Fingerprinter#getRawFingerprint()}, by the
+ * Hamming distance between their sub-fingerprints.
+ *
+ * <p>Two fingerprints are compared at every alignment that overlaps by at least
+ * {@code minOverlap} sub-fingerprints, and by at least {@link #MIN_OVERLAP_FRACTION} of the
+ * shorter fingerprint. The score of an alignment is the fraction of equal bits in the overlap, so
+ * identical audio scores 1 and unrelated audio scores about 0.5. Without the fraction, the best of
+ * the many short overlaps at the edges would often beat a true alignment by chance.</p>
+ *
+ * <p>The XOR and bit count run on {@code jdk.incubator.vector} when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and on a scalar loop otherwise.</p>
+ */
+public final class FingerprintMatcher {
+    /** Minimum overlap, in sub-fingerprints (about two seconds of audio), used by default. */
+    public static final int DEFAULT_MIN_OVERLAP = 16;
+
+    /** Fraction of the shorter fingerprint an alignment must overlap. */
+    public static final double MIN_OVERLAP_FRACTION = 0.5;
+
+    /** Whether the Vector API is available to this JVM. */
+    public static final boolean VECTOR_SUPPORTED =
+        ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static final Match NO_MATCH = new Match(0, 0, 0);
+
+    private FingerprintMatcher() {
+    }
+
+    /**
+     * The best alignment between two fingerprints.
+     *
+     * @param offset     position in the reference of the first query sub-fingerprint; negative
+     *                   when the query starts before the reference
+     * @param similarity fraction of equal bits in the overlap, from 0 to 1
+     * @param overlap    number of sub-fingerprints compared
+     */
+    public record Match(int offset, double similarity, int overlap) {
+    }
+
+    /**
+     * Finds the best alignment of a query within a reference, with the default minimum overlap.
+     *
+     * @param query     the raw fingerprint to look for
+     * @param reference the raw fingerprint to look in
+     * @return the best alignment; its similarity is 0 if the fingerprints are too short to overlap
+     */
+    public static Match bestMatch(int[] query, int[] reference) {
+        return bestMatch(query, reference, DEFAULT_MIN_OVERLAP);
+    }
+
+    /**
+     * Finds the best alignment of a query within a reference.
+     *
+     * @param query      the raw fingerprint to look for
+     * @param reference  the raw fingerprint to look in
+     * @param minOverlap the fewest sub-fingerprints an alignment may compare; raised to
+     *                   {@link #MIN_OVERLAP_FRACTION} of the shorter fingerprint, and capped at its
+     *                   length
+     * @return the best alignment; its similarity is 0 if either fingerprint is empty
+     */
+    public static Match bestMatch(int[] query, int[] reference, int minOverlap) {
+        return bestMatch(query, reference, minOverlap, VECTOR_SUPPORTED);
+    }
+
+    /**
+     * Returns the similarity of a query to a reference at one alignment.
+     *
+     * @param query     the raw fingerprint to look for
+     * @param reference the raw fingerprint to look in
+     * @param offset    position in the reference of the first query sub-fingerprint
+     * @return the fraction of equal bits in the overlap, or 0 if they do not overlap
+     */
+    public static double similarity(int[] query, int[] reference, int offset) {
+        final int start = Math.max(0, -offset);
+        final int overlap = Math.min(query.length, reference.length - offset) - start;
+        if (overlap <= 0) {
+            return 0;
+        }
+        return score(differentBits(query, start, reference, start + offset, overlap, VECTOR_SUPPORTED), overlap);
+    }
+
+    /**
+     * Finds the best alignment of a query within each of many references, in parallel. Running
+     * this for each track of a library against the rest finds its duplicates.
+     *
+     * @param query      the raw fingerprint to look for
+     * @param references the raw fingerprints to look in
+     * @param minOverlap the fewest sub-fingerprints an alignment may compare, as for
+     *                   {@link #bestMatch(int[], int[], int)}
+     * @return the best alignment in each reference, in the same order as {@code references}
+     */
+    public static Match[] matchAll(int[] query, List<int[]> references, int minOverlap) {
+        final Match[] matches = new Match[references.size()];
+        IntStream.range(0, matches.length)
+            .parallel()
+            .forEach(i -> matches[i] = bestMatch(query, references.get(i), minOverlap));
+        return matches;
+    }
+
+    static Match bestMatch(int[] query, int[] reference, int minOverlap, boolean vectorized) {
+        if (query.length == 0 || reference.length == 0) {
+            return NO_MATCH;
+        }
+
+        final int shorter = Math.min(query.length, reference.length);
+        final int fractionNeeded = (int) Math.ceil(shorter * MIN_OVERLAP_FRACTION);
+        final int overlapNeeded = Math.max(1, Math.min(Math.max(minOverlap, fractionNeeded), shorter));
+        Match best = NO_MATCH;
+        long bestDifferentBits = Long.MAX_VALUE;
+        for (int offset = overlapNeeded - query.length; offset <= reference.length - overlapNeeded; offset++) {
+            final int start = Math.max(0, -offset);
+            final int overlap = Math.min(query.length, reference.length - offset) - start;
+            final long different = differentBits(query, start, reference, start + offset, overlap, vectorized);
+
+            // Compare rates without dividing: different / (overlap * 32) < best / (bestOverlap * 32)
+            if (best.overlap() == 0 || different * best.overlap() < bestDifferentBits * overlap) {
+                best = new Match(offset, score(different, overlap), overlap);
+                bestDifferentBits = different;
+            }
+        }
+        return best;
+    }
+
+    static long differentBits(int[] first, int firstStart, int[] second, int secondStart, int length,
+                              boolean vectorized) {
+        if (vectorized) {
+            return VectorKernel.differentBits(first, firstStart, second, secondStart, length);
+        }
+        return differentBitsScalar(first, firstStart, second, secondStart, length);
+    }
+
+    static long differentBitsScalar(int[] first, int firstStart, int[] second, int secondStart, int length) {
+        long different = 0;
+        for (int i = 0; i < length; i++) {
+            different += Integer.bitCount(first[firstStart + i] ^ second[secondStart + i]);
+        }
+        return different;
+    }
+
+    private static double score(long differentBits, int overlap) {
+        return 1.0 - (double) differentBits / ((long) overlap * Integer.SIZE);
+    }
+
+    /**
+     * Vector API kernel. Kept in its own class so it is only loaded when the incubator module is
+     * present.
+     */
+    private static final class VectorKernel {
+        private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+        private VectorKernel() {
+        }
+
+        static long differentBits(int[] first, int firstStart, int[] second, int secondStart, int length) {
+            // A lane gains at most 32 per step, far from overflowing at fingerprint lengths
+            IntVector counts = IntVector.zero(SPECIES);
+            final int bound = SPECIES.loopBound(length);
+            int i = 0;
+            for (; i < bound; i += SPECIES.length()) {
+                final IntVector a = IntVector.fromArray(SPECIES, first, firstStart + i);
+                final IntVector b = IntVector.fromArray(SPECIES, second, secondStart + i);
+                counts = counts.add(a.lanewise(VectorOperators.XOR, b).lanewise(VectorOperators.BIT_COUNT));
+            }
+
+            long different = counts.reduceLanes(VectorOperators.ADD);
+            for (; i < length; i++) {
+                different += Integer.bitCount(first[firstStart + i] ^ second[secondStart + i]);
+            }
+            return different;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+/**
+ * The fingerprint of one window of a longer recording.
+ *
+ * @param startSeconds where the window starts in the recording
+ * @param endSeconds   where the window ends in the recording
+ * @param fingerprint  the compressed fingerprint of the window
+ */
+public record FingerprintSegment(double startSeconds, double endSeconds, String fingerprint) {
+    /**
+     * Returns the length of the window, rounded to whole seconds as lookups expect.
+     *
+     * @return the duration in seconds
+     */
+    public int durationSeconds() {
+        return (int) Math.round(endSeconds - startSeconds);
+    }
+}
@@ -3,6 +3,7 @@ package org.wavelabs.soundscope.use_case.fingerprint;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
@@ -13,11 +14,30 @@ import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.chromaprint_h;
  * extraction and manages native resources.
  */
 public class Fingerprinter implements AudioProcessor, AutoCloseable {
+    /**
+     * Number of 16-bit samples held by the native feed buffer. Larger chunks are fed in slices of
+     * this size, so native memory stays constant no matter how much audio is processed. Heap feeds
+     * use the same slice size, which bounds how long a critical downcall can hold off the GC.
+     */
+    static final int FEED_BUFFER_SAMPLES = 1 << 16;
+
+    /**
+     * Whether PCM bytes can be handed to chromaprint as-is. Chromaprint reads samples in native
+     * byte order, so this only holds on little-endian hosts.
+     */
+    static final boolean HEAP_FEED_SUPPORTED = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    // Layout of the incoming PCM: 16-bit little-endian samples, with no alignment guarantee
+    private static final ValueLayout.OfShort PCM_LE_SAMPLE =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
     private final Arena arena;
     private final MemorySegment ctx;
+    private final MemorySegment feedBuffer;
+    private final MemorySegment fingerprintPtr;
+    private final MemorySegment sizePtr;
     private final int sampleRate;
     private final int numChannels;
-    private MemorySegment fingerprintAddress;
 
     /**
      * Creates a new Fingerprinter with the standard sample rate of 44.1 kHz and 2 (stereo)
@@ -35,8 +55,13 @@ public class Fingerprinter implements AudioProcessor, AutoCloseable {
      * @throws ChromaprintException if the native library fails to load
      */
     public Fingerprinter(final int sampleRate, final int numChannels) {
-        arena = Arena.ofConfined();
+        // Shared, since a Fingerprinter may be created on one thread and fed from another
+        // (e.g. the recorder's capture thread)
+        arena = Arena.ofShared();
         ctx = chromaprint_h.chromaprint_new(chromaprint_h.CHROMAPRINT_ALGORITHM_DEFAULT());
+        feedBuffer = arena.allocate(ValueLayout.JAVA_SHORT, FEED_BUFFER_SAMPLES);
+        fingerprintPtr = arena.allocate(ValueLayout.ADDRESS);
+        sizePtr = arena.allocate(ValueLayout.JAVA_INT);
         this.sampleRate = sampleRate;
         this.numChannels = numChannels;
     }
@@ -54,29 +79,114 @@ public class Fingerprinter implements AudioProcessor, AutoCloseable {
     }
 
     /**
-     * Feeds provided audio data into chromaprint.
+     * Feeds provided audio data into chromaprint. On little-endian hosts the byte array is passed
+     * straight to chromaprint through a critical downcall; otherwise the samples are copied into the
+     * reusable native feed buffer first.
      */
     @Override
     public void processChunk(final byte[] chunk, final int numBytes) {
-        final int numSamples = numBytes / 2;
-        final MemorySegment data = bytesToShorts(chunk, numSamples);
-        chromaprint_h.chromaprint_feed(ctx, data, numSamples);
+        processChunk(chunk, 0, numBytes);
+    }
+
+    /**
+     * Feeds part of a byte array into chromaprint, without copying it out first.
+     *
+     * @param chunk     byte array holding 16-bit little-endian samples
+     * @param offset    index in {@code chunk} of the first byte to feed; must be even
+     * @param numBytes  number of bytes to feed
+     */
+    public void processChunk(final byte[] chunk, final int offset, final int numBytes) {
+        if (HEAP_FEED_SUPPORTED) {
+            feedFromHeap(chunk, offset, numBytes / 2);
+        }
+        else {
+            feedThroughBuffer(chunk, offset, numBytes / 2);
+        }
+    }
+
+    /**
+     * Feeds samples held in a memory segment into chromaprint, such as a file mapped into memory.
+     * On little-endian hosts the segment is passed to chromaprint in place, whether it is on the
+     * heap or not; otherwise the samples are copied into the native feed buffer first.
+     *
+     * @param samples 16-bit little-endian samples; a trailing odd byte is ignored
+     */
+    public void processSamples(final MemorySegment samples) {
+        if (HEAP_FEED_SUPPORTED) {
+            feedInPlace(samples, samples.byteSize() / 2);
+        }
+        else {
+            feedThroughBuffer(samples, samples.byteSize() / 2);
+        }
+    }
+
+    /**
+     * Feeds samples to chromaprint directly from the Java heap, without an off-heap copy. Only
+     * valid when {@link #HEAP_FEED_SUPPORTED} is true.
+     *
+     * @param chunk      byte array holding 16-bit little-endian samples
+     * @param offset     index in {@code chunk} of the first sample's first byte
+     * @param numSamples number of samples to feed
+     */
+    void feedFromHeap(final byte[] chunk, final int offset, final int numSamples) {
+        feedInPlace(MemorySegment.ofArray(chunk).asSlice(offset), numSamples);
     }
 
     /**
-     * Convert byte array into a MemorySegment representing an array of shorts.
+     * Feeds samples to chromaprint straight from where they are held, on the heap or not. Only
+     * valid when {@link #HEAP_FEED_SUPPORTED} is true.
      *
-     * @param chunk      byte array representing audio data
-     * @param numSamples number of samples that {@code chunk} contains
-     * @return MemorySegment representing array of shorts with information identical to the input
+     * @param data       segment starting with 16-bit little-endian samples
+     * @param numSamples number of samples to feed
      */
-    private MemorySegment bytesToShorts(final byte[] chunk, final int numSamples) {
-        final MemorySegment data = arena.allocate(ValueLayout.JAVA_SHORT, numSamples);
-        for (int i = 0; i < numSamples; i++) {
-            final short sample = (short) (chunk[i * 2 + 1] << 8 | chunk[i * 2] & 0xFF);
-            data.setAtIndex(ValueLayout.JAVA_SHORT, i, sample);
+    private void feedInPlace(final MemorySegment data, final long numSamples) {
+        long fed = 0;
+        while (fed < numSamples) {
+            final int sliceSamples = (int) Math.min(FEED_BUFFER_SAMPLES, numSamples - fed);
+            final MemorySegment slice = data.asSlice(fed * 2L, sliceSamples * 2L);
+            checkFed(chromaprint_h.chromaprint_feed_critical(ctx, slice, sliceSamples));
+            fed += sliceSamples;
+        }
+    }
+
+    /**
+     * Feeds samples to chromaprint by first copying them into the reusable native feed buffer.
+     *
+     * @param chunk      byte array holding 16-bit little-endian samples
+     * @param offset     index in {@code chunk} of the first sample's first byte
+     * @param numSamples number of samples to feed
+     */
+    void feedThroughBuffer(final byte[] chunk, final int offset, final int numSamples) {
+        feedThroughBuffer(MemorySegment.ofArray(chunk).asSlice(offset), numSamples);
+    }
+
+    private void feedThroughBuffer(final MemorySegment data, final long numSamples) {
+        long fed = 0;
+        while (fed < numSamples) {
+            final int sliceSamples = (int) Math.min(FEED_BUFFER_SAMPLES, numSamples - fed);
+            copyToFeedBuffer(data, fed * 2L, sliceSamples);
+            checkFed(chromaprint_h.chromaprint_feed(ctx, feedBuffer, sliceSamples));
+            fed += sliceSamples;
         }
-        return data;
+    }
+
+    private static void checkFed(final int ok) {
+        if (ok == 0) {
+            throw new ChromaprintException("Failed to feed audio data into chromaprint.");
+        }
+    }
+
+    /**
+     * Bulk-copies little-endian 16-bit samples into the native feed buffer, converting to the
+     * platform's byte order if necessary.
+     *
+     * @param data       segment representing audio data
+     * @param firstByte  offset in {@code data} of the first sample's first byte
+     * @param numSamples number of samples to copy; at most {@link #FEED_BUFFER_SAMPLES}
+     */
+    private void copyToFeedBuffer(final MemorySegment data, final long firstByte, final int numSamples) {
+        MemorySegment.copy(data, PCM_LE_SAMPLE, firstByte,
+                feedBuffer, ValueLayout.JAVA_SHORT, 0, numSamples);
     }
 
     /**
@@ -91,27 +201,117 @@ public class Fingerprinter implements AudioProcessor, AutoCloseable {
     }
 
     /**
-     * Returns the calculated fingerprint generated by chromaprint as a compressed string.
+     * Returns the calculated fingerprint generated by chromaprint as a compressed string. Calling
+     * this before {@link #stop()} returns the fingerprint of the audio fed so far, without
+     * audio that chromaprint is still buffering.
      *
      * @return fingerprint of already-fed audio data.
      * @throws ChromaprintException for failed fingerprint extractions
      */
     public String getFingerprint() {
-        final MemorySegment fingerprintPtr = arena.allocate(ValueLayout.ADDRESS);
         final int ok = chromaprint_h.chromaprint_get_fingerprint(ctx, fingerprintPtr);
         if (ok == 0) {
             throw new ChromaprintException(
                 "Fingerprint extraction failed. Make sure chromaprint has been finished.");
         }
-        // Dereference char** to get the fingerprint
-        fingerprintAddress = fingerprintPtr.get(ValueLayout.ADDRESS, 0);
-        final MemorySegment fingerprintWithSize = fingerprintAddress.reinterpret(Long.MAX_VALUE);
-        return fingerprintWithSize.getString(0, StandardCharsets.UTF_8);
+        // Dereference char** to get the fingerprint, then hand the native string back right away
+        final MemorySegment fingerprintAddress = fingerprintPtr.get(ValueLayout.ADDRESS, 0);
+        try {
+            final MemorySegment fingerprintWithSize = fingerprintAddress.reinterpret(Long.MAX_VALUE);
+            return fingerprintWithSize.getString(0, StandardCharsets.UTF_8);
+        }
+        finally {
+            chromaprint_h.chromaprint_dealloc(fingerprintAddress);
+        }
+    }
+
+    /**
+     * Returns the calculated fingerprint as chromaprint's raw sub-fingerprints, one 32-bit value per
+     * frame. Values are unsigned in chromaprint, so treat them as bit patterns.
+     *
+     * @return raw fingerprint of already-fed audio data
+     * @throws ChromaprintException for failed fingerprint extractions
+     */
+    public int[] getRawFingerprint() {
+        final int ok = chromaprint_h.chromaprint_get_raw_fingerprint(ctx, fingerprintPtr, sizePtr);
+        if (ok == 0) {
+            throw new ChromaprintException(
+                "Raw fingerprint extraction failed. Make sure chromaprint has been finished.");
+        }
+        final MemorySegment rawAddress = fingerprintPtr.get(ValueLayout.ADDRESS, 0);
+        try {
+            final int size = sizePtr.get(ValueLayout.JAVA_INT, 0);
+            return rawAddress.reinterpret(size * ValueLayout.JAVA_INT.byteSize())
+                .toArray(ValueLayout.JAVA_INT);
+        }
+        finally {
+            chromaprint_h.chromaprint_dealloc(rawAddress);
+        }
+    }
+
+    /**
+     * Compresses a raw fingerprint into the base64 string form returned by {@link #getFingerprint()}.
+     *
+     * @param rawFingerprint raw fingerprint computed with the default algorithm
+     * @return the encoded fingerprint
+     * @throws ChromaprintException if encoding fails
+     */
+    public static String encodeFingerprint(final int[] rawFingerprint) {
+        try (Arena local = Arena.ofConfined()) {
+            final MemorySegment raw = local.allocateFrom(ValueLayout.JAVA_INT, rawFingerprint);
+            final MemorySegment encodedPtr = local.allocate(ValueLayout.ADDRESS);
+            final MemorySegment encodedSize = local.allocate(ValueLayout.JAVA_INT);
+            final int ok = chromaprint_h.chromaprint_encode_fingerprint(raw, rawFingerprint.length,
+                chromaprint_h.CHROMAPRINT_ALGORITHM_DEFAULT(), encodedPtr, encodedSize, 1);
+            if (ok == 0) {
+                throw new ChromaprintException("Failed to encode fingerprint.");
+            }
+            final MemorySegment encodedAddress = encodedPtr.get(ValueLayout.ADDRESS, 0);
+            try {
+                final int size = encodedSize.get(ValueLayout.JAVA_INT, 0);
+                final byte[] encoded = encodedAddress.reinterpret(size).toArray(ValueLayout.JAVA_BYTE);
+                return new String(encoded, StandardCharsets.US_ASCII);
+            }
+            finally {
+                chromaprint_h.chromaprint_dealloc(encodedAddress);
+            }
+        }
+    }
+
+    /**
+     * Expands a fingerprint string, as returned by {@link #getFingerprint()}, into its raw form.
+     *
+     * @param fingerprint the encoded fingerprint
+     * @return the raw fingerprint
+     * @throws ChromaprintException if the string is not a valid fingerprint
+     */
+    public static int[] decodeFingerprint(final String fingerprint) {
+        final byte[] encoded = fingerprint.getBytes(StandardCharsets.US_ASCII);
+        try (Arena local = Arena.ofConfined()) {
+            final MemorySegment encodedSegment = local.allocateFrom(ValueLayout.JAVA_BYTE, encoded);
+            final MemorySegment rawPtr = local.allocate(ValueLayout.ADDRESS);
+            final MemorySegment rawSize = local.allocate(ValueLayout.JAVA_INT);
+            final MemorySegment algorithm = local.allocate(ValueLayout.JAVA_INT);
+            final int ok = chromaprint_h.chromaprint_decode_fingerprint(encodedSegment, encoded.length,
+                rawPtr, rawSize, algorithm, 1);
+            if (ok == 0) {
+                throw new ChromaprintException("Failed to decode fingerprint.");
+            }
+            final MemorySegment rawAddress = rawPtr.get(ValueLayout.ADDRESS, 0);
+            try {
+                final int size = rawSize.get(ValueLayout.JAVA_INT, 0);
+                return rawAddress.reinterpret(size * ValueLayout.JAVA_INT.byteSize())
+                    .toArray(ValueLayout.JAVA_INT);
+            }
+            finally {
+                chromaprint_h.chromaprint_dealloc(rawAddress);
+            }
+        }
     }
 
     @Override
     public void close() {
-        chromaprint_h.chromaprint_dealloc(fingerprintAddress);
         chromaprint_h.chromaprint_free(ctx);
+        arena.close();
     }
 }
@@ -0,0 +1,206 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
+
+/**
+ * Bounded pool of {@link Fingerprinter} contexts, keyed by sample rate and channel count.
+ *
+ * <p>Creating a Fingerprinter allocates a chromaprint context and an arena, so fingerprinting many
+ * files with a fresh one each time wastes most of its time on setup. A pool keeps finished contexts
+ * around and hands them out again; {@link Fingerprinter#start()} resets a context for the next
+ * stream. At most {@code maxContexts} contexts exist at once, and {@link #acquire} blocks while
+ * they are all leased.</p>
+ *
+ * <p>Leases are meant to be used by one thread at a time, inside try-with-resources:</p>
+ * <pre>{@code
+ * try (FingerprinterPool.Lease lease = pool.acquire(44100, 2)) {
+ *     final Fingerprinter fingerprinter = lease.fingerprinter();
+ *     ...
+ * }
+ * }</pre>
+ */
+public class FingerprinterPool implements AutoCloseable {
+    private final int maxContexts;
+    private final Semaphore permits;
+    private final Map<Key, Deque<Fingerprinter>> idle = new HashMap<>();
+    private int created;
+    private boolean closed;
+
+    /**
+     * Creates a pool sized for the number of available processors.
+     */
+    public FingerprinterPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pool holding at most {@code maxContexts} contexts.
+     *
+     * @param maxContexts maximum number of contexts, leased or idle
+     * @throws IllegalArgumentException if {@code maxContexts} is not positive
+     */
+    public FingerprinterPool(int maxContexts) {
+        if (maxContexts <= 0) {
+            throw new IllegalArgumentException("maxContexts must be positive: " + maxContexts);
+        }
+        this.maxContexts = maxContexts;
+        this.permits = new Semaphore(maxContexts, true);
+    }
+
+    /**
+     * Leases a context for audio with the given sample rate and channel count, waiting if all
+     * contexts are in use. The caller must close the lease when done.
+     *
+     * @param sampleRate  sample rate of the audio
+     * @param numChannels number of channels in the audio
+     * @return a lease on an idle or newly created context
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ChromaprintException if a new context cannot be created
+     * @throws IllegalStateException if the pool has been closed
+     */
+    public Lease acquire(int sampleRate, int numChannels) throws InterruptedException {
+        permits.acquire();
+        try {
+            final Key key = new Key(sampleRate, numChannels);
+            return new Lease(key, checkOut(key));
+        }
+        catch (RuntimeException exception) {
+            permits.release();
+            throw exception;
+        }
+    }
+
+    private Fingerprinter checkOut(Key key) {
+        Fingerprinter evicted = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Fingerprinter pool has been closed");
+            }
+            final Deque<Fingerprinter> contexts = idle.get(key);
+            if (contexts != null && !contexts.isEmpty()) {
+                return contexts.pop();
+            }
+            // Make room by dropping an idle context with a different format
+            if (created >= maxContexts) {
+                evicted = evictIdle();
+            }
+            created++;
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+        try {
+            return new Fingerprinter(key.sampleRate(), key.numChannels());
+        }
+        catch (RuntimeException exception) {
+            synchronized (this) {
+                created--;
+            }
+            throw exception;
+        }
+    }
+
+    private Fingerprinter evictIdle() {
+        final Iterator<Deque<Fingerprinter>> iterator = idle.values().iterator();
+        while (iterator.hasNext()) {
+            final Deque<Fingerprinter> contexts = iterator.next();
+            if (!contexts.isEmpty()) {
+                created--;
+                final Fingerprinter evicted = contexts.pop();
+                if (contexts.isEmpty()) {
+                    iterator.remove();
+                }
+                return evicted;
+            }
+        }
+        return null;
+    }
+
+    private void checkIn(Key key, Fingerprinter fingerprinter, boolean reusable) {
+        boolean discard = !reusable;
+        synchronized (this) {
+            if (closed) {
+                discard = true;
+            }
+            if (discard) {
+                created--;
+            }
+            else {
+                idle.computeIfAbsent(key, unused -> new ArrayDeque<>()).push(fingerprinter);
+            }
+        }
+        if (discard) {
+            fingerprinter.close();
+        }
+        permits.release();
+    }
+
+    /**
+     * Releases all idle contexts. Contexts still leased are released when their lease closes.
+     */
+    @Override
+    public void close() {
+        final Deque<Fingerprinter> toClose = new ArrayDeque<>();
+        synchronized (this) {
+            closed = true;
+            for (Deque<Fingerprinter> contexts : idle.values()) {
+                created -= contexts.size();
+                toClose.addAll(contexts);
+            }
+            idle.clear();
+        }
+        for (Fingerprinter fingerprinter : toClose) {
+            fingerprinter.close();
+        }
+    }
+
+    private record Key(int sampleRate, int numChannels) {
+    }
+
+    /**
+     * A context checked out of the pool. Closing the lease returns the context to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Key key;
+        private final Fingerprinter fingerprinter;
+        private boolean reusable = true;
+        private boolean returned;
+
+        private Lease(Key key, Fingerprinter fingerprinter) {
+            this.key = key;
+            this.fingerprinter = fingerprinter;
+        }
+
+        /**
+         * Returns the leased context. It must not be used after the lease is closed.
+         *
+         * @return the leased Fingerprinter
+         */
+        public Fingerprinter fingerprinter() {
+            return fingerprinter;
+        }
+
+        /**
+         * Marks the context as unfit for reuse, so it is freed instead of returned to the pool.
+         */
+        public void invalidate() {
+            reusable = false;
+        }
+
+        @Override
+        public void close() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            checkIn(key, fingerprinter, reusable);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Compact binary format for raw fingerprints, as returned by {@link Fingerprinter#getRawFingerprint()}.
+ *
+ * <p>Consecutive sub-fingerprints of a recording share most of their bits, so each value is stored
+ * as the XOR with the previous one. As in chromaprint's own compressed fingerprints, the XOR is
+ * written as the gaps between its set bits, from the lowest bit up, followed by a 0. Gaps are 3-bit
+ * values; a gap of 7 or more is written as 7, with the rest in a second stream of 5-bit values.
+ * Both streams are packed from the lowest bit of each byte, and padded to a whole byte. A record
+ * looks like:</p>
+ * <pre>
+ * magic        2 bytes  'R' 'F'
+ * version      1 byte   2
+ * count        varint   number of sub-fingerprints (unsigned LEB128)
+ * gaps         3-bit values, ending at the count-th 0
+ * exceptions   one 5-bit value per gap of 7
+ * </pre>
+ *
+ * <p>Records are self-delimiting, so several can be written back to back into one stream.</p>
+ */
+public final class RawFingerprintCodec {
+    private static final int MAGIC_0 = 'R';
+    private static final int MAGIC_1 = 'F';
+    private static final int VERSION = 2;
+    private static final int GAP_BITS = 3;
+    private static final int EXCEPTION_BITS = 5;
+    // A gap this large is continued in the exception stream
+    private static final int MAX_NORMAL_GAP = (1 << GAP_BITS) - 1;
+    // A fingerprint is at most a few thousand sub-fingerprints; refuse absurd counts from corrupt data
+    private static final int MAX_COUNT = 1 << 24;
+
+    private RawFingerprintCodec() {
+    }
+
+    /**
+     * Encodes a raw fingerprint into a single record.
+     *
+     * @param rawFingerprint the raw fingerprint
+     * @return the encoded record
+     */
+    public static byte[] encode(int[] rawFingerprint) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(rawFingerprint.length * 3 + 8);
+        try {
+            write(out, rawFingerprint);
+        }
+        catch (IOException exception) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(exception);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a single record.
+     *
+     * @param encoded the encoded record
+     * @return the raw fingerprint
+     * @throws IllegalArgumentException if {@code encoded} is not a valid record
+     */
+    public static int[] decode(byte[] encoded) {
+        try {
+            final int[] rawFingerprint = read(new ByteArrayInputStream(encoded));
+            if (rawFingerprint == null) {
+                throw new IllegalArgumentException("Empty fingerprint record");
+            }
+            return rawFingerprint;
+        }
+        catch (IOException exception) {
+            throw new IllegalArgumentException("Invalid fingerprint record: " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Writes a raw fingerprint as one record.
+     *
+     * @param out            stream to write to
+     * @param rawFingerprint the raw fingerprint
+     * @throws IOException if writing fails
+     */
+    public static void write(OutputStream out, int[] rawFingerprint) throws IOException {
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        writeVarint(out, rawFingerprint.length);
+
+        final BitWriter gaps = new BitWriter(out, GAP_BITS);
+        final ByteArrayOutputStream exceptionBytes = new ByteArrayOutputStream();
+        final BitWriter exceptions = new BitWriter(exceptionBytes, EXCEPTION_BITS);
+        int previous = 0;
+        for (int value : rawFingerprint) {
+            int changed = value ^ previous;
+            int lastBit = 0;
+            while (changed != 0) {
+                final int bit = Integer.numberOfTrailingZeros(changed) + 1;
+                final int gap = bit - lastBit;
+                if (gap >= MAX_NORMAL_GAP) {
+                    gaps.write(MAX_NORMAL_GAP);
+                    exceptions.write(gap - MAX_NORMAL_GAP);
+                }
+                else {
+                    gaps.write(gap);
+                }
+                lastBit = bit;
+                changed &= changed - 1;
+            }
+            gaps.write(0);
+            previous = value;
+        }
+        gaps.flush();
+        exceptions.flush();
+        exceptionBytes.writeTo(out);
+    }
+
+    /**
+     * Reads the next record from a stream.
+     *
+     * @param in stream to read from
+     * @return the raw fingerprint, or {@code null} if the stream is at its end
+     * @throws IOException if reading fails or the record is corrupt or truncated
+     */
+    public static int[] read(InputStream in) throws IOException {
+        final int magic0 = in.read();
+        if (magic0 == -1) {
+            return null;
+        }
+        if (magic0 != MAGIC_0 || in.read() != MAGIC_1) {
+            throw new IOException("Bad fingerprint record header");
+        }
+        final int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Unsupported fingerprint record version " + version);
+        }
+        final int count = readVarint(in);
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Bad fingerprint length " + count);
+        }
+        return readGaps(in, count);
+    }
+
+    private static int[] readGaps(InputStream in, int count) throws IOException {
+        // The gaps of 7 can only be completed once the exception stream, which follows, is reached
+        final int[] gapCounts = new int[count];
+        final ByteArrayOutputStream gapValues = new ByteArrayOutputStream(count * 4);
+        final BitReader gaps = new BitReader(in, GAP_BITS);
+        for (int i = 0; i < count; i++) {
+            int gap;
+            while ((gap = gaps.read()) != 0) {
+                gapValues.write(gap);
+                gapCounts[i]++;
+            }
+        }
+
+        final byte[] values = gapValues.toByteArray();
+        final BitReader exceptions = new BitReader(in, EXCEPTION_BITS);
+        final int[] rawFingerprint = new int[count];
+        int previous = 0;
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            int changed = 0;
+            int lastBit = 0;
+            for (int j = 0; j < gapCounts[i]; j++) {
+                int gap = values[index++];
+                if (gap == MAX_NORMAL_GAP) {
+                    gap += exceptions.read();
+                }
+                lastBit += gap;
+                if (lastBit > Integer.SIZE) {
+                    throw new IOException("Bit position " + lastBit + " out of range");
+                }
+                changed |= 1 << (lastBit - 1);
+            }
+            previous ^= changed;
+            rawFingerprint[i] = previous;
+        }
+        return rawFingerprint;
+    }
+
+    /**
+     * Writes fixed-width values, packed from the lowest bit of each byte.
+     */
+    private static final class BitWriter {
+        private final OutputStream out;
+        private final int width;
+        private int buffer;
+        private int buffered;
+
+        BitWriter(OutputStream out, int width) {
+            this.out = out;
+            this.width = width;
+        }
+
+        void write(int value) throws IOException {
+            buffer |= value << buffered;
+            buffered += width;
+            while (buffered >= Byte.SIZE) {
+                out.write(buffer & 0xFF);
+                buffer >>>= Byte.SIZE;
+                buffered -= Byte.SIZE;
+            }
+        }
+
+        void flush() throws IOException {
+            if (buffered > 0) {
+                out.write(buffer & 0xFF);
+                buffer = 0;
+                buffered = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads values written by a {@link BitWriter}. Bits left over in the last byte read are
+     * padding, and are dropped with the reader.
+     */
+    private static final class BitReader {
+        private final InputStream in;
+        private final int width;
+        private final int mask;
+        private int buffer;
+        private int buffered;
+
+        BitReader(InputStream in, int width) {
+            this.in = in;
+            this.width = width;
+            this.mask = (1 << width) - 1;
+        }
+
+        int read() throws IOException {
+            while (buffered < width) {
+                final int next = in.read();
+                if (next == -1) {
+                    throw new EOFException("Truncated fingerprint record");
+                }
+                buffer |= next << buffered;
+                buffered += Byte.SIZE;
+            }
+            final int value = buffer & mask;
+            buffer >>>= width;
+            buffered -= width;
+            return value;
+        }
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int next = in.read();
+            if (next == -1) {
+                throw new EOFException("Truncated fingerprint record");
+            }
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint longer than 5 bytes");
+    }
+}
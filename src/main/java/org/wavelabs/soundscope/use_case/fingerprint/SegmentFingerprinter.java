@@ -0,0 +1,178 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
+
+/**
+ * Fingerprints a long recording as overlapping windows, so that every song in a mix or radio
+ * capture gets a fingerprint of its own rather than only the first 120 seconds being used.
+ *
+ * <p>Windows start every {@code hopSeconds} and last {@code windowSeconds}; the last one ends at
+ * the end of the recording and may be shorter. Windows are independent, so they are fingerprinted
+ * in parallel, each on a context leased from the pool.</p>
+ */
+public class SegmentFingerprinter {
+    /**
+     * Default window length, in seconds.
+     */
+    public static final int DEFAULT_WINDOW_SECONDS = 30;
+
+    /**
+     * Default time between window starts, in seconds.
+     */
+    public static final int DEFAULT_HOP_SECONDS = 15;
+
+    private final FingerprinterPool fingerprinterPool;
+    private final int windowSeconds;
+    private final int hopSeconds;
+    private final int threads;
+
+    /**
+     * Creates a SegmentFingerprinter with the default windows and one thread per core.
+     *
+     * @param fingerprinterPool pool to lease contexts from
+     */
+    public SegmentFingerprinter(FingerprinterPool fingerprinterPool) {
+        this(fingerprinterPool, DEFAULT_WINDOW_SECONDS, DEFAULT_HOP_SECONDS,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a SegmentFingerprinter.
+     *
+     * @param fingerprinterPool pool to lease contexts from
+     * @param windowSeconds     length of each window, in seconds
+     * @param hopSeconds        time between window starts, in seconds; at most {@code windowSeconds}
+     * @param threads           number of windows to fingerprint at once
+     * @throws IllegalArgumentException if the windows would leave gaps or the counts are not positive
+     */
+    public SegmentFingerprinter(FingerprinterPool fingerprinterPool, int windowSeconds, int hopSeconds,
+                                int threads) {
+        if (hopSeconds < 1 || windowSeconds < hopSeconds || threads < 1) {
+            throw new IllegalArgumentException("Need 0 < hop <= window and at least one thread");
+        }
+        this.fingerprinterPool = fingerprinterPool;
+        this.windowSeconds = windowSeconds;
+        this.hopSeconds = hopSeconds;
+        this.threads = threads;
+    }
+
+    /**
+     * Fingerprints every window of a recording.
+     *
+     * @param pcm    16-bit little-endian PCM audio
+     * @param format the format of {@code pcm}
+     * @return one segment per window, in order
+     * @throws InterruptedException if interrupted while waiting for the windows
+     * @throws ChromaprintException if a window cannot be fingerprinted
+     */
+    public List<FingerprintSegment> fingerprint(byte[] pcm, AudioFormat format) throws InterruptedException {
+        return fingerprint(MemorySegment.ofArray(pcm), format);
+    }
+
+    /**
+     * Fingerprints every window of a recording held in a memory segment, such as a file mapped
+     * into memory. Windows are fed to chromaprint straight from the segment.
+     *
+     * @param pcm    16-bit little-endian PCM audio
+     * @param format the format of {@code pcm}
+     * @return one segment per window, in order
+     * @throws InterruptedException if interrupted while waiting for the windows
+     * @throws ChromaprintException if a window cannot be fingerprinted
+     */
+    public List<FingerprintSegment> fingerprint(MemorySegment pcm, AudioFormat format)
+        throws InterruptedException {
+        final int frameSize = format.getFrameSize();
+        final double frameRate = format.getFrameRate();
+        final List<long[]> windows = windows(pcm.byteSize() / frameSize,
+            Math.round(windowSeconds * frameRate), Math.round(hopSeconds * frameRate));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, windows.size())),
+            runnable -> {
+                final Thread thread = new Thread(runnable, "segment-fingerprint");
+                thread.setDaemon(true);
+                return thread;
+            });
+        try {
+            final List<Future<String>> fingerprints = new ArrayList<>(windows.size());
+            for (long[] window : windows) {
+                final MemorySegment windowPcm =
+                    pcm.asSlice(window[0] * frameSize, (window[1] - window[0]) * frameSize);
+                fingerprints.add(executor.submit(() -> fingerprintWindow(windowPcm, format)));
+            }
+
+            final List<FingerprintSegment> segments = new ArrayList<>(windows.size());
+            for (int i = 0; i < windows.size(); i++) {
+                segments.add(new FingerprintSegment(
+                    windows.get(i)[0] / frameRate, windows.get(i)[1] / frameRate, result(fingerprints.get(i))));
+            }
+            return segments;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits a recording into windows.
+     *
+     * @param totalFrames  length of the recording, in frames
+     * @param windowFrames length of a window, in frames
+     * @param hopFrames    frames between window starts
+     * @return the {start, end} frame of each window, in order
+     */
+    static List<long[]> windows(long totalFrames, long windowFrames, long hopFrames) {
+        final List<long[]> windows = new ArrayList<>();
+        if (totalFrames <= 0) {
+            return windows;
+        }
+        long start = 0;
+        while (true) {
+            final long end = Math.min(start + windowFrames, totalFrames);
+            windows.add(new long[] {start, end});
+            if (end == totalFrames) {
+                return windows;
+            }
+            start += hopFrames;
+        }
+    }
+
+    private String fingerprintWindow(MemorySegment windowPcm, AudioFormat format) throws InterruptedException {
+        try (FingerprinterPool.Lease lease =
+                 fingerprinterPool.acquire((int) format.getSampleRate(), format.getChannels())) {
+            final Fingerprinter fingerprinter = lease.fingerprinter();
+            try {
+                fingerprinter.start();
+                fingerprinter.processSamples(windowPcm);
+                fingerprinter.stop();
+                return fingerprinter.getFingerprint();
+            }
+            catch (ChromaprintException exception) {
+                // Don't hand a context in an unknown state to the next caller
+                lease.invalidate();
+                throw exception;
+            }
+        }
+    }
+
+    private static String result(Future<String> fingerprint) throws InterruptedException {
+        try {
+            return fingerprint.get();
+        }
+        catch (ExecutionException exception) {
+            if (exception.getCause() instanceof ChromaprintException chromaprintException) {
+                throw chromaprintException;
+            }
+            throw new ChromaprintException("Failed to fingerprint a segment.", exception.getCause());
+        }
+    }
+}
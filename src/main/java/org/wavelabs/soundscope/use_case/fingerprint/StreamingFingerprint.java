@@ -0,0 +1,181 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
+
+/**
+ * Audio processor that fingerprints audio while it is being captured. Chunks are fed into a
+ * {@link Fingerprinter} as they arrive, so the fingerprint is ready as soon as the stream stops.
+ *
+ * <p>Only the first {@link #MAX_SECONDS} seconds are fingerprinted, matching the AcoustID maximum,
+ * but the duration of the whole stream is tracked. Chromaprint failures do not interrupt the
+ * stream; they are recorded and reported through {@link #getError()}.</p>
+ *
+ * <p>Optionally, a {@link FingerprintCheckpointListener} receives the fingerprint computed so far
+ * each time the stream passes one of a set of checkpoints.</p>
+ *
+ * <p>The native context is released when the stream stops. One that is never started or stopped
+ * must be {@linkplain #close() closed} instead.</p>
+ */
+public class StreamingFingerprint implements AudioProcessor, AutoCloseable {
+    /**
+     * Number of seconds of audio that are fingerprinted; the standard AcoustID max.
+     */
+    public static final int MAX_SECONDS = 120;
+
+    private final Fingerprinter fingerprinter;
+    private final double bytesPerSecond;
+    private final long maxBytes;
+    private final FingerprintCheckpointListener checkpointListener;
+    private final int[] checkpointSeconds;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private int nextCheckpoint;
+    private volatile long totalBytes;
+    private volatile String fingerprint;
+    private volatile String error;
+
+    /**
+     * Creates a new StreamingFingerprint for audio in the given format.
+     *
+     * @param format format of the audio that will be streamed; must be 16-bit PCM
+     * @throws ChromaprintException if the native library fails to load
+     */
+    public StreamingFingerprint(AudioFormat format) {
+        this(format, null, new int[0]);
+    }
+
+    /**
+     * Creates a new StreamingFingerprint that reports intermediate fingerprints.
+     *
+     * @param format             format of the audio that will be streamed; must be 16-bit PCM
+     * @param checkpointListener listener to notify at each checkpoint, or {@code null}
+     * @param checkpointSeconds  checkpoints, in seconds of streamed audio, in ascending order;
+     *                           checkpoints past {@link #MAX_SECONDS} are never reached
+     * @throws ChromaprintException if the native library fails to load
+     */
+    public StreamingFingerprint(AudioFormat format, FingerprintCheckpointListener checkpointListener,
+                                int... checkpointSeconds) {
+        this.fingerprinter = new Fingerprinter((int) format.getSampleRate(), format.getChannels());
+        this.bytesPerSecond = format.getFrameSize() * format.getFrameRate();
+        this.maxBytes = (long) (MAX_SECONDS * bytesPerSecond);
+        this.checkpointListener = checkpointListener;
+        this.checkpointSeconds = checkpointSeconds.clone();
+    }
+
+    @Override
+    public void start() {
+        if (closed.get()) {
+            throw new IllegalStateException("Streaming fingerprint is closed");
+        }
+        totalBytes = 0;
+        nextCheckpoint = 0;
+        fingerprint = null;
+        error = null;
+        try {
+            fingerprinter.start();
+        }
+        catch (ChromaprintException exception) {
+            fail(exception);
+        }
+    }
+
+    @Override
+    public void processChunk(byte[] chunk, int numBytes) {
+        final long remaining = maxBytes - totalBytes;
+        totalBytes += numBytes;
+        if (error != null || remaining <= 0 || closed.get()) {
+            return;
+        }
+        try {
+            fingerprinter.processChunk(chunk, (int) Math.min(numBytes, remaining));
+            checkpoint();
+        }
+        catch (ChromaprintException exception) {
+            fail(exception);
+        }
+    }
+
+    /**
+     * Notifies the listener if the stream has passed the next checkpoint. Chromaprint can encode
+     * the fingerprint of the audio fed so far without finishing the stream.
+     */
+    private void checkpoint() {
+        if (checkpointListener == null || nextCheckpoint >= checkpointSeconds.length) {
+            return;
+        }
+        final int duration = getDurationSeconds();
+        if (duration < checkpointSeconds[nextCheckpoint]) {
+            return;
+        }
+        while (nextCheckpoint < checkpointSeconds.length && checkpointSeconds[nextCheckpoint] <= duration) {
+            nextCheckpoint++;
+        }
+        checkpointListener.checkpointReached(fingerprinter.getFingerprint(), duration);
+    }
+
+    /**
+     * Finishes the fingerprint and releases the native context.
+     */
+    @Override
+    public void stop() {
+        try {
+            if (error == null && !closed.get()) {
+                fingerprinter.stop();
+                fingerprint = fingerprinter.getFingerprint();
+            }
+        }
+        catch (ChromaprintException exception) {
+            fail(exception);
+        }
+        finally {
+            close();
+        }
+    }
+
+    /**
+     * Releases the native context without finishing the fingerprint. Calling this more than once,
+     * or after {@link #stop()}, has no further effect.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            fingerprinter.close();
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the streamed audio.
+     *
+     * @return the fingerprint, or {@code null} if the stream has not stopped yet or failed
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the duration of all audio streamed so far, including audio past the fingerprinting
+     * limit.
+     *
+     * @return duration in seconds
+     */
+    public int getDurationSeconds() {
+        return (int) (totalBytes / bytesPerSecond);
+    }
+
+    /**
+     * Returns the chromaprint error that stopped fingerprinting, if any.
+     *
+     * @return error message, or {@code null} if no error occurred
+     */
+    public String getError() {
+        return error;
+    }
+
+    private void fail(ChromaprintException exception) {
+        error = exception.getMessage();
+        fingerprint = null;
+    }
+}
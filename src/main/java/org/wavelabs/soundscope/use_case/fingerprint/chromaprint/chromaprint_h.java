@@ -1887,6 +1887,46 @@ public class chromaprint_h extends chromaprint_h$shared {
         }
     }
 
+    // Not generated: critical variant of chromaprint_feed that also accepts heap segments
+    private static class chromaprint_feed_critical {
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(
+                chromaprint_feed.ADDR, chromaprint_feed.DESC, Linker.Option.critical(true));
+    }
+
+    /**
+     * Downcall method handle for {@code chromaprint_feed}, linked with
+     * {@link Linker.Option#critical(boolean) Linker.Option.critical(true)}.
+     * {@snippet lang = c
+     * : * int chromaprint_feed(ChromaprintContext *ctx, const int16_t *data, int size)
+     * }
+     */
+    public static MethodHandle chromaprint_feed_critical$handle() {
+        return chromaprint_feed_critical.HANDLE;
+    }
+
+    /**
+     * Critical variant of {@link #chromaprint_feed}. {@code data} may be a heap segment (for
+     * example {@code MemorySegment.ofArray(byte[])}), which is passed to chromaprint without
+     * being copied off-heap. The garbage collector may be blocked for the duration of the call,
+     * so callers should keep {@code size} bounded.
+     * {@snippet lang = c
+     * : * int chromaprint_feed(ChromaprintContext *ctx, const int16_t *data, int size)
+     * }
+     */
+    public static int chromaprint_feed_critical(MemorySegment ctx, MemorySegment data, int size) {
+        var mh$ = chromaprint_feed_critical.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("chromaprint_feed_critical", ctx, data, size);
+            }
+            return (int) mh$.invokeExact(ctx, data, size);
+        } catch (Error | RuntimeException ex) {
+            throw ex;
+        } catch (Throwable ex$) {
+            throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class chromaprint_finish {
         public static final FunctionDescriptor DESC =
                 FunctionDescriptor.of(chromaprint_h.C_INT, chromaprint_h.C_POINTER);
@@ -1,5 +1,7 @@
 package org.wavelabs.soundscope.use_case.identify;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.wavelabs.soundscope.entity.Song;
 
 /**
@@ -24,6 +26,67 @@ public interface IdentifyDAI {
      */
     Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration);
 
+    /**
+     * Looks up the metadata associated with a song without blocking the calling thread.
+     *
+     * <p>The default runs {@link #getClosestMatchMetadata} on the calling thread and returns a
+     * completed future; identifiers that talk to a network service should override it.</p>
+     *
+     * @param fingerprint hash code to fingerprint
+     * @param duration duration of audio
+     * @return a future completed with the songMetadata, or failed with a
+     *         {@link FingerprintMatchNotFoundException}
+     */
+    default CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration) {
+        try {
+            return CompletableFuture.completedFuture(getClosestMatchMetadata(fingerprint, duration));
+        }
+        catch (FingerprintMatchNotFoundException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Returns metadata associated with a song, letting the identifier put more urgent lookups
+     * ahead of others. The default ignores the priority.
+     *
+     * @param fingerprint hash code to fingerprint
+     * @param duration duration of audio
+     * @param priority how urgently the result is needed
+     * @return songMetadata
+     */
+    default Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration, Priority priority) {
+        return getClosestMatchMetadata(fingerprint, duration);
+    }
+
+    /**
+     * Looks up the metadata associated with a song without blocking the calling thread, letting
+     * the identifier put more urgent lookups ahead of others. The default ignores the priority.
+     *
+     * @param fingerprint hash code to fingerprint
+     * @param duration duration of audio
+     * @param priority how urgently the result is needed
+     * @return a future completed with the songMetadata, or failed with a
+     *         {@link FingerprintMatchNotFoundException}
+     */
+    default CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration,
+                                                                            Priority priority) {
+        return getClosestMatchMetadataAsync(fingerprint, duration);
+    }
+
+    /**
+     * How urgently a lookup is needed, from most to least urgent. Lookups without a priority are
+     * {@link #INTERACTIVE}.
+     */
+    enum Priority {
+        /** A user is waiting on the result, e.g. after clicking Identify. */
+        INTERACTIVE,
+        /** Work the user started but is not watching, e.g. identifying while recording. */
+        BACKGROUND,
+        /** Large jobs such as identifying a whole directory. */
+        BULK
+    }
+
     /**
      * Exception type for the fingerprint not having a match.
      */
@@ -32,4 +95,14 @@ public interface IdentifyDAI {
             super("Fingerprint match could not be found:\n" + fingerprint);
         }
     }
+
+    /**
+     * Exception type for a lookup that succeeded but found no match, as opposed to one that could
+     * not be completed. Only this kind of failure is worth remembering.
+     */
+    class FingerprintUnknownException extends FingerprintMatchNotFoundException {
+        public FingerprintUnknownException(String fingerprint) {
+            super(fingerprint);
+        }
+    }
 }
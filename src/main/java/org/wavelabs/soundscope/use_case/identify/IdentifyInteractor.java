@@ -1,10 +1,15 @@
 package org.wavelabs.soundscope.use_case.identify;
 
+import java.util.concurrent.CompletionException;
+
 import org.wavelabs.soundscope.entity.Song;
 
 /**
  * Identify interactor. Reads in a recording's fingerprint and duration from Song,
  * then finds the closest matching song from this and retrieves that songs' metadata.
+ *
+ * <p>The lookup does not block the caller; the result is passed to the output boundary from
+ * whichever thread completes it.</p>
  */
 public class IdentifyInteractor implements IdentifyIB {
     private final Song song;
@@ -24,24 +29,43 @@ public class IdentifyInteractor implements IdentifyIB {
     }
 
     /**
-     * Finds the metadata of the song with metadata closest to that in the stored object.
+     * Starts looking up the metadata of the song closest to the one in the stored object.
      */
     @Override
     public void identify() {
-        try {
-            final Song.SongMetadata metadata =
-                identifier.getClosestMatchMetadata(song.getFingerprint(), song.getDuration());
-            song.setMetadata(metadata);
-
-            final IdentifyOD outputData = new IdentifyOD(
-                    song.getMetadata().title(),
-                    song.getMetadata().artists(),
-                    song.getMetadata().album()
-            );
-            identifyOutputBoundary.updateSongAttributes(outputData);
+        identifier.getClosestMatchMetadataAsync(song.getFingerprint(), song.getDuration(),
+                IdentifyDAI.Priority.INTERACTIVE)
+            .whenComplete((metadata, error) -> {
+                if (error == null) {
+                    presentMetadata(metadata);
+                }
+                else {
+                    presentFailure(error);
+                }
+            });
+    }
+
+    private void presentMetadata(Song.SongMetadata metadata) {
+        song.setMetadata(metadata);
+
+        final IdentifyOD outputData = new IdentifyOD(
+                metadata.title(),
+                metadata.artists(),
+                metadata.album()
+        );
+        identifyOutputBoundary.updateSongAttributes(outputData);
+    }
+
+    private void presentFailure(Throwable error) {
+        Throwable cause = error;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IdentifyDAI.FingerprintMatchNotFoundException) {
+            identifyOutputBoundary.presentError(cause.getMessage());
         }
-        catch (IdentifyDAI.FingerprintMatchNotFoundException exception) {
-            identifyOutputBoundary.presentError(exception.getMessage());
+        else {
+            identifyOutputBoundary.presentError(cause.toString());
         }
     }
 }
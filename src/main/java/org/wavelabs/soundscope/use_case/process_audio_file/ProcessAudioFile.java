@@ -2,6 +2,9 @@ package org.wavelabs.soundscope.use_case.process_audio_file;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 
@@ -21,13 +24,20 @@ import org.wavelabs.soundscope.entity.AudioData;
  *   <li>Presenting the results through the Output Boundary</li>
  *   <li>Handling errors and presenting them through the Output Boundary</li>
  * </ul>
+ *
+ * <p>While a file is being processed, the audio processed so far is presented as it
+ * comes in. Processing a file supersedes any file still being processed: that file is
+ * abandoned and nothing more is presented for it.
  */
 public class ProcessAudioFile implements ProcessAudioFileIB {
     private final ProcessAudioFileDAI processAudioFileDAO;
     private final ProcessAudioFileOB outputBoundary;
+    private final Executor executor;
+    // Number of the latest file to be processed; anything older is abandoned
+    private final AtomicLong latestRequest = new AtomicLong();
 
     /**
-     * Constructs a ProcessAudioFile with the specified dependencies.
+     * Constructs a ProcessAudioFile that processes files on the calling thread.
      *
      * @param processAudioFileDAO The data access interface for reading and processing audio files
      * @param outputBoundary      The output boundary for presenting results and errors
@@ -35,8 +45,24 @@ public class ProcessAudioFile implements ProcessAudioFileIB {
     public ProcessAudioFile(
         ProcessAudioFileDAI processAudioFileDAO,
         ProcessAudioFileOB outputBoundary) {
+        this(processAudioFileDAO, outputBoundary, Runnable::run);
+    }
+
+    /**
+     * Constructs a ProcessAudioFile that processes files on the given executor, such as a
+     * background thread, so that the caller need not wait for large files.
+     *
+     * @param processAudioFileDAO The data access interface for reading and processing audio files
+     * @param outputBoundary      The output boundary for presenting results and errors
+     * @param executor            Runs the processing; should run one file at a time, in order
+     */
+    public ProcessAudioFile(
+        ProcessAudioFileDAI processAudioFileDAO,
+        ProcessAudioFileOB outputBoundary,
+        Executor executor) {
         this.processAudioFileDAO = processAudioFileDAO;
         this.outputBoundary = outputBoundary;
+        this.executor = executor;
     }
 
     /**
@@ -45,15 +71,33 @@ public class ProcessAudioFile implements ProcessAudioFileIB {
      * <p>Processes the audio file specified in the input data, extracts amplitude
      * samples, and presents the results through the output boundary. If an error
      * occurs, it is caught and presented as an error through the output boundary.
+     * Any file still being processed from an earlier call is abandoned.
      *
      * @param inputData The input data containing the file to process
      */
     @Override
     public void execute(ProcessAudioFileID inputData) {
+        final long request = latestRequest.incrementAndGet();
+        executor.execute(() -> process(inputData, request));
+    }
+
+    private void process(ProcessAudioFileID inputData, long request) {
+        if (isSuperseded(request)) {
+            return;
+        }
+        final File file = inputData.getFile();
         try {
-            final File file = inputData.getFile();
-            final AudioData audioData = processAudioFileDAO.processAudioFile(file);
+            final AudioData audioData = processAudioFileDAO.processAudioFile(file, partialAudioData -> {
+                if (isSuperseded(request)) {
+                    return false;
+                }
+                outputBoundary.presentProgress(new ProcessAudioFileOD(partialAudioData, file.getName()));
+                return true;
+            });
 
+            if (isSuperseded(request)) {
+                return;
+            }
             final ProcessAudioFileOD outputData = new ProcessAudioFileOD(
                 audioData,
                 file.getName()
@@ -62,12 +106,22 @@ public class ProcessAudioFile implements ProcessAudioFileIB {
             outputBoundary.present(outputData);
 
         }
+        catch (CancellationException exception) {
+            // Another file was opened; it is presented instead
+        }
         catch (UnsupportedAudioFileException exception) {
-            outputBoundary.presentError("Unsupported audio format", inputData.getFile().getName());
+            if (!isSuperseded(request)) {
+                outputBoundary.presentError("Unsupported audio format", file.getName());
+            }
         }
         catch (IOException exception) {
-            outputBoundary.presentError("File appears to be corrupted or cannot be read",
-                inputData.getFile().getName());
+            if (!isSuperseded(request)) {
+                outputBoundary.presentError("File appears to be corrupted or cannot be read", file.getName());
+            }
         }
     }
+
+    private boolean isSuperseded(long request) {
+        return latestRequest.get() != request;
+    }
 }
@@ -22,4 +22,38 @@ public interface ProcessAudioFileDAI {
      * @throws IOException                   if the file cannot be read or is corrupted
      */
     AudioData processAudioFile(File file) throws UnsupportedAudioFileException, IOException;
+
+    /**
+     * Processes an audio file, reporting the audio data processed so far while it is being read,
+     * so it can be shown before the whole file has been read.
+     *
+     * <p>By default no progress is reported and the file is processed as by
+     * {@link #processAudioFile(File)}.</p>
+     *
+     * @param file     The audio file to process
+     * @param listener Receives snapshots of the audio data processed so far
+     * @return AudioData containing amplitude samples and metadata
+     * @throws UnsupportedAudioFileException if the audio format is not supported
+     * @throws IOException                   if the file cannot be read or is corrupted
+     * @throws java.util.concurrent.CancellationException if the listener asked to stop
+     */
+    default AudioData processAudioFile(File file, ProgressListener listener)
+        throws UnsupportedAudioFileException, IOException {
+        return processAudioFile(file);
+    }
+
+    /**
+     * Receives the audio data of a file processed so far.
+     */
+    interface ProgressListener {
+        /**
+         * Receives a snapshot of the audio data processed so far. Each snapshot extends the one
+         * before it; the sample rate and channels are those of the whole file, while the samples
+         * and duration cover only the part of the file read so far.
+         *
+         * @param partialAudioData the audio data processed so far
+         * @return {@code true} to keep going, or {@code false} to stop processing the file
+         */
+        boolean onProgress(AudioData partialAudioData);
+    }
 }
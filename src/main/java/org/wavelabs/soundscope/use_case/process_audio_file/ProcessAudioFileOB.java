@@ -13,6 +13,15 @@ public interface ProcessAudioFileOB {
      */
     void present(ProcessAudioFileOD outputData);
 
+    /**
+     * Receives the audio data of a file that is still being processed. Called any number of times
+     * before {@link #present} or {@link #presentError} for the same file; by default ignored.
+     *
+     * @param partialOutputData The output data containing the audio processed so far
+     */
+    default void presentProgress(ProcessAudioFileOD partialOutputData) {
+    }
+
     /**
      * Receives an error from the use case.
      *
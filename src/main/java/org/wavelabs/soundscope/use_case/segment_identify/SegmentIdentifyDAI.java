@@ -0,0 +1,39 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+import java.lang.foreign.MemorySegment;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * DAI for the audio that the Segment Identify use case splits into windows.
+ */
+public interface SegmentIdentifyDAI {
+    /**
+     * Returns the current audio.
+     *
+     * @return 16-bit PCM audio, or {@code null} if nothing has been recorded or loaded
+     */
+    byte[] getAudioData();
+
+    /**
+     * Returns the current audio without copying it. By default the array from
+     * {@link #getAudioData()} is wrapped.
+     *
+     * @return a read-only view of the 16-bit PCM audio, or {@code null} if nothing has been
+     *     recorded or loaded
+     */
+    default MemorySegment getAudioSamples() {
+        final byte[] data = getAudioData();
+        if (data == null) {
+            return null;
+        }
+        return MemorySegment.ofArray(data);
+    }
+
+    /**
+     * Returns the format of the current audio.
+     *
+     * @return the audio format
+     */
+    AudioFormat getAudioFormat();
+}
@@ -0,0 +1,12 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+/**
+ * Input boundary for the Segment Identify use case.
+ */
+public interface SegmentIdentifyIB {
+    /**
+     * Identifies every song in the current audio, in the background. The timeline is passed to the
+     * output boundary once it is complete.
+     */
+    void execute();
+}
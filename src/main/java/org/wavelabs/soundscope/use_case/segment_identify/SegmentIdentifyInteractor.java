@@ -0,0 +1,129 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintSegment;
+import org.wavelabs.soundscope.use_case.fingerprint.SegmentFingerprinter;
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.ChromaprintException;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Segment identify interactor. Fingerprints the current audio as overlapping windows in parallel,
+ * looks every window up, and presents the songs it found as a timeline. All lookups are submitted
+ * before any is waited on, so the identifier can send them in batches.
+ */
+public class SegmentIdentifyInteractor implements SegmentIdentifyIB {
+    // Long recordings take a while; keep the caller (usually the EDT) free
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "segment-identify");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SegmentIdentifyDAI audioDataAccessObject;
+    private final IdentifyDAI identifier;
+    private final SegmentFingerprinter segmentFingerprinter;
+    private final SegmentIdentifyOB segmentIdentifyPresenter;
+
+    /**
+     * Initializes a SegmentIdentifyInteractor.
+     *
+     * @param audioDataAccessObject DAI providing the audio
+     * @param identifier DAI for looking up fingerprints
+     * @param segmentFingerprinter splits the audio into fingerprinted windows
+     * @param segmentIdentifyOutputBoundary handles passing output data
+     */
+    public SegmentIdentifyInteractor(SegmentIdentifyDAI audioDataAccessObject, IdentifyDAI identifier,
+                                     SegmentFingerprinter segmentFingerprinter,
+                                     SegmentIdentifyOB segmentIdentifyOutputBoundary) {
+        this.audioDataAccessObject = audioDataAccessObject;
+        this.identifier = identifier;
+        this.segmentFingerprinter = segmentFingerprinter;
+        this.segmentIdentifyPresenter = segmentIdentifyOutputBoundary;
+    }
+
+    @Override
+    public void execute() {
+        worker.execute(this::identifySegments);
+    }
+
+    /**
+     * Runs the use case on the calling thread.
+     */
+    void identifySegments() {
+        final MemorySegment audio = audioDataAccessObject.getAudioSamples();
+        if (audio == null) {
+            segmentIdentifyPresenter.presentError(
+                "Audio data could not be found. Please record or load an audio file first.");
+            return;
+        }
+        final AudioFormat format = audioDataAccessObject.getAudioFormat();
+
+        try {
+            final List<FingerprintSegment> segments = segmentFingerprinter.fingerprint(audio, format);
+
+            // The identifier rate-limits and batches remote requests itself, so submit them all at once
+            final List<CompletableFuture<Song.SongMetadata>> lookups = new ArrayList<>(segments.size());
+            for (FingerprintSegment segment : segments) {
+                lookups.add(identifier.getClosestMatchMetadataAsync(segment.fingerprint(),
+                    segment.durationSeconds(), IdentifyDAI.Priority.BACKGROUND));
+            }
+            final List<Song.SongMetadata> matches = new ArrayList<>(segments.size());
+            for (CompletableFuture<Song.SongMetadata> lookup : lookups) {
+                matches.add(await(lookup));
+            }
+
+            final List<SegmentIdentifyOD.Segment> output = new ArrayList<>();
+            for (SegmentTimeline.Entry entry : SegmentTimeline.merge(segments, matches)) {
+                final Song.SongMetadata metadata = entry.metadata();
+                if (metadata == null) {
+                    output.add(new SegmentIdentifyOD.Segment(
+                        entry.startSeconds(), entry.endSeconds(), null, null, null));
+                }
+                else {
+                    output.add(new SegmentIdentifyOD.Segment(entry.startSeconds(), entry.endSeconds(),
+                        metadata.title(), metadata.artists(), metadata.album()));
+                }
+            }
+            segmentIdentifyPresenter.presentTimeline(new SegmentIdentifyOD(output));
+        }
+        catch (ChromaprintException exception) {
+            segmentIdentifyPresenter.presentError("Chromaprint error:\n" + exception.getMessage());
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            segmentIdentifyPresenter.presentError("Segment identification was interrupted.");
+        }
+        catch (RuntimeException exception) {
+            segmentIdentifyPresenter.presentError("Segment identification failed:\n" + unwrap(exception));
+        }
+    }
+
+    private static Song.SongMetadata await(CompletableFuture<Song.SongMetadata> lookup) {
+        try {
+            return lookup.join();
+        }
+        catch (CompletionException exception) {
+            if (unwrap(exception) instanceof IdentifyDAI.FingerprintMatchNotFoundException) {
+                // Talking, silence, or a song the database doesn't know
+                return null;
+            }
+            throw exception;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,20 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+/**
+ * Output boundary for the Segment Identify use case.
+ */
+public interface SegmentIdentifyOB {
+    /**
+     * Presents the songs found in the audio, in order.
+     *
+     * @param outputData the timeline of songs
+     */
+    void presentTimeline(SegmentIdentifyOD outputData);
+
+    /**
+     * Presents an error message when the audio could not be segmented.
+     *
+     * @param errorMessage the explanation of the failure
+     */
+    void presentError(String errorMessage);
+}
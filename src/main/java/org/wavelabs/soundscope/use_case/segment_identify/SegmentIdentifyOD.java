@@ -0,0 +1,23 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+import java.util.List;
+
+/**
+ * Output data for the Segment Identify use case.
+ *
+ * @param segments the stretches of audio that matched the same song, or no song, in order
+ */
+public record SegmentIdentifyOD(List<Segment> segments) {
+    /**
+     * One stretch of the timeline.
+     *
+     * @param startSeconds where the stretch starts
+     * @param endSeconds   where the stretch ends
+     * @param songTitle    title of the song, or {@code null} if it was not identified
+     * @param artists      artists of the song, or {@code null} if it was not identified
+     * @param album        album of the song, or {@code null} if unknown
+     */
+    public record Segment(double startSeconds, double endSeconds, String songTitle, String[] artists,
+                          String album) {
+    }
+}
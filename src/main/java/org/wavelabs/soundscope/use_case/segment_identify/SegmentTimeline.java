@@ -0,0 +1,70 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintSegment;
+
+/**
+ * Turns identified windows into a timeline of songs.
+ */
+public final class SegmentTimeline {
+    private SegmentTimeline() {
+    }
+
+    /**
+     * One stretch of a timeline.
+     *
+     * @param startSeconds where the stretch starts
+     * @param endSeconds   where the stretch ends
+     * @param metadata     the song playing, or {@code null} if it was not identified
+     */
+    public record Entry(double startSeconds, double endSeconds, Song.SongMetadata metadata) {
+    }
+
+    /**
+     * Merges consecutive windows that resolved to the same track. Where two different tracks'
+     * windows overlap, the boundary is placed in the middle of the overlap.
+     *
+     * @param segments the windows, in order
+     * @param matches  the match for each window, or {@code null} where there was none
+     * @return the timeline, in order
+     */
+    public static List<Entry> merge(List<FingerprintSegment> segments, List<Song.SongMetadata> matches) {
+        final List<Entry> timeline = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            final FingerprintSegment segment = segments.get(i);
+            final Song.SongMetadata match = matches.get(i);
+
+            if (timeline.isEmpty()) {
+                timeline.add(new Entry(segment.startSeconds(), segment.endSeconds(), match));
+                continue;
+            }
+
+            final Entry last = timeline.get(timeline.size() - 1);
+            if (sameTrack(last.metadata(), match)) {
+                timeline.set(timeline.size() - 1,
+                    new Entry(last.startSeconds(), Math.max(last.endSeconds(), segment.endSeconds()), last.metadata()));
+            }
+            else {
+                final double boundary = Math.min(last.endSeconds(),
+                    (segment.startSeconds() + last.endSeconds()) / 2);
+                timeline.set(timeline.size() - 1, new Entry(last.startSeconds(), boundary, last.metadata()));
+                timeline.add(new Entry(boundary, segment.endSeconds(), match));
+            }
+        }
+        return timeline;
+    }
+
+    private static boolean sameTrack(Song.SongMetadata first, Song.SongMetadata second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        if (first.acoustIDTrackID() != null || second.acoustIDTrackID() != null) {
+            return Objects.equals(first.acoustIDTrackID(), second.acoustIDTrackID());
+        }
+        return Objects.equals(first.title(), second.title());
+    }
+}
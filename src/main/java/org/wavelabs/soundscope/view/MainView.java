@@ -14,11 +14,13 @@ import java.time.format.DateTimeFormatter;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
@@ -30,11 +32,13 @@ import org.wavelabs.soundscope.entity.AudioData;
 import org.wavelabs.soundscope.interface_adapter.MainState;
 import org.wavelabs.soundscope.interface_adapter.MainViewModel;
 import org.wavelabs.soundscope.interface_adapter.TimeFormatter;
+import org.wavelabs.soundscope.interface_adapter.early_identify.EarlyIdentifyController;
 import org.wavelabs.soundscope.interface_adapter.fingerprint.FingerprintController;
 import org.wavelabs.soundscope.interface_adapter.identify.IdentifyController;
 import org.wavelabs.soundscope.interface_adapter.play_recording.PlayRecordingController;
 import org.wavelabs.soundscope.interface_adapter.process_audio_file.ProcessAudioFileController;
 import org.wavelabs.soundscope.interface_adapter.save_file.SaveRecordingController;
+import org.wavelabs.soundscope.interface_adapter.segment_identify.SegmentIdentifyController;
 import org.wavelabs.soundscope.interface_adapter.start_recording.StartRecordingController;
 import org.wavelabs.soundscope.interface_adapter.stop_recording.StopRecordingController;
 import org.wavelabs.soundscope.interface_adapter.visualize_waveform.DisplayRecordingWaveformController;
@@ -52,6 +56,8 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
     private final JButton recordButton;
     private final JButton fingerprintButton;
     private final JButton identifyButton;
+    private final JButton segmentIdentifyButton;
+    private final JCheckBox autoIdentifyCheckBox;
     // Waveform panel code
     private final WaveformPanel waveformPanel;
     private final TimelinePanel timelinePanel;
@@ -76,6 +82,10 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
     private StartRecordingController startRecordingController;
     private StopRecordingController stopRecordingController;
     private DisplayRecordingWaveformController displayRecordingWaveformController;
+    private EarlyIdentifyController earlyIdentifyController;
+    private SegmentIdentifyController segmentIdentifyController;
+    // Whether the current recording still needs to be saved and loaded once it stops
+    private boolean recordingUnfinished;
 
     // TODO: migrate App Builder stuff here
     public MainView(MainViewModel mainViewModel, WaveformViewModel waveformViewModel) {
@@ -110,7 +120,9 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
         playPauseButton = getPlayPauseButton();
         recordButton = getRecordButton();
         identifyButton = getIdentifyButton();
+        segmentIdentifyButton = getSegmentIdentifyButton();
         fingerprintButton = getFingerprintButton();
+        autoIdentifyCheckBox = getAutoIdentifyCheckBox();
 
         buttonPanel.add(openButton);
         buttonPanel.add(saveAsButton);
@@ -118,6 +130,8 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
         buttonPanel.add(recordButton);
         buttonPanel.add(fingerprintButton);
         buttonPanel.add(identifyButton);
+        buttonPanel.add(segmentIdentifyButton);
+        buttonPanel.add(autoIdentifyCheckBox);
 
         // Sets up info panel
         fingerprintInfo = new JTextField(MainViewModel.FINGERPRINT_INFO_START);
@@ -260,6 +274,31 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
         return identifyButton;
     }
 
+    @NotNull
+    private JButton getSegmentIdentifyButton() {
+        final JButton segmentIdentifyButton = new JButton(MainViewModel.SEGMENT_IDENTIFY_TEXT);
+        segmentIdentifyButton.setPreferredSize(MainViewModel.DEFAULT_BUTTON_DIMENSIONS);
+
+        segmentIdentifyButton.addActionListener(event -> {
+            segmentIdentifyController.execute();
+        });
+
+        return segmentIdentifyButton;
+    }
+
+    @NotNull
+    private JCheckBox getAutoIdentifyCheckBox() {
+        final JCheckBox autoIdentifyCheckBox = new JCheckBox(MainViewModel.AUTO_IDENTIFY_TEXT, false);
+        // Enabled once the early identify use case is wired in
+        autoIdentifyCheckBox.setEnabled(false);
+
+        autoIdentifyCheckBox.addActionListener(event -> {
+            earlyIdentifyController.setEnabled(autoIdentifyCheckBox.isSelected());
+        });
+
+        return autoIdentifyCheckBox;
+    }
+
     @NotNull
     private JButton getRecordButton() {
         final JButton recordButton = new JButton(MainViewModel.RECORD_TEXT);
@@ -282,25 +321,7 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
     private void recordListenerEvent(JButton recordButton) {
         if (mainViewModel.getState().isRecording()) {
             stopRecordingController.execute();
-            mainViewModel.getState().setRecording(false);
-
-            // named cache due to the temporary nature of the file
-            // TODO: put a better file path here
-            final String outputPath = "cache.wav"; 
-            saveRecordingController.execute(outputPath);
-            System.out.println("Recording Ended");
-
-            // Automatically load and display the saved recording
-            final File savedFile = new File(outputPath);
-            if (savedFile.exists()) {
-                processAudioFileController.execute(savedFile);
-
-                // Set current audio source path for playback
-                mainViewModel.getState().setCurrentAudioSourcePath(savedFile.getAbsolutePath());
-
-                // Ensure scroll pane is updated after loading - force revalidation
-                SwingUtilities.invokeLater(this::updateScrollPanel);
-            }
+            finishRecording();
         } 
         else {
             // Stop playback if it's running
@@ -311,6 +332,7 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
 
             startRecordingController.execute();
             mainViewModel.getState().setRecording(true);
+            recordingUnfinished = true;
             // Clear previous waveform when starting new recording
             if (waveformPanel != null) {
                 waveformPanel.updateWaveform(null);
@@ -325,6 +347,32 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
         }
     }
 
+    /**
+     * Saves and loads a recording that has just been stopped, either by the user or automatically.
+     */
+    private void finishRecording() {
+        mainViewModel.getState().setRecording(false);
+        recordingUnfinished = false;
+
+        // named cache due to the temporary nature of the file
+        // TODO: put a better file path here
+        final String outputPath = "cache.wav"; 
+        saveRecordingController.execute(outputPath);
+        System.out.println("Recording Ended");
+
+        // Automatically load and display the saved recording
+        final File savedFile = new File(outputPath);
+        if (savedFile.exists()) {
+            processAudioFileController.execute(savedFile);
+
+            // Set current audio source path for playback
+            mainViewModel.getState().setCurrentAudioSourcePath(savedFile.getAbsolutePath());
+
+            // Ensure scroll pane is updated after loading - force revalidation
+            SwingUtilities.invokeLater(this::updateScrollPanel);
+        }
+    }
+
     private void updateScrollPanel() {
         if (waveformScrollPane != null && waveformPanel != null) {
             // Force the panel to update its size
@@ -503,6 +551,10 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
         this.identifyController = identifyController;
     }
 
+    public void setSegmentIdentifyController(SegmentIdentifyController segmentIdentifyController) {
+        this.segmentIdentifyController = segmentIdentifyController;
+    }
+
     public void setPlayRecordingController(PlayRecordingController playRecordingController) {
         this.playRecordingController = playRecordingController;
     }
@@ -523,6 +575,17 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
         this.stopRecordingController = stopRecordingController;
     }
 
+    /**
+     * Sets the early identify controller, and applies the current auto identify choice.
+     *
+     * @param earlyIdentifyController controller for the early identify use case
+     */
+    public void setEarlyIdentifyController(EarlyIdentifyController earlyIdentifyController) {
+        this.earlyIdentifyController = earlyIdentifyController;
+        autoIdentifyCheckBox.setEnabled(true);
+        earlyIdentifyController.setEnabled(autoIdentifyCheckBox.isSelected());
+    }
+
     public void setDisplayRecordingWaveformController(
         DisplayRecordingWaveformController displayRecordingWaveformController) {
         this.displayRecordingWaveformController = displayRecordingWaveformController;
@@ -535,6 +598,12 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        // Some use cases report from background threads; Swing must only be touched on the EDT
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> propertyChange(evt));
+            return;
+        }
+
         final MainState state = (MainState) evt.getNewValue();
 
         // If in an error state, we display an error message
@@ -578,6 +647,18 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
             return;
         }
 
+        if (evt.getPropertyName().equals("early identify")) {
+            // The recording was stopped automatically; finish it as if the user had stopped it
+            if (recordingUnfinished) {
+                finishRecording();
+                recordButton.setText(MainViewModel.RECORD_TEXT);
+            }
+            songTitleInfo.setText(MainViewModel.SONG_TITLE_INFO_START + state.getSongTitle());
+            albumInfo.setText(MainViewModel.ALBUM_INFO_START + state.getAlbum());
+            artistInfo.setText(MainViewModel.ARTIST_INFO_START + state.getArtists());
+            return;
+        }
+
         if (evt.getPropertyName().equals("identify")) {
             songTitleInfo.setText(MainViewModel.SONG_TITLE_INFO_START + state.getSongTitle());
             albumInfo.setText(MainViewModel.ALBUM_INFO_START + state.getAlbum());
@@ -585,6 +666,16 @@ public class MainView extends JPanel implements ActionListener, PropertyChangeLi
             return;
         }
 
+        if (evt.getPropertyName().equals("segment identify")) {
+            final JTextArea timeline = new JTextArea(state.getSegmentTimeline());
+            timeline.setEditable(false);
+            final JScrollPane timelinePane = new JScrollPane(timeline);
+            timelinePane.setPreferredSize(new Dimension(400, 300));
+            JOptionPane.showMessageDialog(this, timelinePane, MainViewModel.SEGMENT_TIMELINE_TITLE,
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
         if (evt.getPropertyName().equals("fingerprint")) {
             final String fingerprint = state.getFingerprint();
             final int newLength = Math.min(MainViewModel.FINGERPRINT_DISPLAY_LENGTH, fingerprint.length());
@@ -36,6 +36,9 @@ public final class UIStyle {
         public static final Color WAVEFORM_STROKE = new Color(0, 100, 255);
         // Red for played portion
         public static final Color WAVEFORM_PLAYED = Color.RED;
+        // Darker shades for the RMS (loudness) band inside the peaks
+        public static final Color WAVEFORM_RMS = new Color(0, 60, 170);
+        public static final Color WAVEFORM_PLAYED_RMS = new Color(170, 0, 0);
         // Orange for clipped/overload portions
         public static final Color WAVEFORM_CLIPPED = new Color(255, 165, 0);
         public static final Color WAVEFORM_BACKGROUND = Color.WHITE;
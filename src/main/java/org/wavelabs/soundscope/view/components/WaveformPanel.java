@@ -8,6 +8,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.util.Arrays;
 
 import javax.swing.JPanel;
 import javax.swing.JViewport;
@@ -27,6 +28,17 @@ import org.wavelabs.soundscope.view.UIStyle;
  * <p><strong>Rendering Strategy:</strong> Uses a modified Linear/Power scale
  * rather than Logarithmic (dB). This preserves visual silence for low-volume
  * sections while maintaining dynamic range for high-volume sections.
+ *
+ * <p>Each pixel column shows the peaks of the audio it covers, from the minimum and
+ * maximum of each block of audio in the AudioData, with the RMS of those blocks
+ * drawn as a darker band inside them.
+ *
+ * <p>The envelope covers the whole waveform at a fixed number of samples per pixel,
+ * so it does not depend on the panel's size. When new audio data extends the
+ * waveform already shown, as while a recording or a large file is coming in, only
+ * the pixels for the new samples are computed. Only the first
+ * {@link AudioData#getSampleCount()} values of the audio data's arrays are read, since
+ * snapshots of a file being loaded share longer arrays with the reader.
  */
 public class WaveformPanel extends JPanel {
     // Rendering Configuration
@@ -43,6 +55,11 @@ public class WaveformPanel extends JPanel {
     private static final double VERTICAL_PADDING_PERCENT = 0.95;
     // Core Data
     private double[] waveformData;
+    private int sampleCount;
+    private float[] blockMinimums;
+    private float[] blockMaximums;
+    private float[] blockRms;
+    private String filePath;
     private double durationSeconds;
     private int sampleRate = 44100;
     private volatile double currentPlaybackPositionSeconds;
@@ -53,8 +70,9 @@ public class WaveformPanel extends JPanel {
 
     private float[] cachedMaxPerPixel;
     private float[] cachedMinPerPixel;
-    private int cachedEnvelopeWidth = -1;
-    private int cachedEnvelopeHeight = -1;
+    private float[] cachedRmsPerPixel;
+    // Number of waveform samples the cached envelope was computed from
+    private int cachedEnvelopeSamples;
     private volatile boolean envelopeComputationInProgress;
 
     private long lastRepaintTime;
@@ -72,16 +90,6 @@ public class WaveformPanel extends JPanel {
         setDoubleBuffered(true);
         // Performance hint
         setOpaque(true);
-
-        addComponentListener(new java.awt.event.ComponentAdapter() {
-            @Override
-            public void componentResized(java.awt.event.ComponentEvent e) {
-                if (waveformData != null && waveformData.length > 0) {
-                    invalidateEnvelopeCache();
-                    computeEnvelopeAsync();
-                }
-            }
-        });
     }
 
     /**
@@ -91,21 +99,33 @@ public class WaveformPanel extends JPanel {
      */
     public void updateWaveform(AudioData audioData) {
         boolean audioDataChanged = false;
+        boolean audioDataExtended = false;
 
         if (audioData != null) {
             final double[] newWaveformData = audioData.getAmplitudeSamples();
+            final int newSampleCount = audioData.getSampleCount();
             final double newDurationSeconds = audioData.getDurationSeconds();
             final int newSampleRate = audioData.getSampleRate();
 
+            // More of the same audio, as snapshots of a recording or of a file being loaded
+            audioDataExtended = waveformData != null && newWaveformData != null
+                && audioData.getFilePath() != null && audioData.getFilePath().equals(filePath)
+                && newSampleRate == sampleRate && newSampleCount >= sampleCount;
+
             // Check for reference equality first, then structural changes
             if (waveformData != newWaveformData
                 || waveformData != null && newWaveformData != null
-                    && (waveformData.length != newWaveformData.length
+                    && (sampleCount != newSampleCount
                     || durationSeconds != newDurationSeconds || sampleRate != newSampleRate)) {
                 audioDataChanged = true;
             }
 
             this.waveformData = newWaveformData;
+            this.sampleCount = newSampleCount;
+            this.blockMinimums = audioData.getBlockMinimums();
+            this.blockMaximums = audioData.getBlockMaximums();
+            this.blockRms = audioData.getBlockRms();
+            this.filePath = audioData.getFilePath();
             this.durationSeconds = newDurationSeconds;
             this.sampleRate = newSampleRate;
 
@@ -118,6 +138,11 @@ public class WaveformPanel extends JPanel {
                 audioDataChanged = true;
             }
             this.waveformData = null;
+            this.sampleCount = 0;
+            this.blockMinimums = null;
+            this.blockMaximums = null;
+            this.blockRms = null;
+            this.filePath = null;
             this.durationSeconds = 0;
             this.currentPlaybackPositionSeconds = 0.0;
 
@@ -130,11 +155,15 @@ public class WaveformPanel extends JPanel {
             }
         }
 
-        if (audioDataChanged) {
+        if (audioDataChanged && audioDataExtended && cachedMaxPerPixel != null && !envelopeComputationInProgress) {
+            // Only the new samples need computing
+            extendEnvelope();
+        }
+        else if (audioDataChanged) {
             dataChanged = true;
             invalidateEnvelopeCache();
             // Compute immediately if small enough, otherwise async
-            if (waveformData != null && waveformData.length > 0) {
+            if (waveformData != null && sampleCount > 0) {
                 if (getWidth() > 0) {
                     computeEnvelope();
                 }
@@ -162,13 +191,13 @@ public class WaveformPanel extends JPanel {
     }
 
     private void updatePanelSize() {
-        if (waveformData != null && waveformData.length > 0) {
+        if (waveformData != null && sampleCount > 0) {
             int samplesIn30Seconds = (sampleRate * DISPLAY_INTERVAL_SECONDS) / 256;
             // Prevent division by zero
             if (samplesIn30Seconds == 0) {
                 samplesIn30Seconds = 1;
             }
-            final int numberOfIntervals = (int) Math.ceil((double) waveformData.length / samplesIn30Seconds);
+            final int numberOfIntervals = (int) Math.ceil((double) sampleCount / samplesIn30Seconds);
             final int widthFor30Seconds = samplesIn30Seconds / SAMPLES_PER_PIXEL;
             int preferredWidth = numberOfIntervals * widthFor30Seconds;
 
@@ -209,7 +238,7 @@ public class WaveformPanel extends JPanel {
      * @param audioData The current audio data to determine scroll position
      */
     public void scrollToLatest(AudioData audioData) {
-        if (audioData == null || waveformData == null || waveformData.length == 0) {
+        if (audioData == null || waveformData == null || sampleCount == 0) {
             return;
         }
 
@@ -259,24 +288,21 @@ public class WaveformPanel extends JPanel {
     private void invalidateEnvelopeCache() {
         cachedMaxPerPixel = null;
         cachedMinPerPixel = null;
-        cachedEnvelopeWidth = -1;
-        cachedEnvelopeHeight = -1;
+        cachedRmsPerPixel = null;
+        cachedEnvelopeSamples = 0;
     }
 
-    private void computeEnvelopeAsync() {
-        if (envelopeComputationInProgress || waveformData == null || waveformData.length == 0) {
-            return;
-        }
-
-        final int w = getWidth();
-        final int h = getHeight();
+    private boolean isEnvelopeCurrent() {
+        return cachedMaxPerPixel != null && cachedMinPerPixel != null
+            && waveformData != null && cachedEnvelopeSamples == sampleCount;
+    }
 
-        if (w <= 0 || h <= 0) {
+    private void computeEnvelopeAsync() {
+        if (envelopeComputationInProgress || waveformData == null || sampleCount == 0) {
             return;
         }
 
-        if (w == cachedEnvelopeWidth && h == cachedEnvelopeHeight
-            && cachedMaxPerPixel != null && cachedMinPerPixel != null) {
+        if (isEnvelopeCurrent()) {
             return;
         }
 
@@ -306,90 +332,97 @@ public class WaveformPanel extends JPanel {
     }
 
     /**
-     * Calculates the Min/Max amplitude for every pixel column.
+     * Calculates the Min/Max/RMS amplitude for every pixel column.
      * This is the heavy lifting of waveform visualization.
      */
     private void computeEnvelope() {
-        if (waveformData == null || waveformData.length == 0) {
+        final int count = sampleCount;
+        final float[] minimums = blockMinimums;
+        final float[] maximums = blockMaximums;
+        final float[] rms = blockRms;
+        if (waveformData == null || count == 0 || minimums == null || maximums == null || rms == null) {
             invalidateEnvelopeCache();
             return;
         }
 
-        final int w = getWidth();
-        final int h = getHeight();
-
-        if (w <= 0 || h <= 0) {
-            return;
-        }
-
-        // Return early if cache is already valid for this size
-        if (w == cachedEnvelopeWidth && h == cachedEnvelopeHeight
-            && cachedMaxPerPixel != null && cachedMinPerPixel != null) {
+        // Return early if cache is already valid for this data
+        if (isEnvelopeCurrent()) {
             return;
         }
 
-        final int totalPixels = (int) Math.ceil(waveformData.length / (double) SAMPLES_PER_PIXEL);
-        final int pixelsToCompute = Math.min(totalPixels, w);
-
-        if (pixelsToCompute <= 0) {
-            invalidateEnvelopeCache();
-            return;
-        }
+        final int totalPixels = (int) Math.ceil(count / (double) SAMPLES_PER_PIXEL);
+        final float[] newMaxCache = new float[totalPixels];
+        final float[] newMinCache = new float[totalPixels];
+        final float[] newRmsCache = new float[totalPixels];
+        computePixels(minimums, maximums, rms, count, newMaxCache, newMinCache, newRmsCache, 0);
+        publishEnvelope(count, newMaxCache, newMinCache, newRmsCache);
+    }
 
-        // Allocate only what is needed, or reuse if possible (GC optimization could be done here, 
-        // but re-allocating on resize is generally acceptable)
-        final float[] newMaxCache = new float[pixelsToCompute];
-        final float[] newMinCache = new float[pixelsToCompute];
+    /**
+     * Extends the cached envelope to cover waveform data that starts with the samples it
+     * was computed from. The last cached pixel is computed again, since it may have been
+     * missing samples.
+     */
+    private void extendEnvelope() {
+        final int count = sampleCount;
+        final int totalPixels = (int) Math.ceil(count / (double) SAMPLES_PER_PIXEL);
+        final int firstPixel = Math.min(cachedEnvelopeSamples / SAMPLES_PER_PIXEL, cachedMaxPerPixel.length);
+
+        final float[] newMaxCache = Arrays.copyOf(cachedMaxPerPixel, totalPixels);
+        final float[] newMinCache = Arrays.copyOf(cachedMinPerPixel, totalPixels);
+        final float[] newRmsCache = Arrays.copyOf(cachedRmsPerPixel, totalPixels);
+        computePixels(blockMinimums, blockMaximums, blockRms, count, newMaxCache, newMinCache, newRmsCache,
+            firstPixel);
+        publishEnvelope(count, newMaxCache, newMinCache, newRmsCache);
+    }
 
+    /**
+     * Computes the Min/Max/RMS amplitude of pixel columns, from a given one to the end,
+     * from the summaries of the blocks of audio each column covers.
+     *
+     * @param minimums   the minimum of each block
+     * @param maximums   the maximum of each block
+     * @param rms        the RMS of each block
+     * @param count      the number of blocks to use from the start of the summaries
+     * @param maxCache   receives the maximum of each pixel column
+     * @param minCache   receives the minimum of each pixel column
+     * @param rmsCache   receives the RMS of each pixel column
+     * @param firstPixel the first pixel column to compute
+     */
+    private static void computePixels(float[] minimums, float[] maximums, float[] rms, int count,
+                                      float[] maxCache, float[] minCache, float[] rmsCache, int firstPixel) {
         final int block = SAMPLES_PER_PIXEL;
+        final int blocks = Math.min(count, Math.min(maximums.length, Math.min(minimums.length, rms.length)));
 
-        for (int px = 0; px < pixelsToCompute; px++) {
+        for (int px = firstPixel; px < maxCache.length; px++) {
             final int iStart = px * block;
-            final int iEnd = Math.min(iStart + block, waveformData.length);
-
-            if (iStart >= waveformData.length) {
-                newMaxCache[px] = 0.0f;
-                newMinCache[px] = 0.0f;
-                continue;
-            }
+            final int iEnd = Math.min(iStart + block, blocks);
 
             // Amplitudes are -1.0 to 1.0
-            double localMax = -1.0;
-            double localMin = 1.0;
+            float localMax = -1.0f;
+            float localMin = 1.0f;
+            float squares = 0.0f;
 
-            // Inner loop: find peak within the sample block representing this pixel
+            // Inner loop: find peak within the blocks represented by this pixel
             for (int i = iStart; i < iEnd; i++) {
-                final double v = waveformData[i];
-                if (v > localMax) {
-                    localMax = v;
-                }
-                if (v < localMin) {
-                    localMin = v;
-                }
+                localMax = Math.max(localMax, maximums[i]);
+                localMin = Math.min(localMin, minimums[i]);
+                squares += rms[i] * rms[i];
             }
 
             // Safety clamp
-            if (localMax < -1.0) {
-                localMax = -1.0;
-            }
-            if (localMax > 1.0) {
-                localMax = 1.0;
-            }
-            if (localMin < -1.0) {
-                localMin = -1.0;
-            }
-            if (localMin > 1.0) {
-                localMin = 1.0;
-            }
-            newMaxCache[px] = (float) localMax;
-            newMinCache[px] = (float) localMin;
+            maxCache[px] = Math.max(-1.0f, Math.min(1.0f, localMax));
+            minCache[px] = Math.max(-1.0f, Math.min(1.0f, localMin));
+            rmsCache[px] = Math.min(1.0f, (float) Math.sqrt(squares / Math.max(1, iEnd - iStart)));
         }
+    }
 
+    private void publishEnvelope(int count, float[] newMaxCache, float[] newMinCache, float[] newRmsCache) {
         // Atomic update of cache references
+        cachedRmsPerPixel = newRmsCache;
         cachedMaxPerPixel = newMaxCache;
         cachedMinPerPixel = newMinCache;
-        cachedEnvelopeWidth = w;
-        cachedEnvelopeHeight = h;
+        cachedEnvelopeSamples = count;
 
         // Update scaling factors used for playback cursor
         cachedSamplesIn30Seconds = (sampleRate * DISPLAY_INTERVAL_SECONDS) / 256;
@@ -435,7 +468,7 @@ public class WaveformPanel extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        if (waveformData == null || waveformData.length == 0) {
+        if (waveformData == null || sampleCount == 0) {
             return;
         }
 
@@ -452,9 +485,9 @@ public class WaveformPanel extends JPanel {
         final int height = getHeight();
 
         // 2. Check Cache Validity
-        if (dataChanged || width != cachedEnvelopeWidth || height != cachedEnvelopeHeight) {
-            if (cachedMaxPerPixel == null || cachedEnvelopeWidth != width) {
-                // If critical mismatch, compute strictly now (avoids empty flash)
+        if (dataChanged || !isEnvelopeCurrent()) {
+            if (cachedMaxPerPixel == null) {
+                // If nothing to draw, compute strictly now (avoids empty flash)
                 if (width > 0) {
                     computeEnvelope();
                 }
@@ -465,12 +498,15 @@ public class WaveformPanel extends JPanel {
             }
         }
 
-        if (cachedMaxPerPixel == null || cachedMinPerPixel == null) {
+        final float[] maxPerPixel = cachedMaxPerPixel;
+        final float[] minPerPixel = cachedMinPerPixel;
+        final float[] rmsPerPixel = cachedRmsPerPixel;
+        if (maxPerPixel == null || minPerPixel == null || rmsPerPixel == null) {
             return;
         }
 
         final double halfY = height / 2.0;
-        final int pixelsToDraw = Math.min(cachedMaxPerPixel.length, width);
+        final int pixelsToDraw = Math.min(Math.min(maxPerPixel.length, rmsPerPixel.length), width);
 
         // 3. Calculate Playback Cursor X
         final double playbackPos = currentPlaybackPositionSeconds;
@@ -484,17 +520,22 @@ public class WaveformPanel extends JPanel {
 
         final Color unplayedColor = UIStyle.Colors.WAVEFORM_STROKE;
         final Color playedColor = UIStyle.Colors.WAVEFORM_PLAYED;
+        final Color unplayedRmsColor = UIStyle.Colors.WAVEFORM_RMS;
+        final Color playedRmsColor = UIStyle.Colors.WAVEFORM_PLAYED_RMS;
 
         // 4. Draw Waveform Lines
         // Using a loop of drawLine is surprisingly fast in Java2D for < 2000 lines.
         // For 4k+ width, a GeneralPath might be slightly faster, but drawLine is robust.
+        // Peaks are drawn first and RMS bands after, so the color only changes at the playback head.
 
         g2d.setColor(unplayedColor);
         Color currentColor = unplayedColor;
+        final int[] rmsTops = new int[pixelsToDraw];
+        final int[] rmsBottoms = new int[pixelsToDraw];
 
         for (int px = 0; px < pixelsToDraw; px++) {
-            final float minVal = cachedMinPerPixel[px];
-            final float maxVal = cachedMaxPerPixel[px];
+            final float minVal = minPerPixel[px];
+            final float maxVal = maxPerPixel[px];
 
             // mapAmplitude handles abs internally
             final double yMaxOffset = mapAmplitude(maxVal, height);
@@ -534,6 +575,30 @@ public class WaveformPanel extends JPanel {
             }
 
             g2d.drawLine(px, yTop, px, yBottom);
+
+            // RMS band, kept within the peaks
+            final double rmsOffset = mapAmplitude(rmsPerPixel[px], height);
+            rmsTops[px] = Math.max(yTop, (int) (halfY - Math.min(rmsOffset, yMaxOffset)));
+            rmsBottoms[px] = Math.min(yBottom, (int) (halfY + Math.min(rmsOffset, yMinOffset)));
+        }
+
+        Color currentRmsColor = null;
+        for (int px = 0; px < pixelsToDraw; px++) {
+            if (rmsTops[px] >= rmsBottoms[px]) {
+                continue;
+            }
+            final Color targetRmsColor;
+            if (playbackX >= 0 && px <= playbackX) {
+                targetRmsColor = playedRmsColor;
+            }
+            else {
+                targetRmsColor = unplayedRmsColor;
+            }
+            if (currentRmsColor != targetRmsColor) {
+                g2d.setColor(targetRmsColor);
+                currentRmsColor = targetRmsColor;
+            }
+            g2d.drawLine(px, rmsTops[px], px, rmsBottoms[px]);
         }
 
         // 5. Draw Playback Head Line
@@ -1,5 +1,9 @@
 package org.wavelabs.soundscope.data_access;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.Test;
 import org.wavelabs.soundscope.entity.Song;
 
@@ -24,7 +28,7 @@ public class AcoustIDFingerprintLookupTest {
     }
 
     /**
-     * Tests that requests are spaced apart by the minimum amount of time.
+     * Tests that requests are spaced apart by at least the rate limiter's interval.
      */
     @Test
     public void APIQuerySpacingTest(){
@@ -35,7 +39,57 @@ public class AcoustIDFingerprintLookupTest {
         fingerprinter.getClosestMatchID(fingerprint, testDuration);
         long end = System.currentTimeMillis();
 
-        assert(end - start > AcoustIDApiConstants.REQUEST_SPACING_MILLIS);
+        assert(end - start >= (long) (1000 / AcoustIDApiConstants.REQUESTS_PER_SECOND));
+    }
+
+    /**
+     * Tests that many async lookups can be queued at once and all complete.
+     */
+    @Test
+    public void asyncLookupsTest(){
+        AcoustIDIdentify identifier = AcoustIDIdentify.getAcoustIDIdentify();
+
+        List<CompletableFuture<Song.SongMetadata>> lookups = new ArrayList<>();
+        for (int i = 0; i < AcoustIDApiConstants.MAX_BATCH_SIZE * 2; i++) {
+            lookups.add(identifier.getClosestMatchMetadataAsync(fingerprint, testDuration));
+        }
+
+        for (CompletableFuture<Song.SongMetadata> lookup : lookups) {
+            assert(lookup.join().acoustIDTrackID().equals("9ff43b6a-4f16-427c-93c2-92307ca505e0"));
+        }
+    }
+
+    /**
+     * Tests that concurrent lookups of the same fingerprint share one request.
+     */
+    @Test
+    public void duplicateLookupsAreCoalescedTest(){
+        AcoustIDIdentify identifier = AcoustIDIdentify.getAcoustIDIdentify();
+        LookupMetrics before = identifier.getMetrics();
+
+        CompletableFuture<Song.SongMetadata> first = identifier.getClosestMatchMetadataAsync(fingerprint, testDuration);
+        CompletableFuture<Song.SongMetadata> second = identifier.getClosestMatchMetadataAsync(fingerprint, testDuration);
+
+        assert(first.join().acoustIDTrackID().equals(second.join().acoustIDTrackID()));
+        LookupMetrics after = identifier.getMetrics();
+        assert(after.coalescedLookups() == before.coalescedLookups() + 1);
+        assert(after.lookupsSent() == before.lookupsSent() + 1);
+    }
+
+    /**
+     * Tests that sent lookups are counted in the metrics.
+     */
+    @Test
+    public void metricsCountLookupsTest(){
+        AcoustIDIdentify fingerprinter = AcoustIDIdentify.getAcoustIDIdentify();
+        long before = fingerprinter.getMetrics().lookupsSent();
+
+        fingerprinter.getClosestMatchID(fingerprint, testDuration);
+
+        LookupMetrics metrics = fingerprinter.getMetrics();
+        assert(metrics.lookupsSent() == before + 1);
+        assert(metrics.inFlightRequests() == 0);
+        assert(metrics.rateLimiter().permitsAcquired() >= metrics.requestsSent());
     }
 
     /**
@@ -0,0 +1,103 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wavelabs.soundscope.entity.Song;
+
+import okio.Buffer;
+
+/**
+ * Compares the streaming AcoustID response parser with building an org.json tree of the whole
+ * body and scanning it, as lookups used to, on recorded response fixtures.
+ *
+ * <p>Run with {@code java -cp <test classpath> org.openjdk.jmh.Main AcoustIDResponseParserBenchmark
+ * -prof gc}; the {@code gc.alloc.rate.norm} column is the bytes allocated per parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AcoustIDResponseParserBenchmark {
+    @Param({"lookup_batch.json", "lookup_large.json"})
+    private String fixture;
+
+    private byte[] body;
+    private int batchSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = AcoustIDResponseParserBenchmark.class.getResourceAsStream("/acoustid/" + fixture)) {
+            body = in.readAllBytes();
+        }
+        batchSize = new JSONObject(new String(body, StandardCharsets.UTF_8))
+            .getJSONArray(AcoustIDApiConstants.FINGERPRINTS_CODE).length();
+    }
+
+    @Benchmark
+    public AcoustIDResponseParser.FingerprintResult[] streaming() throws IOException {
+        return AcoustIDResponseParser.parse(new Buffer().write(body), batchSize);
+    }
+
+    @Benchmark
+    public Song.SongMetadata[] jsonTree() {
+        final JSONObject response = new JSONObject(new String(body, StandardCharsets.UTF_8));
+        final JSONArray fingerprints = response.getJSONArray(AcoustIDApiConstants.FINGERPRINTS_CODE);
+        final Song.SongMetadata[] results = new Song.SongMetadata[batchSize];
+        for (int i = 0; i < fingerprints.length(); i++) {
+            final JSONObject fingerprint = fingerprints.getJSONObject(i);
+            final JSONArray candidates = fingerprint.getJSONArray(AcoustIDApiConstants.RESULTS_CODE);
+            if (candidates.length() > 0) {
+                results[fingerprint.getInt(AcoustIDApiConstants.INDEX_CODE)] = bestOf(candidates);
+            }
+        }
+        return results;
+    }
+
+    private static Song.SongMetadata bestOf(JSONArray candidates) {
+        JSONObject best = candidates.getJSONObject(0);
+        for (int i = 1; i < candidates.length(); i++) {
+            if (candidates.getJSONObject(i).getDouble(AcoustIDApiConstants.MATCH_QUALITY_CODE)
+                    > best.getDouble(AcoustIDApiConstants.MATCH_QUALITY_CODE)) {
+                best = candidates.getJSONObject(i);
+            }
+        }
+
+        final JSONArray recordings = best.optJSONArray(AcoustIDApiConstants.RECORDINGS_CODE);
+        if (recordings == null || recordings.length() == 0) {
+            return null;
+        }
+        final JSONObject recording = recordings.getJSONObject(0);
+        final JSONArray artistObjects = recording.getJSONArray(AcoustIDApiConstants.ARTISTS_CODE);
+        final String[] artists = new String[artistObjects.length()];
+        for (int i = 0; i < artists.length; i++) {
+            artists[i] = artistObjects.getJSONObject(i).getString(AcoustIDApiConstants.ARTIST_NAME_CODE);
+        }
+        return new Song.SongMetadata(
+            recording.getString(AcoustIDApiConstants.SONG_TITLE_CODE),
+            recording.getString(AcoustIDApiConstants.MUSICBRAINZ_ID_CODE),
+            best.getString(AcoustIDApiConstants.ACOUST_ID_TRACK_ID_CODE),
+            recording.getJSONArray(AcoustIDApiConstants.RELEASES_CODE).getJSONObject(0)
+                .getString(AcoustIDApiConstants.ALBUM_TITLE_CODE),
+            artists,
+            best.getDouble(AcoustIDApiConstants.MATCH_QUALITY_CODE));
+    }
+}
@@ -0,0 +1,80 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Tests parsing of batched AcoustID lookup responses from recorded fixtures, without calling the API.
+ */
+public class AcoustIDResponseParserTest {
+    static BufferedSource fixture(String name) {
+        final InputStream in = AcoustIDResponseParserTest.class.getResourceAsStream("/acoustid/" + name);
+        assertNotNull("missing fixture " + name, in);
+        return Okio.buffer(Okio.source(in));
+    }
+
+    @Test
+    public void splitsResultsByIndex() throws IOException {
+        final AcoustIDResponseParser.FingerprintResult[] results =
+            AcoustIDResponseParser.parse(fixture("lookup_batch.json"), 4);
+
+        assertEquals(4, results.length);
+        assertNotNull(results[0].metadata());
+        assertNull(results[1].metadata());
+        assertNull(results[2].metadata());
+        assertNull(results[3]);
+    }
+
+    @Test
+    public void picksHighestScoringResult() throws IOException {
+        final Song.SongMetadata metadata =
+            AcoustIDResponseParser.parse(fixture("lookup_batch.json"), 3)[0].metadata();
+
+        assertEquals("High", metadata.title());
+        assertEquals("high", metadata.acoustIDTrackID());
+        assertEquals("mbid-high", metadata.musicBrainzID());
+        assertEquals("Album \"High\"", metadata.album());
+        assertArrayEquals(new String[] {"B", "C\u00e9line"}, metadata.artists());
+        assertEquals(0.95, metadata.score(), 1e-9);
+    }
+
+    @Test
+    public void parsesLargeResponse() throws IOException {
+        final AcoustIDResponseParser.FingerprintResult[] results =
+            AcoustIDResponseParser.parse(fixture("lookup_large.json"), 10);
+
+        final Song.SongMetadata first = results[0].metadata();
+        assertEquals("Track 0-1", first.title());
+        assertEquals("Songs \"Unplugged\" 0", first.album());
+        assertArrayEquals(new String[] {"A \\ B"}, first.artists());
+        assertEquals(0.876717, first.score(), 1e-9);
+
+        assertEquals("Night Drive \u2014 Remastered 0", results[1].metadata().album());
+        assertArrayEquals(new String[] {"Bj\u00f6rk", "Sigur R\u00f3s"}, results[1].metadata().artists());
+        assertNull(results[7].metadata());
+        assertEquals("Track 9-0", results[9].metadata().title());
+    }
+
+    @Test(expected = IdentifyDAI.FingerprintMatchNotFoundException.class)
+    public void errorStatusFailsWholeBatch() throws IOException {
+        AcoustIDResponseParser.parse(fixture("lookup_error.json"), 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedResponseFails() throws IOException {
+        AcoustIDResponseParser.parse(new Buffer().writeUtf8("{\"fingerprints\": [{\"index\": 0, \"resu"), 1);
+    }
+}
@@ -0,0 +1,275 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the AcoustID lookup endpoint, for testing and load-testing lookups without
+ * the network or an API key.
+ *
+ * <p>Answers batched lookups by replaying the per-fingerprint results of a recorded response
+ * fixture under {@code /acoustid/}. Each fingerprint in a request is given the results of one
+ * fixture entry, picked by {@link #entryFor(String)}, so the same fingerprint always gets the same
+ * answer. Request bodies may be gzip-compressed.</p>
+ *
+ * <p>Responses can be delayed, a share of requests can fail with a server error, and requests over
+ * a per-second limit are turned away with an AcoustID-style rate limit error.</p>
+ */
+public final class AcoustIDStandInServer implements AutoCloseable {
+    private static final String LOOKUP_PATH = "/v2/lookup";
+    private static final String SERVER_ERROR =
+        "{\"error\": {\"code\": 5, \"message\": \"internal error\"}, \"status\": \"error\"}";
+    private static final String RATE_LIMIT_ERROR =
+        "{\"error\": {\"code\": 14, \"message\": \"rate limit exceeded\"}, \"status\": \"error\"}";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Behavior behavior;
+    private final List<String> fixtureResults = new ArrayList<>();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong requestsServed = new AtomicLong();
+    private final AtomicLong lookupsServed = new AtomicLong();
+    private final AtomicLong requestsRateLimited = new AtomicLong();
+    private final AtomicLong errorsInjected = new AtomicLong();
+    private long windowStartNanos = System.nanoTime();
+    private int requestsInWindow;
+
+    /**
+     * How the stand-in answers.
+     *
+     * @param latencyMillis       time every response is held back
+     * @param latencyJitterMillis most extra time, picked at random, added to the latency
+     * @param errorRate           share of requests, from 0 to 1, answered with a server error
+     * @param requestsPerSecond   most requests accepted in any one second, or 0 for no limit
+     */
+    public record Behavior(long latencyMillis, long latencyJitterMillis, double errorRate,
+                           int requestsPerSecond) {
+        /** Answers at once, without errors or a rate limit. */
+        public static final Behavior IMMEDIATE = new Behavior(0, 0, 0, 0);
+    }
+
+    /**
+     * Starts a stand-in on a free local port.
+     *
+     * @param fixture  name of the response fixture under {@code /acoustid/} to replay
+     * @param behavior how to answer
+     * @throws IOException if the fixture cannot be read or the server cannot be started
+     */
+    public AcoustIDStandInServer(String fixture, Behavior behavior) throws IOException {
+        this.behavior = behavior;
+        loadFixture(fixture);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(LOOKUP_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the URL of the lookup endpoint.
+     *
+     * @return the endpoint URL
+     */
+    public String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + LOOKUP_PATH;
+    }
+
+    /**
+     * Returns the index of the fixture entry whose results are replayed for a fingerprint.
+     *
+     * @param fingerprint the fingerprint string
+     * @return the fixture entry index
+     */
+    public int entryFor(String fingerprint) {
+        return Math.floorMod(fingerprint.hashCode(), fixtureResults.size());
+    }
+
+    /**
+     * Returns the number of fixture entries.
+     *
+     * @return the number of entries
+     */
+    public int entries() {
+        return fixtureResults.size();
+    }
+
+    /**
+     * Returns the number of requests answered with results.
+     *
+     * @return the number of requests
+     */
+    public long getRequestsServed() {
+        return requestsServed.get();
+    }
+
+    /**
+     * Returns the number of fingerprints answered with results.
+     *
+     * @return the number of fingerprints
+     */
+    public long getLookupsServed() {
+        return lookupsServed.get();
+    }
+
+    /**
+     * Returns the number of requests turned away by the rate limit.
+     *
+     * @return the number of requests
+     */
+    public long getRequestsRateLimited() {
+        return requestsRateLimited.get();
+    }
+
+    /**
+     * Returns the number of requests answered with an injected server error.
+     *
+     * @return the number of requests
+     */
+    public long getErrorsInjected() {
+        return errorsInjected.get();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void loadFixture(String fixture) throws IOException {
+        final String body;
+        try (InputStream in = AcoustIDStandInServer.class.getResourceAsStream("/acoustid/" + fixture)) {
+            if (in == null) {
+                throw new IOException("No such fixture: " + fixture);
+            }
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        final JSONArray fingerprints = new JSONObject(body).getJSONArray(AcoustIDApiConstants.FINGERPRINTS_CODE);
+        final String[] results = new String[fingerprints.length()];
+        for (int i = 0; i < fingerprints.length(); i++) {
+            final JSONObject fingerprint = fingerprints.getJSONObject(i);
+            results[fingerprint.getInt(AcoustIDApiConstants.INDEX_CODE)] =
+                fingerprint.getJSONArray(AcoustIDApiConstants.RESULTS_CODE).toString();
+        }
+        fixtureResults.addAll(List.of(results));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final Map<String, String> form = readForm(exchange);
+
+            final long latency = behavior.latencyMillis()
+                + ThreadLocalRandom.current().nextLong(behavior.latencyJitterMillis() + 1);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            if (!admit()) {
+                requestsRateLimited.incrementAndGet();
+                respond(exchange, HTTP_TOO_MANY_REQUESTS, RATE_LIMIT_ERROR);
+            }
+            else if (ThreadLocalRandom.current().nextDouble() < behavior.errorRate()) {
+                errorsInjected.incrementAndGet();
+                respond(exchange, HTTP_SERVER_ERROR, SERVER_ERROR);
+            }
+            else {
+                respond(exchange, HTTP_OK, lookupResponse(form));
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts a request against the rate limit.
+     *
+     * @return whether the request is within the limit
+     */
+    private synchronized boolean admit() {
+        if (behavior.requestsPerSecond() <= 0) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        if (now - windowStartNanos >= NANOS_PER_SECOND) {
+            windowStartNanos = now;
+            requestsInWindow = 0;
+        }
+        requestsInWindow++;
+        return requestsInWindow <= behavior.requestsPerSecond();
+    }
+
+    private String lookupResponse(Map<String, String> form) {
+        final StringBuilder response = new StringBuilder("{\"fingerprints\": [");
+        int index = 0;
+        String fingerprint = form.get(AcoustIDApiConstants.FINGERPRINT_PARAM + index);
+        while (fingerprint != null) {
+            if (index > 0) {
+                response.append(", ");
+            }
+            response.append("{\"index\": ").append(index)
+                .append(", \"results\": ").append(fixtureResults.get(entryFor(fingerprint))).append('}');
+            index++;
+            fingerprint = form.get(AcoustIDApiConstants.FINGERPRINT_PARAM + index);
+        }
+        response.append("], \"status\": \"ok\"}");
+
+        requestsServed.incrementAndGet();
+        lookupsServed.addAndGet(index);
+        return response.toString();
+    }
+
+    private static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+
+        final Map<String, String> form = new HashMap<>();
+        final String encoded = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        for (String pair : encoded.split("&")) {
+            final int separator = pair.indexOf('=');
+            if (separator > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Tests AcoustID lookups end to end against a local stand-in replaying lookup_batch.json, whose
+ * entry 0 matches "High" and whose entries 1 and 2 have no recordings.
+ */
+public class AcoustIDStandInTest {
+    private static final int DURATION = 241;
+
+    private static String fingerprintFor(AcoustIDStandInServer server, int entry) {
+        int i = 0;
+        while (server.entryFor("fp-" + i) != entry) {
+            i++;
+        }
+        return "fp-" + i;
+    }
+
+    @Test
+    public void matchTest() throws IOException {
+        try (AcoustIDStandInServer server =
+                 new AcoustIDStandInServer("lookup_batch.json", AcoustIDStandInServer.Behavior.IMMEDIATE)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "test");
+
+            final Song.SongMetadata metadata = identifier.getClosestMatchMetadata(fingerprintFor(server, 0), DURATION);
+            assertEquals("high", metadata.acoustIDTrackID());
+            assertEquals("High", metadata.title());
+        }
+    }
+
+    @Test
+    public void unknownFingerprintTest() throws IOException {
+        try (AcoustIDStandInServer server =
+                 new AcoustIDStandInServer("lookup_batch.json", AcoustIDStandInServer.Behavior.IMMEDIATE)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "test");
+
+            assertThrows(IdentifyDAI.FingerprintUnknownException.class,
+                () -> identifier.getClosestMatchMetadata(fingerprintFor(server, 1), DURATION));
+            assertThrows(IdentifyDAI.FingerprintUnknownException.class,
+                () -> identifier.getClosestMatchMetadata(fingerprintFor(server, 2), DURATION));
+        }
+    }
+
+    @Test
+    public void serverErrorTest() throws IOException {
+        final AcoustIDStandInServer.Behavior failing = new AcoustIDStandInServer.Behavior(0, 0, 1.0, 0);
+        try (AcoustIDStandInServer server = new AcoustIDStandInServer("lookup_batch.json", failing)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "test");
+
+            final IdentifyDAI.FingerprintMatchNotFoundException exception =
+                assertThrows(IdentifyDAI.FingerprintMatchNotFoundException.class,
+                    () -> identifier.getClosestMatchMetadata(fingerprintFor(server, 0), DURATION));
+            assertTrue(exception.getMessage().contains("500"));
+            assertFalse(exception instanceof IdentifyDAI.FingerprintUnknownException);
+            assertEquals(1, server.getErrorsInjected());
+        }
+    }
+
+    @Test
+    public void concurrentLookupsAreBatchedTest() throws IOException {
+        final AcoustIDStandInServer.Behavior slow = new AcoustIDStandInServer.Behavior(20, 10, 0, 0);
+        try (AcoustIDStandInServer server = new AcoustIDStandInServer("lookup_batch.json", slow)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "test");
+
+            final int lookups = AcoustIDApiConstants.MAX_BATCH_SIZE * 2;
+            final List<CompletableFuture<Song.SongMetadata>> futures = new ArrayList<>();
+            for (int i = 0; i < lookups; i++) {
+                futures.add(identifier.getClosestMatchMetadataAsync("batched-" + i, DURATION));
+            }
+            for (CompletableFuture<Song.SongMetadata> future : futures) {
+                future.handle((metadata, error) -> null).join();
+            }
+
+            assertEquals(lookups, server.getLookupsServed());
+            assertTrue(server.getRequestsServed() < lookups);
+            assertEquals(lookups, identifier.getMetrics().lookupsSent());
+        }
+    }
+
+    @Test
+    public void interactiveLookupJumpsAheadOfBulkTest() throws IOException {
+        try (AcoustIDStandInServer server =
+                 new AcoustIDStandInServer("lookup_batch.json", AcoustIDStandInServer.Behavior.IMMEDIATE)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "test");
+
+            final List<CompletableFuture<Song.SongMetadata>> bulk = new ArrayList<>();
+            for (int i = 0; i < AcoustIDApiConstants.MAX_BATCH_SIZE * 4; i++) {
+                bulk.add(identifier.getClosestMatchMetadataAsync("bulk-" + i, DURATION, IdentifyDAI.Priority.BULK));
+            }
+            final CompletableFuture<Song.SongMetadata> interactive = identifier.getClosestMatchMetadataAsync(
+                fingerprintFor(server, 0), DURATION, IdentifyDAI.Priority.INTERACTIVE);
+
+            assertEquals("high", interactive.join().acoustIDTrackID());
+            assertTrue(bulk.stream().anyMatch(future -> !future.isDone()));
+            for (CompletableFuture<Song.SongMetadata> future : bulk) {
+                future.handle((metadata, error) -> null).join();
+            }
+        }
+    }
+
+    @Test
+    public void coalescedLookupMovesToMoreUrgentLaneTest() throws IOException {
+        try (AcoustIDStandInServer server =
+                 new AcoustIDStandInServer("lookup_batch.json", AcoustIDStandInServer.Behavior.IMMEDIATE)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "test");
+
+            final List<CompletableFuture<Song.SongMetadata>> bulk = new ArrayList<>();
+            for (int i = 0; i < AcoustIDApiConstants.MAX_BATCH_SIZE * 4; i++) {
+                bulk.add(identifier.getClosestMatchMetadataAsync("bulk-" + i, DURATION, IdentifyDAI.Priority.BULK));
+            }
+            final String last = "bulk-" + (bulk.size() - 1);
+            final CompletableFuture<Song.SongMetadata> interactive =
+                identifier.getClosestMatchMetadataAsync(last, DURATION, IdentifyDAI.Priority.INTERACTIVE);
+
+            interactive.handle((metadata, error) -> null).join();
+            bulk.get(bulk.size() - 1).handle((metadata, error) -> null).join();
+            assertTrue(bulk.stream().anyMatch(future -> !future.isDone()));
+            for (CompletableFuture<Song.SongMetadata> future : bulk) {
+                future.handle((metadata, error) -> null).join();
+            }
+            assertEquals(bulk.size(), server.getLookupsServed());
+        }
+    }
+}
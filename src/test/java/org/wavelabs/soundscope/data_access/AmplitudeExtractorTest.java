@@ -0,0 +1,200 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.AudioData;
+
+/**
+ * Tests for AmplitudeExtractor.
+ */
+public class AmplitudeExtractorTest {
+    private static final int FACTOR = AmplitudeExtractor.DOWNSAMPLE_FACTOR;
+
+    /**
+     * Stereo audio where the left channel of frame i is i and the right channel is -2i, wrapped
+     * to 16 bits.
+     */
+    private static byte[] stereo(int frames, ByteOrder order) {
+        final ByteBuffer pcm = ByteBuffer.allocate(frames * 4).order(order);
+        for (int i = 0; i < frames; i++) {
+            pcm.putShort((short) i).putShort((short) (-2 * i));
+        }
+        return pcm.array();
+    }
+
+    private static double[] expected(int frames) {
+        final double[] expected = new double[frames / FACTOR];
+        for (int i = 0; i < expected.length; i++) {
+            final int frame = i * FACTOR;
+            expected[i] = ((short) frame + (short) (-2 * frame)) / 2.0 / 32768.0;
+        }
+        return expected;
+    }
+
+    private static double[] extract(InputStream audio, AudioFormat format) throws Exception {
+        final AmplitudeExtractor extractor = new AmplitudeExtractor(format, -1);
+        extractor.extract(audio);
+        return extractor.toAudioData("test.wav").getAmplitudeSamples();
+    }
+
+    private static byte[] mono(short... samples) {
+        final ByteBuffer pcm = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : samples) {
+            pcm.putShort(sample);
+        }
+        return pcm.array();
+    }
+
+    @Test
+    public void keepsFirstFrameOfEachWindow() throws Exception {
+        final int frames = 3 * AmplitudeExtractor.BLOCK_FRAMES + 1000;
+        final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+
+        assertArrayEquals(expected(frames),
+            extract(new ByteArrayInputStream(stereo(frames, ByteOrder.LITTLE_ENDIAN)), format), 0);
+    }
+
+    @Test
+    public void readsBigEndianAudio() throws Exception {
+        final int frames = 10 * FACTOR;
+        final AudioFormat format = new AudioFormat(44100, 16, 2, true, true);
+
+        assertArrayEquals(expected(frames),
+            extract(new ByteArrayInputStream(stereo(frames, ByteOrder.BIG_ENDIAN)), format), 0);
+    }
+
+    @Test
+    public void shortReadsSplittingFramesGiveSameResult() throws Exception {
+        final int frames = 5 * FACTOR + 17;
+        final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+        // Hands out at most three bytes per read, so frames are split across reads
+        final InputStream trickle = new ByteArrayInputStream(stereo(frames, ByteOrder.LITTLE_ENDIAN)) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                return super.read(buffer, offset, Math.min(length, 3));
+            }
+        };
+
+        final AmplitudeExtractor extractor = new AmplitudeExtractor(format, frames);
+
+        assertEquals(frames, extractor.extract(trickle));
+        assertArrayEquals(expected(frames), extractor.toAudioData("test.wav").getAmplitudeSamples(), 0);
+    }
+
+    @Test
+    public void incompleteWindowAndPartialFrameAreDropped() throws Exception {
+        final AudioFormat format = new AudioFormat(44100, 16, 1, true, false);
+        final byte[] audio = new byte[(2 * FACTOR - 1) * 2 + 1];
+
+        final AmplitudeExtractor extractor = new AmplitudeExtractor(format, 0);
+
+        assertEquals(2 * FACTOR - 1, extractor.extract(new ByteArrayInputStream(audio)));
+        assertEquals(1, extractor.getCount());
+    }
+
+    @Test
+    public void summariesKeepPeaksBetweenAmplitudeSamples() {
+        final short[] samples = new short[2 * FACTOR];
+        // A single click in the middle of the first window, and a square wave in the second
+        samples[100] = Short.MIN_VALUE;
+        for (int i = FACTOR; i < 2 * FACTOR; i++) {
+            samples[i] = (short) (i % 2 == 0 ? 16384 : -16384);
+        }
+        final AmplitudeExtractor extractor = new AmplitudeExtractor(new AudioFormat(44100, 16, 1, true, false), 0);
+
+        extractor.accept(mono(samples), samples.length * 2);
+        final AudioData audioData = extractor.toAudioData("test.wav");
+
+        assertArrayEquals(new double[] {0, 0.5}, audioData.getAmplitudeSamples(), 0);
+        assertArrayEquals(new float[] {-1.0f, -0.5f}, audioData.getBlockMinimums(), 0);
+        assertArrayEquals(new float[] {0.0f, 0.5f}, audioData.getBlockMaximums(), 0);
+        assertArrayEquals(new float[] {(float) Math.sqrt(1.0 / FACTOR), 0.5f}, audioData.getBlockRms(), 1e-6f);
+    }
+
+    @Test
+    public void windowsSplitAcrossCallsGiveSameSummaries() {
+        final int frames = 3 * AmplitudeExtractor.BLOCK_FRAMES + 1000;
+        final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+        final byte[] audio = stereo(frames, ByteOrder.LITTLE_ENDIAN);
+
+        final AmplitudeExtractor whole = new AmplitudeExtractor(format, frames);
+        whole.accept(audio, audio.length);
+        final AmplitudeExtractor pieces = new AmplitudeExtractor(format, -1);
+        for (int offset = 0; offset < audio.length; offset += 4 * 999) {
+            final int length = Math.min(4 * 999, audio.length - offset);
+            pieces.accept(Arrays.copyOfRange(audio, offset, offset + length), length);
+        }
+
+        final AudioData expected = whole.toAudioData("test.wav");
+        final AudioData actual = pieces.toAudioData("test.wav");
+        assertEquals(frames / FACTOR, actual.getAmplitudeSamples().length);
+        assertArrayEquals(expected.getAmplitudeSamples(), actual.getAmplitudeSamples(), 0);
+        assertArrayEquals(expected.getBlockMinimums(), actual.getBlockMinimums(), 0);
+        assertArrayEquals(expected.getBlockMaximums(), actual.getBlockMaximums(), 0);
+        assertArrayEquals(expected.getBlockRms(), actual.getBlockRms(), 0);
+        assertEquals(frames * 1000L / 44100, actual.getDurationMillis());
+    }
+
+    @Test
+    public void snapshotsKeepTheirSamplesAsMoreAreRead() {
+        final int frames = 5000 * FACTOR;
+        final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+        final byte[] audio = stereo(frames, ByteOrder.LITTLE_ENDIAN);
+        final AmplitudeExtractor extractor = new AmplitudeExtractor(format, -1);
+
+        extractor.accept(audio, 10 * FACTOR * 4);
+        final AudioData early = extractor.snapshot("test.wav");
+        // Enough for the extractor to outgrow the arrays the snapshot shares
+        extractor.accept(Arrays.copyOfRange(audio, 10 * FACTOR * 4, audio.length), audio.length - 10 * FACTOR * 4);
+        final AudioData late = extractor.snapshot("test.wav");
+
+        assertEquals(10, early.getSampleCount());
+        assertArrayEquals(Arrays.copyOf(expected(frames), 10),
+            Arrays.copyOf(early.getAmplitudeSamples(), early.getSampleCount()), 0);
+        assertEquals(5000, late.getSampleCount());
+        assertArrayEquals(expected(frames), Arrays.copyOf(late.getAmplitudeSamples(), late.getSampleCount()), 0);
+        assertEquals(5000, extractor.toAudioData("test.wav").getAmplitudeSamples().length);
+    }
+
+    @Test
+    public void vectorAndScalarSummariesAgree() {
+        Assume.assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+        final Random random = new Random(3);
+        final int windows = 5;
+        final float[] samples = new float[windows * FACTOR];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextFloat() * 2 - 1;
+        }
+
+        final float[][] scalar = new float[3][windows + 1];
+        final float[][] vector = new float[3][windows + 1];
+        AmplitudeExtractor.summarize(samples, windows, scalar[0], scalar[1], scalar[2], 1, false);
+        AmplitudeExtractor.summarize(samples, windows, vector[0], vector[1], vector[2], 1, true);
+
+        assertArrayEquals(scalar[0], vector[0], 0);
+        assertArrayEquals(scalar[1], vector[1], 0);
+        // Only the order the squares are added in differs
+        assertArrayEquals(scalar[2], vector[2], 1e-5f);
+    }
+
+    @Test
+    public void rejectsOtherEncodings() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new AmplitudeExtractor(new AudioFormat(44100, 8, 1, true, false), 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new AmplitudeExtractor(new AudioFormat(44100, 16, 1, false, false), 0));
+    }
+}
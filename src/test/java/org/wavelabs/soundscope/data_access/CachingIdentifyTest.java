@@ -0,0 +1,96 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Tests for CachingIdentify, in front of an identifier that counts its lookups.
+ */
+public class CachingIdentifyTest {
+    private static final String KNOWN = "known fingerprint";
+    private static final String UNKNOWN = "unknown fingerprint";
+    private static final String FAILING = "failing fingerprint";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CountingIdentifyDAI remote;
+    private CachingIdentify identifier;
+
+    @Before
+    public void setup() throws IOException {
+        remote = new CountingIdentifyDAI();
+        identifier = new CachingIdentify(new IdentificationCache(folder.getRoot()), remote);
+    }
+
+    @Test
+    public void repeatLookupIsAnsweredFromCache() {
+        assertEquals("title", identifier.getClosestMatchMetadata(KNOWN, 100).title());
+        assertEquals("title", identifier.getClosestMatchMetadata(KNOWN, 100).title());
+        assertEquals("title", identifier.getClosestMatchMetadataAsync(KNOWN, 100).join().title());
+
+        assertEquals(1, remote.lookups);
+    }
+
+    @Test
+    public void differentDurationIsLookedUpAgain() {
+        identifier.getClosestMatchMetadata(KNOWN, 100);
+        identifier.getClosestMatchMetadata(KNOWN, 101);
+
+        assertEquals(2, remote.lookups);
+    }
+
+    @Test
+    public void missesAreCached() {
+        assertThrows(IdentifyDAI.FingerprintUnknownException.class,
+            () -> identifier.getClosestMatchMetadata(UNKNOWN, 100));
+        assertThrows(IdentifyDAI.FingerprintUnknownException.class,
+            () -> identifier.getClosestMatchMetadata(UNKNOWN, 100));
+        final CompletionException exception = assertThrows(CompletionException.class,
+            () -> identifier.getClosestMatchMetadataAsync(UNKNOWN, 100).join());
+
+        assertEquals(IdentifyDAI.FingerprintUnknownException.class, exception.getCause().getClass());
+        assertEquals(1, remote.lookups);
+    }
+
+    @Test
+    public void failuresAreNotCached() {
+        assertThrows(IdentifyDAI.FingerprintMatchNotFoundException.class,
+            () -> identifier.getClosestMatchMetadata(FAILING, 100));
+        assertThrows(IdentifyDAI.FingerprintMatchNotFoundException.class,
+            () -> identifier.getClosestMatchMetadata(FAILING, 100));
+
+        assertEquals(2, remote.lookups);
+    }
+
+    private static class CountingIdentifyDAI implements IdentifyDAI {
+        private int lookups;
+
+        @Override
+        public String getClosestMatchID(String fingerprint, int duration) {
+            return getClosestMatchMetadata(fingerprint, duration).acoustIDTrackID();
+        }
+
+        @Override
+        public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+            lookups++;
+            if (fingerprint.equals(UNKNOWN)) {
+                throw new FingerprintUnknownException(fingerprint);
+            }
+            if (fingerprint.equals(FAILING)) {
+                throw new FingerprintMatchNotFoundException(fingerprint);
+            }
+            return new Song.SongMetadata("title", "mbid", "track id", "album", new String[] {"artist"});
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchIdentifyResult;
+import org.wavelabs.soundscope.use_case.batch_identify.BatchJournal;
+
+/**
+ * Tests for the FileBatchJournal.
+ */
+public class FileBatchJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path journalFile() {
+        return folder.getRoot().toPath().resolve("report.jsonl.journal");
+    }
+
+    private String audioFile(String name, String contents) throws IOException {
+        final File file = folder.newFile(name);
+        Files.writeString(file.toPath(), contents);
+        return file.getPath();
+    }
+
+    private static BatchIdentifyResult identified(String path) {
+        return new BatchIdentifyResult(path, BatchIdentifyResult.Status.IDENTIFIED, 200, "AQAB", "Title",
+            new String[] {"A", "B"}, "Album", "track", "mbid", 0.75, null);
+    }
+
+    @Test
+    public void recordsAreRecoveredAfterReopening() throws IOException {
+        final String done = audioFile("done.wav", "done");
+        final String pending = audioFile("pending.wav", "pending");
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            assertTrue(journal.recovered().isEmpty());
+            journal.recordQueued(done, "AQAB", 200);
+            journal.recordQueued(pending, "AQAC", 100);
+            journal.recordCompleted(identified(done));
+        }
+
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            assertEquals(2, journal.recovered().size());
+
+            final BatchJournal.Entry pendingEntry = journal.recovered().get(pending);
+            assertEquals("AQAC", pendingEntry.fingerprint());
+            assertEquals(100, pendingEntry.durationSeconds());
+            assertNull(pendingEntry.result());
+
+            final BatchJournal.Entry doneEntry = journal.recovered().get(done);
+            assertNull(doneEntry.fingerprint());
+            final BatchIdentifyResult result = doneEntry.result();
+            assertEquals(BatchIdentifyResult.Status.IDENTIFIED, result.status());
+            assertNull(result.fingerprint());
+            assertEquals("Title", result.title());
+            assertArrayEquals(new String[] {"A", "B"}, result.artists());
+            assertEquals(0.75, result.score(), 0);
+            assertNull(result.error());
+        }
+    }
+
+    @Test
+    public void changedFilesAreNotRecovered() throws IOException {
+        final String path = audioFile("changed.wav", "before");
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            journal.recordQueued(path, "AQAB", 200);
+        }
+        Files.writeString(Path.of(path), "after the edit");
+
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            assertTrue(journal.recovered().isEmpty());
+        }
+    }
+
+    @Test
+    public void lineCutShortIsDropped() throws IOException {
+        final String first = audioFile("first.wav", "first");
+        final String second = audioFile("second.wav", "second");
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            journal.recordQueued(first, "AQAB", 200);
+        }
+        Files.write(journalFile(), "{\"type\":\"queued\",\"pa".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            assertEquals(1, journal.recovered().size());
+            journal.recordQueued(second, "AQAC", 100);
+        }
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            assertEquals(2, journal.recovered().size());
+        }
+    }
+
+    @Test
+    public void fingerprintIsWrittenOnce() throws IOException {
+        final String path = audioFile("done.wav", "done");
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            journal.recordQueued(path, "AQABfingerprint", 200);
+            journal.recordCompleted(identified(path));
+        }
+
+        final String contents = Files.readString(journalFile());
+        assertEquals(contents.indexOf("AQABfingerprint"), contents.lastIndexOf("AQABfingerprint"));
+    }
+
+    @Test
+    public void characterCutShortIsDropped() throws IOException {
+        final String first = audioFile("first.wav", "first");
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            journal.recordQueued(first, "AQAB", 200);
+        }
+        final long length = Files.size(journalFile());
+        // The first two bytes of a three-byte character
+        Files.write(journalFile(), new byte[] {'{', (byte) 0xE2, (byte) 0x82}, StandardOpenOption.APPEND);
+
+        try (FileBatchJournal journal = new FileBatchJournal(journalFile())) {
+            assertEquals(1, journal.recovered().size());
+        }
+        assertEquals(length, Files.size(journalFile()));
+    }
+
+    @Test
+    public void discardRemovesTheJournal() throws IOException {
+        final FileBatchJournal journal = new FileBatchJournal(journalFile());
+        journal.recordQueued(audioFile("a.wav", "a"), "AQAB", 200);
+        journal.discard();
+
+        assertFalse(Files.exists(journalFile()));
+        assertThrows(IOException.class, () -> journal.recordCompleted(identified("a.wav")));
+    }
+}
@@ -0,0 +1,77 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wavelabs.soundscope.interface_adapter.process_audio_file.ProcessAudioFileController;
+
+/**
+ * Tests for loading files into the FileDAO.
+ */
+public class FileDAOTest {
+    private static final AudioFormat FORMAT = new AudioFormat(8000, 16, 1, true, false);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File wav(String name, int frames) throws IOException {
+        final File file = new File(folder.getRoot(), name);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(new byte[frames * FORMAT.getFrameSize()]),
+            FORMAT, frames), AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+
+    @Test
+    public void openingFileDropsPreviousAudioBeforeItLoads() throws Exception {
+        final File first = wav("first.wav", 100);
+        final File second = wav("second.wav", 300);
+        final FileDAO fileDAO = new FileDAO(new PcmCache(PcmCache.DEFAULT_MAX_BYTES));
+        // Loads wait here, as they would behind the waveform pass
+        final Queue<Runnable> loads = new ArrayDeque<>();
+        final ProcessAudioFileController controller =
+            new ProcessAudioFileController(inputData -> { }, fileDAO, loads::add);
+
+        controller.execute(first);
+        loads.remove().run();
+        assertEquals(200, fileDAO.getAudioSamples().byteSize());
+
+        controller.execute(second);
+        assertFalse(fileDAO.hasAudioRecording());
+        assertNull(fileDAO.getAudioSamples());
+
+        loads.remove().run();
+        assertTrue(fileDAO.hasAudioRecording());
+        assertEquals(600, fileDAO.getAudioSamples().byteSize());
+    }
+
+    @Test
+    public void loadOfReplacedFileIsDropped() throws Exception {
+        final File first = wav("first.wav", 100);
+        final File second = wav("second.wav", 300);
+        final FileDAO fileDAO = new FileDAO(new PcmCache(PcmCache.DEFAULT_MAX_BYTES));
+
+        fileDAO.expectAudioFromFile(second);
+        // A load of the first file that was already under way when the second was opened
+        fileDAO.loadAudioFromFile(first);
+        assertNull(fileDAO.getAudioSamples());
+
+        fileDAO.loadAudioFromFile(second);
+        assertEquals(600, fileDAO.getAudioSamples().byteSize());
+    }
+}
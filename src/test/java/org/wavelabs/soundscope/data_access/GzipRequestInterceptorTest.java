@@ -0,0 +1,49 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import okhttp3.FormBody;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.GzipSource;
+
+/**
+ * Tests compression of AcoustID request bodies.
+ */
+public class GzipRequestInterceptorTest {
+    @Test
+    public void compressedBodyDecompressesToOriginal() throws IOException {
+        final FormBody.Builder form = new FormBody.Builder()
+            .add(AcoustIDApiConstants.CLIENT_PARAM, "key")
+            .add(AcoustIDApiConstants.METADATA_PARAM, AcoustIDApiConstants.METADATA_REQUEST);
+        for (int i = 0; i < AcoustIDApiConstants.MAX_BATCH_SIZE; i++) {
+            form.add(AcoustIDApiConstants.FINGERPRINT_PARAM + i, AcoustIDFingerprintLookupTest.fingerprint);
+            form.add(AcoustIDApiConstants.DURATION_PARAM + i,
+                Integer.toString(AcoustIDFingerprintLookupTest.testDuration));
+        }
+        final RequestBody original = form.build();
+
+        final RequestBody compressed = GzipRequestInterceptor.gzip(original);
+
+        final Buffer originalBytes = new Buffer();
+        original.writeTo(originalBytes);
+        final Buffer compressedBytes = new Buffer();
+        compressed.writeTo(compressedBytes);
+        assertEquals(compressed.contentLength(), compressedBytes.size());
+        final Buffer decompressed = new Buffer();
+        try (GzipSource source = new GzipSource(compressedBytes)) {
+            while (source.read(decompressed, Long.MAX_VALUE) != -1) {
+                // Drains the source
+            }
+        }
+
+        assertEquals(original.contentType(), compressed.contentType());
+        assertEquals(originalBytes.readByteString(), decompressed.readByteString());
+        assertTrue(compressed.contentLength() < original.contentLength() / 2);
+    }
+}
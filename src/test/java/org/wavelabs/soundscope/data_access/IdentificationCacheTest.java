@@ -0,0 +1,113 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wavelabs.soundscope.entity.Song;
+
+/**
+ * Tests for the IdentificationCache.
+ */
+public class IdentificationCacheTest {
+    private static final long TTL = 1000;
+    private static final long NEGATIVE_TTL = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now = 1_000_000;
+
+    private IdentificationCache open(int memoryEntries) throws IOException {
+        return new IdentificationCache(folder.getRoot(), memoryEntries, TTL, NEGATIVE_TTL, () -> now);
+    }
+
+    @Test
+    public void keyDependsOnFingerprintAndDuration() {
+        assertEquals(IdentificationCache.key("AQAB", 120), IdentificationCache.key("AQAB", 120));
+        assertNotEquals(IdentificationCache.key("AQAB", 120), IdentificationCache.key("AQAC", 120));
+        assertNotEquals(IdentificationCache.key("AQAB", 120), IdentificationCache.key("AQAB", 121));
+    }
+
+    @Test
+    public void returnsStoredMetadata() throws IOException {
+        try (IdentificationCache cache = open(10)) {
+            cache.put(1, metadata("first"));
+
+            final IdentificationCache.Entry entry = cache.get(1);
+            assertNotNull(entry);
+            assertFalse(entry.isNegative());
+            assertEquals("first", entry.metadata().title());
+            assertEquals(0.9, entry.metadata().score(), 1e-9);
+            assertNull(cache.get(2));
+        }
+    }
+
+    @Test
+    public void evictedEntriesAreReadFromDisk() throws IOException {
+        try (IdentificationCache cache = open(2)) {
+            for (int key = 0; key < 5; key++) {
+                cache.put(key, metadata("track " + key));
+            }
+
+            assertEquals(5, cache.size());
+            for (int key = 0; key < 5; key++) {
+                assertEquals("track " + key, cache.get(key).metadata().title());
+            }
+        }
+    }
+
+    @Test
+    public void entriesExpire() throws IOException {
+        try (IdentificationCache cache = open(10)) {
+            cache.put(1, metadata("first"));
+            cache.put(2, null);
+
+            now += NEGATIVE_TTL;
+            assertNotNull(cache.get(1));
+            assertNull(cache.get(2));
+
+            now += TTL;
+            assertNull(cache.get(1));
+        }
+    }
+
+    @Test
+    public void storesMisses() throws IOException {
+        try (IdentificationCache cache = open(10)) {
+            cache.put(1, null);
+
+            assertTrue(cache.get(1).isNegative());
+        }
+    }
+
+    @Test
+    public void persistsAcrossReopen() throws IOException {
+        try (IdentificationCache cache = open(10)) {
+            cache.put(1, metadata("old"));
+            cache.put(1, metadata("new"));
+            cache.put(2, null);
+            cache.put(3, metadata("expiring"));
+        }
+
+        now += NEGATIVE_TTL;
+        try (IdentificationCache cache = open(10)) {
+            assertEquals(2, cache.size());
+            assertEquals("new", cache.get(1).metadata().title());
+            assertNull(cache.get(2));
+            assertEquals("expiring", cache.get(3).metadata().title());
+        }
+    }
+
+    private static Song.SongMetadata metadata(String title) {
+        return new Song.SongMetadata(title, "mbid", "track id", "album", new String[] {"artist"}, 0.9);
+    }
+}
@@ -0,0 +1,124 @@
+package org.wavelabs.soundscope.data_access;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI.FingerprintMatchNotFoundException;
+
+/**
+ * Load test of AcoustID lookups against an {@link AcoustIDStandInServer}. A number of clients each
+ * look up distinct fingerprints one after another, so the identifier always has that many lookups
+ * outstanding, and the harness reports throughput, latency percentiles and lookup queue depth.
+ *
+ * <p>Run with {@code java -cp <test classpath> org.wavelabs.soundscope.data_access.IdentifyLoadHarness
+ * [clients] [lookups per client] [latency ms] [error rate] [server requests per second]}. The
+ * identifier's own pacing is set as usual, e.g. {@code -Dsoundscope.acoustid.requestsPerSecond=20}.</p>
+ */
+public final class IdentifyLoadHarness {
+    private static final String FIXTURE = "lookup_large.json";
+    private static final int DURATION = 200;
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+
+    private IdentifyLoadHarness() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args clients, lookups per client, latency in milliseconds, error rate, and server
+     *             requests per second, all optional
+     * @throws Exception if the stand-in cannot be started or a client thread is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        final int clients = intArg(args, 0, 32);
+        final int lookupsPerClient = intArg(args, 1, 20);
+        final long latencyMillis = intArg(args, 2, 50);
+        double errorRate = 0;
+        if (args.length > 3) {
+            errorRate = Double.parseDouble(args[3]);
+        }
+        final int serverRequestsPerSecond = intArg(args, 4, 0);
+
+        final AcoustIDStandInServer.Behavior behavior = new AcoustIDStandInServer.Behavior(
+            latencyMillis, latencyMillis / 2, errorRate, serverRequestsPerSecond);
+        try (AcoustIDStandInServer server = new AcoustIDStandInServer(FIXTURE, behavior)) {
+            final AcoustIDIdentify identifier = AcoustIDIdentify.forEndpoint(server.url(), "load-test");
+            run(identifier, server, clients, lookupsPerClient);
+        }
+    }
+
+    private static void run(AcoustIDIdentify identifier, AcoustIDStandInServer server, int clients,
+                            int lookupsPerClient) throws InterruptedException {
+        final long[] latencies = new long[clients * lookupsPerClient];
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        final AtomicLong queueSamples = new AtomicLong();
+        final AtomicLong queueDepthTotal = new AtomicLong();
+        final AtomicInteger maxQueueDepth = new AtomicInteger();
+        final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            final int depth = identifier.getMetrics().queuedLookups();
+            queueSamples.incrementAndGet();
+            queueDepthTotal.addAndGet(depth);
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        final List<Thread> threads = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            final int first = client * lookupsPerClient;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = first; i < first + lookupsPerClient; i++) {
+                    final long lookupStart = System.nanoTime();
+                    try {
+                        identifier.getClosestMatchMetadata("load-" + i, DURATION);
+                        completed.incrementAndGet();
+                    }
+                    catch (FingerprintMatchNotFoundException exception) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - lookupStart;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        sampler.shutdownNow();
+
+        Arrays.sort(latencies);
+        final LookupMetrics metrics = identifier.getMetrics();
+        System.out.printf("clients %d, lookups %d (%d answered, %d failed) in %.2f s%n",
+            clients, latencies.length, completed.get(), failed.get(), elapsedSeconds);
+        System.out.printf("throughput %.1f lookups/s, %.1f requests/s%n",
+            latencies.length / elapsedSeconds, metrics.requestsSent() / elapsedSeconds);
+        System.out.printf("latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+            percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.90),
+            percentileMillis(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+        System.out.printf("queue depth mean %.1f, max %d; queue wait mean %.1f ms, max %.1f ms%n",
+            (double) queueDepthTotal.get() / Math.max(1, queueSamples.get()), maxQueueDepth.get(),
+            metrics.averageQueueWaitMillis(), metrics.maxQueueWaitMillis());
+        System.out.printf("server: %d requests answered, %d rate limited, %d errors injected%n",
+            server.getRequestsServed(), server.getRequestsRateLimited(), server.getErrorsInjected());
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static int intArg(String[] args, int index, int fallback) {
+        if (args.length > index) {
+            return Integer.parseInt(args[index]);
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,156 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wavelabs.soundscope.entity.Song;
+
+/**
+ * Tests for the LocalFingerprintIndex.
+ */
+public class LocalFingerprintIndexTest {
+    private static final int TRACK_LENGTH = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void findsExcerptOfIndexedTrack() throws IOException {
+        final int[] first = randomTrack();
+        final int[] second = randomTrack();
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(folder.getRoot())) {
+            index.add(first, metadata("first"));
+            index.add(second, metadata("second"));
+
+            final LocalFingerprintIndex.Match match = index.lookup(Arrays.copyOfRange(second, 300, 500));
+            assertNotNull(match);
+            assertEquals("second", match.metadata().title());
+            assertArrayEquals(new String[] {"artist"}, match.metadata().artists());
+            assertEquals(1.0, match.similarity(), 1e-9);
+            assertEquals(1.0, match.coverage(), 1e-9);
+        }
+    }
+
+    @Test
+    public void keepsScoreTrackWasIdentifiedWith() throws IOException {
+        final int[] track = randomTrack();
+        final File directory = folder.getRoot();
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(directory)) {
+            index.add(track, new Song.SongMetadata("scored", "mbid", "acoustid", "album",
+                new String[] {"artist"}, 0.93));
+        }
+
+        try (LocalFingerprintIndex reopened = new LocalFingerprintIndex(directory)) {
+            final LocalFingerprintIndex.Match match = reopened.lookup(Arrays.copyOfRange(track, 100, 300));
+            assertEquals(0.93, match.metadata().score(), 1e-9);
+            assertEquals(1.0, match.similarity(), 1e-9);
+        }
+    }
+
+    @Test
+    public void missesQueryMostlyPastEndOfTrack() throws IOException {
+        final int[] track = randomTrack();
+        // The last 100 sub-fingerprints of the track, then 150 of something else
+        final int[] query = Arrays.copyOf(Arrays.copyOfRange(track, TRACK_LENGTH - 100, TRACK_LENGTH), 250);
+        final int[] other = randomTrack();
+        System.arraycopy(other, 0, query, 100, 150);
+
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(folder.getRoot())) {
+            index.add(track, metadata("track"));
+            assertNull(index.lookup(query));
+        }
+    }
+
+    @Test
+    public void findsNoisyExcerpt() throws IOException {
+        final int[] track = randomTrack();
+        final int[] query = Arrays.copyOfRange(track, 100, 340);
+        // Flip a couple of bits in most sub-fingerprints, as a re-recording would
+        for (int i = 0; i < query.length; i++) {
+            if (i % 4 != 0) {
+                query[i] ^= 1 << random.nextInt(Integer.SIZE);
+            }
+        }
+
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(folder.getRoot())) {
+            index.add(track, metadata("noisy"));
+            final LocalFingerprintIndex.Match match = index.lookup(query);
+            assertNotNull(match);
+            assertEquals("noisy", match.metadata().title());
+            assertTrue(match.similarity() < 1.0);
+        }
+    }
+
+    @Test
+    public void missesUnknownAudio() throws IOException {
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(folder.getRoot())) {
+            index.add(randomTrack(), metadata("known"));
+            assertNull(index.lookup(Arrays.copyOf(randomTrack(), 200)));
+        }
+    }
+
+    @Test
+    public void persistsAcrossReopen() throws IOException {
+        final File directory = folder.getRoot();
+        final int[] merged = randomTrack();
+        final int[] pending = randomTrack();
+
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(directory)) {
+            index.add(merged, metadata("merged"));
+        }
+
+        // The second track is never flushed into the postings file, only appended to the track store
+        final LocalFingerprintIndex writer = new LocalFingerprintIndex(directory);
+        writer.add(pending, metadata("pending"));
+
+        try (LocalFingerprintIndex reopened = new LocalFingerprintIndex(directory)) {
+            assertEquals(2, reopened.size());
+            assertEquals("merged", reopened.lookup(Arrays.copyOfRange(merged, 0, 200)).metadata().title());
+            assertEquals("pending", reopened.lookup(Arrays.copyOfRange(pending, 700, 900)).metadata().title());
+        }
+        writer.close();
+    }
+
+    @Test
+    public void lookupSpansFlushedAndPendingTracks() throws IOException {
+        final int[] first = randomTrack();
+        final int[] second = randomTrack();
+        try (LocalFingerprintIndex index = new LocalFingerprintIndex(folder.getRoot())) {
+            index.add(first, metadata("first"));
+            index.flush();
+            index.add(second, metadata("second"));
+
+            assertEquals("first", index.lookup(Arrays.copyOfRange(first, 500, 700)).metadata().title());
+            assertEquals("second", index.lookup(Arrays.copyOfRange(second, 500, 700)).metadata().title());
+
+            // The second track is read from the mapping once flushed
+            index.flush();
+            assertEquals("second", index.lookup(Arrays.copyOfRange(second, 500, 700)).metadata().title());
+        }
+    }
+
+    private int[] randomTrack() {
+        final int[] track = new int[TRACK_LENGTH];
+        for (int i = 0; i < track.length; i++) {
+            track[i] = random.nextInt();
+        }
+        return track;
+    }
+
+    private static Song.SongMetadata metadata(String title) {
+        return new Song.SongMetadata(title, "mbid-" + title, "acoustid-" + title, "album", new String[] {"artist"});
+    }
+}
@@ -0,0 +1,157 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for MappedWavFile. The WAV files are put together chunk by chunk, so the tests control
+ * exactly which chunks the parser sees.
+ */
+public class MappedWavFileTest {
+    private static final int SAMPLE_RATE = 22050;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] chunk(String id, byte[] body) {
+        final ByteBuffer chunk = ByteBuffer.allocate(8 + body.length + (body.length & 1))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        chunk.put(id.getBytes(StandardCharsets.US_ASCII)).putInt(body.length).put(body);
+        return chunk.array();
+    }
+
+    private static byte[] fmt(int formatTag, int channels, int bitsPerSample) {
+        return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+            .putShort((short) formatTag)
+            .putShort((short) channels)
+            .putInt(SAMPLE_RATE)
+            .putInt(SAMPLE_RATE * channels * bitsPerSample / 8)
+            .putShort((short) (channels * bitsPerSample / 8))
+            .putShort((short) bitsPerSample)
+            .array();
+    }
+
+    private static byte[] extensibleFmt(int channels, int subFormat) {
+        return ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN)
+            .put(fmt(0xFFFE, channels, 16), 0, 16)
+            .putShort((short) 22)
+            .putShort((short) 16)
+            .putInt(channels == 2 ? 3 : 4)
+            .putShort((short) subFormat)
+            .array();
+    }
+
+    private static byte[] samples(int length) {
+        final byte[] samples = new byte[length];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (byte) (i * 13);
+        }
+        return samples;
+    }
+
+    private File wav(byte[]... chunks) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes("WAVE".getBytes(StandardCharsets.US_ASCII));
+        for (byte[] chunk : chunks) {
+            body.writeBytes(chunk);
+        }
+        final File file = folder.newFile();
+        Files.write(file.toPath(), chunk("RIFF", body.toByteArray()));
+        return file;
+    }
+
+    @Test
+    public void mapsDataChunk() throws Exception {
+        final PcmCache.DecodedPcm mapped = MappedWavFile.map(wav(chunk("fmt ", fmt(1, 2, 16)),
+            chunk("data", samples(4000))));
+
+        assertNotNull(mapped);
+        final AudioFormat format = mapped.format();
+        assertEquals(SAMPLE_RATE, format.getSampleRate(), 0);
+        assertEquals(2, format.getChannels());
+        assertEquals(AudioFormat.Encoding.PCM_SIGNED, format.getEncoding());
+        assertFalse(format.isBigEndian());
+        assertEquals(1000, mapped.frameLength());
+        assertArrayEquals(samples(4000), mapped.samples().toArray(ValueLayout.JAVA_BYTE));
+    }
+
+    @Test
+    public void skipsOtherChunksIncludingPadding() throws Exception {
+        final PcmCache.DecodedPcm mapped = MappedWavFile.map(wav(chunk("JUNK", new byte[3]),
+            chunk("fmt ", fmt(1, 1, 16)), chunk("LIST", "INFOsoundscope".getBytes(StandardCharsets.US_ASCII)),
+            chunk("data", samples(200)), chunk("id3 ", new byte[10])));
+
+        assertNotNull(mapped);
+        assertArrayEquals(samples(200), mapped.samples().toArray(ValueLayout.JAVA_BYTE));
+    }
+
+    @Test
+    public void mapsExtensiblePcm() throws Exception {
+        final PcmCache.DecodedPcm mapped = MappedWavFile.map(wav(chunk("fmt ", extensibleFmt(2, 1)),
+            chunk("data", samples(400))));
+
+        assertNotNull(mapped);
+        assertEquals(100, mapped.frameLength());
+    }
+
+    @Test
+    public void dataSizePastEndOfFileIsCutToWholeFrames() throws Exception {
+        final byte[] data = chunk("data", samples(4000));
+        final File file = wav(chunk("fmt ", fmt(1, 2, 16)), Arrays.copyOf(data, data.length - 1002));
+
+        final PcmCache.DecodedPcm mapped = MappedWavFile.map(file);
+
+        assertNotNull(mapped);
+        assertEquals(749, mapped.frameLength());
+        assertEquals(2996, mapped.samples().byteSize());
+    }
+
+    @Test
+    public void unsetDataSizeRunsToEndOfFile() throws Exception {
+        final byte[] data = chunk("data", samples(400));
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(4, -1);
+
+        final PcmCache.DecodedPcm mapped = MappedWavFile.map(wav(chunk("fmt ", fmt(1, 1, 16)), data));
+
+        assertNotNull(mapped);
+        assertEquals(200, mapped.frameLength());
+    }
+
+    @Test
+    public void otherEncodingsAreNotMapped() throws Exception {
+        assertNull(MappedWavFile.map(wav(chunk("fmt ", fmt(1, 1, 8)), chunk("data", samples(100)))));
+        assertNull(MappedWavFile.map(wav(chunk("fmt ", fmt(1, 1, 24)), chunk("data", samples(300)))));
+        assertNull(MappedWavFile.map(wav(chunk("fmt ", fmt(3, 1, 32)), chunk("data", samples(400)))));
+        assertNull(MappedWavFile.map(wav(chunk("fmt ", extensibleFmt(2, 3)), chunk("data", samples(400)))));
+    }
+
+    @Test
+    public void malformedFilesAreNotMapped() throws Exception {
+        assertNull(MappedWavFile.map(wav(chunk("data", samples(100)), chunk("fmt ", fmt(1, 1, 16)))));
+        assertNull(MappedWavFile.map(wav(chunk("fmt ", fmt(1, 1, 16)))));
+
+        final File notWav = folder.newFile();
+        Files.writeString(notWav.toPath(), "not a wav file");
+        assertNull(MappedWavFile.map(notWav));
+        assertNull(MappedWavFile.map(folder.newFile()));
+    }
+}
@@ -0,0 +1,297 @@
+package org.wavelabs.soundscope.data_access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the PcmCache.
+ */
+public class PcmCacheTest {
+    private static final float SAMPLE_RATE = 8000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] pcm(int length) {
+        final byte[] pcm = new byte[length];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (byte) (i * 7);
+        }
+        return pcm;
+    }
+
+    /**
+     * Writes a mono WAV file. 8-bit files have to be decoded; 16-bit ones are mapped.
+     */
+    private File wav(String name, int frames, int bitDepth) throws IOException {
+        final AudioFormat format = new AudioFormat(SAMPLE_RATE, bitDepth, 1, bitDepth > 8, false);
+        final byte[] pcm = pcm(frames * format.getFrameSize());
+        final File file = new File(folder.getRoot(), name);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), format, frames),
+            AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+
+    @Test
+    public void fileIsDecodedOnce() throws Exception {
+        final File file = wav("a.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+
+        try (PcmCache.Lease first = cache.acquire(file);
+             PcmCache.Lease second = cache.acquire(file)) {
+            assertSame(first.decoded(), second.decoded());
+            assertEquals(1000, first.decoded().frameLength());
+            assertEquals(2000, first.decoded().samples().byteSize());
+        }
+        try (PcmCache.Lease third = cache.acquire(file)) {
+            assertEquals(2000, third.decoded().samples().byteSize());
+        }
+
+        assertEquals(1, cache.getDecodes());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void audioIsDecodedTo16BitLittleEndian() throws Exception {
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+        try (PcmCache.Lease lease = cache.acquire(wav("eight.wav", 500, 8))) {
+            final AudioFormat format = lease.decoded().format();
+            assertEquals(16, format.getSampleSizeInBits());
+            assertEquals(AudioFormat.Encoding.PCM_SIGNED, format.getEncoding());
+            assertEquals(false, format.isBigEndian());
+            assertFalse(lease.decoded().mapped());
+            assertEquals(1000, lease.decoded().samples().byteSize());
+        }
+    }
+
+    @Test
+    public void changedFileIsDecodedAgain() throws Exception {
+        final File file = wav("a.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+        final PcmCache.DecodedPcm before;
+        try (PcmCache.Lease lease = cache.acquire(file)) {
+            before = lease.decoded();
+        }
+
+        Files.delete(file.toPath());
+        wav("a.wav", 1500, 8);
+        try (PcmCache.Lease lease = cache.acquire(file)) {
+            assertNotSame(before, lease.decoded());
+            assertEquals(3000, lease.decoded().samples().byteSize());
+        }
+        assertEquals(2, cache.getDecodes());
+        assertEquals(3000, cache.getResidentBytes());
+    }
+
+    @Test
+    public void unusedFilesAreEvictedOverBudget() throws Exception {
+        final File a = wav("a.wav", 1000, 8);
+        final File b = wav("b.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(3000);
+
+        final PcmCache.Lease heldA = cache.acquire(a);
+        try (PcmCache.Lease leaseB = cache.acquire(b)) {
+            // Both in use, so both stay despite the budget
+            assertEquals(4000, cache.getResidentBytes());
+        }
+        assertEquals(2000, cache.getResidentBytes());
+
+        cache.acquire(a).close();
+        assertEquals(1, cache.getHits());
+        heldA.close();
+        heldA.close();
+
+        cache.acquire(b).close();
+        assertEquals(3, cache.getDecodes());
+        assertEquals(2000, cache.getResidentBytes());
+    }
+
+    @Test
+    public void fileTooBigForBudgetIsKeptWhileLastUsed() throws Exception {
+        final File a = wav("a.wav", 1000, 8);
+        final File b = wav("b.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(1000);
+
+        cache.acquire(a).close();
+        assertEquals(2000, cache.getResidentBytes());
+        cache.acquire(a).close();
+        assertEquals(1, cache.getHits());
+
+        cache.acquire(b).close();
+        assertEquals(2000, cache.getResidentBytes());
+        cache.acquire(a).close();
+        assertEquals(3, cache.getDecodes());
+    }
+
+    @Test
+    public void readerSeesSamplesAsTheyAreDecoded() throws Exception {
+        final File file = wav("a.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+        final List<byte[]> read = new ArrayList<>();
+
+        try (PcmCache.Lease lease = cache.acquire(file, (pcm, format, frameLength) -> {
+            assertEquals(16, format.getSampleSizeInBits());
+            assertEquals(1000, frameLength);
+            // The cache reads whatever is left
+            read.add(pcm.readNBytes(500));
+        })) {
+            assertEquals(1, read.size());
+            final byte[] samples = lease.decoded().samples().toArray(ValueLayout.JAVA_BYTE);
+            assertEquals(2000, samples.length);
+            assertArrayEquals(Arrays.copyOf(samples, 500), read.get(0));
+        }
+        try (PcmCache.Lease lease = cache.acquire(file, (pcm, format, frameLength) -> read.add(null))) {
+            assertEquals(2000, lease.decoded().samples().byteSize());
+        }
+
+        assertEquals(1, read.size());
+        assertEquals(1, cache.getDecodes());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void readerCanStopTheDecode() throws Exception {
+        final File file = wav("a.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+
+        assertThrows(CancellationException.class, () -> cache.acquire(file, (pcm, format, frameLength) -> {
+            throw new CancellationException();
+        }));
+        assertEquals(0, cache.getResidentBytes());
+
+        try (PcmCache.Lease lease = cache.acquire(file)) {
+            assertEquals(2000, lease.decoded().samples().byteSize());
+        }
+        assertEquals(2, cache.getDecodes());
+    }
+
+    @Test
+    public void errorWhileDecodingIsNotCached() throws Exception {
+        final File file = wav("a.wav", 1000, 8);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+
+        assertThrows(OutOfMemoryError.class, () -> cache.acquire(file, (pcm, format, frameLength) -> {
+            throw new OutOfMemoryError();
+        }));
+        assertEquals(0, cache.getResidentBytes());
+
+        // The failed entry is gone, so this decodes again instead of waiting on it forever
+        try (PcmCache.Lease lease = cache.acquire(file)) {
+            assertEquals(2000, lease.decoded().samples().byteSize());
+        }
+        assertEquals(2, cache.getDecodes());
+    }
+
+    @Test
+    public void concurrentRequestsShareOneDecode() throws Exception {
+        final File file = wav("a.wav", 100_000, 8);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<PcmCache.DecodedPcm> decoded = new ArrayList<>();
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    try (PcmCache.Lease lease = cache.acquire(file)) {
+                        synchronized (decoded) {
+                            decoded.add(lease.decoded());
+                        }
+                    }
+                }
+                catch (Exception exception) {
+                    throw new AssertionError(exception);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, cache.getDecodes());
+        assertEquals(4, decoded.size());
+        assertTrue(decoded.stream().allMatch(pcm -> pcm == decoded.get(0)));
+    }
+
+    @Test
+    public void pcmWavIsMappedInsteadOfDecoded() throws Exception {
+        final File file = wav("a.wav", 1000, 16);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+
+        try (PcmCache.Lease lease = cache.acquire(file)) {
+            final PcmCache.DecodedPcm decoded = lease.decoded();
+            assertTrue(decoded.mapped());
+            assertTrue(decoded.samples().isNative());
+            assertTrue(decoded.samples().isReadOnly());
+            assertEquals(1000, decoded.frameLength());
+            assertArrayEquals(pcm(2000), decoded.samples().toArray(ValueLayout.JAVA_BYTE));
+            assertEquals(0, cache.getResidentBytes());
+        }
+
+        // Unused mappings are dropped and simply mapped again
+        cache.acquire(file).close();
+        assertEquals(2, cache.getDecodes());
+    }
+
+    @Test
+    public void acquireWithoutDecodingOnlyTakesCachedOrMappedFiles() throws Exception {
+        final File encoded = wav("eight.wav", 1000, 8);
+        final File pcm = wav("sixteen.wav", 1000, 16);
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+
+        assertNull(cache.acquireWithoutDecoding(encoded));
+        assertEquals(0, cache.getDecodes());
+
+        try (PcmCache.Lease mapped = cache.acquireWithoutDecoding(pcm)) {
+            assertTrue(mapped.decoded().mapped());
+        }
+        try (PcmCache.Lease decoded = cache.acquire(encoded);
+             PcmCache.Lease cached = cache.acquireWithoutDecoding(encoded)) {
+            assertSame(decoded.decoded(), cached.decoded());
+        }
+        assertEquals(2, cache.getDecodes());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void unreadableFileIsNotCached() throws Exception {
+        final File notAudio = folder.newFile("notes.wav");
+        Files.writeString(notAudio.toPath(), "not audio");
+        final PcmCache cache = new PcmCache(PcmCache.DEFAULT_MAX_BYTES);
+
+        assertThrows(UnsupportedAudioFileException.class, () -> cache.acquire(notAudio));
+        assertThrows(UnsupportedAudioFileException.class, () -> cache.acquire(notAudio));
+        assertEquals(2, cache.getDecodes());
+        assertEquals(0, cache.getResidentBytes());
+    }
+}
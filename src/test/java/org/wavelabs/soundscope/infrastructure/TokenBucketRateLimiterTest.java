@@ -0,0 +1,82 @@
+package org.wavelabs.soundscope.infrastructure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+/**
+ * Tests the token bucket against a fake clock.
+ */
+public class TokenBucketRateLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private long now;
+
+    private TokenBucketRateLimiter limiter(double permitsPerSecond, int burst) {
+        return new TokenBucketRateLimiter(permitsPerSecond, burst, () -> now);
+    }
+
+    @Test
+    public void burstIsAvailableImmediately() {
+        final TokenBucketRateLimiter limiter = limiter(2, 3);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 2, limiter.reserve());
+    }
+
+    @Test
+    public void waitingCallersAreSpacedOut() {
+        final TokenBucketRateLimiter limiter = limiter(4, 1);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 4, limiter.reserve());
+        assertEquals(SECOND / 2, limiter.reserve());
+    }
+
+    @Test
+    public void refillIsCappedAtBurst() {
+        final TokenBucketRateLimiter limiter = limiter(10, 2);
+        limiter.reserve();
+        limiter.reserve();
+
+        now += 60 * SECOND;
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 10, limiter.reserve());
+    }
+
+    @Test
+    public void permitsAccrueWhileIdle() {
+        final TokenBucketRateLimiter limiter = limiter(1, 1);
+        limiter.reserve();
+
+        now += SECOND / 4;
+
+        assertEquals(SECOND * 3 / 4, limiter.reserve());
+    }
+
+    @Test
+    public void metricsCountPermitsAndWaits() {
+        final TokenBucketRateLimiter limiter = limiter(2, 1);
+        limiter.reserve();
+        limiter.reserve();
+        limiter.reserve();
+
+        final TokenBucketRateLimiter.Metrics metrics = limiter.getMetrics();
+        assertEquals(3, metrics.permitsAcquired());
+        assertEquals(SECOND / 2 + SECOND, metrics.totalWaitNanos());
+        assertEquals(SECOND, metrics.maxWaitNanos());
+        assertEquals(-2, metrics.availablePermits(), 1e-9);
+        assertEquals(500, metrics.averageWaitMillis(), 1e-9);
+    }
+
+    @Test
+    public void rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> limiter(1, 0));
+    }
+}
@@ -0,0 +1,113 @@
+package org.wavelabs.soundscope.infrastructure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+/**
+ * Tests the order items come out of a weighted fair queue.
+ */
+public class WeightedFairQueueTest {
+    private static int[] takeLanes(WeightedFairQueue<Integer> queue, int count) {
+        final int[] taken = new int[2];
+        for (int i = 0; i < count; i++) {
+            taken[queue.poll()]++;
+        }
+        return taken;
+    }
+
+    @Test
+    public void lanesAreFirstInFirstOut() {
+        final WeightedFairQueue<String> queue = new WeightedFairQueue<>(1);
+        queue.add(0, "a");
+        queue.add(0, "b");
+        queue.add(0, "c");
+
+        assertEquals("a", queue.poll());
+        assertEquals("b", queue.poll());
+        assertEquals("c", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void busyLanesShareByWeight() {
+        final WeightedFairQueue<Integer> queue = new WeightedFairQueue<>(3, 1);
+        for (int i = 0; i < 40; i++) {
+            queue.add(0, 0);
+            queue.add(1, 1);
+        }
+
+        final int[] taken = takeLanes(queue, 40);
+        assertEquals(30, taken[0]);
+        assertEquals(10, taken[1]);
+        assertEquals(40, queue.size());
+    }
+
+    @Test
+    public void lightLaneIsNotStarved() {
+        final WeightedFairQueue<Integer> queue = new WeightedFairQueue<>(100, 1);
+        for (int i = 0; i < 500; i++) {
+            queue.add(0, 0);
+        }
+        queue.add(1, 1);
+
+        final int[] taken = takeLanes(queue, 102);
+        assertEquals(1, taken[1]);
+        assertEquals(0, queue.size(1));
+    }
+
+    @Test
+    public void newlyBusyLaneGoesNext() {
+        final WeightedFairQueue<Integer> queue = new WeightedFairQueue<>(16, 1);
+        for (int i = 0; i < 10; i++) {
+            queue.add(1, 1);
+        }
+        takeLanes(queue, 5);
+
+        queue.add(0, 0);
+        assertEquals(Integer.valueOf(0), queue.poll());
+    }
+
+    @Test
+    public void idleLaneDoesNotSaveUpItsShare() {
+        final WeightedFairQueue<Integer> queue = new WeightedFairQueue<>(1, 1);
+        for (int i = 0; i < 20; i++) {
+            queue.add(1, 1);
+        }
+        takeLanes(queue, 10);
+
+        for (int i = 0; i < 10; i++) {
+            queue.add(0, 0);
+        }
+        // Had lane 0 kept its pass from the start, it would take all ten
+        final int[] taken = takeLanes(queue, 10);
+        assertEquals(6, taken[0]);
+        assertEquals(4, taken[1]);
+    }
+
+    @Test
+    public void takeWaitsForAnItem() throws InterruptedException {
+        final WeightedFairQueue<String> queue = new WeightedFairQueue<>(1, 1);
+        final Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException exception) {
+                return;
+            }
+            queue.add(1, "late");
+        });
+        producer.start();
+
+        assertEquals("late", queue.take());
+        producer.join();
+    }
+
+    @Test
+    public void weightsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightedFairQueue<String>(2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new WeightedFairQueue<String>());
+    }
+}
@@ -0,0 +1,332 @@
+package org.wavelabs.soundscope.use_case.batch_identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprinterPool;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+public class BatchIdentifyInteractorTest {
+    private static final int KNOWN_DURATION = 10;
+    private static final int UNKNOWN_DURATION = 11;
+
+    @Test
+    public void everyFileIsReportedOnce() {
+        final MockBatchIdentifyDAI dai = new MockBatchIdentifyDAI();
+        for (int i = 0; i < 6; i++) {
+            dai.addFile("known" + i + ".wav", KNOWN_DURATION);
+        }
+        for (int i = 0; i < 3; i++) {
+            dai.addFile("unknown" + i + ".wav", UNKNOWN_DURATION);
+        }
+        dai.addFile("broken.wav", -1);
+
+        final MockBatchIdentifyPresenter presenter = new MockBatchIdentifyPresenter();
+        try (FingerprinterPool pool = new FingerprinterPool(2)) {
+            final BatchIdentifyInteractor interactor =
+                new BatchIdentifyInteractor(dai, new MockIdentifyDAI(), pool, presenter, 2, 2);
+            interactor.execute(new BatchIdentifyID(new File("library"), new File("report.jsonl")));
+        }
+
+        assertNull(presenter.errorMessage);
+        assertNotNull(presenter.complete);
+        assertEquals(10, presenter.complete.totalFiles());
+        assertEquals(6, presenter.complete.identified());
+        assertEquals(3, presenter.complete.notFound());
+        assertEquals(1, presenter.complete.failed());
+
+        assertTrue(dai.report.closed);
+        assertEquals(10, dai.report.results.size());
+        for (BatchIdentifyResult result : dai.report.results) {
+            if (result.path().startsWith("known")) {
+                assertEquals(BatchIdentifyResult.Status.IDENTIFIED, result.status());
+                assertEquals("test title", result.title());
+                assertNotNull(result.fingerprint());
+            }
+            else if (result.path().startsWith("unknown")) {
+                assertEquals(BatchIdentifyResult.Status.NOT_FOUND, result.status());
+            }
+            else {
+                assertEquals(BatchIdentifyResult.Status.FAILED, result.status());
+                assertNull(result.fingerprint());
+            }
+        }
+    }
+
+    @Test
+    public void resumedBatchSkipsJournaledWork() {
+        final MockBatchIdentifyDAI dai = new MockBatchIdentifyDAI();
+        for (int i = 0; i < 4; i++) {
+            dai.addFile("known" + i + ".wav", KNOWN_DURATION);
+        }
+        dai.addFile("unknown0.wav", UNKNOWN_DURATION);
+        dai.journal.recovered.put("known0.wav", new BatchJournal.Entry("fp0", KNOWN_DURATION,
+            new BatchIdentifyResult("known0.wav", BatchIdentifyResult.Status.IDENTIFIED, KNOWN_DURATION, "fp0",
+                "journaled title", new String[] {"test artist"}, "test album", "track id", "mbid", 0.9, null)));
+        dai.journal.recovered.put("known1.wav", new BatchJournal.Entry("fp1", KNOWN_DURATION, null));
+
+        final MockBatchIdentifyPresenter presenter = new MockBatchIdentifyPresenter();
+        try (FingerprinterPool pool = new FingerprinterPool(2)) {
+            new BatchIdentifyInteractor(dai, new MockIdentifyDAI(), pool, presenter, 2, 2)
+                .execute(new BatchIdentifyID(new File("library"), new File("report.jsonl")));
+        }
+
+        assertNull(presenter.errorMessage);
+        assertEquals(4, presenter.complete.identified());
+        assertEquals(1, presenter.complete.notFound());
+        assertFalse(dai.decoded.contains("known0.wav"));
+        assertFalse(dai.decoded.contains("known1.wav"));
+        assertEquals(3, dai.decoded.size());
+
+        final Map<String, BatchIdentifyResult> reported = new HashMap<>();
+        for (BatchIdentifyResult result : dai.report.results) {
+            reported.put(result.path(), result);
+        }
+        assertEquals(5, reported.size());
+        assertEquals("journaled title", reported.get("known0.wav").title());
+        assertEquals("fp1", reported.get("known1.wav").fingerprint());
+        assertEquals(BatchIdentifyResult.Status.IDENTIFIED, reported.get("known1.wav").status());
+
+        assertEquals(3, dai.journal.queued.size());
+        // Not found without the identifier saying the fingerprint is unknown, so not final
+        assertEquals(List.of("known1.wav", "known2.wav", "known3.wav"),
+            dai.journal.completed.stream().sorted().toList());
+        assertTrue(dai.journal.discarded);
+    }
+
+    @Test(timeout = 10000)
+    public void lookupsOverlapUpToLimit() {
+        final MockBatchIdentifyDAI dai = new MockBatchIdentifyDAI();
+        // Unknown files in each batch, so an answer given to the wrong lookup shows in the report
+        dai.addFile("known0.wav", KNOWN_DURATION);
+        dai.addFile("unknown0.wav", UNKNOWN_DURATION);
+        dai.addFile("known1.wav", KNOWN_DURATION);
+        dai.addFile("known2.wav", KNOWN_DURATION);
+        dai.addFile("unknown1.wav", UNKNOWN_DURATION);
+        dai.addFile("known3.wav", KNOWN_DURATION);
+
+        // Answers nothing until three lookups are outstanding, so waiting on each one would hang
+        final BatchingIdentifyDAI identifier = new BatchingIdentifyDAI(3);
+        final MockBatchIdentifyPresenter presenter = new MockBatchIdentifyPresenter();
+        try (FingerprinterPool pool = new FingerprinterPool(1)) {
+            new BatchIdentifyInteractor(dai, identifier, pool, presenter, 1, 3)
+                .execute(new BatchIdentifyID(new File("library"), new File("report.jsonl")));
+        }
+
+        assertNull(presenter.errorMessage);
+        assertEquals(4, presenter.complete.identified());
+        assertEquals(2, presenter.complete.notFound());
+        assertEquals(2, identifier.batches);
+
+        assertEquals(6, dai.report.results.size());
+        for (BatchIdentifyResult result : dai.report.results) {
+            if (result.path().startsWith("known")) {
+                assertEquals(result.path(), BatchIdentifyResult.Status.IDENTIFIED, result.status());
+                assertEquals("test title", result.title());
+            }
+            else {
+                assertEquals(result.path(), BatchIdentifyResult.Status.NOT_FOUND, result.status());
+                assertNull(result.title());
+            }
+        }
+    }
+
+    @Test
+    public void unreadableDirectoryIsAnError() {
+        final MockBatchIdentifyDAI dai = new MockBatchIdentifyDAI();
+        dai.failListing = true;
+
+        final MockBatchIdentifyPresenter presenter = new MockBatchIdentifyPresenter();
+        try (FingerprinterPool pool = new FingerprinterPool(1)) {
+            new BatchIdentifyInteractor(dai, new MockIdentifyDAI(), pool, presenter, 1, 1)
+                .execute(new BatchIdentifyID(new File("missing"), new File("report.jsonl")));
+        }
+
+        assertNotNull(presenter.errorMessage);
+        assertNull(presenter.complete);
+        assertNull(dai.report);
+    }
+
+    private static class MockBatchIdentifyDAI implements BatchIdentifyDAI {
+        private static final AudioFormat FORMAT = new AudioFormat(11025, 16, 1, true, false);
+        private final List<File> files = new ArrayList<>();
+        private final Map<String, Integer> durations = new HashMap<>();
+        private final List<String> decoded = Collections.synchronizedList(new ArrayList<>());
+        private final MockJournal journal = new MockJournal();
+        private boolean failListing;
+        private MockReport report;
+
+        void addFile(String name, int durationSeconds) {
+            files.add(new File(name));
+            durations.put(name, durationSeconds);
+        }
+
+        @Override
+        public List<File> findAudioFiles(File rootDirectory) throws IOException {
+            if (failListing) {
+                throw new IOException("cannot list " + rootDirectory);
+            }
+            return files;
+        }
+
+        @Override
+        public DecodedAudio decode(File file, int maxSeconds) throws UnsupportedAudioFileException {
+            decoded.add(file.getPath());
+            final int duration = durations.get(file.getPath());
+            if (duration < 0) {
+                throw new UnsupportedAudioFileException("not audio");
+            }
+            final byte[] pcm = new byte[(int) (duration * FORMAT.getFrameRate() * FORMAT.getFrameSize())];
+            new Random(file.getPath().hashCode()).nextBytes(pcm);
+            return new DecodedAudio(pcm, FORMAT, duration);
+        }
+
+        @Override
+        public BatchReport openReport(File reportFile) {
+            report = new MockReport();
+            return report;
+        }
+
+        @Override
+        public BatchJournal openJournal(File reportFile) {
+            return journal;
+        }
+    }
+
+    private static class MockJournal implements BatchJournal {
+        private final Map<String, Entry> recovered = new HashMap<>();
+        private final List<String> queued = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+        private boolean discarded;
+
+        @Override
+        public Map<String, Entry> recovered() {
+            return recovered;
+        }
+
+        @Override
+        public void recordQueued(String path, String fingerprint, int durationSeconds) {
+            queued.add(path);
+        }
+
+        @Override
+        public void recordCompleted(BatchIdentifyResult result) {
+            completed.add(result.path());
+        }
+
+        @Override
+        public void discard() {
+            discarded = true;
+        }
+
+        @Override
+        public void close() {
+            // nothing to flush
+        }
+    }
+
+    private static class MockReport implements BatchReport {
+        private final List<BatchIdentifyResult> results = Collections.synchronizedList(new ArrayList<>());
+        private boolean closed;
+
+        @Override
+        public void write(BatchIdentifyResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class MockBatchIdentifyPresenter implements BatchIdentifyOB {
+        private BatchIdentifyOD complete;
+        private String errorMessage;
+
+        @Override
+        public void presentProgress(BatchIdentifyOD outputData) {
+            // not checked; depends on timing
+        }
+
+        @Override
+        public void presentComplete(BatchIdentifyOD outputData) {
+            complete = outputData;
+        }
+
+        @Override
+        public void presentError(String errorMessage) {
+            this.errorMessage = errorMessage;
+        }
+    }
+
+    private static class MockIdentifyDAI implements IdentifyDAI {
+        @Override
+        public String getClosestMatchID(String fingerprint, int duration) {
+            return getClosestMatchMetadata(fingerprint, duration).acoustIDTrackID();
+        }
+
+        @Override
+        public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+            if (duration == KNOWN_DURATION) {
+                return new Song.SongMetadata("test title", "mbid", "track id", "test album",
+                    new String[] {"test artist"}, 0.9);
+            }
+            throw new FingerprintMatchNotFoundException(fingerprint);
+        }
+    }
+
+    /**
+     * Holds lookups until a batch of them is outstanding, then answers each one for its own fingerprint.
+     */
+    private static class BatchingIdentifyDAI extends MockIdentifyDAI {
+        private final int batchSize;
+        private final List<HeldLookup> held = new ArrayList<>();
+        private int batches;
+
+        BatchingIdentifyDAI(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public synchronized CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(
+            String fingerprint, int duration, Priority priority) {
+            final CompletableFuture<Song.SongMetadata> future = new CompletableFuture<>();
+            held.add(new HeldLookup(fingerprint, duration, future));
+            if (held.size() == batchSize) {
+                batches++;
+                for (HeldLookup lookup : held) {
+                    try {
+                        lookup.future().complete(getClosestMatchMetadata(lookup.fingerprint(), lookup.duration()));
+                    }
+                    catch (FingerprintMatchNotFoundException exception) {
+                        lookup.future().completeExceptionally(exception);
+                    }
+                }
+                held.clear();
+            }
+            return future;
+        }
+
+        private record HeldLookup(String fingerprint, int duration, CompletableFuture<Song.SongMetadata> future) {
+        }
+    }
+}
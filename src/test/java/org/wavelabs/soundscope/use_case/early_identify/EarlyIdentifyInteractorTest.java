@@ -0,0 +1,158 @@
+package org.wavelabs.soundscope.use_case.early_identify;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintCheckpointListener;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Tests for EarlyIdentifyInteractor. Lookups are driven through the package-private
+ * {@code lookUp} so the tests do not depend on the lookup thread.
+ */
+public class EarlyIdentifyInteractorTest {
+    private static final String[] TEST_ARTISTS = {"artist 1"};
+    private static final String CONFIDENT_FINGERPRINT = "confident";
+    private static final String WEAK_FINGERPRINT = "weak";
+    private static final String FAILING_FINGERPRINT = "failing";
+    private static final double THRESHOLD = 0.8;
+    private static final int[] CHECKPOINTS = {8, 15, 30};
+
+    private MockEarlyIdentifyDAI mockDAI;
+    private MockEarlyIdentifyPresenter mockPresenter;
+    private Song song;
+    private EarlyIdentifyInteractor interactor;
+
+    @Before
+    public void setup() {
+        mockDAI = new MockEarlyIdentifyDAI();
+        mockPresenter = new MockEarlyIdentifyPresenter();
+        song = new Song();
+        interactor = new EarlyIdentifyInteractor(mockDAI, new MockIdentifyDAI(), song, mockPresenter,
+            CHECKPOINTS, THRESHOLD);
+    }
+
+    @Test
+    public void testEnableRegistersCheckpoints() {
+        interactor.enable();
+        assertSame(interactor, mockDAI.listener);
+        assertArrayEquals(CHECKPOINTS, mockDAI.checkpoints);
+
+        interactor.disable();
+        assertNull(mockDAI.listener);
+    }
+
+    @Test
+    public void testConfidentMatchStopsRecording() {
+        interactor.lookUp(CONFIDENT_FINGERPRINT, 8);
+
+        assertFalse(mockDAI.recording);
+        assertEquals("confident title", mockPresenter.outputData.songTitle());
+        assertEquals(8, mockPresenter.outputData.secondsListened());
+        assertEquals("confident title", song.getMetadata().title());
+        assertEquals(CONFIDENT_FINGERPRINT, song.getFingerprint());
+        assertEquals(8, song.getDuration());
+    }
+
+    @Test
+    public void testWeakMatchKeepsRecording() {
+        interactor.lookUp(WEAK_FINGERPRINT, 8);
+
+        assertTrue(mockDAI.recording);
+        assertNull(mockPresenter.outputData);
+        assertNull(song.getMetadata());
+    }
+
+    @Test
+    public void testNoMatchKeepsRecording() {
+        interactor.lookUp("unknown", 8);
+
+        assertTrue(mockDAI.recording);
+        assertNull(mockPresenter.outputData);
+    }
+
+    @Test
+    public void testLookupFailureIsPresented() {
+        interactor.lookUp(FAILING_FINGERPRINT, 8);
+
+        assertTrue(mockDAI.recording);
+        assertNull(mockPresenter.outputData);
+        assertEquals("Auto identify failed: service unavailable", mockPresenter.errorMessage);
+    }
+
+    @Test
+    public void testLookupAfterRecordingStoppedIsDropped() {
+        mockDAI.recording = false;
+        interactor.lookUp(CONFIDENT_FINGERPRINT, 15);
+
+        assertNull(mockPresenter.outputData);
+        assertNull(song.getMetadata());
+    }
+
+    private static class MockEarlyIdentifyDAI implements EarlyIdentifyDAI {
+        private FingerprintCheckpointListener listener;
+        private int[] checkpoints;
+        private boolean recording = true;
+
+        @Override
+        public void setCheckpointListener(FingerprintCheckpointListener listener, int... checkpointSeconds) {
+            this.listener = listener;
+            this.checkpoints = checkpointSeconds;
+        }
+
+        @Override
+        public boolean isRecording() {
+            return recording;
+        }
+
+        @Override
+        public void stopRecording() {
+            recording = false;
+        }
+    }
+
+    private static class MockEarlyIdentifyPresenter implements EarlyIdentifyOB {
+        private EarlyIdentifyOD outputData;
+        private String errorMessage;
+
+        @Override
+        public void presentMatch(EarlyIdentifyOD outputData) {
+            this.outputData = outputData;
+        }
+
+        @Override
+        public void presentError(String errorMessage) {
+            this.errorMessage = errorMessage;
+        }
+    }
+
+    private static class MockIdentifyDAI implements IdentifyDAI {
+        @Override
+        public String getClosestMatchID(String fingerprint, int duration) {
+            return getClosestMatchMetadata(fingerprint, duration).acoustIDTrackID();
+        }
+
+        @Override
+        public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+            if (fingerprint.equals(CONFIDENT_FINGERPRINT)) {
+                return new Song.SongMetadata("confident title", "mbid", "track id", "album",
+                    TEST_ARTISTS, 0.95);
+            }
+            if (fingerprint.equals(WEAK_FINGERPRINT)) {
+                return new Song.SongMetadata("weak title", "mbid", "track id", "album",
+                    TEST_ARTISTS, 0.4);
+            }
+            if (fingerprint.equals(FAILING_FINGERPRINT)) {
+                throw new IllegalStateException("service unavailable");
+            }
+            throw new FingerprintMatchNotFoundException(fingerprint);
+        }
+    }
+}
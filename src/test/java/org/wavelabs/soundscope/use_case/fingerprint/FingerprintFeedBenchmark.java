@@ -0,0 +1,95 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wavelabs.soundscope.use_case.fingerprint.chromaprint.chromaprint_h;
+
+/**
+ * Compares the ways of getting PCM bytes into chromaprint: the original per-sample copy into a
+ * freshly allocated segment, the reusable native feed buffer, and the critical heap downcall.
+ *
+ * <p>Run with {@code java -cp <test classpath> org.openjdk.jmh.Main FingerprintFeedBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "--enable-native-access=ALL-UNNAMED")
+public class FingerprintFeedBenchmark {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 1;
+
+    /** Chunk size in bytes; 4096 matches the recorder, the others approximate file loads. */
+    @Param({"4096", "65536", "1048576"})
+    private int chunkBytes;
+
+    private byte[] chunk;
+    private Fingerprinter fingerprinter;
+    private MemorySegment legacyCtx;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        chunk = new byte[chunkBytes];
+        new Random(42).nextBytes(chunk);
+        fingerprinter = new Fingerprinter(SAMPLE_RATE, CHANNELS);
+        legacyCtx = chromaprint_h.chromaprint_new(chromaprint_h.CHROMAPRINT_ALGORITHM_DEFAULT());
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() {
+        // Keeps the amount of accumulated fingerprint data the same for every iteration
+        fingerprinter.start();
+        chromaprint_h.chromaprint_start(legacyCtx, SAMPLE_RATE, CHANNELS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        fingerprinter.close();
+        chromaprint_h.chromaprint_free(legacyCtx);
+    }
+
+    /**
+     * The feed path Fingerprinter used before the native buffer was pooled: a new segment per
+     * chunk, filled one sample at a time.
+     */
+    @Benchmark
+    public int legacyBytesToShorts() {
+        final int numSamples = chunk.length / 2;
+        try (Arena arena = Arena.ofConfined()) {
+            final MemorySegment data = arena.allocate(ValueLayout.JAVA_SHORT, numSamples);
+            for (int i = 0; i < numSamples; i++) {
+                final short sample = (short) (chunk[i * 2 + 1] << 8 | chunk[i * 2] & 0xFF);
+                data.setAtIndex(ValueLayout.JAVA_SHORT, i, sample);
+            }
+            return chromaprint_h.chromaprint_feed(legacyCtx, data, numSamples);
+        }
+    }
+
+    @Benchmark
+    public void pooledNativeBuffer() {
+        fingerprinter.feedThroughBuffer(chunk, 0, chunk.length / 2);
+    }
+
+    @Benchmark
+    public void criticalHeapFeed() {
+        fingerprinter.feedFromHeap(chunk, 0, chunk.length / 2);
+    }
+}
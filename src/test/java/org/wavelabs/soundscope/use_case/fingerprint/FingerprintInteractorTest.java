@@ -40,6 +40,7 @@ class MockAudioFileGateWay {
 class MockFingerprintDAI implements FingerprintDAI {
     private byte[] audioBytes;
     private AudioFormat format;
+    private StreamingFingerprint streamingFingerprint;
 
     @Override
     public byte[] getAudioData() {
@@ -51,6 +52,11 @@ class MockFingerprintDAI implements FingerprintDAI {
         return format;
     }
 
+    @Override
+    public StreamingFingerprint getStreamingFingerprint() {
+        return streamingFingerprint;
+    }
+
     public void setAudioBytes(byte[] audioBytes) {
         this.audioBytes = audioBytes;
     }
@@ -58,6 +64,10 @@ class MockFingerprintDAI implements FingerprintDAI {
     public void setFormat(AudioFormat format) {
         this.format = format;
     }
+
+    public void setStreamingFingerprint(StreamingFingerprint streamingFingerprint) {
+        this.streamingFingerprint = streamingFingerprint;
+    }
 }
 
 
@@ -94,7 +104,84 @@ public class FingerprintInteractorTest {
             }
         };
         final Song song = new Song();
-        FingerprintIB fingerprintIB = new FingerprintInteractor(dai, song, successPresenter);
-        fingerprintIB.execute();
+        try (FingerprinterPool fingerprinterPool = new FingerprinterPool(1)) {
+            FingerprintIB fingerprintIB = new FingerprintInteractor(dai, song, successPresenter, fingerprinterPool);
+            fingerprintIB.execute();
+        }
+    }
+
+    @Test
+    public void streamedFingerprintIsUsedWithoutAudioData()
+        throws UnsupportedAudioFileException, IOException, URISyntaxException {
+        URL url = getClass().getResource("/fingerprint_test.wav");
+        Assert.assertNotNull(url);
+        File file = new File(url.toURI());
+        AudioInputStream inputStream = AudioSystem.getAudioInputStream(file);
+        final byte[] audioBytes = inputStream.readAllBytes();
+        final AudioFormat format = inputStream.getFormat();
+
+        // Stream the audio in recorder-sized chunks, as the capture loop would
+        final StreamingFingerprint streamed = new StreamingFingerprint(format);
+        streamed.start();
+        final byte[] chunk = new byte[4096];
+        for (int offset = 0; offset < audioBytes.length; offset += chunk.length) {
+            final int length = Math.min(chunk.length, audioBytes.length - offset);
+            System.arraycopy(audioBytes, offset, chunk, 0, length);
+            streamed.processChunk(chunk, length);
+        }
+        streamed.stop();
+        Assert.assertNull(streamed.getError());
+
+        // No audio bytes or format: the interactor must not fall back to the buffered path
+        MockFingerprintDAI dai = new MockFingerprintDAI();
+        dai.setStreamingFingerprint(streamed);
+
+        final String[] result = new String[1];
+        FingerprintOB presenter = new FingerprintOB() {
+            @Override
+            public void prepareSuccessView(FingerprintOD outputData) {
+                result[0] = outputData.getFingerprint();
+            }
+
+            @Override
+            public void prepareFailView(String errorMessage) {
+                Assert.fail(errorMessage);
+            }
+        };
+        final Song song = new Song();
+        try (FingerprinterPool fingerprinterPool = new FingerprinterPool(1)) {
+            new FingerprintInteractor(dai, song, presenter, fingerprinterPool).execute();
+        }
+
+        assertEquals(streamed.getFingerprint(), result[0]);
+        assertEquals(streamed.getFingerprint(), song.getFingerprint());
+        assertEquals((int) (audioBytes.length / (format.getFrameSize() * format.getFrameRate())),
+            song.getDuration());
+    }
+
+    @Test
+    public void streamedFingerprintCanBeClosedMoreThanOnce() {
+        final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+
+        // Never started: closing releases the native context, and closing again does nothing
+        final StreamingFingerprint unused = new StreamingFingerprint(format);
+        unused.close();
+        unused.close();
+        Assert.assertNull(unused.getFingerprint());
+
+        // Stopping releases the context too, so a later close must not release it again
+        final StreamingFingerprint stopped = new StreamingFingerprint(format);
+        stopped.start();
+        stopped.processChunk(new byte[4096], 4096);
+        stopped.stop();
+        stopped.close();
+        Assert.assertNull(stopped.getError());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedStreamedFingerprintCannotStart() {
+        final StreamingFingerprint streamed = new StreamingFingerprint(new AudioFormat(44100, 16, 2, true, false));
+        streamed.close();
+        streamed.start();
     }
 }
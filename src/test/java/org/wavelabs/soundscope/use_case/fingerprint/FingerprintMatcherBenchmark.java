@@ -0,0 +1,80 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar and Vector API Hamming kernels of FingerprintMatcher, for a single pair
+ * of fingerprints and for a one-vs-library scan.
+ *
+ * <p>Run with {@code java --add-modules jdk.incubator.vector -cp <test classpath>
+ * org.openjdk.jmh.Main FingerprintMatcherBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "--add-modules=jdk.incubator.vector")
+public class FingerprintMatcherBenchmark {
+    private static final int LIBRARY_SIZE = 256;
+    private static final int TRACK_LENGTH = 1500;
+
+    /** Query length in sub-fingerprints; about 15 s and 2 min of audio. */
+    @Param({"120", "960"})
+    private int queryLength;
+
+    private int[] query;
+    private int[] reference;
+    private List<int[]> library;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        reference = randomFingerprint(random, TRACK_LENGTH);
+        query = randomFingerprint(random, queryLength);
+        library = new ArrayList<>();
+        for (int i = 0; i < LIBRARY_SIZE; i++) {
+            library.add(randomFingerprint(random, TRACK_LENGTH));
+        }
+    }
+
+    @Benchmark
+    public FingerprintMatcher.Match scalarBestMatch() {
+        return FingerprintMatcher.bestMatch(query, reference, FingerprintMatcher.DEFAULT_MIN_OVERLAP, false);
+    }
+
+    @Benchmark
+    public FingerprintMatcher.Match vectorBestMatch() {
+        return FingerprintMatcher.bestMatch(query, reference, FingerprintMatcher.DEFAULT_MIN_OVERLAP, true);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MINUTES)
+    public FingerprintMatcher.Match[] libraryScan() {
+        return FingerprintMatcher.matchAll(query, library, FingerprintMatcher.DEFAULT_MIN_OVERLAP);
+    }
+
+    private static int[] randomFingerprint(Random random, int length) {
+        final int[] fingerprint = new int[length];
+        for (int i = 0; i < length; i++) {
+            fingerprint[i] = random.nextInt();
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,101 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class FingerprintMatcherTest {
+    private final Random random = new Random(7);
+
+    @Test
+    public void findsExcerptInsideReference() {
+        final int[] reference = randomFingerprint(500);
+        final int[] query = Arrays.copyOfRange(reference, 123, 323);
+
+        final FingerprintMatcher.Match match = FingerprintMatcher.bestMatch(query, reference);
+        assertEquals(123, match.offset());
+        assertEquals(1.0, match.similarity(), 1e-9);
+        assertEquals(200, match.overlap());
+    }
+
+    @Test
+    public void findsQueryStartingBeforeReference() {
+        final int[] query = randomFingerprint(300);
+        final int[] reference = Arrays.copyOfRange(query, 40, 300);
+
+        final FingerprintMatcher.Match match = FingerprintMatcher.bestMatch(query, reference);
+        assertEquals(-40, match.offset());
+        assertEquals(1.0, match.similarity(), 1e-9);
+    }
+
+    @Test
+    public void ignoresShortOverlapAtEdge() {
+        final int[] reference = randomFingerprint(400);
+        // Only the last 20 sub-fingerprints of the query are the start of the reference
+        final int[] query = randomFingerprint(200);
+        System.arraycopy(reference, 0, query, 180, 20);
+
+        final FingerprintMatcher.Match match = FingerprintMatcher.bestMatch(query, reference);
+        assertTrue(match.overlap() >= 100);
+        assertTrue(match.similarity() < 0.7);
+    }
+
+    @Test
+    public void unrelatedFingerprintsScoreAboutHalf() {
+        final double similarity = FingerprintMatcher.similarity(randomFingerprint(400), randomFingerprint(400), 0);
+        assertEquals(0.5, similarity, 0.05);
+    }
+
+    @Test
+    public void emptyFingerprintHasNoMatch() {
+        final FingerprintMatcher.Match match = FingerprintMatcher.bestMatch(new int[0], randomFingerprint(10));
+        assertEquals(0, match.overlap());
+        assertEquals(0.0, match.similarity(), 0);
+    }
+
+    @Test
+    public void vectorAndScalarKernelsAgree() {
+        Assume.assumeTrue(FingerprintMatcher.VECTOR_SUPPORTED);
+        for (int length = 0; length < 70; length++) {
+            final int[] first = randomFingerprint(length + 5);
+            final int[] second = randomFingerprint(length + 3);
+            assertEquals(
+                FingerprintMatcher.differentBitsScalar(first, 5, second, 3, length),
+                FingerprintMatcher.differentBits(first, 5, second, 3, length, true));
+        }
+
+        final int[] query = randomFingerprint(90);
+        final int[] reference = randomFingerprint(250);
+        assertEquals(
+            FingerprintMatcher.bestMatch(query, reference, 16, false),
+            FingerprintMatcher.bestMatch(query, reference, 16, true));
+    }
+
+    @Test
+    public void matchAllKeepsReferenceOrder() {
+        final int[] track = randomFingerprint(300);
+        final List<int[]> library = List.of(randomFingerprint(300), track, randomFingerprint(300));
+
+        final FingerprintMatcher.Match[] matches =
+            FingerprintMatcher.matchAll(Arrays.copyOfRange(track, 50, 150), library, 16);
+        assertEquals(3, matches.length);
+        assertEquals(50, matches[1].offset());
+        assertEquals(1.0, matches[1].similarity(), 1e-9);
+        assertTrue(matches[0].similarity() < 0.9);
+        assertTrue(matches[2].similarity() < 0.9);
+    }
+
+    private int[] randomFingerprint(int length) {
+        final int[] fingerprint = new int[length];
+        for (int i = 0; i < length; i++) {
+            fingerprint[i] = random.nextInt();
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,76 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class FingerprinterPoolTest {
+    @Test
+    public void contextIsReusedForSameFormat() throws InterruptedException {
+        try (FingerprinterPool pool = new FingerprinterPool(2)) {
+            final Fingerprinter first;
+            try (FingerprinterPool.Lease lease = pool.acquire(44100, 2)) {
+                first = lease.fingerprinter();
+            }
+            try (FingerprinterPool.Lease lease = pool.acquire(44100, 2)) {
+                assertSame(first, lease.fingerprinter());
+            }
+        }
+    }
+
+    @Test
+    public void contextsAreKeyedByFormat() throws InterruptedException {
+        try (FingerprinterPool pool = new FingerprinterPool(2)) {
+            final Fingerprinter stereo;
+            try (FingerprinterPool.Lease lease = pool.acquire(44100, 2)) {
+                stereo = lease.fingerprinter();
+            }
+            try (FingerprinterPool.Lease lease = pool.acquire(44100, 1)) {
+                assertNotSame(stereo, lease.fingerprinter());
+            }
+        }
+    }
+
+    @Test
+    public void invalidatedContextIsNotReused() throws InterruptedException {
+        try (FingerprinterPool pool = new FingerprinterPool(1)) {
+            final Fingerprinter first;
+            try (FingerprinterPool.Lease lease = pool.acquire(44100, 2)) {
+                first = lease.fingerprinter();
+                lease.invalidate();
+            }
+            try (FingerprinterPool.Lease lease = pool.acquire(44100, 2)) {
+                assertNotSame(first, lease.fingerprinter());
+            }
+        }
+    }
+
+    @Test
+    public void acquireBlocksWhilePoolIsExhausted() throws InterruptedException {
+        try (FingerprinterPool pool = new FingerprinterPool(1)) {
+            final CountDownLatch acquired = new CountDownLatch(1);
+            final FingerprinterPool.Lease held = pool.acquire(44100, 2);
+
+            final Thread waiter = new Thread(() -> {
+                try (FingerprinterPool.Lease lease = pool.acquire(22050, 1)) {
+                    acquired.countDown();
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiter.start();
+
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+            held.close();
+            assertTrue(acquired.await(5, TimeUnit.SECONDS));
+            waiter.join();
+        }
+    }
+}
@@ -39,4 +39,64 @@ public class FingerprinterTest {
 
         assert (result.equals(expectedResult));
     }
+
+    @Test
+    public void chunkedFeedMatchesSingleFeed()
+        throws UnsupportedAudioFileException, IOException, URISyntaxException {
+        URL url = getClass().getResource("/fingerprint_test.wav");
+        Assert.assertNotNull(url);
+        File file = new File(url.toURI());
+        AudioInputStream inputStream = AudioSystem.getAudioInputStream(file);
+        final byte[] bytes = inputStream.readAllBytes();
+        AudioFormat audioFormat = inputStream.getFormat();
+        final int sampleRate = (int) audioFormat.getSampleRate();
+        final int channels = audioFormat.getChannels();
+
+        // Whole buffer at once; larger than the native feed buffer, so it is fed in slices
+        Fingerprinter whole = new Fingerprinter(sampleRate, channels);
+        whole.start();
+        whole.processChunk(bytes, bytes.length);
+        whole.stop();
+        final String expected = whole.getFingerprint();
+        whole.close();
+
+        // Same audio delivered in small recorder-sized chunks through a reused array
+        Fingerprinter chunked = new Fingerprinter(sampleRate, channels);
+        chunked.start();
+        final byte[] chunk = new byte[4096];
+        for (int offset = 0; offset < bytes.length; offset += chunk.length) {
+            final int length = Math.min(chunk.length, bytes.length - offset);
+            System.arraycopy(bytes, offset, chunk, 0, length);
+            chunked.processChunk(chunk, length);
+        }
+        chunked.stop();
+        final String result = chunked.getFingerprint();
+        chunked.close();
+
+        Assert.assertEquals(expected, result);
+    }
+
+    @Test
+    public void rawFingerprintRoundTripsThroughEncoding()
+        throws UnsupportedAudioFileException, IOException, URISyntaxException {
+        URL url = getClass().getResource("/fingerprint_test.wav");
+        Assert.assertNotNull(url);
+        File file = new File(url.toURI());
+        AudioInputStream inputStream = AudioSystem.getAudioInputStream(file);
+        final byte[] bytes = inputStream.readAllBytes();
+        AudioFormat audioFormat = inputStream.getFormat();
+
+        Fingerprinter fingerprinter =
+            new Fingerprinter((int) audioFormat.getSampleRate(), audioFormat.getChannels());
+        fingerprinter.start();
+        fingerprinter.processChunk(bytes, bytes.length);
+        fingerprinter.stop();
+        final String fingerprint = fingerprinter.getFingerprint();
+        final int[] raw = fingerprinter.getRawFingerprint();
+        fingerprinter.close();
+
+        Assert.assertTrue(raw.length > 0);
+        Assert.assertEquals(fingerprint, Fingerprinter.encodeFingerprint(raw));
+        Assert.assertArrayEquals(raw, Fingerprinter.decodeFingerprint(fingerprint));
+    }
 }
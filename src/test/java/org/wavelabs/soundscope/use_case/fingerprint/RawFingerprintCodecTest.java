@@ -0,0 +1,92 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.Test;
+
+public class RawFingerprintCodecTest {
+    // Chromaprint output for a short recording, as sent to AcoustID
+    private static final String REAL_FINGERPRINT =
+        "AQABz0qUkZK4oOfhL-CPc4e5C_wW2H2QH9uDL4cvoT8UNQ-eHtsE8cceeFJx-LiiHT-aPzhxoc-Opj_eI5d2hOFyMJRzfDk-"
+        + "QSsu7fBxqZDMHcfxPfDIoPWxv9C1o3yg44d_3Df2GJaUQeeR-cb2HfaPNsdxHj2PJnpwPMN3aPcEMzd-_MeB_Ej4D_CLP8gh"
+        + "HjkJv_jh_UDuQ8xnILwunPg6hF2R8HgzvLhxHVYP_ziJX0eKPnIE1UePMByDJyg7wz_6yELsB8n4oDmDa0Gv40hf6D3CE3_w"
+        + "H6HFaxCPUD9-hNeF5MfWEP3SCGym4-SxnXiGs0mRjEXD6fgl4LmKWrSChzzC33ge9PB3otyJMk-IVC6R8MTNwD9qKQ_CC8kP"
+        + "v4THzEGZS8GPI3x0iGVUxC1hRSizC5VzoamYDi-uR7iKPhGSI82PkiWeB_eHijvsaIWfBCWH5AjjCfVxZ1TQ3CvCTclGnEMf"
+        + "HbnZFA8pjD6KXwd__Cn-Y8e_I9cq6CR-4S9KLXqQcsxxoWh3eMxiHI6TIzyPv0M43YHz4yte-Cv-4D16Hv9F9C9SPUdyGtZR"
+        + "HV-OHEeeGD--BKcjVLOK_NCDXMfx44dzHEiOZ0Z44Rf6DH5R3uiPj4d_PKolJNyRJzyu4_CTD2WOvzjKH9GPb4cUP1Av9EuQ"
+        + "d8fGCFee4JlRHi18xQh96NLxkCgfWFKOH6WGeoe4I3za4c5hTscTPEZTES1x8kE-9MQPjT8a8gh5fPgQZtqCFj9MDvp6fDx6"
+        + "NCd07bjx7MLR9AhtnFnQ70GjOcV0opmm4zpY3SOa7HiwdTtyHa6NC4e-HN-OfC5-OP_gLe2QDxfUCz_0w9l65HiPAz9-IaGO"
+        + "UA7-4MZ5CWFOlIfe4yUa6AiZGxf6w0fFxsjTOdC6Itbh4mGD63iPH9-RFy909XAMj7mC5_BvlDyO6kGTZKJxHUd4NDwuZUff"
+        + "w_5RMsde5CWkJAgXnDReNEaP6DTOQ65yaD88HoeX8fge-DSeHo9Qa8cTHc80I-_RoHxx_UHeBxrJw62Q34Kd7MEfpCcu6BLe"
+        + "B1ePw6OO4sOF_sHhmB504WWDZiEu8sKPpkcfCT9xfej0o0lr4T5yNJeOvjmu40w-TDmqHXmYgfFhFy_M7tD1o0cO_B2ms2j-"
+        + "ACEEQgQgAIwzTgAGmBIKIImNQAABwgQATAlhDGCCEIGIIM4BaBgwQBogEBIOESEIA8ARI5xAhxEFmAGAMCKAURKQQpQzRAAk"
+        + "CCBQEAKkQYIYIQQxCixCDADCABMAE0gpJIgyxhEDiCKCCIGAEIgJIQByAhFgGACCACMRQEyBAoxQiHiCBCFOECQFAIgAABR2"
+        + "QAgFjCDMA0AUMIoAIMChQghChASGEGeYEAIAIhgBSErnJPPEGWYAMgw05AhiiGHiBBBGGSCQcQgwRYJwhDDhgCSCSSEIQYwI"
+        + "LoyAjAIigBFEUQK8gAYAQ5BCAAjkjCCAEEMZAUQAZQCjCCkpCgFMCCiIcVIAZZgilAQAiSHQECOcQAQIc4QClAHAjDDGkAGA"
+        + "MUoBgyhihgEChFCAAWEIEYwIJYwViAAlHCBIGEIEAEIQAoBwwgwiEBAEEEOoEwBY4wRwxAhBgAcKAESIQAwwIowRFhoBhAE";
+
+    @Test
+    public void roundTripsArbitraryValues() {
+        final int[] raw = {0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0x12345678, 0x80000001};
+        assertArrayEquals(raw, RawFingerprintCodec.decode(RawFingerprintCodec.encode(raw)));
+    }
+
+    @Test
+    public void roundTripsEmptyFingerprint() {
+        assertArrayEquals(new int[0], RawFingerprintCodec.decode(RawFingerprintCodec.encode(new int[0])));
+    }
+
+    @Test
+    public void realFingerprintCompressesLikeChromaprint() {
+        final int[] raw = Fingerprinter.decodeFingerprint(REAL_FINGERPRINT);
+        final byte[] encoded = RawFingerprintCodec.encode(raw);
+        final int chromaprintBytes = Base64.getUrlDecoder().decode(REAL_FINGERPRINT).length;
+
+        assertArrayEquals(raw, RawFingerprintCodec.decode(encoded));
+        // Same bit streams; a 3 byte header and a varint count instead of chromaprint's 4 byte header
+        assertTrue(encoded.length <= chromaprintBytes + 1);
+        assertTrue(encoded.length < raw.length * Integer.BYTES * 7 / 10);
+    }
+
+    @Test
+    public void streamsSeveralRecords() throws IOException {
+        final int[] first = {5, 6, 7};
+        final int[] second = {-8, 9};
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RawFingerprintCodec.write(out, first);
+        RawFingerprintCodec.write(out, second);
+
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertArrayEquals(first, RawFingerprintCodec.read(in));
+        assertArrayEquals(second, RawFingerprintCodec.read(in));
+        assertNull(RawFingerprintCodec.read(in));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedRecord() {
+        final byte[] encoded = RawFingerprintCodec.encode(new int[] {1, 2, 3, Integer.MIN_VALUE});
+        RawFingerprintCodec.decode(Arrays.copyOf(encoded, encoded.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadHeader() {
+        final byte[] encoded = RawFingerprintCodec.encode(new int[] {1});
+        encoded[0] = 'X';
+        RawFingerprintCodec.decode(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOtherVersions() {
+        final byte[] encoded = RawFingerprintCodec.encode(new int[] {1});
+        encoded[2] = 1;
+        RawFingerprintCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,36 @@
+package org.wavelabs.soundscope.use_case.fingerprint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SegmentFingerprinterTest {
+    @Test
+    public void windowsOverlapByHop() {
+        final List<long[]> windows = SegmentFingerprinter.windows(100, 30, 15);
+        assertEquals(6, windows.size());
+        assertArrayEquals(new long[] {0, 30}, windows.get(0));
+        assertArrayEquals(new long[] {15, 45}, windows.get(1));
+        assertArrayEquals(new long[] {75, 100}, windows.get(5));
+    }
+
+    @Test
+    public void shortRecordingIsOneWindow() {
+        final List<long[]> windows = SegmentFingerprinter.windows(10, 30, 15);
+        assertEquals(1, windows.size());
+        assertArrayEquals(new long[] {0, 10}, windows.get(0));
+    }
+
+    @Test
+    public void emptyRecordingHasNoWindows() {
+        assertEquals(0, SegmentFingerprinter.windows(0, 30, 15).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsHopLongerThanWindow() {
+        new SegmentFingerprinter(null, 10, 20, 1);
+    }
+}
@@ -1,5 +1,7 @@
 package org.wavelabs.soundscope.use_case.identify;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.wavelabs.soundscope.entity.Song;
@@ -13,6 +15,7 @@ import org.wavelabs.soundscope.entity.Song;
  *   <li>Constructor with valid dependencies</li>
  *   <li>identify() with valid song data</li>
  *   <li>identify() with a DAI exception (error handling)</li>
+ *   <li>identify() with a lookup that completes after identify() returns</li>
  * </ul>
  */
 public class IdentifyInteractorTest {
@@ -72,6 +75,41 @@ public class IdentifyInteractorTest {
         assert(mockIdentifyPresenter.getOutputData() == null);
     }
 
+    @Test
+    public void testAsyncLookupDoesNotBlock(){
+        songData.setDuration(TEST_DURATION);
+        songData.setFingerprint(TEST_FINGEPRRINT);
+        PendingIdentifyDAI pendingIdentifyDAI = new PendingIdentifyDAI();
+        identifyInteractor = new IdentifyInteractor(songData, mockIdentifyPresenter, pendingIdentifyDAI);
+
+        identifyInteractor.identify();
+
+        assert(mockIdentifyPresenter.getOutputData() == null);
+        assert(!mockIdentifyPresenter.isErrorState());
+
+        pendingIdentifyDAI.pending.complete(TEST_CORRECT_METADATA);
+
+        assert(mockIdentifyPresenter.getOutputData().songTitle().equals(TEST_CORRECT_METADATA.title()));
+        assert(songData.getMetadata() == TEST_CORRECT_METADATA);
+    }
+
+    @Test
+    public void testAsyncLookupError(){
+        songData.setDuration(TEST_DURATION);
+        songData.setFingerprint(TEST_FINGEPRRINT);
+        PendingIdentifyDAI pendingIdentifyDAI = new PendingIdentifyDAI();
+        identifyInteractor = new IdentifyInteractor(songData, mockIdentifyPresenter, pendingIdentifyDAI);
+
+        identifyInteractor.identify();
+        pendingIdentifyDAI.pending.completeExceptionally(
+            new IdentifyDAI.FingerprintMatchNotFoundException(ERROR_MESSAGE));
+
+        String expectedErrorMessage = new IdentifyDAI.FingerprintMatchNotFoundException(ERROR_MESSAGE).getMessage();
+
+        assert(mockIdentifyPresenter.isErrorState());
+        assert(mockIdentifyPresenter.getErrorMessage().equals(expectedErrorMessage));
+    }
+
     private static class MockIdentifyPresenter implements IdentifyOB {
         private boolean errorState;
         private IdentifyOD outputData;
@@ -131,4 +169,26 @@ public class IdentifyInteractorTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Identifier whose lookups only complete when the test completes them.
+     */
+    private static class PendingIdentifyDAI implements IdentifyDAI {
+        private final CompletableFuture<Song.SongMetadata> pending = new CompletableFuture<>();
+
+        @Override
+        public String getClosestMatchID(String fingerprint, int duration) {
+            return "";
+        }
+
+        @Override
+        public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+            return pending.join();
+        }
+
+        @Override
+        public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration) {
+            return pending;
+        }
+    }
+}
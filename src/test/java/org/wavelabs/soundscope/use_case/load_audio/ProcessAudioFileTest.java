@@ -8,6 +8,11 @@ import org.wavelabs.soundscope.use_case.process_audio_file.*;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
 
 public class ProcessAudioFileTest {
     @Test
@@ -51,6 +56,82 @@ public class ProcessAudioFileTest {
 
         Assert.assertFalse(mockDAO.success);
     }
+
+    @Test
+    public void progressIsPresentedBeforeResult() {
+        ProgressiveProcessAudioFileDAO mockDAO = new ProgressiveProcessAudioFileDAO();
+        RecordingProcessAudioFileOB mockOB = new RecordingProcessAudioFileOB();
+
+        ProcessAudioFile tester = new ProcessAudioFile(mockDAO, mockOB);
+        tester.execute(new ProcessAudioFileID(new File("audiofile.wav")));
+
+        Assert.assertEquals(List.of("progress 1", "progress 2", "present 3"), mockOB.events);
+    }
+
+    @Test
+    public void newerFileSupersedesFileBeingProcessed() {
+        ProgressiveProcessAudioFileDAO mockDAO = new ProgressiveProcessAudioFileDAO();
+        RecordingProcessAudioFileOB mockOB = new RecordingProcessAudioFileOB();
+        Queue<Runnable> queued = new ArrayDeque<>();
+
+        ProcessAudioFile tester = new ProcessAudioFile(mockDAO, mockOB, queued::add);
+        tester.execute(new ProcessAudioFileID(new File("first.wav")));
+        // Opens the second file while the first is reporting progress
+        mockDAO.onFirstProgress = () -> tester.execute(new ProcessAudioFileID(new File("second.wav")));
+        queued.poll().run();
+
+        Assert.assertTrue(mockDAO.cancelled);
+        Assert.assertEquals(List.of(), mockOB.events);
+
+        queued.poll().run();
+
+        Assert.assertEquals(List.of("progress 1", "progress 2", "present 3"), mockOB.events);
+    }
+}
+
+class ProgressiveProcessAudioFileDAO implements ProcessAudioFileDAI {
+    Runnable onFirstProgress;
+    boolean cancelled;
+
+    @Override
+    public AudioData processAudioFile(File file) {
+        return new AudioData(new double[3], file.getPath(), 3, 44100, 1);
+    }
+
+    @Override
+    public AudioData processAudioFile(File file, ProgressListener listener) {
+        for (int length = 1; length < 3; length++) {
+            if (onFirstProgress != null) {
+                final Runnable action = onFirstProgress;
+                onFirstProgress = null;
+                action.run();
+            }
+            if (!listener.onProgress(new AudioData(new double[length], file.getPath(), length, 44100, 1))) {
+                cancelled = true;
+                throw new CancellationException();
+            }
+        }
+        return processAudioFile(file);
+    }
+}
+
+class RecordingProcessAudioFileOB implements ProcessAudioFileOB {
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    public void presentProgress(ProcessAudioFileOD partialOutputData) {
+        events.add("progress " + partialOutputData.getAudioData().getAmplitudeSamples().length);
+    }
+
+    @Override
+    public void present(ProcessAudioFileOD outputData) {
+        events.add("present " + outputData.getAudioData().getAmplitudeSamples().length);
+    }
+
+    @Override
+    public void presentError(String errorMessage, String fileName) {
+        events.add("error " + errorMessage);
+    }
 }
 
 class MockProcessAudioFileDAO implements ProcessAudioFileDAI {
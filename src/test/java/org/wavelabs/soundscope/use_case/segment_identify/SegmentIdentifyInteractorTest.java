@@ -0,0 +1,185 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintSegment;
+import org.wavelabs.soundscope.use_case.fingerprint.SegmentFingerprinter;
+import org.wavelabs.soundscope.use_case.identify.IdentifyDAI;
+
+/**
+ * Tests for SegmentIdentifyInteractor. The use case is driven through the package-private
+ * {@code identifySegments} so the tests do not depend on the worker thread.
+ */
+public class SegmentIdentifyInteractorTest {
+    private static final AudioFormat FORMAT = new AudioFormat(44100, 16, 1, true, false);
+
+    @Test
+    public void presentsMergedTimeline() {
+        final MockPresenter presenter = new MockPresenter();
+        final SegmentIdentifyInteractor interactor = new SegmentIdentifyInteractor(
+            new MockAudioDAI(new byte[2]), new MockIdentifyDAI(), new MockSegmentFingerprinter(), presenter);
+
+        interactor.identifySegments();
+
+        assertNull(presenter.error);
+        final List<SegmentIdentifyOD.Segment> segments = presenter.outputData.segments();
+        assertEquals(3, segments.size());
+        assertEquals("song a", segments.get(0).songTitle());
+        assertArrayEquals(new String[] {"artist"}, segments.get(0).artists());
+        assertNull(segments.get(1).songTitle());
+        assertEquals("song b", segments.get(2).songTitle());
+        assertEquals(75, segments.get(2).endSeconds(), 0);
+    }
+
+    @Test(timeout = 10000)
+    public void lookupsAreAllSubmittedBeforeWaiting() {
+        final MockPresenter presenter = new MockPresenter();
+        // Answers nothing until every window has been submitted, as a filling batch would
+        final SegmentIdentifyInteractor interactor = new SegmentIdentifyInteractor(
+            new MockAudioDAI(new byte[2]), new BatchingIdentifyDAI(4), new MockSegmentFingerprinter(), presenter);
+
+        interactor.identifySegments();
+
+        assertNull(presenter.error);
+        final List<SegmentIdentifyOD.Segment> segments = presenter.outputData.segments();
+        assertEquals(3, segments.size());
+        assertEquals("song a", segments.get(0).songTitle());
+        assertNull(segments.get(1).songTitle());
+        assertEquals("song b", segments.get(2).songTitle());
+    }
+
+    @Test
+    public void failedLookupPresentsError() {
+        final MockPresenter presenter = new MockPresenter();
+        final SegmentIdentifyInteractor interactor = new SegmentIdentifyInteractor(
+            new MockAudioDAI(new byte[2]), new MockIdentifyDAI() {
+                @Override
+                public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint,
+                                                                                        int duration) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("server down"));
+                }
+            }, new MockSegmentFingerprinter(), presenter);
+
+        interactor.identifySegments();
+
+        assertNotNull(presenter.error);
+        assertTrue(presenter.error.contains("server down"));
+        assertNull(presenter.outputData);
+    }
+
+    @Test
+    public void missingAudioPresentsError() {
+        final MockPresenter presenter = new MockPresenter();
+        final SegmentIdentifyInteractor interactor = new SegmentIdentifyInteractor(
+            new MockAudioDAI(null), new MockIdentifyDAI(), new MockSegmentFingerprinter(), presenter);
+
+        interactor.identifySegments();
+
+        assertNotNull(presenter.error);
+        assertNull(presenter.outputData);
+    }
+
+    private static final class MockSegmentFingerprinter extends SegmentFingerprinter {
+        MockSegmentFingerprinter() {
+            super(null);
+        }
+
+        @Override
+        public List<FingerprintSegment> fingerprint(MemorySegment pcm, AudioFormat format) {
+            return List.of(
+                new FingerprintSegment(0, 30, "a"),
+                new FingerprintSegment(15, 45, "a"),
+                new FingerprintSegment(30, 60, "unknown"),
+                new FingerprintSegment(45, 75, "b"));
+        }
+    }
+
+    private static class MockIdentifyDAI implements IdentifyDAI {
+        @Override
+        public String getClosestMatchID(String fingerprint, int duration) {
+            return getClosestMatchMetadata(fingerprint, duration).acoustIDTrackID();
+        }
+
+        @Override
+        public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration) {
+            if (fingerprint.equals("unknown")) {
+                throw new FingerprintMatchNotFoundException(fingerprint);
+            }
+            return new Song.SongMetadata("song " + fingerprint, "mbid", "track " + fingerprint, "album",
+                new String[] {"artist"});
+        }
+    }
+
+    private static final class BatchingIdentifyDAI extends MockIdentifyDAI {
+        private final int batchSize;
+        private final List<String> fingerprints = new ArrayList<>();
+        private final List<CompletableFuture<Song.SongMetadata>> futures = new ArrayList<>();
+
+        BatchingIdentifyDAI(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public Song.SongMetadata getClosestMatchMetadata(String fingerprint, int duration, Priority priority) {
+            throw new AssertionError("Blocking lookups would never fill a batch");
+        }
+
+        @Override
+        public CompletableFuture<Song.SongMetadata> getClosestMatchMetadataAsync(String fingerprint, int duration) {
+            final CompletableFuture<Song.SongMetadata> future = new CompletableFuture<>();
+            fingerprints.add(fingerprint);
+            futures.add(future);
+            if (futures.size() == batchSize) {
+                for (int i = 0; i < batchSize; i++) {
+                    try {
+                        futures.get(i).complete(getClosestMatchMetadata(fingerprints.get(i), duration));
+                    }
+                    catch (FingerprintMatchNotFoundException exception) {
+                        futures.get(i).completeExceptionally(exception);
+                    }
+                }
+            }
+            return future;
+        }
+    }
+
+    private record MockAudioDAI(byte[] audio) implements SegmentIdentifyDAI {
+        @Override
+        public byte[] getAudioData() {
+            return audio;
+        }
+
+        @Override
+        public AudioFormat getAudioFormat() {
+            return FORMAT;
+        }
+    }
+
+    private static final class MockPresenter implements SegmentIdentifyOB {
+        private SegmentIdentifyOD outputData;
+        private String error;
+
+        @Override
+        public void presentTimeline(SegmentIdentifyOD outputData) {
+            this.outputData = outputData;
+        }
+
+        @Override
+        public void presentError(String errorMessage) {
+            this.error = errorMessage;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.wavelabs.soundscope.use_case.segment_identify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.wavelabs.soundscope.entity.Song;
+import org.wavelabs.soundscope.use_case.fingerprint.FingerprintSegment;
+
+public class SegmentTimelineTest {
+    private static final Song.SongMetadata FIRST = track("first");
+    private static final Song.SongMetadata SECOND = track("second");
+
+    @Test
+    public void mergesAdjacentWindowsOfTheSameTrack() {
+        final List<SegmentTimeline.Entry> timeline = SegmentTimeline.merge(
+            windows(5),
+            Arrays.asList(FIRST, FIRST, track("second"), SECOND, SECOND));
+
+        assertEquals(2, timeline.size());
+        assertEquals(0, timeline.get(0).startSeconds(), 0);
+        assertEquals("first", timeline.get(0).metadata().title());
+        assertEquals("second", timeline.get(1).metadata().title());
+        assertEquals(90, timeline.get(1).endSeconds(), 0);
+    }
+
+    @Test
+    public void placesBoundaryInTheMiddleOfTheOverlap() {
+        // Window 1 is [15, 45] and belongs to FIRST; window 2 is [30, 60] and belongs to SECOND
+        final List<SegmentTimeline.Entry> timeline = SegmentTimeline.merge(
+            windows(3), Arrays.asList(FIRST, FIRST, SECOND));
+
+        assertEquals(37.5, timeline.get(0).endSeconds(), 1e-9);
+        assertEquals(37.5, timeline.get(1).startSeconds(), 1e-9);
+    }
+
+    @Test
+    public void keepsUnidentifiedStretches() {
+        final List<SegmentTimeline.Entry> timeline = SegmentTimeline.merge(
+            windows(4), Arrays.asList(FIRST, null, null, FIRST));
+
+        assertEquals(3, timeline.size());
+        assertNull(timeline.get(1).metadata());
+        assertEquals("first", timeline.get(2).metadata().title());
+    }
+
+    @Test
+    public void emptyInputGivesEmptyTimeline() {
+        assertEquals(0, SegmentTimeline.merge(List.of(), List.of()).size());
+    }
+
+    private static List<FingerprintSegment> windows(int count) {
+        final FingerprintSegment[] segments = new FingerprintSegment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new FingerprintSegment(i * 15.0, i * 15.0 + 30, "fingerprint " + i);
+        }
+        return Arrays.asList(segments);
+    }
+
+    private static Song.SongMetadata track(String title) {
+        return new Song.SongMetadata(title, "mbid " + title, "track " + title, "album", new String[] {"artist"});
+    }
+}